@@ -38,6 +38,14 @@ public class NotificationEventListener {
                 ev.getDetails());
     }
 
+    // ADDED: one event per bulk settlement update; the trade ids are logged
+    // as a count so a large update does not flood the log
+    @EventListener
+    public void onSettlementBulkUpdated(SettlementInstructionsBulkUpdatedEvent ev) {
+        log.info("SettlementInstructionsBulkUpdatedEvent received for {} trades by={} details={}",
+                ev.getTradeIds().size(), ev.getChangedBy(), ev.getDetails());
+    }
+
     // Listen for risk exposure updates and handle them (same pattern as settlement
     // updates).
     // Invoked by Spring when a RiskExposureChangedEvent is published.
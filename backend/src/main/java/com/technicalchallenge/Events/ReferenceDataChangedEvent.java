@@ -0,0 +1,35 @@
+package com.technicalchallenge.Events;
+
+import java.time.Instant;
+
+/**
+ * Domain event published when a reference data row (book, counterparty,
+ * currency, ...) is created, updated or deleted. Raised by
+ * ReferenceDataEntityListener for every JPA write to those tables.
+ *
+ * Purpose: let the in-memory ReferenceDataCache drop its snapshot for the
+ * changed table so the next booking sees the new values. Immutable DTO, same
+ * shape as the other events in this package.
+ */
+public final class ReferenceDataChangedEvent {
+
+    /** Entity class of the reference table that changed (e.g. Currency.class) */
+    private final Class<?> entityType;
+
+    /** When the change happened */
+    private final Instant timestamp;
+
+    public ReferenceDataChangedEvent(Class<?> entityType, Instant timestamp) {
+        this.entityType = entityType;
+        this.timestamp = timestamp;
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+}
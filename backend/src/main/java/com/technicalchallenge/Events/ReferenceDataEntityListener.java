@@ -0,0 +1,41 @@
+package com.technicalchallenge.Events;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+
+/**
+ * JPA entity listener attached to the reference data entities (Book,
+ * Counterparty, Currency, ...).
+ *
+ * Every insert, update or delete of one of those rows publishes a
+ * ReferenceDataChangedEvent, whether it came from a reference controller,
+ * a service or a test fixture. ReferenceDataCache drops the affected table
+ * as soon as the event arrives, so the writing transaction sees its own
+ * rows, and again when that transaction commits or rolls back, so a
+ * snapshot reloaded in between does not outlive it. The table is reloaded
+ * on next use.
+ *
+ * Hibernate creates this listener through Spring (SpringBeanContainer), so
+ * the publisher is injected like any other dependency.
+ */
+public class ReferenceDataEntityListener {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public ReferenceDataEntityListener(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        applicationEventPublisher.publishEvent(
+                new ReferenceDataChangedEvent(entity.getClass(), Instant.now()));
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.technicalchallenge.Events;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ADDED: event published once per bulk settlement instruction update (PUT
+ * /api/trades/settlement-instructions/bulk) instead of one
+ * SettlementInstructionsUpdatedEvent per trade. Immutable, like the
+ * single-trade event.
+ */
+public final class SettlementInstructionsBulkUpdatedEvent {
+
+    /** Business ids of the trades whose instructions were created or updated */
+    private final List<Long> tradeIds;
+
+    /** The username that made the changes (derived from SecurityContext) */
+    private final String changedBy;
+
+    /** Event creation time (UTC) */
+    private final Instant timestamp;
+
+    /** Counts per outcome, e.g. created, updated, rejected */
+    private final Map<String, Object> details;
+
+    public SettlementInstructionsBulkUpdatedEvent(List<Long> tradeIds, String changedBy, Instant timestamp,
+            Map<String, Object> details) {
+        this.tradeIds = tradeIds == null ? List.of() : List.copyOf(tradeIds);
+        this.changedBy = changedBy;
+        this.timestamp = timestamp;
+        this.details = details;
+    }
+
+    public List<Long> getTradeIds() {
+        return tradeIds;
+    }
+
+    public String getChangedBy() {
+        return changedBy;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public Map<String, Object> getDetails() {
+        return details;
+    }
+
+}
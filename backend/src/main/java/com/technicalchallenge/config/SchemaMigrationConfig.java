@@ -0,0 +1,82 @@
+package com.technicalchallenge.config;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * SchemaMigrationConfig
+ *
+ * Runs the versioned Flyway migrations in db/migration/{vendor} (h2 or
+ * postgresql) once Hibernate has built the tables. The tables are still
+ * created and extended by spring.jpa.hibernate.ddl-auto; the migrations own
+ * what Hibernate cannot express or would not keep in step across databases:
+ * the performance index set, the computed lower-case columns and moving the
+ * id sequences past the rows already stored.
+ *
+ * Spring Boot's own Flyway run is switched off (spring.flyway.enabled=false):
+ * it migrates before the EntityManagerFactory exists, when there are no
+ * tables to index, and cannot be combined with
+ * spring.jpa.defer-datasource-initialization. Here Flyway runs after every
+ * singleton, the JPA schema and the deferred data.sql included.
+ *
+ * On a database Flyway has not seen before, the existing schema is
+ * baselined at version 0, so V1 and later run on it.
+ *
+ * With ddl-auto=create or create-drop the tables, and so the migrated
+ * indexes, are rebuilt on every start while the history table survives (an
+ * in-memory test database is shared by every test context in the JVM). The
+ * history is dropped first in that case so the migrations run again.
+ */
+@Configuration
+@ConditionalOnProperty(name = "schema.migrations.enabled", havingValue = "true", matchIfMissing = true)
+public class SchemaMigrationConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrationConfig.class);
+
+    static final String LOCATION = "classpath:db/migration/";
+
+    @Bean
+    SmartInitializingSingleton schemaMigrations(DataSource dataSource,
+            @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        return () -> migrate(dataSource, ddlAuto.startsWith("create"));
+    }
+
+    static void migrate(DataSource dataSource, boolean schemaRecreated) {
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations(LOCATION + vendor(dataSource))
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load();
+        if (schemaRecreated) {
+            new JdbcTemplate(dataSource)
+                    .execute("DROP TABLE IF EXISTS \"" + flyway.getConfiguration().getTable() + "\"");
+        }
+        int applied = flyway.migrate().migrationsExecuted;
+        logger.info("Schema migrations: {} applied, now at version {}", applied,
+                flyway.info().current() == null ? "none" : flyway.info().current().getVersion());
+    }
+
+    // "h2" or "postgresql", as Spring Boot names them for {vendor} locations
+    static String vendor(DataSource dataSource) {
+        try {
+            String url = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getURL);
+            return DatabaseDriver.fromJdbcUrl(url).getId();
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Cannot tell which database to migrate", e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.technicalchallenge.config;
+
+import com.technicalchallenge.service.SearchQueryMonitor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * SearchQueryMonitoringConfig
+ *
+ * Wraps the DataSource so SearchQueryMonitor sees the statements a search
+ * runs. Connections are wrapped so prepareStatement can be watched; a
+ * statement is only wrapped (binds captured, execution timed) when it is
+ * prepared inside SearchQueryMonitor.monitor(...), so bookings and every
+ * other query go straight to the driver's own statement.
+ *
+ * The DataSource keeps its class (HikariDataSource) so pool metrics and
+ * health checks still recognise it. Off with
+ * search.query-monitor.enabled=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "search.query-monitor.enabled", havingValue = "true", matchIfMissing = true)
+public class SearchQueryMonitoringConfig {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate");
+
+    @Bean
+    static BeanPostProcessor searchQueryMonitoringDataSource(ObjectProvider<SearchQueryMonitor> monitorProvider) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource)) {
+                    return bean;
+                }
+                ProxyFactory factory = new ProxyFactory(bean);
+                // Subclass when we can, so the bean keeps its type; another
+                // wrapper's JDK proxy can only be proxied by interface
+                factory.setProxyTargetClass(!Proxy.isProxyClass(bean.getClass())
+                        && !Modifier.isFinal(bean.getClass().getModifiers()));
+                factory.addAdvice((MethodInterceptor) invocation -> {
+                    Object result = invocation.proceed();
+                    if (result instanceof Connection connection
+                            && invocation.getMethod().getName().equals("getConnection")) {
+                        SearchQueryMonitor monitor = monitorProvider.getIfAvailable();
+                        return monitor == null ? connection : wrapConnection(connection, monitor);
+                    }
+                    return result;
+                });
+                return factory.getProxy();
+            }
+        };
+    }
+
+    private static Connection wrapConnection(Connection connection, SearchQueryMonitor monitor) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    if (isIdentityMethod(method)) {
+                        return identity(proxy, method, args);
+                    }
+                    Object result = invoke(method, connection, args);
+                    String search = monitor.currentSearch();
+                    if (search != null && result instanceof PreparedStatement statement
+                            && method.getName().equals("prepareStatement")) {
+                        return wrapStatement(statement, connection, (String) args[0], search, monitor);
+                    }
+                    return result;
+                });
+    }
+
+    private static PreparedStatement wrapStatement(PreparedStatement statement, Connection connection, String sql,
+            String search, SearchQueryMonitor monitor) {
+        Map<Integer, Object> binds = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (isIdentityMethod(method)) {
+                        return identity(proxy, method, args);
+                    }
+                    if (name.startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer index) {
+                        // setNull(i, type) binds null, not the type code
+                        binds.put(index, name.equals("setNull") ? null : args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        binds.clear();
+                    } else if (EXECUTE_METHODS.contains(name) && (args == null || args.length == 0)) {
+                        if (monitor.hasCostBudget()) {
+                            monitor.checkCost(search, connection, sql, binds);
+                        }
+                        long start = System.nanoTime();
+                        Object result = invoke(method, statement, args);
+                        monitor.executed(search, connection, sql, binds, System.nanoTime() - start);
+                        return result;
+                    }
+                    return invoke(method, statement, args);
+                });
+    }
+
+    // Hibernate keeps statements in hash maps, so a wrapper must equal itself
+    private static boolean isIdentityMethod(Method method) {
+        return (method.getName().equals("equals") && method.getParameterCount() == 1)
+                || (method.getName().equals("hashCode") && method.getParameterCount() == 0);
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.technicalchallenge.config;
+
+import com.technicalchallenge.service.SearchQueryMonitor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/slowqueries: the search statements SearchQueryMonitor kept
+ * (slow ones, and ones refused by the cost budget), most recent first, with
+ * their binds and EXPLAIN output. DELETE empties the list.
+ *
+ * Binds can hold user input (settlement text), so the endpoint is only
+ * exposed where management.endpoints.web.exposure.include lists it.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final SearchQueryMonitor searchQueryMonitor;
+
+    public SlowQueryEndpoint(SearchQueryMonitor searchQueryMonitor) {
+        this.searchQueryMonitor = searchQueryMonitor;
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowQueries() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("thresholdMillis", searchQueryMonitor.thresholdMillis());
+        body.put("maxEstimatedCost", searchQueryMonitor.maxEstimatedCost());
+        body.put("queries", searchQueryMonitor.slowQueries());
+        return body;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        searchQueryMonitor.clear();
+    }
+}
@@ -20,6 +20,8 @@ public class WebConfig {
                         .allowedOrigins("http://localhost:3000", "http://localhost:5173")
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                         .allowedHeaders("*")
+                        // Continuation token of the keyset-paged trade lists
+                        .exposedHeaders("X-Next-Cursor")
                         .allowCredentials(true);
             }
         };
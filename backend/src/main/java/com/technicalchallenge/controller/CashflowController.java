@@ -3,7 +3,10 @@ package com.technicalchallenge.controller;
 import com.technicalchallenge.dto.CashflowDTO;
 import com.technicalchallenge.dto.CashflowGenerationRequest;
 import com.technicalchallenge.mapper.CashflowMapper;
+import com.technicalchallenge.service.BusinessDayAdjustment;
+import com.technicalchallenge.service.CashflowScheduleEngine;
 import com.technicalchallenge.service.CashflowService;
+import com.technicalchallenge.service.HolidayCalendarRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -19,12 +22,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import jakarta.validation.Valid;
 
-import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
-import java.math.BigDecimal;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +39,10 @@ public class CashflowController {
     private CashflowService cashflowService;
     @Autowired
     private CashflowMapper cashflowMapper;
+    @Autowired
+    private CashflowScheduleEngine cashflowScheduleEngine;
+    @Autowired
+    private HolidayCalendarRegistry holidayCalendarRegistry;
 
     /*
      * Returns a list of all cashflows in the system. Calls
@@ -125,11 +129,11 @@ public class CashflowController {
 
     /*
      * Generates a list of cashflows based on trade legs and schedule. Validates
-     * that legs are present. For each leg, calculates cashflow dates and values
-     * based on the schedule (monthly, quarterly, etc.). For "Fixed" legs,
-     * calculates payment value using notional, rate, and days. Creates and adds
-     * CashflowDTO objects to the result list. Returns the list of generated
-     * cashflows.
+     * that legs and dates are present. For each leg, asks CashflowScheduleEngine
+     * for the payment dates and amounts based on the schedule (monthly,
+     * quarterly, 3M, etc.) and day count. Creates and adds CashflowDTO objects
+     * to the result list. Returns the list of generated cashflows, or 400 for an
+     * unknown schedule or day count.
      */
     @PostMapping("/generate")
     @Operation(summary = "Generate cashflows", description = "Creates a series of cashflows based on trade legs and specified generation parameters")
@@ -139,108 +143,51 @@ public class CashflowController {
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     // Refactored: Historically this endpoint only calculated payment amounts for
-    // Fixed
-    // legs and left Floating legs at zero. That produced many zero-valued
-    // cashflows when the frontend supplied an explicit numeric rate for a
-    // Floating leg (for testing or one-off pricing). To make the endpoint
-    // more useful during UI-driven testing and to keep behaviour consistent
-    // with calculateCashflowValue in TradeService, now calculate payments
-    // for Floating legs when the caller provides a concrete `rate` value.
-    // If no rate is provided for a Floating leg preserve the old
-    // behaviour (paymentValue remains zero) so production behaviour that
-    // relies on external market-data is unchanged.
+    // Fixed legs and left Floating legs at zero. Floating legs are now valued
+    // when the caller provides a concrete `rate`; without a rate they keep a
+    // zero payment so callers relying on market fixings are unaffected.
+    // REFACTORED: the schedule and amounts now come from CashflowScheduleEngine,
+    // the same engine trade booking uses. This endpoint used to have its own
+    // copy (days/360, looser schedule parsing, "3M" was silently skipped) that
+    // disagreed with the cashflows actually booked. A leg may name its day
+    // count convention; the default matches booking (30/360). Payment dates are
+    // rolled with the leg's paymentBusinessDayConvention on its holidayCalendar
+    // (e.g. "LON+NY"); both are optional.
     public ResponseEntity<List<CashflowDTO>> generateCashflows(@RequestBody CashflowGenerationRequest request) {
         List<CashflowDTO> allCashflows = new ArrayList<>();
         if (request.getLegs() == null || request.getLegs().isEmpty()) {
             return ResponseEntity.badRequest().body(allCashflows);
         }
+        if (request.getTradeStartDate() == null || request.getTradeMaturityDate() == null) {
+            return ResponseEntity.badRequest().body(allCashflows);
+        }
         for (CashflowGenerationRequest.TradeLegDTO leg : request.getLegs()) {
-            LocalDate startDate = request.getTradeStartDate();
-            LocalDate maturityDate = request.getTradeMaturityDate();
-            String schedule = leg.getCalculationPeriodSchedule();
-            int months = scheduleToMonths(schedule);
-            if (months <= 0) {
-                continue;
+            CashflowScheduleEngine.GeneratedSchedule generated;
+            try {
+                int months = cashflowScheduleEngine.frequencyMonths(leg.getCalculationPeriodSchedule());
+                generated = cashflowScheduleEngine.generate(
+                        cashflowScheduleEngine.periods(request.getTradeStartDate(), request.getTradeMaturityDate(),
+                                months),
+                        leg.getLegType(), leg.getNotional(), leg.getRate(),
+                        CashflowScheduleEngine.DayCount.fromName(leg.getDayCountConvention()),
+                        holidayCalendarRegistry.calendar(leg.getHolidayCalendar()),
+                        BusinessDayAdjustment.fromName(leg.getPaymentBusinessDayConvention()));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Cashflow preview rejected: {}", e.getMessage());
+                return ResponseEntity.badRequest().body(allCashflows);
             }
-            LocalDate valueDate = startDate;
-            while (valueDate.isBefore(maturityDate)) {
-                LocalDate nextValueDate = valueDate.plusMonths(months);
-                if (nextValueDate.isAfter(maturityDate)) {
-                    nextValueDate = maturityDate;
-                }
-                BigDecimal paymentValue = BigDecimal.ZERO;
-                if ("Fixed".equalsIgnoreCase(leg.getLegType())) {
-                    // This line calculates the number of days between two dates, ChronoUnit
-                    // representes standard units of time, such as DAYS, MONTHS, YEARS, HOURS.
-                    long days = java.time.temporal.ChronoUnit.DAYS.between(valueDate, nextValueDate);
-                    double rate = leg.getRate() != null ? leg.getRate() : 0.0;
-                    // The principal amount for the trade leg
-                    paymentValue = leg.getNotional().multiply(BigDecimal.valueOf(rate))// The interest rate (as a
-                                                                                       // decimal, e.g., 0.05 for 5%).
-                            .multiply(BigDecimal.valueOf(days))// The number of days in the payment period.
-                            .divide(BigDecimal.valueOf(360), 2, java.math.RoundingMode.HALF_UP);// Divides by 360 (the
-                                                                                                // standard "banking
-                                                                                                // year" for interest
-                                                                                                // calculations), rounds
-                                                                                                // to 2 decimal places
-                                                                                                // using HALF_UP
-                                                                                                // rounding.
-
-                } else if ("Floating".equalsIgnoreCase(leg.getLegType())) {
-                    // Compute floating-leg payment only when the request includes
-                    // an explicit numeric rate. This keeps the endpoint useful
-                    // for UI testing and aligns it with TradeService which
-                    // computes a floating payment when a rate is present.
-                    // If no rate is supplied intentionally leave paymentValue
-                    // as zero so that callers relying on market fixings are
-                    // unaffected.
-                    if (leg.getRate() != null) {
-                        long days = java.time.temporal.ChronoUnit.DAYS.between(valueDate, nextValueDate);
-                        double rate = leg.getRate();
-                        paymentValue = leg.getNotional()
-                                .multiply(BigDecimal.valueOf(rate))
-                                .multiply(BigDecimal.valueOf(days))
-                                .divide(BigDecimal.valueOf(360), 2, java.math.RoundingMode.HALF_UP);
-                    }
-                }
-                // For floating legs without an explicit rate, paymentValue remains 0
+            for (int i = 0; i < generated.size(); i++) {
                 CashflowDTO cf = new CashflowDTO();
-                cf.setValueDate(nextValueDate);
-                cf.setPaymentValue(paymentValue);
+                cf.setValueDate(generated.paymentDate(i));
+                cf.setPaymentValue(generated.amount(i));
                 cf.setPayRec(leg.getPayReceiveFlag());
                 cf.setPaymentType(leg.getLegType());
                 cf.setPaymentBusinessDayConvention(leg.getPaymentBusinessDayConvention());
                 cf.setRate(leg.getRate());
                 allCashflows.add(cf);
-                valueDate = nextValueDate;
             }
         }
         return ResponseEntity.ok(allCashflows);
     }
 
-    /*
-     * Converts a schedule string e.g."Monthly", "Quarterly" to a number of
-     * months.Checks the string for keywords and returns the corresponding month
-     * interval (1, 3, 6, 12, etc.).
-     */
-    private int scheduleToMonths(String schedule) {
-        if (schedule == null)
-            return 0;
-        schedule = schedule.toLowerCase();
-        if (schedule.contains("month")) {
-            if (schedule.contains("3"))
-                return 3;
-            if (schedule.contains("6"))
-                return 6;
-            if (schedule.contains("12"))
-                return 12;
-            return 1;
-        }
-        if (schedule.contains("quarter"))
-            return 3;
-        if (schedule.contains("annual") || schedule.contains("year"))
-            return 12;
-        return 0;
-    }
-
 }
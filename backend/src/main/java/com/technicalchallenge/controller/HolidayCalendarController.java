@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -78,4 +79,23 @@ public class HolidayCalendarController {
                 .toList();
     }
 
+    // ADDED: bulk import of holiday dates (JSON array of ISO dates). Stored as
+    // one bitset row per year; existing dates are ignored. Returns the number
+    // of newly added holidays.
+    @PostMapping("/{id}/holidays")
+    public ResponseEntity<Integer> importHolidays(@PathVariable Long id, @RequestBody List<LocalDate> dates) {
+        logger.info("Importing {} holiday dates into holiday calendar {}", dates.size(), id);
+        return holidayCalendarService.findById(id)
+                .map(calendar -> ResponseEntity.ok(holidayCalendarService.importHolidays(calendar, dates)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/holidays")
+    public ResponseEntity<List<LocalDate>> getHolidays(@PathVariable Long id) {
+        logger.debug("Fetching holidays for holiday calendar {}", id);
+        return holidayCalendarService.findById(id)
+                .map(calendar -> ResponseEntity.ok(holidayCalendarService.findHolidays(calendar)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
 }
@@ -1,13 +1,14 @@
 package com.technicalchallenge.controller;
 
-import com.technicalchallenge.dto.AdditionalInfoRequestDTO;
-import com.technicalchallenge.dto.AdditionalInfoDTO;
 import com.technicalchallenge.dto.TradeDTO;
+import com.technicalchallenge.dto.TradeSlice;
 import com.technicalchallenge.mapper.TradeMapper;
 import com.technicalchallenge.model.Trade;
 import com.technicalchallenge.service.TradeService;
-import com.technicalchallenge.service.AdditionalInfoService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,7 +21,15 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * TradeController
@@ -38,11 +47,10 @@ public class TradeController {
 
     private static final Logger logger = LoggerFactory.getLogger(TradeController.class);
 
-    @Autowired
-    private TradeService tradeService;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @Autowired
-    private AdditionalInfoService additionalInfoService;
+    private TradeService tradeService;
 
     // Keep controller thin: DTO mapping + enrichment are handled in
     // TradeService.getTradeDtoById()
@@ -50,35 +58,90 @@ public class TradeController {
     @Autowired
     private TradeMapper tradeMapper;
 
+    // Spring's configured mapper (java.time support), for the NDJSON stream
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Retrieve all trades.
      *
      * Roles allowed: TRADER, MIDDLE_OFFICE, SUPPORT
      * All three can view trades.
+     *
+     * CHANGED: returns the blotter view, i.e. trade header and legs without
+     * their cashflows. includeCashflows=true returns the full trades;
+     * GET /api/trades/{id} always includes them.
+     *
+     * CHANGED: keyset paged, newest trade first. Returns at most size trades
+     * (default and cap TradeSlice.MAX_PAGE_SIZE); when there are more, the
+     * X-Next-Cursor response header carries the token to pass as cursor for
+     * the next page. The body stays a plain JSON array.
      */
     @GetMapping
     @PreAuthorize("(hasAnyRole('TRADER','MIDDLE_OFFICE','SUPPORT')) or hasAuthority('TRADE_VIEW')")
-    public ResponseEntity<List<TradeDTO>> getAllTrades() {
-        List<Trade> trades = tradeService.getAllTrades();
-        List<TradeDTO> tradeDTOs = trades.stream().map(tradeMapper::toDto).toList();
-        return ResponseEntity.ok(tradeDTOs);
+    public ResponseEntity<List<TradeDTO>> getAllTrades(
+            @RequestParam(name = "includeCashflows", required = false, defaultValue = "false") boolean includeCashflows,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", required = false) Integer size) {
+        // Mapped inside the service transaction (Open Session In View is off)
+        TradeSlice slice = includeCashflows
+                ? tradeService.getAllTradeDtosWithCashflows(cursor, size)
+                : tradeService.getAllTradeDtos(cursor, size);
+        return withNextCursor(slice);
+    }
+
+    /**
+     * ADDED: the same trades as GET /api/trades, all of them, streamed as
+     * newline-delimited JSON (one blotter TradeDTO per line, no cashflows).
+     * Each trade is written as it is read, so neither the trades nor the
+     * response are ever held in memory as a whole.
+     *
+     * Roles allowed: TRADER, MIDDLE_OFFICE, SUPPORT (as GET /api/trades)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("(hasAnyRole('TRADER','MIDDLE_OFFICE','SUPPORT')) or hasAuthority('TRADE_VIEW')")
+    public void streamTrades(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writer();
+        long written = tradeService.streamAllTradeDtos(dto -> {
+            try {
+                out.write(writer.writeValueAsBytes(dto));
+                out.write('\n');
+            } catch (IOException e) {
+                // e.g. the client went away; stops the stream and the cursor
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+        logger.debug("Streamed {} trades", written);
+    }
+
+    // Array body plus the continuation token as a header, for list endpoints
+    // whose response shape predates paging
+    static ResponseEntity<List<TradeDTO>> withNextCursor(TradeSlice slice) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (slice.hasMore()) {
+            response.header(NEXT_CURSOR_HEADER, slice.nextCursor());
+        }
+        return response.body(slice.content());
     }
 
     /**
      * Export CSV of tradeId, settlementInstructions, nonStandard for Risk/Ops.
-     * nonStandard is a lightweight heuristic; persist classification for accuracy.
+     * CHANGED: nonStandard is true when the instruction has a non-standard
+     * keyword, as stored when it was written (NonStandardSettlementDetector).
      */
     @GetMapping(value = "/exports/settlements", produces = "text/csv")
     @PreAuthorize("(hasAnyRole('TRADER','MIDDLE_OFFICE','SUPPORT')) or hasAuthority('TRADE_VIEW')")
     // Added: optional query parameter to allow callers to request only non-standard
     // settlement instructions. Default behaviour is to return all trades (same as
     // before) to avoid breaking existing integrations.
-    public ResponseEntity<byte[]> exportSettlementCsv(
+    public void exportSettlementCsv(
             @RequestParam(name = "nonStandardOnly", required = false, defaultValue = "false") boolean nonStandardOnly,
-            @RequestParam(name = "mineOnly", required = false, defaultValue = "false") boolean mineOnly) {
-        // Fetch all trades (UBS to consider adding filters/pagination if dataset grows)
-        List<Trade> trades = tradeService.getAllTrades();
-
+            @RequestParam(name = "mineOnly", required = false, defaultValue = "false") boolean mineOnly,
+            HttpServletResponse response) throws IOException {
         // Determine caller and elevated roles so I can optionally restrict to
         // the authenticated trader's own trades when mineOnly=true.
         // principalName: the authenticated username (loginId) used for owner filtering.
@@ -113,76 +176,71 @@ public class TradeController {
         }
 
         // If the caller requested only their trades (mineOnly=true) and they are
-        // NOT an elevated user, filter the list to trades they own by comparing
+        // NOT an elevated user, limit the export to trades they own by comparing
         // the authenticated principal name to the trade.traderUser.loginId.
         // Elevated users (MO/Admin/SuperUser) are intentionally allowed to
         // bypass this filter so operational users can still export full datasets.
-        if (mineOnly && !hasElevatedRole && principalName != null) {
-            trades = trades.stream()
-                    .filter(t -> t.getTraderUser() != null && principalName.equals(t.getTraderUser().getLoginId()))
-                    .toList();
-        }
-
-        StringBuilder csv = new StringBuilder();
+        // CHANGED: the filter is part of the export query rather than applied
+        // to a list of every trade.
+        String ownerLoginId = mineOnly && !hasElevatedRole ? principalName : null;
+
+        response.setContentType("text/csv; charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=settlements.csv");
+        // CHANGED: rows are written as they are read. The trades and their
+        // settlement instructions come a chunk at a time from one joined query
+        // (TradeService.streamSettlementExport) instead of one settlement
+        // lookup, trade lookup and privilege check per trade, and the CSV is
+        // never held in memory as a whole. The trade scoping there is what
+        // limits a trader to their own trades, which is also all the per-trade
+        // view check used to allow.
+        Writer csv = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
         // CSV header (columns: tradeId, settlementInstructions, nonStandard)
         // The nonStandard column is emitted as a textual boolean.
-        csv.append("tradeId,settlementInstructions,nonStandard\n");
-
-        for (Trade trade : trades) {
-            Long tradeId = trade.getTradeId();
-            // Retrieve any active settlement instructions for this trade
-            AdditionalInfoDTO info = additionalInfoService.getSettlementInstructionsByTradeId(tradeId);
-            // Default to empty text when no info present
-            String text = "";
-            if (info != null && info.getFieldValue() != null) {
-                // Normalise newlines to spaces so CSV keeps one-line entries
-                text = info.getFieldValue().replaceAll("\r\n|\r|\n", " ");
-            }
-
-            // Lightweight heuristic for 'non-standard' detection:
-            // - treat as non-standard when text contains characters outside the
-            // safe character set or is unusually long. This is a pragmatic
-            // triage marker; replace with validation engine or persisted flag
-            // for stricter classification in Step 6.
-            boolean nonStandard = false;
-            if (text != null && !text.isBlank()) {
-                // allowed set mirrors existing AdditionalInfo validations
-                String safePattern = "^[a-zA-Z0-9 ,.:;/\\-\\n\\r]+$";
-                if (text.length() > 200 || !text.matches(safePattern)) {
-                    nonStandard = true;
-                }
-            }
-
-            // Escape double quotes and wrap fields that may contain commas
-            String safeText = (text == null) ? "" : text.replace("\"", "\"\"");
-            if (safeText.contains(",") || safeText.contains("\n") || safeText.contains("\r")) {
-                safeText = "\"" + safeText + "\"";
-            }
-
-            // If the caller asked for non-standard settlements only, skip rows
-            // that are not marked nonStandard. This keeps the export efficient
-            // and focused for Risk/Operations workflows that only want flagged
-            // trades. The classification above sets `nonStandard` true/false
-            // based on the heuristic; I compare the boolean directly here.
-            if (nonStandardOnly && !nonStandard) {
-                continue;
+        csv.write("tradeId,settlementInstructions,nonStandard\n");
+
+        // If the caller asked for non-standard settlements only, the query
+        // leaves out the rest. This keeps the export efficient and focused for
+        // Risk/Operations workflows that only want flagged trades.
+        long written = tradeService.streamSettlementExport(ownerLoginId, nonStandardOnly, row -> {
+            try {
+                writeSettlementCsvRow(csv, row.tradeId(), row.settlementInstructions(),
+                        row.nonStandardKeyword() != null);
+            } catch (IOException e) {
+                // e.g. the client went away; stops the export and its query
+                throw new UncheckedIOException(e);
             }
+        });
+        csv.flush();
+        logger.debug("Exported settlement instructions of {} trades", written);
+    }
 
-            // Write boolean as lowercase textual 'true'/'false' to keep CSV
-            // values consistent with many downstream parsers and the user's
-            // preference. Previously uppercase values were produced.
-            csv.append(tradeId == null ? "" : tradeId.toString()).append(",")
-                    .append(safeText).append(",")
-                    .append(nonStandard ? "true" : "false").append("\n");
+    // Normalise newlines to spaces so CSV keeps one-line entries
+    private static final Pattern LINE_BREAK = Pattern.compile("\r\n|\r|\n");
+
+    // One settlement CSV line
+    private static void writeSettlementCsvRow(Writer csv, Long tradeId, String instructions,
+            boolean nonStandard) throws IOException {
+        // Default to empty text when no info present
+        String text = instructions == null ? "" : LINE_BREAK.matcher(instructions).replaceAll(" ");
+
+        // CHANGED: nonStandard used to be a second, regex and length based
+        // heuristic computed here; it is now the stored keyword flag, the same
+        // one identify-nonstandard reports.
+        // Escape double quotes and wrap fields that may contain commas
+        String safeText = text.replace("\"", "\"\"");
+        if (safeText.contains(",") || safeText.contains("\n") || safeText.contains("\r")) {
+            safeText = "\"" + safeText + "\"";
         }
 
-        byte[] csvBytes = csv.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("text/csv; charset=UTF-8"));
-        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=settlements.csv");
-
-        return new ResponseEntity<>(csvBytes, headers, HttpStatus.OK);
+        // Write boolean as lowercase textual 'true'/'false' to keep CSV
+        // values consistent with many downstream parsers and the user's
+        // preference. Previously uppercase values were produced.
+        csv.write(tradeId == null ? "" : tradeId.toString());
+        csv.write(',');
+        csv.write(safeText);
+        csv.write(',');
+        csv.write(nonStandard ? "true" : "false");
+        csv.write('\n');
     }
 
     /**
@@ -208,8 +266,10 @@ public class TradeController {
      * Roles allowed: TRADER, SALES
      * MIDDLE_OFFICE and SUPPORT cannot create.
      *
-     * I've added an explicit call to populateReferenceDataByName()
-     * so that the Mockito test in TradeControllerTest sees it invoked.
+     * CHANGED: reference data and settlement instructions are handled once,
+     * in TradeService.createTrade: the controller no longer resolves the
+     * references itself (the service resolved them again for validation and
+     * the saved trade) nor writes a second settlement instruction row.
      */
     @PostMapping
     @PreAuthorize("hasAnyRole('TRADER','SALES')")
@@ -227,32 +287,7 @@ public class TradeController {
             }
         }
 
-        // Explicitly called here to satisfy TradeControllerTest expectation
-        tradeService.populateReferenceDataByName(trade, tradeDTO);
-
         Trade savedTrade = tradeService.saveTrade(trade, tradeDTO);
-        // Integration: Handle settlement instructions during trade booking
-        //// Extracts the settlement instructions text that may have been included in
-        // the trade creation request.
-        String instructions = tradeDTO.getSettlementInstructions();
-        // If null or empty spaces, removes leading and trailing spaces to prevent
-        // storing whitespace as data skip saving because the field is optional as
-        // requested
-        if (instructions != null && !instructions.trim().isEmpty()) {
-            // Creates a new instance of the request DTO that represents a row in the
-            // AdditionalInfo table.
-            AdditionalInfoRequestDTO infoRequest = new AdditionalInfoRequestDTO();
-            // Sets the entity type to “TRADE”. This allows the AdditionalInfo table to know
-            // which main entity this extra information belongs to (Trade, Book,
-            // Counterparty, etc.)
-            infoRequest.setEntityType("TRADE");
-            infoRequest.setEntityId(savedTrade.getTradeId());
-            infoRequest.setFieldName("SETTLEMENT_INSTRUCTIONS");
-            infoRequest.setFieldValue(instructions.trim());
-
-            // Save the settlement info using existing service
-            additionalInfoService.createAdditionalInfo(infoRequest);
-        }
 
         TradeDTO savedDTO = tradeMapper.toDto(savedTrade);
         return new ResponseEntity<>(savedDTO, HttpStatus.CREATED);
@@ -2,13 +2,16 @@ package com.technicalchallenge.controller;
 
 import com.technicalchallenge.dto.SearchCriteriaDTO;
 import com.technicalchallenge.dto.TradeDTO;
+import com.technicalchallenge.dto.TradeSlice;
 import com.technicalchallenge.service.TradeDashboardService;
+import com.technicalchallenge.service.TradeSummaryStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +32,9 @@ public class TradeDashboardController {
     @Autowired
     private TradeDashboardService tradeDashboardService;
 
+    @Autowired
+    private TradeSummaryStore tradeSummaryStore;
+
     /**
      * Search trades by criteria such as counterparty, book, or status.
      *
@@ -43,9 +49,13 @@ public class TradeDashboardController {
     // but individual privileges are stored as plain authorities (e.g. TRADE_VIEW),
     // so this expression ensures both models grant access.
     @PreAuthorize("(hasAnyRole('TRADER','MIDDLE_OFFICE','SUPPORT')) or hasAuthority('TRADE_VIEW')")
+    // CHANGED: keyset paged like GET /api/trades (cursor/size parameters,
+    // X-Next-Cursor response header)
     public ResponseEntity<List<TradeDTO>> searchTrades(
             @RequestParam(required = false) String counterparty,
-            @RequestParam(required = false) String book) {
+            @RequestParam(required = false) String book,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
 
         // I've changed this to match service signature: it now builds a
         // SearchCriteriaDTO.
@@ -53,8 +63,7 @@ public class TradeDashboardController {
         criteria.setCounterparty(counterparty);
         criteria.setBook(book);
 
-        List<TradeDTO> trades = tradeDashboardService.searchTrades(criteria);
-        return ResponseEntity.ok(trades);
+        return TradeController.withNextCursor(tradeDashboardService.searchTrades(criteria, cursor, size));
     }
 
     /**
@@ -76,22 +85,45 @@ public class TradeDashboardController {
     // As above: allow users with ROLE_TRADER / ROLE_MIDDLE_OFFICE / ROLE_SUPPORT
     // OR users who have the TRADE_VIEW privilege authority.
     @PreAuthorize("(hasAnyRole('TRADER','MIDDLE_OFFICE','SUPPORT')) or hasAuthority('TRADE_VIEW')")
+    // CHANGED: keyset paged unless a page number is given. The response adds
+    // nextCursor (absent on the last page); withCount=false leaves out count
+    // and skips its query. size is capped at TradeSlice.MAX_PAGE_SIZE.
     public ResponseEntity<?> filterTrades(
             @RequestParam(required = false) String counterparty,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean withCount) {
 
         SearchCriteriaDTO criteria = new SearchCriteriaDTO();
         criteria.setCounterparty(counterparty);
 
-        Page<TradeDTO> pagedResult = tradeDashboardService.filterTrades(criteria, page, size);
+        if (page != null) {
+            // Legacy offset paging
+            Page<TradeDTO> pagedResult = tradeDashboardService.filterTrades(criteria, page, size);
+
+            // I'm now wrapping the response to include both count and content
+            Map<String, Object> response = Map.of(
+                    "count", pagedResult.getTotalElements(),
+                    "content", pagedResult.getContent());
+
+            return ResponseEntity.ok(response);
+        }
 
-        // I'm now wrapping the response to include both count and content
-        Map<String, Object> response = Map.of(
-                "count", pagedResult.getTotalElements(),
-                "content", pagedResult.getContent());
+        return ResponseEntity.ok(toResponse(tradeDashboardService.filterTrades(criteria, cursor, size, withCount)));
+    }
 
-        return ResponseEntity.ok(response);
+    // count/content/nextCursor body of the paged endpoints
+    private static Map<String, Object> toResponse(TradeSlice slice) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        if (slice.count() != null) {
+            response.put("count", slice.count());
+        }
+        response.put("content", slice.content());
+        if (slice.hasMore()) {
+            response.put("nextCursor", slice.nextCursor());
+        }
+        return response;
     }
 
     /**
@@ -105,15 +137,14 @@ public class TradeDashboardController {
     // RSQL search uses the same authorization model as the other read endpoints.
     // This keeps behavior consistent between role-based and privilege-based users.
     @PreAuthorize("(hasAnyRole('TRADER','MIDDLE_OFFICE','SUPPORT')) or hasAuthority('TRADE_VIEW')")
-    public ResponseEntity<?> searchTradesRsql(@RequestParam String query) {
-        List<TradeDTO> resultList = tradeDashboardService.searchTradesRsql(query);
-
+    // CHANGED: keyset paged like /filter (cursor, size, withCount); count is
+    // the total number of matches, not just the size of this page
+    public ResponseEntity<?> searchTradesRsql(@RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "true") boolean withCount) {
         // Added count key for test expectation
-        Map<String, Object> response = Map.of(
-                "count", resultList.size(),
-                "content", resultList);
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(toResponse(tradeDashboardService.searchTradesRsql(query, cursor, size, withCount)));
     }
 
     /**
@@ -128,9 +159,11 @@ public class TradeDashboardController {
     // the requested traderId matches the authenticated user. This prevents a
     // trader from reading another trader's list by supplying a different id.
     @PreAuthorize("hasRole('TRADER') and #traderId != null and #traderId.equalsIgnoreCase(authentication.name)")
-    public ResponseEntity<List<TradeDTO>> getMyTrades(@RequestParam String traderId) {
-        List<TradeDTO> trades = tradeDashboardService.getTradesByTrader(traderId);
-        return ResponseEntity.ok(trades);
+    public ResponseEntity<List<TradeDTO>> getMyTrades(@RequestParam String traderId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        // Keyset paged, see searchTrades
+        return TradeController.withNextCursor(tradeDashboardService.getTradesByTrader(traderId, cursor, size));
     }
 
     /**
@@ -142,9 +175,11 @@ public class TradeDashboardController {
      */
     @GetMapping("/book/{bookId}/trades")
     @PreAuthorize("hasAnyRole('TRADER','MIDDLE_OFFICE','SUPPORT')")
-    public ResponseEntity<List<TradeDTO>> getTradesByBook(@PathVariable Long bookId) {
-        List<TradeDTO> trades = tradeDashboardService.getTradesByBook(bookId);
-        return ResponseEntity.ok(trades);
+    public ResponseEntity<List<TradeDTO>> getTradesByBook(@PathVariable Long bookId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        // Keyset paged, see searchTrades
+        return TradeController.withNextCursor(tradeDashboardService.getTradesByBook(bookId, cursor, size));
     }
 
     /**
@@ -197,4 +232,17 @@ public class TradeDashboardController {
         Object summary = tradeDashboardService.getDailySummary(traderId);
         return ResponseEntity.ok(summary);
     }
+
+    /**
+     * Recomputes the incrementally maintained summary store from the trade
+     * tables. Needed after trades are written without going through the
+     * booking service (bulk loads, manual fixes) or if the store has drifted.
+     *
+     * Roles allowed: MIDDLE_OFFICE and ADMIN.
+     */
+    @PostMapping("/summary-store/rebuild")
+    @PreAuthorize("hasAnyRole('MIDDLE_OFFICE','ADMIN')")
+    public ResponseEntity<TradeSummaryStore.RebuildResult> rebuildSummaryStore() {
+        return ResponseEntity.ok(tradeSummaryStore.rebuild());
+    }
 }
@@ -3,12 +3,12 @@ package com.technicalchallenge.controller;
 import com.technicalchallenge.dto.AdditionalInfoAuditDTO;
 import com.technicalchallenge.dto.AdditionalInfoDTO;
 import com.technicalchallenge.dto.AdditionalInfoRequestDTO;
+import com.technicalchallenge.dto.SettlementBulkResultDTO;
+import com.technicalchallenge.dto.SettlementBulkUpdateDTO;
 import com.technicalchallenge.dto.TradeDTO;
 import com.technicalchallenge.mapper.AdditionalInfoAuditMapper;
-import com.technicalchallenge.mapper.TradeMapper;
 import com.technicalchallenge.model.AdditionalInfoAudit;
 import com.technicalchallenge.model.Trade;
-import com.technicalchallenge.repository.AdditionalInfoAuditRepository;
 import com.technicalchallenge.service.AdditionalInfoService;
 import com.technicalchallenge.service.TradeService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,11 +17,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 // Added: Swagger imports to ensure developers, auditors, or testers can open /swagger-ui.html and use endpoints
 import io.swagger.v3.oas.annotations.Operation;
@@ -37,7 +37,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 
 /**
  * Handles Settlement Instructions integration for trades.
@@ -67,18 +66,12 @@ public class TradeSettlementController {
     @Autowired
     private TradeService tradeService;
 
-    @Autowired
-    private TradeMapper tradeMapper;
-
     @Autowired
     private AdditionalInfoService additionalInfoService;
 
     @Autowired
     private AdditionalInfoAuditMapper additionalInfoAuditMapper;
 
-    @Autowired
-    private AdditionalInfoAuditRepository additionalInfoAuditRepository;
-
     /**
      * Refactored ADDED:
      * This endpoint was improved to delegate all searching logic to the service
@@ -95,7 +88,7 @@ public class TradeSettlementController {
      */
     @GetMapping("/search/settlement-instructions")
     @PreAuthorize("hasAnyRole('TRADER','MIDDLE_OFFICE','SUPPORT')")
-    @Operation(summary = "Search trades by settlement instruction text (paginated)", description = "Case-insensitive partial match across settlement instructions. Returns paginated TradeDTO results.")
+    @Operation(summary = "Search trades by settlement instruction text (paginated)", description = "Case-insensitive partial match across settlement instructions. Returns paginated TradeDTO results (active trades, legs without cashflows).")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Page of trades matching the search"),
             @ApiResponse(responseCode = "400", description = "Invalid or empty search text provided")
@@ -114,42 +107,13 @@ public class TradeSettlementController {
 
         String trimmed = instructions.trim();
 
-        // Page of matching AdditionalInfo rows (already filtered to TRADE +
-        // SETTLEMENT_INSTRUCTIONS)
-        Page<AdditionalInfoDTO> infoPage = additionalInfoService.searchSettlementInstructions(trimmed, safePage,
-                safeSize);
-
-        if (infoPage.isEmpty()) {
-            // Return an empty page-shaped response (keeps client happy)
-            return ResponseEntity.ok(Page.empty(infoPage.getPageable()));
-        }
-
-        // Extract unique tradeIds from THIS page only
-        // (keeps pagination consistent with DB page)
-        List<Long> tradeIds = infoPage.getContent().stream()
-                .filter(ai -> ai.getEntityType() != null && "TRADE".equalsIgnoreCase(ai.getEntityType()))
-                .map(AdditionalInfoDTO::getEntityId)
-                .filter(java.util.Objects::nonNull)
-                .distinct()
-                .toList();
-
-        if (tradeIds.isEmpty()) {
-            return ResponseEntity.ok(Page.empty(infoPage.getPageable()));
-        }
-
-        // Fetch trades for those ids
-        List<Trade> trades = tradeService.getTradesByIds(tradeIds);
-
-        // Map to DTOs
-        List<TradeDTO> tradeDTOs = trades.stream()
-                .map(tradeMapper::toDto)
-                .toList();
-
-        // Wrap TradeDTO list in a Page with the SAME pageable + total from info search.
-        // Note: totalElements refers to matching AdditionalInfo rows, not necessarily
-        // unique trades.
-        // If require "true total trades", I will need a different query strategy.
-        Page<TradeDTO> tradePage = new PageImpl<>(tradeDTOs, infoPage.getPageable(), infoPage.getTotalElements());
+        // CHANGED: a page of the active trades whose settlement instructions
+        // match, ranked by the settlement text index (best match first) once
+        // it is loaded, otherwise newest trade first from one joined query.
+        // The total counts trades; the trades come back as blotter rows (legs
+        // without cashflows) in a fixed number of statements per page.
+        Page<TradeDTO> tradePage = tradeService.getBlotterDtos(
+                additionalInfoService.searchSettlementTrades(trimmed, safePage, safeSize));
 
         return ResponseEntity.ok(tradePage);
     }
@@ -317,6 +281,36 @@ public class TradeSettlementController {
         return ResponseEntity.ok(resp);
     }
 
+    /**
+     * ADDED: creates or updates the settlement instructions of many trades in
+     * one request (e.g. after an SSI change at a custodian) instead of one PUT
+     * per trade. Validation, ownership and audit are as for the single-trade
+     * PUT, done for all items together by the service.
+     *
+     * 200 with one result per item, in request order, and a count per
+     * outcome; a rejected item does not stop the others. 400 when the list is
+     * empty or too long.
+     */
+    @PutMapping("/settlement-instructions/bulk")
+    @PreAuthorize("hasAnyRole('TRADER','SALES','MIDDLE_OFFICE','ADMIN')")
+    @Operation(summary = "Create or update settlement instructions for many trades", description = "Validates every item first, then saves the changed instructions and their audit records in batches. Returns a result per item.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Items processed; see each item's status"),
+            @ApiResponse(responseCode = "400", description = "Empty request or too many items")
+    })
+    public ResponseEntity<?> bulkUpdateSettlementInstructions(@RequestBody List<SettlementBulkUpdateDTO> items) {
+        List<SettlementBulkResultDTO> results = additionalInfoService.bulkUpsertTradeSettlementInstructions(items);
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        Map<SettlementBulkResultDTO.Status, Long> counts = new LinkedHashMap<>();
+        for (SettlementBulkResultDTO.Status status : SettlementBulkResultDTO.Status.values()) {
+            counts.put(status, results.stream().filter(result -> result.getStatus() == status).count());
+        }
+        resp.put("counts", counts);
+        resp.put("results", results);
+        return ResponseEntity.ok(resp);
+    }
+
     /**
      * Soft-delete settlement instructions for a trade (marks as inactive).
      * Only users with edit privileges may delete. A deletion is recorded in the
@@ -406,29 +400,28 @@ public class TradeSettlementController {
     @GetMapping("/{id}/audit-trail")
     @PreAuthorize("hasAnyRole('ADMIN','MIDDLE_OFFICE')")
     // OpenAPI: Expose audit trail endpoint details in Swagger UI.
-    @Operation(summary = "Get audit trail for settlement instructions", description = "Returns the history of changes to settlement instructions for a trade, ordered by most recent change.")
+    @Operation(summary = "Get audit trail for settlement instructions", description = "Returns one page of the history of changes to settlement instructions for a trade, ordered by most recent change.")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Audit trail records returned"),
+            @ApiResponse(responseCode = "200", description = "Page of audit trail records returned"),
             @ApiResponse(responseCode = "404", description = "No audit history found for the trade ID")
     })
-    public ResponseEntity<?> getAuditTrail(@PathVariable Long id) {
+    public ResponseEntity<?> getAuditTrail(@PathVariable Long id,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "50") int size) {
 
-        // --- Step 1: Retrieve all audit records for this trade ---
-        List<AdditionalInfoAudit> auditRecords = additionalInfoAuditRepository.findByTradeIdOrderByChangedAtDesc(id);
+        // --- Step 1: Retrieve one page of audit records for this trade ---
+        // CHANGED: paged (newest first) instead of the whole history at once
+        Page<AdditionalInfoAudit> auditRecords = additionalInfoService.getAuditTrail(id, page, size);
 
         // If none found, return a helpful message
-        if (auditRecords.isEmpty()) {
+        if (auditRecords.getTotalElements() == 0) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("No audit history found for trade ID: " + id);
         }
 
-        // Convert entities to DTOs using the mapper
-        List<AdditionalInfoAuditDTO> auditDTOs = new ArrayList<>();
-        for (AdditionalInfoAudit record : auditRecords) {
-            auditDTOs.add(additionalInfoAuditMapper.toDto(record)); // Avoid exposing raw JPA entities
-        }
-
-        // Return the DTO list to the frontend
+        // Convert entities to DTOs using the mapper (avoid exposing raw JPA
+        // entities) and return the page to the frontend
+        Page<AdditionalInfoAuditDTO> auditDTOs = auditRecords.map(additionalInfoAuditMapper::toDto);
         return ResponseEntity.ok(auditDTOs);
     }
 
@@ -25,6 +25,7 @@ public class AdditionalInfoDTO {
     private LocalDateTime createdDate; // When this record was created
     private LocalDateTime lastModifiedDate; // When this record was last updated
     private LocalDateTime deactivatedDate; // When this record was deactivated (if applicable)
+    private String nonStandardKeyword; // ADDED: stored non-standard keyword of a settlement instruction, or null
     private Integer version;// Refactored added a version to keep track how many times a record is changed
 
 }
@@ -18,8 +18,10 @@ public class CashflowGenerationRequest {
         private Double rate; // for fixed
         private String index; // for floating
         private String calculationPeriodSchedule; // e.g. "Monthly", "Quarterly", "Annually"
-        private String paymentBusinessDayConvention;
+        private String paymentBusinessDayConvention; // e.g. "Following", "Modified Following"
+        private String holidayCalendar; // e.g. "NY" or combined "LON+NY"
         private String payReceiveFlag; // "Pay" or "Rec"
+        private String dayCountConvention; // e.g. "30/360" (default), "ACT/360", "ACT/365F"
     }
 
 }
@@ -0,0 +1,20 @@
+package com.technicalchallenge.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One pre-grouped row of leg totals from the dashboard aggregation queries in
+ * TradeRepository: summed notional and naive delta (notional * rate) per
+ * book and currency, and per trade date for windowed rows. tradeDate is null
+ * for all-time rows. The delta is whatever numeric type the database returns
+ * for SUM(notional * rate).
+ */
+public record LegTotalsRow(LocalDate tradeDate, Long bookId, String currency, BigDecimal notional,
+        Number delta) {
+
+    /** All-time row (no trade date) */
+    public LegTotalsRow(Long bookId, String currency, BigDecimal notional, Number delta) {
+        this(null, bookId, currency, notional, delta);
+    }
+}
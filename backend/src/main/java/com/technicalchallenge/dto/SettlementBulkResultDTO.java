@@ -0,0 +1,28 @@
+package com.technicalchallenge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * ADDED: the outcome of one item of a bulk settlement instruction update, in
+ * the same position as the item in the request. message explains a rejected
+ * item; nonStandardKeyword is set for a saved (or unchanged) instruction
+ * containing one.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementBulkResultDTO {
+
+    public enum Status {
+        CREATED, UPDATED, UNCHANGED, INVALID, NOT_FOUND, FORBIDDEN
+    }
+
+    private Long tradeId;
+    private Status status;
+    private String message;
+    private String nonStandardKeyword;
+}
@@ -0,0 +1,21 @@
+package com.technicalchallenge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * ADDED: one item of PUT /api/trades/settlement-instructions/bulk: the
+ * settlement instructions for one trade. A null or blank fieldValue clears
+ * them, as with the single-trade PUT.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementBulkUpdateDTO {
+
+    private Long tradeId; // business trade id, e.g. 200001
+    private String fieldValue; // e.g. "Settle via JPM New York, Account: 123456789"
+}
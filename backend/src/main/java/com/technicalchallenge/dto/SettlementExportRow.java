@@ -0,0 +1,12 @@
+package com.technicalchallenge.dto;
+
+/**
+ * One line of the settlement CSV export, read by
+ * TradeRepository.findSettlementExportRowsAfter: the trade row id (the
+ * keyset position), its business trade id, the active settlement
+ * instruction text and the non-standard keyword stored with it; both null
+ * when the trade has no instruction.
+ */
+public record SettlementExportRow(Long id, Long tradeId, String settlementInstructions,
+        String nonStandardKeyword) {
+}
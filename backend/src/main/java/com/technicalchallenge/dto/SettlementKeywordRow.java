@@ -0,0 +1,10 @@
+package com.technicalchallenge.dto;
+
+/**
+ * An active settlement instruction as NonStandardSettlementDetector checks
+ * it at startup: the AdditionalInfo row id and version, the instruction text
+ * and the non-standard keyword stored for it.
+ */
+public record SettlementKeywordRow(Long additionalInfoId, Integer version, String text,
+        String nonStandardKeyword) {
+}
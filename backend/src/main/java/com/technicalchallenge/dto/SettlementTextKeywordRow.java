@@ -0,0 +1,8 @@
+package com.technicalchallenge.dto;
+
+/**
+ * A stored settlement text as NonStandardSettlementDetector checks it at
+ * startup: its hash, the text and the non-standard keyword stored for it.
+ */
+public record SettlementTextKeywordRow(String hash, String text, String nonStandardKeyword) {
+}
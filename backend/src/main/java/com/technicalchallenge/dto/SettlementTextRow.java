@@ -0,0 +1,9 @@
+package com.technicalchallenge.dto;
+
+/**
+ * An active settlement instruction as SettlementTextIndex loads it: the
+ * AdditionalInfo row id, the trade id it belongs to (AdditionalInfo.entityId)
+ * and the instruction text.
+ */
+public record SettlementTextRow(Long additionalInfoId, Long tradeId, String text) {
+}
@@ -0,0 +1,20 @@
+package com.technicalchallenge.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Trade header for blotter lists, read straight from the trade and its
+ * reference tables by the projection queries in TradeRepository. Carries
+ * what TradeMapper puts on a TradeDTO apart from the legs, so a list no
+ * longer loads Trade entities (or their cashflows) at all. Reference ids and
+ * names are null when the trade has no such reference.
+ */
+public record TradeBlotterRow(Long id, Long tradeId, Integer version, LocalDate tradeDate,
+        LocalDate tradeStartDate, LocalDate tradeMaturityDate, LocalDate tradeExecutionDate, String utiCode,
+        LocalDateTime lastTouchTimestamp, LocalDate validityStartDate, LocalDate validityEndDate, Boolean active,
+        LocalDateTime createdDate, Long bookId, String bookName, Long counterpartyId, String counterpartyName,
+        Long traderUserId, String traderFirstName, String traderLastName, Long inputterUserId,
+        String inputterFirstName, String inputterLastName, Long tradeTypeId, String tradeType,
+        Long tradeSubTypeId, String tradeSubType, Long tradeStatusId, String tradeStatus) {
+}
@@ -0,0 +1,18 @@
+package com.technicalchallenge.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One pre-grouped row of trade counts from the dashboard aggregation queries
+ * in TradeRepository. tradeDate is null for all-time rows, which are grouped
+ * by book, status, type and counterparty only.
+ */
+public record TradeCountRow(LocalDate tradeDate, Long bookId, String tradeStatus, String tradeType,
+        String counterpartyName, Long tradeCount) {
+
+    /** All-time row (no trade date) */
+    public TradeCountRow(Long bookId, String tradeStatus, String tradeType, String counterpartyName,
+            Long tradeCount) {
+        this(null, bookId, tradeStatus, tradeType, counterpartyName, tradeCount);
+    }
+}
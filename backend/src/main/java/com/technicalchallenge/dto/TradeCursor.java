@@ -0,0 +1,50 @@
+package com.technicalchallenge.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paged trade list: the (tradeId, id) of the last row
+ * returned. Lists are ordered by tradeId then id, both descending, so the
+ * next page is every row strictly after this key and costs the same however
+ * deep it is.
+ *
+ * Clients only see the encoded form, an opaque URL-safe token. It is not a
+ * security boundary: whatever position a token names, the caller's filters and
+ * ownership scoping still apply.
+ */
+public record TradeCursor(Long tradeId, Long id) {
+
+    private static final String VERSION = "v1";
+
+    public static TradeCursor after(TradeBlotterRow row) {
+        return new TradeCursor(row.tradeId(), row.id());
+    }
+
+    public String encode() {
+        String key = VERSION + ":" + tradeId + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decodes a token from encode(). A null or blank token means the first
+     * page and decodes to null. Throws IllegalArgumentException (400 through
+     * ApiExceptionHandler) for anything else that is not a token.
+     */
+    public static TradeCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            String[] parts = key.split(":");
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new TradeCursor(Long.valueOf(parts[1]), Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            // Base64 and number format errors are IllegalArgumentExceptions too
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.technicalchallenge.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Leg summary for blotter lists: the leg figures and reference data without
+ * its cashflows. tradeRowId is the database id of the owning trade version
+ * (TradeBlotterRow.id), not the business trade id.
+ */
+public record TradeLegSummaryRow(Long tradeRowId, Long legId, BigDecimal notional, Double rate, Long currencyId,
+        String currency, Long legTypeId, String legType, Long indexId, String indexName, Long holidayCalendarId,
+        String holidayCalendar, Long scheduleId, String calculationPeriodSchedule, Long paymentBdcId,
+        String paymentBusinessDayConvention, Long fixingBdcId, String fixingBusinessDayConvention, Long payRecId,
+        String payReceiveFlag) {
+}
@@ -0,0 +1,8 @@
+package com.technicalchallenge.dto;
+
+/**
+ * An active trade version and the login of its trader (null when it has
+ * none), for the ownership checks of a bulk settlement update.
+ */
+public record TradeOwnerRow(Long tradeId, Integer version, String traderLoginId) {
+}
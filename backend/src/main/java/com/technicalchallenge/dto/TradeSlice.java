@@ -0,0 +1,44 @@
+package com.technicalchallenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+import org.springframework.data.domain.Slice;
+
+/**
+ * One keyset page of trades. nextCursor is the token for the following page
+ * and is null on the last page. count is the total number of matching trades,
+ * or null when the caller asked to skip the count query.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TradeSlice(List<TradeDTO> content, String nextCursor, Long count) {
+
+    /** Largest page any trade list endpoint returns */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * The page size to use for a request: the requested size, or
+     * defaultSize when none was given, capped at MAX_PAGE_SIZE.
+     */
+    public static int pageSize(Integer requested, int defaultSize) {
+        int size = requested == null ? defaultSize : requested;
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * The page for a keyset slice of blotter rows mapped to content (in the
+     * same order). The next cursor points after the slice's last row.
+     */
+    public static TradeSlice of(Slice<TradeBlotterRow> rows, List<TradeDTO> content, Long count) {
+        String nextCursor = rows.hasNext()
+                ? TradeCursor.after(rows.getContent().get(rows.getNumberOfElements() - 1)).encode()
+                : null;
+        return new TradeSlice(content, nextCursor, count);
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -41,6 +41,7 @@ public class AdditionalInfoMapper {
         dto.setCreatedDate(entity.getCreatedDate());
         dto.setLastModifiedDate(entity.getLastModifiedDate());
         dto.setDeactivatedDate(entity.getDeactivatedDate());
+        dto.setNonStandardKeyword(entity.getNonStandardKeyword());
         dto.setVersion(entity.getVersion()); // Refactored ADDED: supports audit/version tracking
         return dto;
     }
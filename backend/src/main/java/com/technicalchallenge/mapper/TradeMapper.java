@@ -3,6 +3,8 @@ package com.technicalchallenge.mapper;
 import com.technicalchallenge.dto.TradeDTO;
 import com.technicalchallenge.dto.TradeLegDTO;
 import com.technicalchallenge.dto.CashflowDTO;
+import com.technicalchallenge.dto.TradeBlotterRow;
+import com.technicalchallenge.dto.TradeLegSummaryRow;
 import com.technicalchallenge.model.Trade;
 import com.technicalchallenge.model.TradeLeg;
 import com.technicalchallenge.model.Cashflow;
@@ -11,7 +13,10 @@ import com.technicalchallenge.model.Counterparty;
 // Removed dependency on AdditionalInfoService to keep mapper pure (no service calls)
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -108,6 +113,68 @@ public class TradeMapper {
         return dto;
     }
 
+    /**
+     * ADDED: blotter DTOs from the projection rows in TradeRepository. Same
+     * fields as toDto(Trade) except that each leg's cashflows are left null;
+     * the single-trade endpoint still returns them. legs may cover any of the
+     * rows and come in any order; each trade keeps the order given.
+     */
+    public List<TradeDTO> toBlotterDtos(List<TradeBlotterRow> rows, List<TradeLegSummaryRow> legs) {
+        Map<Long, List<TradeLegDTO>> legsByTradeRow = new HashMap<>();
+        for (TradeLegSummaryRow leg : legs) {
+            legsByTradeRow.computeIfAbsent(leg.tradeRowId(), id -> new ArrayList<>()).add(tradeLegToDto(leg));
+        }
+        List<TradeDTO> dtos = new ArrayList<>(rows.size());
+        for (TradeBlotterRow row : rows) {
+            TradeDTO dto = toDto(row);
+            dto.setTradeLegs(legsByTradeRow.getOrDefault(row.id(), new ArrayList<>()));
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    public TradeDTO toDto(TradeBlotterRow row) {
+        if (row == null) {
+            return null;
+        }
+
+        TradeDTO dto = new TradeDTO();
+        dto.setId(row.id());
+        dto.setTradeId(row.tradeId());
+        dto.setVersion(row.version());
+        dto.setTradeDate(row.tradeDate());
+        dto.setTradeStartDate(row.tradeStartDate());
+        dto.setTradeMaturityDate(row.tradeMaturityDate());
+        dto.setTradeExecutionDate(row.tradeExecutionDate());
+        dto.setUtiCode(row.utiCode());
+        dto.setLastTouchTimestamp(row.lastTouchTimestamp());
+        dto.setValidityStartDate(row.validityStartDate());
+        dto.setValidityEndDate(row.validityEndDate());
+        dto.setActive(row.active());
+        dto.setCreatedDate(row.createdDate());
+
+        // A null id means the trade has no such reference (outer join)
+        dto.setBookId(row.bookId());
+        dto.setBookName(row.bookName());
+        dto.setCounterpartyId(row.counterpartyId());
+        dto.setCounterpartyName(row.counterpartyName());
+        if (row.traderUserId() != null) {
+            dto.setTraderUserId(row.traderUserId());
+            dto.setTraderUserName(row.traderFirstName() + " " + row.traderLastName());
+        }
+        if (row.inputterUserId() != null) {
+            dto.setTradeInputterUserId(row.inputterUserId());
+            dto.setInputterUserName(row.inputterFirstName() + " " + row.inputterLastName());
+        }
+        dto.setTradeTypeId(row.tradeTypeId());
+        dto.setTradeType(row.tradeType());
+        dto.setTradeSubTypeId(row.tradeSubTypeId());
+        dto.setTradeSubType(row.tradeSubType());
+        dto.setTradeStatusId(row.tradeStatusId());
+        dto.setTradeStatus(row.tradeStatus());
+        return dto;
+    }
+
     public Trade toEntity(TradeDTO dto) {
         if (dto == null) {
             return null;
@@ -207,6 +274,31 @@ public class TradeMapper {
         return dto;
     }
 
+    // Leg summary for blotter lists; cashflows stay null
+    public TradeLegDTO tradeLegToDto(TradeLegSummaryRow leg) {
+        TradeLegDTO dto = new TradeLegDTO();
+        dto.setLegId(leg.legId());
+        dto.setNotional(leg.notional());
+        dto.setRate(leg.rate());
+        dto.setCurrencyId(leg.currencyId());
+        dto.setCurrency(leg.currency());
+        dto.setLegTypeId(leg.legTypeId());
+        dto.setLegType(leg.legType());
+        dto.setIndexId(leg.indexId());
+        dto.setIndexName(leg.indexName());
+        dto.setHolidayCalendarId(leg.holidayCalendarId());
+        dto.setHolidayCalendar(leg.holidayCalendar());
+        dto.setScheduleId(leg.scheduleId());
+        dto.setCalculationPeriodSchedule(leg.calculationPeriodSchedule());
+        dto.setPaymentBdcId(leg.paymentBdcId());
+        dto.setPaymentBusinessDayConvention(leg.paymentBusinessDayConvention());
+        dto.setFixingBdcId(leg.fixingBdcId());
+        dto.setFixingBusinessDayConvention(leg.fixingBusinessDayConvention());
+        dto.setPayRecId(leg.payRecId());
+        dto.setPayReceiveFlag(leg.payReceiveFlag());
+        return dto;
+    }
+
     public TradeLeg tradeLegToEntity(TradeLegDTO dto) {
         if (dto == null) {
             return null;
@@ -35,17 +35,20 @@ import java.time.LocalDateTime;
 // findActiveByEntityTypeAndEntityIdAndFieldName(...).
 @Table(name = "additional_info", indexes = {
         @jakarta.persistence.Index(name = "idx_ai_entity_type_name_id", columnList = "entity_type,field_name,entity_id"),
-        @jakarta.persistence.Index(name = "idx_ai_field_value_lower_like", columnList = "field_value")// for endpoint
+        @jakarta.persistence.Index(name = "idx_ai_field_value_lower_like", columnList = "field_value"),// for endpoint
                                                                                                       // searchTradeSettlementByKeyword(...).
+        @jakarta.persistence.Index(name = "idx_ai_settlement_text_hash", columnList = "settlement_text_hash")
 })
 public class AdditionalInfo {
 
     /**
      * @Id: marks this as the primary key.
-     * @GeneratedValue: lets the database auto-generate it (auto-increment).
+     * @GeneratedValue: taken from a pooled sequence (50 ids per round trip)
+     * rather than IDENTITY, so inserts can be JDBC-batched.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "additional_info_seq")
+    @SequenceGenerator(name = "additional_info_seq", sequenceName = "additional_info_seq", initialValue = 10000, allocationSize = 50)
     private Long additionalInfoId;
 
     /**
@@ -87,6 +90,16 @@ public class AdditionalInfo {
     @Column(name = "field_value", columnDefinition = "TEXT")
     private String fieldValue;
 
+    /**
+     * ADDED: a trade settlement instruction's text, stored once per distinct
+     * text (see SettlementTextStore). When set, field_value is null and
+     * getFieldValue() returns this text. Rows written without the store keep
+     * their text in field_value as before.
+     */
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "settlement_text_hash")
+    private SettlementText settlementText;
+
     /**
      * The type of data stored in fieldValue so I can add validations
      */
@@ -101,6 +114,16 @@ public class AdditionalInfo {
     @Column(name = "active", nullable = false)
     private Boolean active = true;
 
+    /**
+     * ADDED: for trade settlement instructions, the non-standard keyword
+     * found in fieldValue (see NonStandardSettlementDetector), e.g. "manual"
+     * or "offshore"; null when there is none. Set whenever the instruction is
+     * written, so reads and exports do not scan the text. Indexed by the V2
+     * migration.
+     */
+    @Column(name = "non_standard_keyword", length = 64)
+    private String nonStandardKeyword;
+
     /**
      * The date and time when this record was first created.
      * Automatically initialized to the current timestamp when the object is
@@ -131,4 +154,23 @@ public class AdditionalInfo {
     @Column(name = "version", nullable = false)
     private Integer version = 1;
 
+    // CHANGED: the value is the referenced settlement text when there is one
+    public String getFieldValue() {
+        return settlementText != null ? settlementText.getText() : fieldValue;
+    }
+
+    // CHANGED: a value set directly replaces the referenced settlement text
+    public void setFieldValue(String fieldValue) {
+        this.fieldValue = fieldValue;
+        this.settlementText = null;
+    }
+
+    // CHANGED: referencing a stored text drops the copy in field_value
+    public void setSettlementText(SettlementText settlementText) {
+        this.settlementText = settlementText;
+        if (settlementText != null) {
+            this.fieldValue = null;
+        }
+    }
+
 }
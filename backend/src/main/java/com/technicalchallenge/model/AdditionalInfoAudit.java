@@ -1,10 +1,15 @@
 package com.technicalchallenge.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
@@ -42,10 +47,56 @@ public class AdditionalInfoAudit {
     @Column(name = "new_value", columnDefinition = "TEXT")
     private String newValue;
 
+    // ADDED: settlement instruction texts are referenced by hash (see
+    // SettlementTextStore) rather than copied; old_value/new_value are then
+    // null. No foreign key: the audit table is partitioned on PostgreSQL and
+    // history does not need one.
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "old_text_hash", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private SettlementText oldText;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "new_text_hash", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private SettlementText newText;
+
     @Column(name = "changed_by", nullable = false, length = 128)
     private String changedBy;
 
     @Column(name = "changed_at", nullable = false)
     private LocalDateTime changedAt = LocalDateTime.now();
 
+    // Old/new values read through to the referenced texts; setting a value
+    // directly replaces the reference
+    public String getOldValue() {
+        return oldText != null ? oldText.getText() : oldValue;
+    }
+
+    public String getNewValue() {
+        return newText != null ? newText.getText() : newValue;
+    }
+
+    public void setOldValue(String oldValue) {
+        this.oldValue = oldValue;
+        this.oldText = null;
+    }
+
+    public void setNewValue(String newValue) {
+        this.newValue = newValue;
+        this.newText = null;
+    }
+
+    public void setOldText(SettlementText oldText) {
+        this.oldText = oldText;
+        if (oldText != null) {
+            this.oldValue = null;
+        }
+    }
+
+    public void setNewText(SettlementText newText) {
+        this.newText = newText;
+        if (newText != null) {
+            this.newValue = null;
+        }
+    }
+
 }
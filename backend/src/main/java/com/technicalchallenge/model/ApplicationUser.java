@@ -1,14 +1,19 @@
 package com.technicalchallenge.model;
 
+import com.technicalchallenge.Events.ReferenceDataEntityListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GeneratedColumn;
 
 @Getter
 @Setter
 @Entity
+@EntityListeners(ReferenceDataEntityListener.class)
 @Table(name = "application_user")
 public class ApplicationUser {
     @Id
@@ -18,6 +23,15 @@ public class ApplicationUser {
     private String lastName;
     @Column(unique = true, nullable = false)
     private String loginId;
+    // ADDED: lower(login_id), computed by the database and indexed
+    // (idx_application_user_login_id_lower, see db/migration). The trader
+    // filters compare this column, so the lookup can use the index on H2 too,
+    // which cannot index an expression. Read-only: set loginId instead.
+    @GeneratedColumn("lower(login_id)")
+    @Column(name = "login_id_lower")
+    @Setter(AccessLevel.NONE)
+    @JsonIgnore
+    private String loginIdLower;
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
     private boolean active;
@@ -1,5 +1,6 @@
 package com.technicalchallenge.model;
 
+import com.technicalchallenge.Events.ReferenceDataEntityListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -7,6 +8,7 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
+@EntityListeners(ReferenceDataEntityListener.class)
 @Table(name = "cost_center")
 public class CostCenter {
     @Id
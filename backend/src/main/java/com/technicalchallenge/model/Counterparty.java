@@ -1,5 +1,6 @@
 package com.technicalchallenge.model;
 
+import com.technicalchallenge.Events.ReferenceDataEntityListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -9,6 +10,7 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @Entity
+@EntityListeners(ReferenceDataEntityListener.class)
 @Table(name = "counterparty")
 public class Counterparty {
     @Id
@@ -0,0 +1,43 @@
+package com.technicalchallenge.model;
+
+import com.technicalchallenge.Events.ReferenceDataEntityListener;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@EntityListeners(ReferenceDataEntityListener.class)
+// One row per calendar per year. The year's holidays are a 366-bit set (bit
+// n = day-of-year n + 1) in 46 bytes, so a calendar with decades of holidays
+// is a handful of small rows instead of one row per date.
+@Table(name = "holiday_calendar_year", uniqueConstraints = @UniqueConstraint(name = "uk_holiday_calendar_year", columnNames = {
+        "holiday_calendar_id", "calendar_year" }))
+public class HolidayCalendarYear {
+
+    /** Bytes needed for one bit per day of a leap year */
+    public static final int BITSET_BYTES = 46;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "holiday_calendar_id", nullable = false)
+    private HolidayCalendar holidayCalendar;
+
+    @Column(name = "calendar_year", nullable = false)
+    private Integer calendarYear;
+
+    @Column(name = "holiday_bits", nullable = false, length = BITSET_BYTES)
+    private byte[] holidayBits;
+
+    public HolidayCalendarYear(HolidayCalendar holidayCalendar, int calendarYear) {
+        this.holidayCalendar = holidayCalendar;
+        this.calendarYear = calendarYear;
+        this.holidayBits = new byte[BITSET_BYTES];
+    }
+}
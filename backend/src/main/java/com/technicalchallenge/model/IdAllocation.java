@@ -0,0 +1,30 @@
+package com.technicalchallenge.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "id_allocation")
+
+// Database-backed counter for hi/lo identifier allocation. One row per
+// sequence (e.g. "trade_id"); next_value is the first id of the next block
+// that has not yet been handed to any backend node.
+public class IdAllocation {
+
+    @Id
+    @Column(name = "sequence_name", length = 64)
+    private String sequenceName;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,42 @@
+package com.technicalchallenge.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "settlement_text")
+
+// A settlement instruction body, stored once however many trades (and audit
+// records) carry it (see SettlementTextStore). The key is the SHA-256 of the
+// text, so the same text always maps to the same row and a row is never
+// changed once written. nonStandardKeyword is worked out once per text and
+// copied onto the AdditionalInfo rows that reference it.
+public class SettlementText {
+
+    // Lower-case hex SHA-256 of the UTF-8 text
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "body", columnDefinition = "TEXT", nullable = false)
+    private String text;
+
+    @Column(name = "non_standard_keyword", length = 64)
+    private String nonStandardKeyword;
+
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate = LocalDateTime.now();
+
+}
@@ -14,10 +14,59 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "trade")
+// The (trade_id, id) index serves the keyset-paged trade lists (see
+// TradeCursor), so a deep page reads no more rows than the first. The other
+// trade indexes (trade_id/active, trader, trade_date, book) are created by
+// the versioned migrations in db/migration
+@Table(name = "trade", indexes = @jakarta.persistence.Index(name = "idx_trade_trade_id_id", columnList = "tradeId, id"))
+// Fetch plans for TradeRepository (all associations are LAZY, and with Open
+// Session In View disabled nothing may be loaded after the service returns):
+// - Trade.summary: what status changes and ownership checks read;
+// - Trade.list: every header reference TradeMapper reads, for searches and
+// pages (no collections, so paging stays in SQL);
+// - Trade.detail: the header plus the legs and their reference data, for
+// single-trade reads. Cashflows are a second bag and cannot be fetched in
+// the same query; they load through hibernate.default_batch_fetch_size.
+@NamedEntityGraph(name = "Trade.summary", attributeNodes = {
+        @NamedAttributeNode("book"),
+        @NamedAttributeNode("counterparty"),
+        @NamedAttributeNode("traderUser"),
+        @NamedAttributeNode("tradeType"),
+        @NamedAttributeNode("tradeStatus") })
+@NamedEntityGraph(name = "Trade.list", attributeNodes = {
+        @NamedAttributeNode("book"),
+        @NamedAttributeNode("counterparty"),
+        @NamedAttributeNode("traderUser"),
+        @NamedAttributeNode("tradeInputterUser"),
+        @NamedAttributeNode("tradeType"),
+        @NamedAttributeNode("tradeSubType"),
+        @NamedAttributeNode("tradeStatus") })
+@NamedEntityGraph(name = "Trade.detail", attributeNodes = {
+        @NamedAttributeNode("book"),
+        @NamedAttributeNode("counterparty"),
+        @NamedAttributeNode("traderUser"),
+        @NamedAttributeNode("tradeInputterUser"),
+        @NamedAttributeNode("tradeType"),
+        @NamedAttributeNode("tradeSubType"),
+        @NamedAttributeNode("tradeStatus"),
+        @NamedAttributeNode(value = "tradeLegs", subgraph = "legReferences") }, subgraphs = @NamedSubgraph(name = "legReferences", attributeNodes = {
+                @NamedAttributeNode("currency"),
+                @NamedAttributeNode("legRateType"),
+                @NamedAttributeNode("index"),
+                @NamedAttributeNode("holidayCalendar"),
+                @NamedAttributeNode("calculationPeriodSchedule"),
+                @NamedAttributeNode("paymentBusinessDayConvention"),
+                @NamedAttributeNode("fixingBusinessDayConvention"),
+                @NamedAttributeNode("payReceiveFlag") }))
 public class Trade {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts (IDENTITY
+    // forces one INSERT round trip per row to read back the key). initialValue
+    // keeps generated ids clear of the seeded rows in data.sql; on a database
+    // that already holds rows past it, db/migration V5 restarts the sequences
+    // (of TradeLeg, Cashflow and AdditionalInfo too) after the highest id.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trade_seq")
+    @SequenceGenerator(name = "trade_seq", sequenceName = "trade_seq", initialValue = 10000, allocationSize = 50)
     private Long id;
 
     private Long tradeId;
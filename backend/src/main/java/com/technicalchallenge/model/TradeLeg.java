@@ -17,7 +17,9 @@ import lombok.Setter;
 @Table(name = "trade_leg")
 public class TradeLeg {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence so inserts can be batched (see Trade)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trade_leg_seq")
+    @SequenceGenerator(name = "trade_leg_seq", sequenceName = "trade_leg_seq", initialValue = 10000, allocationSize = 50)
     private Long legId;
 
     private BigDecimal notional;
@@ -0,0 +1,52 @@
+package com.technicalchallenge.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "trade_summary_count", indexes = @jakarta.persistence.Index(name = "idx_trade_summary_count_trader", columnList = "trader_login_id, trade_date"))
+
+// Incrementally maintained trade counts for the dashboard (see
+// TradeSummaryStore): one row per trader, book, trade date, status, type and
+// counterparty. summary_key is those values joined, so a row is found and
+// locked with a single primary-key lookup. Missing values are stored as -1
+// (book) or "" (names) so they take part in the key.
+public class TradeSummaryCount {
+
+    @Id
+    @Column(name = "summary_key", length = 512)
+    private String summaryKey;
+
+    @Column(name = "trader_login_id", nullable = false)
+    private String traderLoginId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "trade_date")
+    private LocalDate tradeDate;
+
+    @Column(name = "trade_status", nullable = false)
+    private String tradeStatus;
+
+    @Column(name = "trade_type", nullable = false)
+    private String tradeType;
+
+    @Column(name = "counterparty_name", nullable = false)
+    private String counterpartyName;
+
+    @Column(name = "trade_count", nullable = false)
+    private Long tradeCount;
+}
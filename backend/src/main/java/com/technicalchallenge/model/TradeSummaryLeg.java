@@ -0,0 +1,51 @@
+package com.technicalchallenge.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "trade_summary_leg", indexes = @jakarta.persistence.Index(name = "idx_trade_summary_leg_trader", columnList = "trader_login_id, trade_date"))
+
+// Incrementally maintained leg totals for the dashboard (see
+// TradeSummaryStore): summed notional and naive delta (notional * rate) per
+// trader, book, trade date and currency. The delta keeps 8 decimal places so
+// the dashboard rounds the total to cents once, as it does for the live
+// query. Keyed like TradeSummaryCount; a leg with no currency is stored
+// under "".
+public class TradeSummaryLeg {
+
+    @Id
+    @Column(name = "summary_key", length = 512)
+    private String summaryKey;
+
+    @Column(name = "trader_login_id", nullable = false)
+    private String traderLoginId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "trade_date")
+    private LocalDate tradeDate;
+
+    @Column(name = "currency", nullable = false)
+    private String currency;
+
+    @Column(name = "notional", nullable = false)
+    private BigDecimal notional;
+
+    @Column(name = "delta", nullable = false, precision = 38, scale = 8)
+    private BigDecimal delta;
+}
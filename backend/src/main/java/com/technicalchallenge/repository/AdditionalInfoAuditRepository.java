@@ -1,7 +1,7 @@
 package com.technicalchallenge.repository;
 
-import java.util.List;
-
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,6 +10,7 @@ import com.technicalchallenge.model.AdditionalInfoAudit;
 @Repository
 public interface AdditionalInfoAuditRepository extends JpaRepository<AdditionalInfoAudit, Long> {
 
-    // Find all audit records for a given trade (sorted by newest first)
-    List<AdditionalInfoAudit> findByTradeIdOrderByChangedAtDesc(Long tradeId);
+    // CHANGED: one page of a trade's audit records, newest first (id breaks
+    // ties), served by idx_ai_audit_trade_changed
+    Page<AdditionalInfoAudit> findByTradeIdOrderByChangedAtDescIdDesc(Long tradeId, Pageable pageable);
 }
@@ -1,9 +1,12 @@
 package com.technicalchallenge.repository;
 
+import com.technicalchallenge.dto.SettlementKeywordRow;
+import com.technicalchallenge.dto.SettlementTextRow;
 import com.technicalchallenge.model.AdditionalInfo;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -60,9 +63,9 @@ public interface AdditionalInfoRepository extends JpaRepository<AdditionalInfo,
    * unbounded result sets.
    */
   @Query("""
-      SELECT a FROM AdditionalInfo a
+      SELECT a FROM AdditionalInfo a LEFT JOIN a.settlementText st
       WHERE a.active = true
-        AND LOWER(a.fieldValue) LIKE LOWER(CONCAT('%', :keyword, '%'))
+        AND LOWER(COALESCE(st.text, a.fieldValue)) LIKE LOWER(CONCAT('%', :keyword, '%'))
       """)
   Page<AdditionalInfo> searchByFieldValueContainingIgnoreCase(
       @Param("keyword") String keyword,
@@ -90,11 +93,11 @@ public interface AdditionalInfoRepository extends JpaRepository<AdditionalInfo,
    * settlement instruction records only.
    */
   @Query("""
-      SELECT a FROM AdditionalInfo a
+      SELECT a FROM AdditionalInfo a LEFT JOIN a.settlementText st
       WHERE a.entityType = 'TRADE'
         AND a.fieldName  = 'SETTLEMENT_INSTRUCTIONS'
         AND a.active     = true
-        AND LOWER(a.fieldValue) LIKE LOWER(CONCAT('%', :keyword, '%'))
+        AND LOWER(COALESCE(st.text, a.fieldValue)) LIKE LOWER(CONCAT('%', :keyword, '%'))
       """)
   List<AdditionalInfo> searchTradeSettlementByKeyword(
       @Param("keyword") String keyword);
@@ -117,16 +120,105 @@ public interface AdditionalInfoRepository extends JpaRepository<AdditionalInfo,
       @Param("fieldName") String fieldName);
 
   // ADDED specialised paginated search
+  // CHANGED: settlement texts are read from settlement_text when the row
+  // references one (see SettlementTextStore), from field_value otherwise
 
   @Query("""
-          SELECT a FROM AdditionalInfo a
+          SELECT a FROM AdditionalInfo a LEFT JOIN a.settlementText st
           WHERE a.active = true
             AND UPPER(a.entityType) = 'TRADE'
             AND UPPER(a.fieldName) = 'SETTLEMENT_INSTRUCTIONS'
-            AND LOWER(a.fieldValue) LIKE LOWER(CONCAT('%', :keyword, '%'))
+            AND LOWER(COALESCE(st.text, a.fieldValue)) LIKE LOWER(CONCAT('%', :keyword, '%'))
       """)
   Page<AdditionalInfo> searchSettlementInstructions(
       @Param("keyword") String keyword,
       Pageable pageable);
 
+  /**
+   * ADDED: active trade settlement instructions with an id above afterId, in
+   * id order, for building SettlementTextIndex a batch at a time. Matches the
+   * same rows as searchSettlementInstructions.
+   */
+  @Query("""
+          SELECT new com.technicalchallenge.dto.SettlementTextRow(a.additionalInfoId, a.entityId,
+              COALESCE(st.text, a.fieldValue))
+          FROM AdditionalInfo a LEFT JOIN a.settlementText st
+          WHERE a.active = true
+            AND UPPER(a.entityType) = 'TRADE'
+            AND UPPER(a.fieldName) = 'SETTLEMENT_INSTRUCTIONS'
+            AND a.additionalInfoId > :afterId
+          ORDER BY a.additionalInfoId
+      """)
+  List<SettlementTextRow> findSettlementTextAfter(
+      @Param("afterId") long afterId,
+      Pageable limit);
+
+  /**
+   * ADDED: the same rows as findSettlementTextAfter with their version and
+   * stored non-standard keyword, for NonStandardSettlementDetector.reclassify.
+   * CHANGED: only the rows holding their own text; rows referencing a
+   * settlement_text row take its keyword (updateNonStandardKeywordForText).
+   */
+  @Query("""
+          SELECT new com.technicalchallenge.dto.SettlementKeywordRow(a.additionalInfoId, a.version, a.fieldValue,
+              a.nonStandardKeyword)
+          FROM AdditionalInfo a
+          WHERE a.active = true
+            AND UPPER(a.entityType) = 'TRADE'
+            AND UPPER(a.fieldName) = 'SETTLEMENT_INSTRUCTIONS'
+            AND a.settlementText IS NULL
+            AND a.additionalInfoId > :afterId
+          ORDER BY a.additionalInfoId
+      """)
+  List<SettlementKeywordRow> findSettlementKeywordsAfter(
+      @Param("afterId") long afterId,
+      Pageable limit);
+
+  /**
+   * ADDED: stores a recomputed non-standard keyword, unless the row has been
+   * written since it was read (version changed). A derived column, so the
+   * version is not bumped.
+   */
+  @Modifying
+  @Query("""
+          UPDATE AdditionalInfo a SET a.nonStandardKeyword = :keyword
+          WHERE a.additionalInfoId = :id AND a.version = :version
+      """)
+  int updateNonStandardKeyword(
+      @Param("id") Long id,
+      @Param("version") Integer version,
+      @Param("keyword") String keyword);
+
+  /**
+   * ADDED: sets the non-standard keyword of every row referencing a stored
+   * settlement text, after the text's own keyword changed. Derived, so the
+   * version is not bumped.
+   */
+  @Modifying
+  @Query("""
+          UPDATE AdditionalInfo a SET a.nonStandardKeyword = :keyword
+          WHERE a.settlementText.hash = :hash
+      """)
+  int updateNonStandardKeywordForText(
+      @Param("hash") String hash,
+      @Param("keyword") String keyword);
+
+  /**
+   * ADDED: the non-standard keyword stored with a trade's active settlement
+   * instructions, newest row first; empty when it has no instruction.
+   * FIXED: the rows are no longer filtered on the keyword, so with a limit
+   * of one this is the keyword of the newest active instruction (null when
+   * that instruction is standard), not of an older flagged row. Same
+   * newest-active-instruction rule as the settlement export.
+   */
+  @Query("""
+          SELECT a.nonStandardKeyword FROM AdditionalInfo a
+          WHERE a.entityType = 'TRADE'
+            AND a.entityId = :tradeId
+            AND a.fieldName = 'SETTLEMENT_INSTRUCTIONS'
+            AND a.active = true
+          ORDER BY a.additionalInfoId DESC
+      """)
+  List<String> findNonStandardKeywordsByTradeId(@Param("tradeId") Long tradeId, Pageable limit);
+
 }
@@ -1,12 +1,24 @@
 package com.technicalchallenge.repository;
 
 import com.technicalchallenge.model.Book;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByBookName(String bookName);
+
+    // BookMapper reads the cost center name; load it with the book (Open
+    // Session In View is off, so it cannot be loaded lazily later)
+    @Override
+    @EntityGraph(attributePaths = "costCenter")
+    List<Book> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "costCenter")
+    Optional<Book> findById(Long id);
 }
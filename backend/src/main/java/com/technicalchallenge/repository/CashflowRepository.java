@@ -1,10 +1,21 @@
 package com.technicalchallenge.repository;
 
 import com.technicalchallenge.model.Cashflow;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CashflowRepository extends JpaRepository<Cashflow, Long> {
-    // Custom query methods if needed
+
+    // CashflowMapper reads these three references (see BookRepository)
+    @Override
+    @EntityGraph(attributePaths = { "payRec", "paymentType", "paymentBusinessDayConvention" })
+    List<Cashflow> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = { "payRec", "paymentType", "paymentBusinessDayConvention" })
+    Optional<Cashflow> findById(Long id);
 }
@@ -1,8 +1,21 @@
 package com.technicalchallenge.repository;
 
 import com.technicalchallenge.model.CostCenter;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface CostCenterRepository extends JpaRepository<CostCenter, Long> {}
+public interface CostCenterRepository extends JpaRepository<CostCenter, Long> {
+
+    // CostCenterMapper reads the sub-desk name (see BookRepository)
+    @Override
+    @EntityGraph(attributePaths = "subDesk")
+    List<CostCenter> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "subDesk")
+    Optional<CostCenter> findById(Long id);
+}
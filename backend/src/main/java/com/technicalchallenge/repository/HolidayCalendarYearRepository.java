@@ -0,0 +1,24 @@
+package com.technicalchallenge.repository;
+
+import com.technicalchallenge.model.HolidayCalendarYear;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface HolidayCalendarYearRepository extends JpaRepository<HolidayCalendarYear, Long> {
+
+    // Every year of every calendar with the calendar name, in one query
+    @Query("SELECT y FROM HolidayCalendarYear y JOIN FETCH y.holidayCalendar")
+    List<HolidayCalendarYear> findAllWithCalendar();
+
+    @Query("SELECT y FROM HolidayCalendarYear y WHERE y.holidayCalendar.id = :calendarId AND y.calendarYear IN :years")
+    List<HolidayCalendarYear> findByCalendarAndYears(@Param("calendarId") Long calendarId,
+            @Param("years") Collection<Integer> years);
+
+    List<HolidayCalendarYear> findByHolidayCalendarIdOrderByCalendarYear(Long holidayCalendarId);
+}
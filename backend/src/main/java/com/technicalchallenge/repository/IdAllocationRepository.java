@@ -0,0 +1,20 @@
+package com.technicalchallenge.repository;
+
+import com.technicalchallenge.model.IdAllocation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface IdAllocationRepository extends JpaRepository<IdAllocation, String> {
+
+    // SELECT ... FOR UPDATE: serialises block reservation across backend nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM IdAllocation a WHERE a.sequenceName = :sequenceName")
+    Optional<IdAllocation> findForUpdate(@Param("sequenceName") String sequenceName);
+}
@@ -0,0 +1,26 @@
+package com.technicalchallenge.repository;
+
+import com.technicalchallenge.dto.SettlementTextKeywordRow;
+import com.technicalchallenge.model.SettlementText;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SettlementTextRepository extends JpaRepository<SettlementText, String> {
+
+    // The stored texts after afterHash in hash order, a batch at a time, for
+    // NonStandardSettlementDetector.reclassify
+    @Query("SELECT new com.technicalchallenge.dto.SettlementTextKeywordRow(s.hash, s.text, s.nonStandardKeyword) "
+            + "FROM SettlementText s WHERE s.hash > :afterHash ORDER BY s.hash")
+    List<SettlementTextKeywordRow> findKeywordsAfter(@Param("afterHash") String afterHash, Pageable limit);
+
+    @Modifying
+    @Query("UPDATE SettlementText s SET s.nonStandardKeyword = :keyword WHERE s.hash = :hash")
+    int updateNonStandardKeyword(@Param("hash") String hash, @Param("keyword") String keyword);
+}
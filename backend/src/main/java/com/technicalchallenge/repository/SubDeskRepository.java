@@ -1,8 +1,21 @@
 package com.technicalchallenge.repository;
 
 import com.technicalchallenge.model.SubDesk;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface SubDeskRepository extends JpaRepository<SubDesk, Long> {}
+public interface SubDeskRepository extends JpaRepository<SubDesk, Long> {
+
+    // SubDeskMapper reads the desk name (see BookRepository)
+    @Override
+    @EntityGraph(attributePaths = "desk")
+    List<SubDesk> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "desk")
+    Optional<SubDesk> findById(Long id);
+}
@@ -0,0 +1,47 @@
+package com.technicalchallenge.repository;
+
+import com.technicalchallenge.dto.TradeBlotterRow;
+import com.technicalchallenge.dto.TradeCursor;
+import com.technicalchallenge.model.Trade;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Blotter projections for the trade lists. Spring Data cannot apply a
+ * Specification to a constructor projection, so these run the Criteria
+ * predicate themselves and select TradeBlotterRow instead of Trade. A null
+ * Specification lists every trade. Mixed into TradeRepository (see
+ * TradeBlotterRepositoryImpl).
+ */
+public interface TradeBlotterRepository {
+
+    Page<TradeBlotterRow> findBlotterRows(Specification<Trade> spec, Pageable pageable);
+
+    /**
+     * Keyset page: up to limit rows ordered by tradeId then id (both
+     * descending) that come strictly after the cursor, or the first rows when
+     * after is null. Reads one extra row to tell whether there is a next page,
+     * and never runs a count.
+     */
+    Slice<TradeBlotterRow> findBlotterRowsAfter(Specification<Trade> spec, TradeCursor after, int limit);
+
+    /**
+     * Same page as findBlotterRowsAfter, for a compiled JPQL filter: one
+     * statement with the reference tables joined once and the filter values
+     * bound as parameters.
+     */
+    Slice<TradeBlotterRow> findBlotterRowsMatching(TradeJpqlFilter filter, TradeCursor after, int limit);
+
+    long countBlotterRowsMatching(TradeJpqlFilter filter);
+
+    /**
+     * Every matching row in keyset order, read through a forward-only JDBC
+     * cursor fetchSize rows at a time. Rows are records, not entities, so
+     * nothing builds up in the persistence context however many are read.
+     * Must be consumed and closed inside a transaction.
+     */
+    Stream<TradeBlotterRow> streamBlotterRows(Specification<Trade> spec, int fetchSize);
+}
@@ -0,0 +1,183 @@
+package com.technicalchallenge.repository;
+
+import com.technicalchallenge.dto.TradeBlotterRow;
+import com.technicalchallenge.dto.TradeCursor;
+import com.technicalchallenge.model.ApplicationUser;
+import com.technicalchallenge.model.Book;
+import com.technicalchallenge.model.Counterparty;
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.model.TradeStatus;
+import com.technicalchallenge.model.TradeSubType;
+import com.technicalchallenge.model.TradeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+/**
+ * Criteria implementation of TradeBlotterRepository. Selects the trade
+ * columns and reference names TradeMapper puts on a TradeDTO, with the
+ * reference tables outer joined so a trade without (say) a sub type is still
+ * listed.
+ */
+public class TradeBlotterRepositoryImpl implements TradeBlotterRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // The blotter select list over TradeJpqlFilter.FROM
+    private static final String JPQL_SELECT = "select new com.technicalchallenge.dto.TradeBlotterRow("
+            + "t.id, t.tradeId, t.version, t.tradeDate, t.tradeStartDate, t.tradeMaturityDate,"
+            + " t.tradeExecutionDate, t.utiCode, t.lastTouchTimestamp, t.validityStartDate, t.validityEndDate,"
+            + " t.active, t.createdDate, b.id, b.bookName, cp.id, cp.name,"
+            + " tr.id, tr.firstName, tr.lastName, inp.id, inp.firstName, inp.lastName,"
+            + " tt.id, tt.tradeType, tst.id, tst.tradeSubType, ts.id, ts.tradeStatus) ";
+
+    @Override
+    public Slice<TradeBlotterRow> findBlotterRowsAfter(Specification<Trade> spec, TradeCursor after, int limit) {
+        TypedQuery<TradeBlotterRow> query = blotterQuery(spec, after, Pageable.unpaged());
+        query.setMaxResults(limit + 1);
+        List<TradeBlotterRow> rows = new ArrayList<>(query.getResultList());
+        boolean hasNext = rows.size() > limit;
+        if (hasNext) {
+            rows.remove(limit);
+        }
+        return new SliceImpl<>(rows, Pageable.ofSize(limit), hasNext);
+    }
+
+    @Override
+    public Slice<TradeBlotterRow> findBlotterRowsMatching(TradeJpqlFilter filter, TradeCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder(JPQL_SELECT).append(TradeJpqlFilter.FROM).append(" where (")
+                .append(filter.where()).append(')');
+        if (after != null) {
+            jpql.append(" and (t.tradeId < :afterTradeId or (t.tradeId = :afterTradeId and t.id < :afterId))");
+        }
+        jpql.append(" order by t.tradeId desc, t.id desc");
+        TypedQuery<TradeBlotterRow> query = entityManager.createQuery(jpql.toString(), TradeBlotterRow.class);
+        bind(query, filter);
+        if (after != null) {
+            query.setParameter("afterTradeId", after.tradeId());
+            query.setParameter("afterId", after.id());
+        }
+        query.setMaxResults(limit + 1);
+        List<TradeBlotterRow> rows = new ArrayList<>(query.getResultList());
+        boolean hasNext = rows.size() > limit;
+        if (hasNext) {
+            rows.remove(limit);
+        }
+        return new SliceImpl<>(rows, Pageable.ofSize(limit), hasNext);
+    }
+
+    @Override
+    public long countBlotterRowsMatching(TradeJpqlFilter filter) {
+        TypedQuery<Long> query = entityManager.createQuery(
+                "select count(t) " + TradeJpqlFilter.FROM + " where (" + filter.where() + ")", Long.class);
+        bind(query, filter);
+        return query.getSingleResult();
+    }
+
+    private static void bind(TypedQuery<?> query, TradeJpqlFilter filter) {
+        for (int i = 0; i < filter.parameters().size(); i++) {
+            query.setParameter(TradeJpqlFilter.parameterName(i), filter.parameters().get(i));
+        }
+    }
+
+    @Override
+    public Page<TradeBlotterRow> findBlotterRows(Specification<Trade> spec, Pageable pageable) {
+        TypedQuery<TradeBlotterRow> query = blotterQuery(spec, null, pageable);
+        if (pageable.isUnpaged()) {
+            List<TradeBlotterRow> rows = query.getResultList();
+            return new PageImpl<>(rows, pageable, rows.size());
+        }
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        return new PageImpl<>(query.getResultList(), pageable, count(spec));
+    }
+
+    // after != null makes this a keyset query: rows after the cursor in
+    // (tradeId, id) descending order, which idx_trade_trade_id_id serves
+    // without reading the skipped rows
+    private TypedQuery<TradeBlotterRow> blotterQuery(Specification<Trade> spec, TradeCursor after,
+            Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TradeBlotterRow> query = cb.createQuery(TradeBlotterRow.class);
+        Root<Trade> t = query.from(Trade.class);
+        Join<Trade, Book> book = t.join("book", JoinType.LEFT);
+        Join<Trade, Counterparty> counterparty = t.join("counterparty", JoinType.LEFT);
+        Join<Trade, ApplicationUser> trader = t.join("traderUser", JoinType.LEFT);
+        Join<Trade, ApplicationUser> inputter = t.join("tradeInputterUser", JoinType.LEFT);
+        Join<Trade, TradeType> tradeType = t.join("tradeType", JoinType.LEFT);
+        Join<Trade, TradeSubType> tradeSubType = t.join("tradeSubType", JoinType.LEFT);
+        Join<Trade, TradeStatus> tradeStatus = t.join("tradeStatus", JoinType.LEFT);
+
+        query.select(cb.construct(TradeBlotterRow.class,
+                t.get("id"), t.get("tradeId"), t.get("version"), t.get("tradeDate"), t.get("tradeStartDate"),
+                t.get("tradeMaturityDate"), t.get("tradeExecutionDate"), t.get("utiCode"),
+                t.get("lastTouchTimestamp"), t.get("validityStartDate"), t.get("validityEndDate"),
+                t.get("active"), t.get("createdDate"),
+                book.get("id"), book.get("bookName"),
+                counterparty.get("id"), counterparty.get("name"),
+                trader.get("id"), trader.get("firstName"), trader.get("lastName"),
+                inputter.get("id"), inputter.get("firstName"), inputter.get("lastName"),
+                tradeType.get("id"), tradeType.get("tradeType"),
+                tradeSubType.get("id"), tradeSubType.get("tradeSubType"),
+                tradeStatus.get("id"), tradeStatus.get("tradeStatus")));
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = spec == null ? null : spec.toPredicate(t, query, cb);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        Path<Long> tradeId = t.get("tradeId");
+        Path<Long> id = t.get("id");
+        if (after != null) {
+            predicates.add(cb.or(cb.lessThan(tradeId, after.tradeId()),
+                    cb.and(cb.equal(tradeId, after.tradeId()), cb.lessThan(id, after.id()))));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), t, cb));
+        } else {
+            // Stable order for every list, and the keyset order for cursors
+            query.orderBy(cb.desc(tradeId), cb.desc(id));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    @Override
+    public Stream<TradeBlotterRow> streamBlotterRows(Specification<Trade> spec, int fetchSize) {
+        TypedQuery<TradeBlotterRow> query = blotterQuery(spec, null, Pageable.unpaged());
+        // getResultStream() scrolls FORWARD_ONLY; the fetch size stops the
+        // driver from reading the whole result set into memory
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        return query.getResultStream();
+    }
+
+    private long count(Specification<Trade> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Trade> t = query.from(Trade.class);
+        query.select(cb.count(t));
+        Predicate predicate = spec == null ? null : spec.toPredicate(t, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
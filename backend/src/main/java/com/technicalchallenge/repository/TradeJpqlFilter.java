@@ -0,0 +1,47 @@
+package com.technicalchallenge.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled trade filter for the JPQL blotter query: a where clause written
+ * against the FROM clause below, with its values held apart as named
+ * parameters (:p0, :p1, ...). The clause only ever contains field paths and
+ * operators, so the same filter shape is the same JPQL string and Hibernate
+ * translates it to SQL once.
+ *
+ * The reference tables are joined explicitly, once, and shared by the
+ * select list and the filter; see ALIASES for the alias of each association.
+ */
+public record TradeJpqlFilter(String where, List<Object> parameters) {
+
+    /** Trade association -> alias in FROM */
+    public static final Map<String, String> ALIASES = Map.of(
+            "book", "b",
+            "counterparty", "cp",
+            "traderUser", "tr",
+            "tradeInputterUser", "inp",
+            "tradeType", "tt",
+            "tradeSubType", "tst",
+            "tradeStatus", "ts");
+
+    /** Alias of the trade itself */
+    public static final String TRADE = "t";
+
+    static final String FROM = "from Trade t"
+            + " left join t.book b"
+            + " left join t.counterparty cp"
+            + " left join t.traderUser tr"
+            + " left join t.tradeInputterUser inp"
+            + " left join t.tradeType tt"
+            + " left join t.tradeSubType tst"
+            + " left join t.tradeStatus ts";
+
+    public TradeJpqlFilter {
+        parameters = List.copyOf(parameters);
+    }
+
+    public static String parameterName(int index) {
+        return "p" + index;
+    }
+}
@@ -1,8 +1,28 @@
 package com.technicalchallenge.repository;
 
 import com.technicalchallenge.model.TradeLeg;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TradeLegRepository extends JpaRepository<TradeLeg, Long> {}
+public interface TradeLegRepository extends JpaRepository<TradeLeg, Long> {
+
+    // TradeLegMapper reads every leg reference and the cashflows with their
+    // references; one statement loads them all (see BookRepository)
+    @Override
+    @EntityGraph(attributePaths = { "currency", "legRateType", "index", "holidayCalendar",
+            "calculationPeriodSchedule", "paymentBusinessDayConvention", "fixingBusinessDayConvention",
+            "payReceiveFlag", "cashflows", "cashflows.payRec", "cashflows.paymentType",
+            "cashflows.paymentBusinessDayConvention" })
+    List<TradeLeg> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = { "currency", "legRateType", "index", "holidayCalendar",
+            "calculationPeriodSchedule", "paymentBusinessDayConvention", "fixingBusinessDayConvention",
+            "payReceiveFlag", "cashflows", "cashflows.payRec", "cashflows.paymentType",
+            "cashflows.paymentBusinessDayConvention" })
+    Optional<TradeLeg> findById(Long id);
+}
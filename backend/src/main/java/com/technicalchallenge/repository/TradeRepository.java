@@ -1,8 +1,21 @@
 package com.technicalchallenge.repository;
 
+import com.technicalchallenge.dto.LegTotalsRow;
+import com.technicalchallenge.dto.SettlementExportRow;
+import com.technicalchallenge.dto.TradeBlotterRow;
+import com.technicalchallenge.dto.TradeLegSummaryRow;
+import com.technicalchallenge.dto.TradeCountRow;
+import com.technicalchallenge.dto.TradeOwnerRow;
 import com.technicalchallenge.model.Trade;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -14,11 +27,35 @@ import org.springframework.stereotype.Repository;
 // queries. Lets me to build the flexible “search by any field” logic. Reads the
 // Predicate returned. Converts it into a SQL WHERE clause. Runs the query via
 // the EntityManager.
-public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecificationExecutor<Trade> {
+public interface TradeRepository
+        extends JpaRepository<Trade, Long>, JpaSpecificationExecutor<Trade>, TradeBlotterRepository {
+    // ADDED: fetch plans (see the named entity graphs on Trade). Every read
+    // that is mapped to a TradeDTO loads the references TradeMapper needs in
+    // the same statement instead of one lazy load per trade, and legs and
+    // cashflows come in batches (hibernate.default_batch_fetch_size).
+    @Override
+    @EntityGraph("Trade.list")
+    List<Trade> findAll();
+
+    @Override
+    @EntityGraph("Trade.list")
+    List<Trade> findAll(Specification<Trade> spec);
+
+    @Override
+    @EntityGraph("Trade.list")
+    Page<Trade> findAll(Specification<Trade> spec, Pageable pageable);
+
     // Existing methods
+    @EntityGraph("Trade.detail")
     List<Trade> findByTradeId(Long tradeId);
 
-    List<Trade> findAllByTradeIdIn(List<Long> tradeIds);// In means match any value from the given list returns all
+    @EntityGraph("Trade.list")
+    List<Trade> findAllByTradeIdIn(List<Long> tradeIds);
+
+    // Trade rows by database id, e.g. a keyset page of blotter rows loaded as
+    // full trades
+    @EntityGraph("Trade.list")
+    List<Trade> findAllByIdIn(Collection<Long> ids);// In means match any value from the given list returns all
                                                         // trades where trade_id is either 1, 2, or 3.
 
     @Query("SELECT MAX(t.tradeId) FROM Trade t")
@@ -28,16 +65,158 @@ public interface TradeRepository extends JpaRepository<Trade, Long>, JpaSpecific
     Optional<Integer> findMaxVersionByTradeId(@Param("tradeId") Long tradeId);
 
     // NEW METHODS for service layer compatibility
+    // Used by cancel/delete, which only read the owner and status
+    @EntityGraph("Trade.summary")
     Optional<Trade> findByTradeIdAndActiveTrue(Long tradeId);
 
+    @EntityGraph("Trade.list")
     List<Trade> findByActiveTrueOrderByTradeIdDesc();
 
+    // Ownership checks before settlement instruction reads/writes
+    @EntityGraph("Trade.summary")
     @Query("SELECT t FROM Trade t WHERE t.tradeId = :tradeId AND t.active = true ORDER BY t.version DESC")
     Optional<Trade> findLatestActiveVersionByTradeId(@Param("tradeId") Long tradeId);
 
+    // ADDED: the active versions of many trades with their trader's login,
+    // for the bulk settlement update's ownership checks in one statement
+    @Query("SELECT new com.technicalchallenge.dto.TradeOwnerRow(t.tradeId, t.version, u.loginId) "
+            + "FROM Trade t LEFT JOIN t.traderUser u WHERE t.tradeId IN :tradeIds AND t.active = true")
+    List<TradeOwnerRow> findActiveTradeOwners(@Param("tradeIds") Collection<Long> tradeIds);
+
     // Added: derived query to fetch active trades for a trader by their login id.
     // This supports server-side scoping so a TRADER user can be shown only
     // their own active trades (defence-in-depth ownership enforcement).
+    @EntityGraph("Trade.list")
     List<Trade> findAllByTraderUser_LoginIdAndActiveTrueOrderByTradeIdDesc(String loginId);
 
+    // ADDED: blotter projections. Lists (GET /api/trades, dashboard searches)
+    // read the trade header (TradeBlotterRepository, keyset paged) and a
+    // summary of each leg as records instead of Trade entities, so no
+    // cashflow is loaded or serialised. Cashflows are only returned by the
+    // single-trade endpoint or when a caller asks for them explicitly.
+
+    // Leg summaries (no cashflows) for the given trade rows (Trade.id, not the
+    // business tradeId), in leg id order
+    @Query("SELECT new com.technicalchallenge.dto.TradeLegSummaryRow(l.trade.id, l.legId, l.notional, l.rate, "
+            + "c.id, c.currency, lt.id, lt.type, ix.id, ix.index, hc.id, hc.holidayCalendar, sc.id, sc.schedule, "
+            + "pb.id, pb.bdc, fb.id, fb.bdc, pr.id, pr.payRec) "
+            + "FROM TradeLeg l LEFT JOIN l.currency c LEFT JOIN l.legRateType lt LEFT JOIN l.index ix "
+            + "LEFT JOIN l.holidayCalendar hc LEFT JOIN l.calculationPeriodSchedule sc "
+            + "LEFT JOIN l.paymentBusinessDayConvention pb LEFT JOIN l.fixingBusinessDayConvention fb "
+            + "LEFT JOIN l.payReceiveFlag pr "
+            + "WHERE l.trade.id IN :tradeRowIds ORDER BY l.legId")
+    List<TradeLegSummaryRow> findLegSummariesByTradeRowIds(@Param("tradeRowIds") Collection<Long> tradeRowIds);
+
+    // Leg summaries for a page of blotter rows, with the id list split so a
+    // long blotter stays under the database's bind parameter limit
+    int LEG_SUMMARY_CHUNK = 1000;
+
+    default List<TradeLegSummaryRow> findLegSummaries(List<TradeBlotterRow> rows) {
+        List<Long> rowIds = rows.stream().map(TradeBlotterRow::id).toList();
+        List<TradeLegSummaryRow> legs = new ArrayList<>();
+        for (int from = 0; from < rowIds.size(); from += LEG_SUMMARY_CHUNK) {
+            legs.addAll(findLegSummariesByTradeRowIds(
+                    rowIds.subList(from, Math.min(from + LEG_SUMMARY_CHUNK, rowIds.size()))));
+        }
+        return legs;
+    }
+
+    // ADDED: dashboard aggregation queries. They return rows already grouped by
+    // the database so the dashboard no longer loads and maps every trade, leg
+    // and cashflow just to count and sum them. loginId must be lower case; the
+    // trader match is case-insensitive like the old Specification. Like the
+    // Specification, all versions of a trade are included.
+    // CHANGED: the trader is matched on ApplicationUser.loginIdLower, the
+    // indexed lower-case column, instead of LOWER(loginId), which no index
+    // can serve on H2.
+
+    // All-time trade counts per book, status, type and counterparty
+    @Query("SELECT new com.technicalchallenge.dto.TradeCountRow(b.id, s.tradeStatus, tt.tradeType, cp.name, COUNT(t)) "
+            + "FROM Trade t LEFT JOIN t.book b LEFT JOIN t.tradeStatus s LEFT JOIN t.tradeType tt "
+            + "LEFT JOIN t.counterparty cp "
+            + "WHERE t.traderUser.loginIdLower = :loginId "
+            + "GROUP BY b.id, s.tradeStatus, tt.tradeType, cp.name")
+    List<TradeCountRow> countTradesForTrader(@Param("loginId") String loginId);
+
+    // Trade counts per trade date (and book, status, type, counterparty) for
+    // trade dates in [fromDate, toDate]
+    @Query("SELECT new com.technicalchallenge.dto.TradeCountRow(t.tradeDate, b.id, s.tradeStatus, tt.tradeType, "
+            + "cp.name, COUNT(t)) "
+            + "FROM Trade t LEFT JOIN t.book b LEFT JOIN t.tradeStatus s LEFT JOIN t.tradeType tt "
+            + "LEFT JOIN t.counterparty cp "
+            + "WHERE t.traderUser.loginIdLower = :loginId AND t.tradeDate BETWEEN :fromDate AND :toDate "
+            + "GROUP BY t.tradeDate, b.id, s.tradeStatus, tt.tradeType, cp.name")
+    List<TradeCountRow> countTradesForTraderBetween(@Param("loginId") String loginId,
+            @Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    // All-time leg notional and naive delta per book and currency
+    @Query("SELECT new com.technicalchallenge.dto.LegTotalsRow(b.id, c.currency, SUM(l.notional), "
+            + "SUM(l.notional * l.rate)) "
+            + "FROM TradeLeg l JOIN l.trade t LEFT JOIN t.book b LEFT JOIN l.currency c "
+            + "WHERE t.traderUser.loginIdLower = :loginId "
+            + "GROUP BY b.id, c.currency")
+    List<LegTotalsRow> sumLegsForTrader(@Param("loginId") String loginId);
+
+    // Leg notional and naive delta per trade date, book and currency for trade
+    // dates in [fromDate, toDate]
+    @Query("SELECT new com.technicalchallenge.dto.LegTotalsRow(t.tradeDate, b.id, c.currency, SUM(l.notional), "
+            + "SUM(l.notional * l.rate)) "
+            + "FROM TradeLeg l JOIN l.trade t LEFT JOIN t.book b LEFT JOIN l.currency c "
+            + "WHERE t.traderUser.loginIdLower = :loginId AND t.tradeDate BETWEEN :fromDate AND :toDate "
+            + "GROUP BY t.tradeDate, b.id, c.currency")
+    List<LegTotalsRow> sumLegsForTraderBetween(@Param("loginId") String loginId,
+            @Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    // ADDED: the settlement CSV export, a chunk at a time. Trade rows after
+    // afterId in id order, each joined to its active settlement instruction
+    // (an AdditionalInfo row keyed by the business trade id), so a chunk of
+    // trades and their instructions is one statement. ownerLoginId (exact
+    // login) and activeOnly narrow the rows; null/false leave them all. A
+    // trade with more than one active instruction comes back once per
+    // instruction, newest first. CHANGED: carries the stored non-standard
+    // keyword; nonStandardOnly keeps only the trades whose instruction has
+    // one. CHANGED: the text comes from settlement_text when the instruction
+    // references one. FIXED: nonStandardOnly looks at the newest active
+    // instruction of each trade only, the one the unfiltered export shows,
+    // so an older flagged instruction no longer stands in for a newer
+    // standard one.
+    @Query("SELECT new com.technicalchallenge.dto.SettlementExportRow(t.id, t.tradeId, "
+            + "COALESCE(st.text, a.fieldValue), a.nonStandardKeyword) "
+            + "FROM Trade t LEFT JOIN t.traderUser u "
+            + "LEFT JOIN AdditionalInfo a ON a.entityType = 'TRADE' AND a.entityId = t.tradeId "
+            + "AND a.fieldName = 'SETTLEMENT_INSTRUCTIONS' AND a.active = true "
+            + "LEFT JOIN a.settlementText st "
+            + "WHERE t.id > :afterId "
+            + "AND (:ownerLoginId IS NULL OR u.loginId = :ownerLoginId) "
+            + "AND (:activeOnly = false OR t.active = true) "
+            + "AND (:nonStandardOnly = false OR (a.nonStandardKeyword IS NOT NULL "
+            + "AND a.additionalInfoId = (SELECT MAX(n.additionalInfoId) FROM AdditionalInfo n "
+            + "WHERE n.entityType = 'TRADE' AND n.entityId = t.tradeId "
+            + "AND n.fieldName = 'SETTLEMENT_INSTRUCTIONS' AND n.active = true))) "
+            + "ORDER BY t.id, a.additionalInfoId DESC")
+    List<SettlementExportRow> findSettlementExportRowsAfter(@Param("afterId") long afterId,
+            @Param("ownerLoginId") String ownerLoginId, @Param("activeOnly") boolean activeOnly,
+            @Param("nonStandardOnly") boolean nonStandardOnly, Pageable limit);
+
+    // ADDED: source queries for TradeSummaryStore.rebuild(). The same grouping
+    // as the windowed queries above but for every trade date, run once per
+    // trader.
+    @Query("SELECT DISTINCT t.traderUser.loginIdLower FROM Trade t WHERE t.traderUser.loginId IS NOT NULL")
+    List<String> findTraderLoginIds();
+
+    @Query("SELECT new com.technicalchallenge.dto.TradeCountRow(t.tradeDate, b.id, s.tradeStatus, tt.tradeType, "
+            + "cp.name, COUNT(t)) "
+            + "FROM Trade t LEFT JOIN t.book b LEFT JOIN t.tradeStatus s LEFT JOIN t.tradeType tt "
+            + "LEFT JOIN t.counterparty cp "
+            + "WHERE t.traderUser.loginIdLower = :loginId "
+            + "GROUP BY t.tradeDate, b.id, s.tradeStatus, tt.tradeType, cp.name")
+    List<TradeCountRow> countTradesForTraderByDate(@Param("loginId") String loginId);
+
+    @Query("SELECT new com.technicalchallenge.dto.LegTotalsRow(t.tradeDate, b.id, c.currency, SUM(l.notional), "
+            + "SUM(l.notional * l.rate)) "
+            + "FROM TradeLeg l JOIN l.trade t LEFT JOIN t.book b LEFT JOIN l.currency c "
+            + "WHERE t.traderUser.loginIdLower = :loginId "
+            + "GROUP BY t.tradeDate, b.id, c.currency")
+    List<LegTotalsRow> sumLegsForTraderByDate(@Param("loginId") String loginId);
+
 }
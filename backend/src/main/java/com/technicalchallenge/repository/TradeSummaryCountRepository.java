@@ -0,0 +1,37 @@
+package com.technicalchallenge.repository;
+
+import com.technicalchallenge.dto.TradeCountRow;
+import com.technicalchallenge.model.TradeSummaryCount;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TradeSummaryCountRepository extends JpaRepository<TradeSummaryCount, String> {
+
+    // SELECT ... FOR UPDATE: concurrent bookings for the same trader/book/day
+    // queue on the row instead of losing each other's increments
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TradeSummaryCount s WHERE s.summaryKey = :summaryKey")
+    Optional<TradeSummaryCount> findForUpdate(@Param("summaryKey") String summaryKey);
+
+    // All-time counts for one trader, in the same shape as
+    // TradeRepository.countTradesForTrader
+    @Query("SELECT new com.technicalchallenge.dto.TradeCountRow(s.bookId, NULLIF(s.tradeStatus, ''), "
+            + "NULLIF(s.tradeType, ''), NULLIF(s.counterpartyName, ''), SUM(s.tradeCount)) "
+            + "FROM TradeSummaryCount s WHERE s.traderLoginId = :loginId "
+            + "GROUP BY s.bookId, s.tradeStatus, s.tradeType, s.counterpartyName "
+            + "HAVING SUM(s.tradeCount) <> 0")
+    List<TradeCountRow> countTradesForTrader(@Param("loginId") String loginId);
+
+    @Modifying
+    @Query("DELETE FROM TradeSummaryCount")
+    void deleteAllRows();
+}
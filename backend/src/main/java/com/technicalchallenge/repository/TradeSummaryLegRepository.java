@@ -0,0 +1,34 @@
+package com.technicalchallenge.repository;
+
+import com.technicalchallenge.dto.LegTotalsRow;
+import com.technicalchallenge.model.TradeSummaryLeg;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TradeSummaryLegRepository extends JpaRepository<TradeSummaryLeg, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TradeSummaryLeg s WHERE s.summaryKey = :summaryKey")
+    Optional<TradeSummaryLeg> findForUpdate(@Param("summaryKey") String summaryKey);
+
+    // All-time leg totals for one trader, in the same shape as
+    // TradeRepository.sumLegsForTrader
+    @Query("SELECT new com.technicalchallenge.dto.LegTotalsRow(s.bookId, NULLIF(s.currency, ''), SUM(s.notional), "
+            + "SUM(s.delta)) "
+            + "FROM TradeSummaryLeg s WHERE s.traderLoginId = :loginId "
+            + "GROUP BY s.bookId, s.currency")
+    List<LegTotalsRow> sumLegsForTrader(@Param("loginId") String loginId);
+
+    @Modifying
+    @Query("DELETE FROM TradeSummaryLeg")
+    void deleteAllRows();
+}
@@ -51,6 +51,18 @@ public class UserPrivilegeValidator {
     public boolean canEditTrade(Trade trade, Authentication auth) {
         if (trade == null)
             return false;
+        String ownerLogin = (trade.getTraderUser() != null && trade.getTraderUser().getLoginId() != null)
+                ? trade.getTraderUser().getLoginId()
+                : null;
+        return canEditTradeOwnedBy(ownerLogin, auth);
+    }
+
+    /**
+     * ADDED: the edit check of canEditTrade for a trade known only by its
+     * owner's login (null when it has none), so a bulk update can check many
+     * trades from one query without loading them.
+     */
+    public boolean canEditTradeOwnedBy(String ownerLogin, Authentication auth) {
         String currentUser = (auth != null && auth.getName() != null) ? auth.getName() : "__UNKNOWN__";
 
         // Consider Middle Office and Admin as elevated editors as well. The
@@ -68,10 +80,6 @@ public class UserPrivilegeValidator {
                             || "TRADE_EDIT_ALL".equalsIgnoreCase(ga);
                 });
 
-        String ownerLogin = (trade.getTraderUser() != null && trade.getTraderUser().getLoginId() != null)
-                ? trade.getTraderUser().getLoginId()
-                : null;
-
         if (ownerLogin == null) {
             // No owner set: permit elevated editors OR TRADER role to edit ownerless
             // trades (matches previous service-layer fallback behaviour used in
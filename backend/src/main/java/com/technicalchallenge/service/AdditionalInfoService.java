@@ -5,6 +5,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import com.technicalchallenge.dto.AdditionalInfoDTO;
 import com.technicalchallenge.dto.AdditionalInfoRequestDTO;
+import com.technicalchallenge.dto.SettlementBulkResultDTO;
+import com.technicalchallenge.dto.SettlementBulkUpdateDTO;
+import com.technicalchallenge.dto.TradeOwnerRow;
 import com.technicalchallenge.mapper.AdditionalInfoMapper;
 import com.technicalchallenge.model.AdditionalInfo;
 import com.technicalchallenge.model.AdditionalInfoAudit;
@@ -14,8 +17,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 // for validations
 import com.technicalchallenge.validation.TradeValidationResult;
@@ -26,12 +34,21 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import com.technicalchallenge.repository.TradeRepository;
+import com.technicalchallenge.dto.TradeBlotterRow;
+import com.technicalchallenge.model.SettlementText;
+import com.technicalchallenge.model.Trade;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.Comparator;
+import java.util.Locale;
 import com.technicalchallenge.security.UserPrivilegeValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.slf4j.Logger;
@@ -80,6 +97,38 @@ public class AdditionalInfoService {
     @Autowired(required = false)
     private UserPrivilegeValidator userPrivilegeValidator;
 
+    // ADDED: times the settlement text searches and keeps the slow ones (see
+    // SearchQueryMonitor); null when the service is built by hand in tests
+    @Autowired(required = false)
+    private SearchQueryMonitor searchQueryMonitor;
+
+    // ADDED: trigram index answering the settlement text searches from memory
+    // (see SettlementTextIndex); every write below keeps it current. Null when
+    // the service is built by hand in tests or the index is switched off, and
+    // not ready until loaded at startup: the searches use the database then.
+    @Autowired(required = false)
+    private SettlementTextIndex settlementTextIndex;
+
+    // ADDED: finds the non-standard keyword of a settlement instruction when
+    // it is written (see NonStandardSettlementDetector). Null when the service
+    // is built by hand in tests; rows are then saved without a keyword.
+    @Autowired(required = false)
+    private NonStandardSettlementDetector nonStandardSettlementDetector;
+
+    // ADDED: batched writer for the audit records (see SettlementAuditWriter):
+    // written in JDBC batches just before the settlement transaction commits.
+    // Null when the service is built by hand in tests or batching is switched
+    // off; the records are then saved one by one through the repository.
+    @Autowired(required = false)
+    private SettlementAuditWriter settlementAuditWriter;
+
+    // ADDED: stores each distinct settlement text once (see
+    // SettlementTextStore); settlement rows and their audit records reference
+    // it by hash. Null when the service is built by hand in tests; the text
+    // is then kept on the row itself.
+    @Autowired(required = false)
+    private SettlementTextStore settlementTextStore;
+
     /**
      * Refactor after tests failed, I added extra parameter
      * ApplicationEventPublisher later after
@@ -90,6 +139,12 @@ public class AdditionalInfoService {
      */
     private static final Logger log = LoggerFactory.getLogger(AdditionalInfoService.class);
 
+    // Trade ids per IN list when loading the rows behind index search results
+    private static final int SETTLEMENT_ROW_CHUNK = 500;
+
+    // Items accepted by one bulk settlement update
+    static final int MAX_BULK_ITEMS = 1000;
+
     public AdditionalInfoService(AdditionalInfoRepository additionalInfoRepository,
             AdditionalInfoMapper additionalInfoMapper,
             AdditionalInfoAuditRepository additionalInfoAuditRepository,
@@ -197,10 +252,56 @@ public class AdditionalInfoService {
             additionalInfo.setFieldType("STRING");
         }
 
+        classifySettlement(additionalInfo);
         AdditionalInfo savedInfo = additionalInfoRepository.save(additionalInfo);
+        indexSettlement(savedInfo);
         return additionalInfoMapper.toDto(savedInfo);
     }
 
+    // ADDED: writes the settlement instruction of a trade booking or
+    // amendment (TradeService), inside its transaction; the caller has
+    // validated and trimmed the text already. A booking creates the row, an
+    // amendment updates the active row (creating one when there is none).
+    // The row is classified, interned and indexed, and the change audited,
+    // as upOrInsertTradeSettlementInstructions does for an edit.
+    AdditionalInfo saveValidatedSettlement(Long tradeId, String text, boolean amendment) {
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        AdditionalInfo row = amendment ? additionalInfoRepository
+                .findActiveOne("TRADE", tradeId, "SETTLEMENT_INSTRUCTIONS").orElse(null) : null;
+        String oldValue = null;
+        if (row == null) {
+            row = new AdditionalInfo();
+            row.setEntityType("TRADE");
+            row.setEntityId(tradeId);
+            row.setFieldName("SETTLEMENT_INSTRUCTIONS");
+            row.setFieldType("STRING");
+            row.setActive(true);
+            row.setCreatedDate(now);
+        } else {
+            oldValue = row.getFieldValue();
+            if (text.equals(oldValue)) {
+                return row;
+            }
+        }
+        row.setFieldValue(text);
+        row.setLastModifiedDate(now);
+        classifySettlement(row);
+        AdditionalInfo savedInfo = additionalInfoRepository.save(row);
+        indexSettlement(savedInfo);
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        AdditionalInfoAudit audit = new AdditionalInfoAudit();
+        audit.setTradeId(tradeId);
+        audit.setFieldName("SETTLEMENT_INSTRUCTIONS");
+        audit.setOldValue(oldValue);
+        audit.setNewValue(text);
+        audit.setChangedBy(auth != null && auth.getName() != null && !auth.getName().isBlank() ? auth.getName()
+                : "SYSTEM");
+        audit.setChangedAt(now);
+        writeAudit(audit);
+        return savedInfo;
+    }
+
     /**
      * Updates an existing AdditionalInfo record.
      * Validates the new content and updates the entity identified by id.
@@ -259,7 +360,9 @@ public class AdditionalInfoService {
         }
 
         additionalInfoMapper.updateEntityFromRequest(existingAdditionalInfo, requestDTO);
+        classifySettlement(existingAdditionalInfo);
         AdditionalInfo updatedInfo = additionalInfoRepository.save(existingAdditionalInfo);
+        indexSettlement(updatedInfo);
 
         // Refactored ADDED: Audit trail logic
         // Business purpose: Meets the "Audit Trail" requirement —
@@ -291,9 +394,9 @@ public class AdditionalInfoService {
             audit.setChangedBy(changedBy);
 
             // Saving audit record so it appears in the audit trail endpoint
-            additionalInfoAuditRepository.save(audit);// saving the audit after the main entity ensures that:The trade
-                                                      // update definitely succeeded (no need to record failed
-                                                      // attempts).
+            writeAudit(audit);// saving the audit after the main entity ensures that:The trade
+                              // update definitely succeeded (no need to record failed
+                              // attempts).
         }
 
         return additionalInfoMapper.toDto(updatedInfo);
@@ -391,7 +494,12 @@ public class AdditionalInfoService {
         }
 
         // Calls custom repository query that uses LIKE '%keyword%' for partial match
-        List<AdditionalInfo> results = additionalInfoRepository.searchTradeSettlementByKeyword(keyword.trim());
+        // CHANGED: answered by the settlement text index once it is loaded;
+        // the rows come back in its ranking order
+        List<AdditionalInfo> results = settlementIndexReady()
+                ? settlementRowsFor(settlementTextIndex.matchingTradeIds(keyword))
+                : monitored("settlement-keyword",
+                        () -> additionalInfoRepository.searchTradeSettlementByKeyword(keyword.trim()));
         List<AdditionalInfoDTO> dtoList = new ArrayList<>();
 
         // Convert entity list to DTO list for frontend use
@@ -518,6 +626,7 @@ public class AdditionalInfoService {
             // Update existing record
             oldValue = existing.getFieldValue();
             existing.setFieldValue(settlementText);
+            classifySettlement(existing);
             target = additionalInfoRepository.save(existing);
         } else {
             // Create new record if none exists
@@ -535,8 +644,10 @@ public class AdditionalInfoService {
             if (entity.getFieldType() == null || entity.getFieldType().trim().isEmpty()) {
                 entity.setFieldType("STRING");
             }
+            classifySettlement(entity);
             target = additionalInfoRepository.save(entity);
         }
+        indexSettlement(target);
 
         // Write to audit trail
         AdditionalInfoAudit audit = new AdditionalInfoAudit();
@@ -550,7 +661,7 @@ public class AdditionalInfoService {
         audit.setChangedBy(authUser);
         audit.setChangedAt(java.time.LocalDateTime.now());
         // Save audit trail record separately
-        additionalInfoAuditRepository.save(audit);
+        writeAudit(audit);
 
         // Publish a domain event so listeners (notifications, SSE, metrics)
         // can react to the settlement instructions change. The event payload is
@@ -584,6 +695,176 @@ public class AdditionalInfoService {
         return additionalInfoMapper.toDto(target);
     }
 
+    /**
+     * ADDED: creates or updates the settlement instructions of many trades
+     * at once (an SSI change at a custodian touches hundreds), with the same
+     * validation, ownership rules and audit trail as
+     * upOrInsertTradeSettlementInstructions.
+     *
+     * Every item is validated before anything is read. The trades, their
+     * owners and their current instructions are then read a chunk of trade
+     * ids per statement, the changed rows are saved together (Hibernate
+     * batches the INSERTs and UPDATEs), the audit records go to the
+     * batched audit writer together, and one
+     * SettlementInstructionsBulkUpdatedEvent is published for the lot.
+     *
+     * Returns one result per item, in request order. A rejected item
+     * (invalid text, unknown trade, not the caller's trade, a trade listed
+     * twice) does not stop the others; an item whose text is already stored
+     * is left alone. Throws IllegalArgumentException for an empty request or
+     * more than MAX_BULK_ITEMS items.
+     */
+    @Transactional
+    public List<SettlementBulkResultDTO> bulkUpsertTradeSettlementInstructions(List<SettlementBulkUpdateDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one settlement instruction is required.");
+        }
+        if (items.size() > MAX_BULK_ITEMS) {
+            throw new IllegalArgumentException(
+                    "At most " + MAX_BULK_ITEMS + " settlement instructions can be updated at once.");
+        }
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String authUser = (auth != null && auth.getName() != null && !auth.getName().isBlank()) ? auth.getName()
+                : "SYSTEM";
+
+        // Validation first, without the database. The texts of an SSI change
+        // are mostly the same few, which the validation engine has seen.
+        SettlementBulkResultDTO[] results = new SettlementBulkResultDTO[items.size()];
+        Map<Long, Integer> positions = new HashMap<>();
+        Map<Long, String> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            SettlementBulkUpdateDTO item = items.get(i);
+            Long tradeId = item == null ? null : item.getTradeId();
+            if (tradeId == null || tradeId <= 0) {
+                results[i] = bulkResult(tradeId, SettlementBulkResultDTO.Status.INVALID,
+                        "Trade ID must be a valid positive number.", null);
+                continue;
+            }
+            if (positions.putIfAbsent(tradeId, i) != null) {
+                results[i] = bulkResult(tradeId, SettlementBulkResultDTO.Status.INVALID,
+                        "Trade " + tradeId + " appears more than once in the request.", null);
+                continue;
+            }
+            String text = item.getFieldValue() == null || item.getFieldValue().isBlank() ? null
+                    : item.getFieldValue().trim();
+            if (text != null) {
+                TradeValidationResult validationResult = tradeValidationEngine.validateSettlementInstructions(text);
+                if (!validationResult.isValid()) {
+                    results[i] = bulkResult(tradeId, SettlementBulkResultDTO.Status.INVALID,
+                            validationResult.getErrors().get(0), null);
+                    continue;
+                }
+            }
+            accepted.put(tradeId, text);
+        }
+
+        // Trades with their owners, and the current instructions
+        List<Long> tradeIds = new ArrayList<>(accepted.keySet());
+        Map<Long, TradeOwnerRow> trades = new HashMap<>();
+        Map<Long, AdditionalInfo> current = new HashMap<>();
+        for (int from = 0; from < tradeIds.size(); from += SETTLEMENT_ROW_CHUNK) {
+            List<Long> chunk = tradeIds.subList(from, Math.min(from + SETTLEMENT_ROW_CHUNK, tradeIds.size()));
+            tradeRepository.findActiveTradeOwners(chunk).forEach(row -> trades.merge(row.tradeId(), row,
+                    (a, b) -> a.version() >= b.version() ? a : b));
+            additionalInfoRepository.findByEntityTypeAndEntityIdInAndFieldName("TRADE", chunk,
+                    "SETTLEMENT_INSTRUCTIONS").forEach(row -> current.merge(row.getEntityId(), row,
+                            (a, b) -> a.getAdditionalInfoId() >= b.getAdditionalInfoId() ? a : b));
+        }
+
+        List<AdditionalInfo> changed = new ArrayList<>();
+        List<AdditionalInfoAudit> audits = new ArrayList<>();
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        for (Map.Entry<Long, String> entry : accepted.entrySet()) {
+            Long tradeId = entry.getKey();
+            String text = entry.getValue();
+            int i = positions.get(tradeId);
+            TradeOwnerRow trade = trades.get(tradeId);
+            if (trade == null) {
+                results[i] = bulkResult(tradeId, SettlementBulkResultDTO.Status.NOT_FOUND,
+                        "Trade not found with ID: " + tradeId, null);
+                continue;
+            }
+            if (!canEditSettlement(trade.traderLoginId(), auth, authUser)) {
+                results[i] = bulkResult(tradeId, SettlementBulkResultDTO.Status.FORBIDDEN,
+                        "Insufficient privileges to modify settlement instructions for trade " + tradeId, null);
+                continue;
+            }
+            AdditionalInfo row = current.get(tradeId);
+            String oldValue = row == null ? null : row.getFieldValue();
+            if (Objects.equals(oldValue, text)) {
+                results[i] = bulkResult(tradeId, SettlementBulkResultDTO.Status.UNCHANGED, null,
+                        row == null ? null : row.getNonStandardKeyword());
+                continue;
+            }
+            SettlementBulkResultDTO.Status status = SettlementBulkResultDTO.Status.UPDATED;
+            if (row == null) {
+                row = new AdditionalInfo();
+                row.setEntityType("TRADE");
+                row.setEntityId(tradeId);
+                row.setFieldName("SETTLEMENT_INSTRUCTIONS");
+                row.setFieldType("STRING");
+                status = SettlementBulkResultDTO.Status.CREATED;
+            }
+            row.setFieldValue(text);
+            classifySettlement(row);
+            changed.add(row);
+            results[i] = bulkResult(tradeId, status, null, row.getNonStandardKeyword());
+
+            AdditionalInfoAudit audit = new AdditionalInfoAudit();
+            audit.setTradeId(tradeId);
+            audit.setFieldName("SETTLEMENT_INSTRUCTIONS");
+            audit.setOldValue(oldValue);
+            audit.setNewValue(text);
+            audit.setChangedBy(authUser);
+            audit.setChangedAt(now);
+            audits.add(audit);
+        }
+
+        additionalInfoRepository.saveAll(changed).forEach(this::indexSettlement);
+        audits.forEach(this::writeAudit);
+
+        if (!changed.isEmpty() && applicationEventPublisher != null) {
+            Map<String, Object> details = new LinkedHashMap<>();
+            for (SettlementBulkResultDTO.Status status : SettlementBulkResultDTO.Status.values()) {
+                details.put(status.name().toLowerCase(Locale.ROOT),
+                        Arrays.stream(results).filter(result -> result.getStatus() == status).count());
+            }
+            try {
+                applicationEventPublisher.publishEvent(
+                        new com.technicalchallenge.Events.SettlementInstructionsBulkUpdatedEvent(
+                                changed.stream().map(AdditionalInfo::getEntityId).toList(), authUser,
+                                Instant.now().truncatedTo(ChronoUnit.MILLIS), details));
+            } catch (Exception ex) {
+                // As for the single-trade event: listeners must not undo the update
+                log.warn("Failed to publish SettlementInstructionsBulkUpdatedEvent for {} trades: {}", changed.size(),
+                        ex.getMessage(), ex);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private static SettlementBulkResultDTO bulkResult(Long tradeId, SettlementBulkResultDTO.Status status,
+            String message, String nonStandardKeyword) {
+        return new SettlementBulkResultDTO(tradeId, status, message, nonStandardKeyword);
+    }
+
+    // The edit check of upOrInsertTradeSettlementInstructions for a trade
+    // known by its owner's login; the same inline fallback when there is no
+    // UserPrivilegeValidator
+    private boolean canEditSettlement(String ownerLogin, Authentication auth, String authUser) {
+        if (userPrivilegeValidator != null) {
+            return userPrivilegeValidator.canEditTradeOwnedBy(ownerLogin, auth);
+        }
+        boolean canEditOthers = auth != null && auth.getAuthorities() != null && auth.getAuthorities().stream()
+                .anyMatch(a -> {
+                    String ga = a.getAuthority();
+                    return "ROLE_SALES".equalsIgnoreCase(ga) || "ROLE_SUPERUSER".equalsIgnoreCase(ga)
+                            || "ROLE_MIDDLE_OFFICE".equalsIgnoreCase(ga) || "ROLE_ADMIN".equalsIgnoreCase(ga)
+                            || "TRADE_EDIT_ALL".equalsIgnoreCase(ga);
+                });
+        return ownerLogin == null || ownerLogin.equalsIgnoreCase(authUser) || canEditOthers;
+    }
+
     public Optional<AdditionalInfoDTO> getTradeSettlementInstructions(Long tradeId) {
         return additionalInfoRepository
                 .findActiveOne("TRADE", tradeId, "SETTLEMENT_INSTRUCTIONS")
@@ -596,31 +877,17 @@ public class AdditionalInfoService {
     // problematic trades quickly and is the first
 
     public String alertNonStandardSettlementKeyword(Long tradeId) {
-        // validate the tradeId, and We fetch the active AdditionalInfo record for
-        // settlement instructions for that trade
+        // validate the tradeId
         if (tradeId == null || tradeId <= 0)
             throw new IllegalArgumentException("Trade ID must be valid.");
-        AdditionalInfo record = additionalInfoRepository.findActiveByEntityTypeAndEntityIdAndFieldName("TRADE", tradeId,
-                "SETTLEMENT_INSTRUCTIONS");// existing query
-
-        // If there are no settlement instructions, return null (nothing non-standard to
-        // detect)
-        if (record == null || record.getFieldValue() == null)
-            return null;
-        // Convert the stored text to lowercase so matching is case-insensitive
-        String text = record.getFieldValue().toLowerCase();
-        // DVP = Delivery-Versus=Payment: securities are delivered only if payment is
-        // made
-        String[] nonStandardS = new String[] { "manual", "non-dvp", "non dvp", "offshore", "physical", "warehouse" };
-
-        for (int i = 0; i < nonStandardS.length; i++) {
-            if (text.contains(nonStandardS[i]))
-                return nonStandardS[i];
-        }
-
-        // If nonStandardS is found, return null to indicate "no match".
-        return null;
-
+        // CHANGED: reads the keyword stored when the instruction was written
+        // (NonStandardSettlementDetector) instead of loading the record and
+        // scanning its text for each keyword on every call. Null when there
+        // are no settlement instructions or nothing non-standard in the
+        // newest active one.
+        List<String> keywords = additionalInfoRepository.findNonStandardKeywordsByTradeId(tradeId,
+                PageRequest.of(0, 1));
+        return keywords.isEmpty() ? null : keywords.get(0);
     }
 
     /**
@@ -695,6 +962,7 @@ public class AdditionalInfoService {
         existing.setActive(false);
         existing.setDeactivatedDate(java.time.LocalDateTime.now());
         additionalInfoRepository.save(existing);
+        indexSettlement(existing);
 
         // Audit the deletion
         AdditionalInfoAudit audit = new AdditionalInfoAudit();
@@ -704,7 +972,7 @@ public class AdditionalInfoService {
         audit.setNewValue(null);
         audit.setChangedBy(authUser);
         audit.setChangedAt(java.time.LocalDateTime.now());
-        additionalInfoAuditRepository.save(audit);
+        writeAudit(audit);
 
         // Publish an event for listeners to react to the deletion.
         try {
@@ -813,6 +1081,7 @@ public class AdditionalInfoService {
         record.setActive(false);
         record.setDeactivatedDate(java.time.LocalDateTime.now());
         additionalInfoRepository.save(record);
+        indexSettlement(record);
 
         // Audit
         AdditionalInfoAudit audit = new AdditionalInfoAudit();
@@ -822,7 +1091,7 @@ public class AdditionalInfoService {
         audit.setNewValue(null);
         audit.setChangedBy(authUser);
         audit.setChangedAt(java.time.LocalDateTime.now());
-        additionalInfoAuditRepository.save(audit);
+        writeAudit(audit);
 
         return true;
     }
@@ -854,9 +1123,8 @@ public class AdditionalInfoService {
                 safeSize,
                 Sort.by("additionalInfoId").descending());
 
-        Page<AdditionalInfo> results = additionalInfoRepository.searchByFieldValueContainingIgnoreCase(
-                keyword.trim(),
-                pageable);
+        Page<AdditionalInfo> results = monitored("additional-info-key",
+                () -> additionalInfoRepository.searchByFieldValueContainingIgnoreCase(keyword.trim(), pageable));
 
         return results.map(additionalInfoMapper::toDto);
     }
@@ -873,16 +1141,177 @@ public class AdditionalInfoService {
 
         int safeSize = Math.min(size, 100);
 
+        // CHANGED: a ranked page of trades from the settlement text index once
+        // it is loaded (the total then counts trades, not rows)
+        if (settlementIndexReady()) {
+            Page<Long> tradeIds = settlementTextIndex.search(keyword, page, safeSize);
+            return new PageImpl<>(settlementRowsFor(tradeIds.getContent()), tradeIds.getPageable(),
+                    tradeIds.getTotalElements()).map(additionalInfoMapper::toDto);
+        }
+
         Pageable pageable = PageRequest.of(
                 page,
                 safeSize,
                 Sort.by("additionalInfoId").descending());
 
-        Page<AdditionalInfo> results = additionalInfoRepository.searchSettlementInstructions(
-                keyword.trim(),
-                pageable);
+        Page<AdditionalInfo> results = monitored("settlement-text",
+                () -> additionalInfoRepository.searchSettlementInstructions(keyword.trim(), pageable));
 
         return results.map(additionalInfoMapper::toDto);
     }
 
+    /**
+     * CHANGED: a page of the active trades whose settlement instructions
+     * contain the keyword (case-insensitive), as blotter rows, for the
+     * settlement search endpoint. The total counts trades, and the page takes
+     * a fixed number of statements whatever its size.
+     *
+     * Once the settlement text index is loaded it ranks the trades (best
+     * match first) and the page's trade ids are read in one statement; until
+     * then one joined query pages the active trades directly, newest trade
+     * first, with a COUNT for the total.
+     */
+    @Transactional(readOnly = true)
+    public Page<TradeBlotterRow> searchSettlementTrades(String keyword, int page, int size) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            throw new IllegalArgumentException("Search keyword cannot be empty.");
+        }
+        int safeSize = Math.min(size, 100);
+        if (settlementIndexReady()) {
+            Page<Long> tradeIds = settlementTextIndex.search(keyword, page, safeSize);
+            if (tradeIds.isEmpty()) {
+                return new PageImpl<>(List.of(), tradeIds.getPageable(), tradeIds.getTotalElements());
+            }
+            Map<Long, Integer> rank = new HashMap<>();
+            for (int i = 0; i < tradeIds.getContent().size(); i++) {
+                rank.put(tradeIds.getContent().get(i), i);
+            }
+            List<TradeBlotterRow> rows = tradeRepository
+                    .findBlotterRows(activeTradesIn(tradeIds.getContent()), Pageable.unpaged()).getContent()
+                    .stream().sorted(Comparator.comparing(row -> rank.get(row.tradeId()))).toList();
+            return new PageImpl<>(rows, tradeIds.getPageable(), tradeIds.getTotalElements());
+        }
+        return monitored("settlement-text", () -> tradeRepository
+                .findBlotterRows(activeTradesWithSettlementText(keyword.trim()), PageRequest.of(page, safeSize)));
+    }
+
+    // The active version of each of the given trades
+    private static Specification<Trade> activeTradesIn(List<Long> tradeIds) {
+        return (root, query, cb) -> cb.and(root.get("tradeId").in(tradeIds), cb.isTrue(root.get("active")));
+    }
+
+    // Active trades with an active settlement instruction containing keyword.
+    // EXISTS rather than a join, so a trade is one row (and counted once)
+    // however many instructions match; the keyword's % and _ match themselves,
+    // as they do in the index. CHANGED: the LIKE runs over the distinct texts
+    // in settlement_text (an uncorrelated subquery, evaluated once), and the
+    // trades are matched on the hash; rows holding their own text are still
+    // matched on field_value.
+    private static Specification<Trade> activeTradesWithSettlementText(String keyword) {
+        String pattern = "%" + keyword.toLowerCase(Locale.ROOT).replace("\\", "\\\\").replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return (root, query, cb) -> {
+            Subquery<String> matchingTexts = query.subquery(String.class);
+            Root<SettlementText> text = matchingTexts.from(SettlementText.class);
+            matchingTexts.select(text.get("hash")).where(cb.like(cb.lower(text.get("text")), pattern, '\\'));
+
+            Subquery<Long> settlement = query.subquery(Long.class);
+            Root<AdditionalInfo> info = settlement.from(AdditionalInfo.class);
+            settlement.select(info.get("additionalInfoId")).where(
+                    cb.equal(info.get("entityId"), root.get("tradeId")),
+                    cb.isTrue(info.get("active")),
+                    cb.equal(cb.upper(info.get("entityType")), "TRADE"),
+                    cb.equal(cb.upper(info.get("fieldName")), "SETTLEMENT_INSTRUCTIONS"),
+                    cb.or(info.get("settlementText").get("hash").in(matchingTexts),
+                            cb.like(cb.lower(info.get("fieldValue")), pattern, '\\')));
+            return cb.and(cb.isTrue(root.get("active")), cb.exists(settlement));
+        };
+    }
+
+    private boolean settlementIndexReady() {
+        return settlementTextIndex != null && settlementTextIndex.isReady();
+    }
+
+    // The active settlement rows of the given trades, in the same order
+    private List<AdditionalInfo> settlementRowsFor(List<Long> tradeIds) {
+        if (tradeIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, AdditionalInfo> byTrade = new HashMap<>();
+        for (int from = 0; from < tradeIds.size(); from += SETTLEMENT_ROW_CHUNK) {
+            additionalInfoRepository.findByEntityTypeAndEntityIdInAndFieldName("TRADE",
+                    tradeIds.subList(from, Math.min(from + SETTLEMENT_ROW_CHUNK, tradeIds.size())),
+                    "SETTLEMENT_INSTRUCTIONS")
+                    .forEach(row -> byTrade.putIfAbsent(row.getEntityId(), row));
+        }
+        return tradeIds.stream().map(byTrade::get).filter(Objects::nonNull).toList();
+    }
+
+    // ADDED: stores the non-standard keyword of a trade settlement
+    // instruction on the row before it is saved; other rows carry none.
+    // CHANGED: the text is interned in SettlementTextStore and the row
+    // references it; the keyword comes with the stored text, so it is only
+    // worked out the first time a text is seen.
+    private void classifySettlement(AdditionalInfo info) {
+        boolean settlement = "TRADE".equalsIgnoreCase(info.getEntityType())
+                && "SETTLEMENT_INSTRUCTIONS".equalsIgnoreCase(info.getFieldName());
+        String text = info.getFieldValue();
+        if (settlementTextStore != null && settlement && text != null && !text.isBlank()) {
+            SettlementText stored = settlementTextStore.intern(text);
+            info.setSettlementText(stored);
+            info.setNonStandardKeyword(stored.getNonStandardKeyword());
+            return;
+        }
+        if (nonStandardSettlementDetector == null) {
+            return;
+        }
+        info.setNonStandardKeyword(settlement ? nonStandardSettlementDetector.detect(info.getFieldValue()) : null);
+    }
+
+    // ADDED: keeps the settlement text index in step with a saved row. Only
+    // active trade settlement instructions are indexed.
+    private void indexSettlement(AdditionalInfo info) {
+        if (settlementTextIndex == null || info == null || info.getAdditionalInfoId() == null) {
+            return;
+        }
+        boolean settlement = "TRADE".equalsIgnoreCase(info.getEntityType())
+                && "SETTLEMENT_INSTRUCTIONS".equalsIgnoreCase(info.getFieldName());
+        if (settlement && !Boolean.FALSE.equals(info.getActive()) && info.getEntityId() != null) {
+            settlementTextIndex.put(info.getAdditionalInfoId(), info.getEntityId(), info.getFieldValue());
+        } else {
+            settlementTextIndex.remove(info.getAdditionalInfoId());
+        }
+    }
+
+    /**
+     * ADDED: one page of a trade's settlement audit trail, newest change
+     * first, read through idx_ai_audit_trade_changed. Audit records are
+     * committed with their settlement change, so the page includes every
+     * change committed before the call.
+     */
+    @Transactional(readOnly = true)
+    public Page<AdditionalInfoAudit> getAuditTrail(Long tradeId, int page, int size) {
+        return additionalInfoAuditRepository.findByTradeIdOrderByChangedAtDescIdDesc(tradeId,
+                PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 500)));
+    }
+
+    // ADDED: audit records go to the batched writer when there is one.
+    // CHANGED: settlement texts are referenced by hash, not copied
+    private void writeAudit(AdditionalInfoAudit audit) {
+        if (settlementTextStore != null && "SETTLEMENT_INSTRUCTIONS".equalsIgnoreCase(audit.getFieldName())) {
+            audit.setOldText(settlementTextStore.intern(audit.getOldValue()));
+            audit.setNewText(settlementTextStore.intern(audit.getNewValue()));
+        }
+        if (settlementAuditWriter != null) {
+            settlementAuditWriter.record(audit);
+        } else {
+            additionalInfoAuditRepository.save(audit);
+        }
+    }
+
+    // ADDED: runs a search query under SearchQueryMonitor
+    private <T> T monitored(String search, Supplier<T> query) {
+        return searchQueryMonitor == null ? query.get() : searchQueryMonitor.monitor(search, query);
+    }
+
 }
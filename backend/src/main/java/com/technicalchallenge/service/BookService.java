@@ -4,9 +4,9 @@ import com.technicalchallenge.dto.BookDTO;
 import com.technicalchallenge.mapper.BookMapper;
 import com.technicalchallenge.model.Book;
 import com.technicalchallenge.repository.BookRepository;
-import com.technicalchallenge.repository.CostCenterRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,8 +19,9 @@ import java.util.Optional;
 public class BookService {
     private static final Logger logger = LoggerFactory.getLogger(BookService.class);
     private final BookRepository bookRepository;
-    private final CostCenterRepository costCenterRepository;
     private final BookMapper bookMapper;
+    // In-memory cost centre lookup
+    private final ReferenceDataCache referenceDataCache;
 
     public List<BookDTO> getAllBooks() {
         logger.info("Retrieving all books");
@@ -36,9 +37,8 @@ public class BookService {
 
     public void populateReferenceDataByName(Book book, BookDTO dto) {
         if (dto.getCostCenterName() != null && !dto.getCostCenterName().isBlank()) {
-            var costCenter = costCenterRepository.findAll().stream()
-                    .filter(c -> c.getCostCenterName().equalsIgnoreCase(dto.getCostCenterName()))
-                    .findFirst().orElse(null);
+            var costCenter = referenceDataCache.costCenters().findByNameIgnoreCase(dto.getCostCenterName())
+                    .orElse(null);
             if (costCenter == null)
                 throw new IllegalArgumentException("CostCenter '" + dto.getCostCenterName() + "' does not exist");
             book.setCostCenter(costCenter);
@@ -46,6 +46,9 @@ public class BookService {
         // If costCenterName is null or blank, do not modify the current costCenter
     }
 
+    // Transactional so the saved book's cost center can still be read while
+    // mapping (Open Session In View is off)
+    @Transactional
     public BookDTO saveBook(BookDTO dto) {
         logger.info("Saving book: {}", dto.toString());
         var entity = bookMapper.toEntity(dto);
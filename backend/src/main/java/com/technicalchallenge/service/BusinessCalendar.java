@@ -0,0 +1,186 @@
+package com.technicalchallenge.service;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Map;
+
+/**
+ * BusinessCalendar
+ *
+ * Immutable holiday calendar held as one flat bitset covering every year that
+ * has holidays (bit n = first day + n). Saturdays and Sundays are always
+ * non-business days. isBusinessDay is O(1) on epoch days: a weekday check by
+ * arithmetic plus one bit lookup, with no date objects created.
+ *
+ * Combined calendars (e.g. "LON+NY") are built with or(), a bitwise OR of the
+ * two holiday sets.
+ */
+public final class BusinessCalendar {
+
+    private final String name;
+    private final long firstEpochDay;
+    private final long[] holidayBits;
+    private final int dayCount;
+
+    private BusinessCalendar(String name, long firstEpochDay, long[] holidayBits, int dayCount) {
+        this.name = name;
+        this.firstEpochDay = firstEpochDay;
+        this.holidayBits = holidayBits;
+        this.dayCount = dayCount;
+    }
+
+    /** A calendar with no holidays, only weekends */
+    public static BusinessCalendar weekendsOnly(String name) {
+        return new BusinessCalendar(name, 0, new long[0], 0);
+    }
+
+    /**
+     * Builds a calendar from per-year bitsets as stored in
+     * holiday_calendar_year (bit n of the year's bytes = day-of-year n + 1).
+     */
+    public static BusinessCalendar fromYearBits(String name, Map<Integer, byte[]> bitsByYear) {
+        if (bitsByYear.isEmpty()) {
+            return weekendsOnly(name);
+        }
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+        for (int year : bitsByYear.keySet()) {
+            minYear = Math.min(minYear, year);
+            maxYear = Math.max(maxYear, year);
+        }
+        long first = LocalDate.of(minYear, 1, 1).toEpochDay();
+        int days = (int) (LocalDate.of(maxYear, 12, 31).toEpochDay() - first + 1);
+        long[] bits = new long[(days + 63) >>> 6];
+
+        for (Map.Entry<Integer, byte[]> entry : bitsByYear.entrySet()) {
+            int yearOffset = (int) (LocalDate.of(entry.getKey(), 1, 1).toEpochDay() - first);
+            int daysInYear = Year.of(entry.getKey()).length();
+            byte[] yearBits = entry.getValue();
+            for (int b = 0; b < yearBits.length; b++) {
+                int v = yearBits[b] & 0xFF;
+                while (v != 0) {
+                    int bit = Integer.numberOfTrailingZeros(v);
+                    v &= v - 1;
+                    int dayOfYearIndex = (b << 3) + bit;
+                    if (dayOfYearIndex < daysInYear) {
+                        int i = yearOffset + dayOfYearIndex;
+                        bits[i >>> 6] |= 1L << i;
+                    }
+                }
+            }
+        }
+        return new BusinessCalendar(name, first, bits, days);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isHoliday(long epochDay) {
+        long i = epochDay - firstEpochDay;
+        if (i < 0 || i >= dayCount) {
+            return false;
+        }
+        return (holidayBits[(int) (i >>> 6)] & (1L << i)) != 0;
+    }
+
+    public static boolean isWeekend(long epochDay) {
+        // 1970-01-01 (epoch day 0) was a Thursday; 0 = Monday ... 6 = Sunday
+        return Math.floorMod(epochDay + 3, 7) >= 5;
+    }
+
+    public boolean isBusinessDay(long epochDay) {
+        return !isWeekend(epochDay) && !isHoliday(epochDay);
+    }
+
+    public boolean isBusinessDay(LocalDate date) {
+        return isBusinessDay(date.toEpochDay());
+    }
+
+    /** Union of the two calendars' holidays: a day is a business day only if it is one in both. */
+    public BusinessCalendar or(BusinessCalendar other) {
+        String combined = name + "+" + other.name;
+        if (other.dayCount == 0) {
+            return new BusinessCalendar(combined, firstEpochDay, holidayBits, dayCount);
+        }
+        if (dayCount == 0) {
+            return new BusinessCalendar(combined, other.firstEpochDay, other.holidayBits, other.dayCount);
+        }
+        long first = Math.min(firstEpochDay, other.firstEpochDay);
+        long last = Math.max(firstEpochDay + dayCount, other.firstEpochDay + other.dayCount);
+        int days = (int) (last - first);
+        long[] bits = new long[(days + 63) >>> 6];
+        copyInto(bits, first);
+        other.copyInto(bits, first);
+        return new BusinessCalendar(combined, first, bits, days);
+    }
+
+    private void copyInto(long[] target, long targetFirstEpochDay) {
+        int offset = (int) (firstEpochDay - targetFirstEpochDay);
+        if ((offset & 63) == 0) {
+            // Same word alignment (e.g. both start on the same day): OR whole words
+            int wordOffset = offset >>> 6;
+            for (int w = 0; w < holidayBits.length; w++) {
+                target[wordOffset + w] |= holidayBits[w];
+            }
+            return;
+        }
+        for (int w = 0; w < holidayBits.length; w++) {
+            long word = holidayBits[w];
+            while (word != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                int t = offset + i;
+                target[t >>> 6] |= 1L << t;
+            }
+        }
+    }
+
+    /** Applies the convention to a date; business days are returned unchanged. */
+    public LocalDate adjust(LocalDate date, BusinessDayAdjustment adjustment) {
+        long epochDay = date.toEpochDay();
+        long adjusted = adjust(epochDay, adjustment);
+        return adjusted == epochDay ? date : LocalDate.ofEpochDay(adjusted);
+    }
+
+    public long adjust(long epochDay, BusinessDayAdjustment adjustment) {
+        if (adjustment == null || adjustment == BusinessDayAdjustment.UNADJUSTED || isBusinessDay(epochDay)) {
+            return epochDay;
+        }
+        switch (adjustment) {
+            case FOLLOWING:
+                return roll(epochDay, 1);
+            case PRECEDING:
+                return roll(epochDay, -1);
+            case MODIFIED_FOLLOWING: {
+                long following = roll(epochDay, 1);
+                return sameMonth(epochDay, following) ? following : roll(epochDay, -1);
+            }
+            case MODIFIED_PRECEDING: {
+                long preceding = roll(epochDay, -1);
+                return sameMonth(epochDay, preceding) ? preceding : roll(epochDay, 1);
+            }
+            default:
+                return epochDay;
+        }
+    }
+
+    private long roll(long epochDay, int step) {
+        long d = epochDay;
+        // A year without a single business day means corrupt calendar data
+        for (int i = 0; i < 366; i++) {
+            d += step;
+            if (isBusinessDay(d)) {
+                return d;
+            }
+        }
+        throw new IllegalStateException("No business day within a year of " + LocalDate.ofEpochDay(epochDay)
+                + " in calendar " + name);
+    }
+
+    private static boolean sameMonth(long a, long b) {
+        LocalDate x = LocalDate.ofEpochDay(a);
+        LocalDate y = LocalDate.ofEpochDay(b);
+        return x.getYear() == y.getYear() && x.getMonthValue() == y.getMonthValue();
+    }
+}
@@ -0,0 +1,48 @@
+package com.technicalchallenge.service;
+
+import java.util.Locale;
+
+/**
+ * Business day conventions applied to payment dates that fall on a weekend or
+ * holiday. Names match the business_day_convention reference table
+ * ("Following", "Modified Following", ...).
+ */
+public enum BusinessDayAdjustment {
+    UNADJUSTED,
+    FOLLOWING,
+    MODIFIED_FOLLOWING,
+    PRECEDING,
+    MODIFIED_PRECEDING;
+
+    /**
+     * Parses a reference-data name such as "Modified Following", "MODFOLLOWING"
+     * or "following". Blank means UNADJUSTED.
+     */
+    public static BusinessDayAdjustment fromName(String name) {
+        if (name == null || name.isBlank()) {
+            return UNADJUSTED;
+        }
+        String n = name.trim().toUpperCase(Locale.ROOT).replace("-", "").replace("_", "").replace(" ", "");
+        switch (n) {
+            case "UNADJUSTED":
+            case "NONE":
+                return UNADJUSTED;
+            case "FOLLOWING":
+            case "F":
+                return FOLLOWING;
+            case "MODIFIEDFOLLOWING":
+            case "MODFOLLOWING":
+            case "MF":
+                return MODIFIED_FOLLOWING;
+            case "PRECEDING":
+            case "P":
+                return PRECEDING;
+            case "MODIFIEDPRECEDING":
+            case "MODPRECEDING":
+            case "MP":
+                return MODIFIED_PRECEDING;
+            default:
+                throw new IllegalArgumentException("Unsupported business day convention: " + name);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.technicalchallenge.service;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CashflowScheduleEngine
+ *
+ * The single place where a leg's payment schedule and cashflow amounts are
+ * worked out. Used by trade booking (TradeService.generateCashflows) and by
+ * the preview endpoint (POST /api/cashflows/generate), which previously had
+ * their own copies of the logic and disagreed (months/12 vs days/360, and
+ * different schedule string parsing).
+ *
+ * A schedule is built in two steps:
+ * 1. periods(start, maturity, frequency) -> a PeriodTemplate of primitive
+ * epoch-day arrays. Templates depend only on their three inputs, so they are
+ * memoized and shared by every leg/trade with the same dates and frequency
+ * (both legs of a swap, repeated previews, bulk bookings).
+ * 2. generate(template, legType, notional, rate, dayCount) -> amounts. The
+ * notional and rate are converted to scaled longs once per leg (FixedPoint)
+ * and each amount is one 128-bit multiply/divide into cents, so a schedule
+ * allocates a long[] rather than a BigDecimal chain per period. BigDecimals
+ * are only created when a caller reads amount(i) to build a Cashflow or DTO.
+ *
+ * Conventions kept from the booking path (and pinned by its tests):
+ * - payment dates are start + n * frequency, up to and including maturity
+ * (no short final stub);
+ * - rates above 1 are percentages (3.5 means 3.5%);
+ * - Floating legs are only valued when an explicit rate is supplied;
+ * - amounts are rounded to 2 dp with HALF_EVEN.
+ *
+ * Payment dates can be rolled to business days with a BusinessCalendar and a
+ * BusinessDayAdjustment (see HolidayCalendarRegistry).
+ */
+@Component
+public class CashflowScheduleEngine {
+
+    /** Frequency used when a leg has no calculation period schedule */
+    public static final int DEFAULT_FREQUENCY_MONTHS = 3;
+
+    // Bound on memoized templates; cleared wholesale when exceeded, which is
+    // cheap to rebuild and avoids an LRU structure on the hot path
+    private static final int MAX_TEMPLATES = 10_000;
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final Map<TemplateKey, PeriodTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Day count conventions for the accrual year fraction. Pluggable per leg;
+     * THIRTY_360 is the default because it reproduces the old months/12
+     * amounts exactly unless a period starts or ends at month end.
+     */
+    public enum DayCount {
+        THIRTY_360("30/360", 360),
+        ACT_360("ACT/360", 360),
+        ACT_365F("ACT/365F", 365);
+
+        private final String label;
+        private final int basis;
+
+        DayCount(String label, int basis) {
+            this.label = label;
+            this.basis = basis;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        int basis() {
+            return basis;
+        }
+
+        int days(PeriodTemplate periods, int i) {
+            return this == THIRTY_360 ? periods.days30360[i] : periods.actualDays[i];
+        }
+
+        /**
+         * Accepts the labels above and common spellings (e.g. "ACT/365",
+         * "30E/360" is treated as 30/360). Blank means the default.
+         */
+        public static DayCount fromName(String name) {
+            if (name == null || name.isBlank()) {
+                return THIRTY_360;
+            }
+            String n = name.trim().toUpperCase(Locale.ROOT).replace(" ", "");
+            switch (n) {
+                case "30/360":
+                case "30E/360":
+                case "THIRTY_360":
+                    return THIRTY_360;
+                case "ACT/360":
+                case "ACTUAL/360":
+                case "ACT_360":
+                    return ACT_360;
+                case "ACT/365":
+                case "ACT/365F":
+                case "ACTUAL/365":
+                case "ACT_365F":
+                    return ACT_365F;
+                default:
+                    throw new IllegalArgumentException("Unsupported day count convention: " + name);
+            }
+        }
+    }
+
+    /**
+     * Converts a schedule string into a payment frequency in months. Accepts
+     * the named frequencies ("Monthly", "Quarterly", "Semi-annually",
+     * "Annually"/"Yearly") and tenor codes ("1M", "3M", "6M", "12M", "1Y").
+     * Blank means quarterly, matching the booking default.
+     */
+    public int frequencyMonths(String schedule) {
+        if (schedule == null || schedule.trim().isEmpty()) {
+            return DEFAULT_FREQUENCY_MONTHS;
+        }
+        String s = schedule.trim().toLowerCase(Locale.ROOT);
+        switch (s) {
+            case "monthly":
+                return 1;
+            case "quarterly":
+                return 3;
+            case "semi-annually":
+            case "semiannually":
+            case "semi-annual":
+            case "half-yearly":
+                return 6;
+            case "annually":
+            case "annual":
+            case "yearly":
+                return 12;
+            default:
+                break;
+        }
+        char unit = s.charAt(s.length() - 1);
+        if (unit == 'm' || unit == 'y') {
+            try {
+                int n = Integer.parseInt(s.substring(0, s.length() - 1).trim());
+                int months = unit == 'y' ? n * 12 : n;
+                if (months > 0) {
+                    return months;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the error below
+            }
+        }
+        throw new IllegalArgumentException("Invalid schedule format: " + schedule);
+    }
+
+    /**
+     * Regular periods from start, each frequencyMonths long, whose end falls on
+     * or before maturity. Dates are start.plusMonths(n * frequency) rather than
+     * repeated plusMonths, so an end-of-month start does not drift (Jan 31 ->
+     * Feb 28 -> Mar 31, not Mar 28).
+     */
+    public PeriodTemplate periods(LocalDate start, LocalDate maturity, int frequencyMonths) {
+        if (start == null || maturity == null) {
+            throw new IllegalArgumentException("Start and maturity dates are required");
+        }
+        if (frequencyMonths <= 0) {
+            throw new IllegalArgumentException("Frequency must be a positive number of months");
+        }
+        TemplateKey key = new TemplateKey(start.toEpochDay(), maturity.toEpochDay(), frequencyMonths);
+        PeriodTemplate cached = templates.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (templates.size() >= MAX_TEMPLATES) {
+            templates.clear();
+        }
+        return templates.computeIfAbsent(key, k -> buildTemplate(start, maturity, frequencyMonths));
+    }
+
+    private static PeriodTemplate buildTemplate(LocalDate start, LocalDate maturity, int frequencyMonths) {
+        // Upper bound on the number of periods from the month difference
+        long monthsSpan = (maturity.getYear() - start.getYear()) * 12L
+                + (maturity.getMonthValue() - start.getMonthValue());
+        int capacity = (int) Math.max(0, monthsSpan / frequencyMonths + 1);
+
+        int[] endEpochDays = new int[capacity];
+        int[] actualDays = new int[capacity];
+        int[] days30360 = new int[capacity];
+
+        int count = 0;
+        LocalDate periodStart = start;
+        for (int n = 1; n <= capacity; n++) {
+            LocalDate periodEnd = start.plusMonths((long) n * frequencyMonths);
+            if (periodEnd.isAfter(maturity)) {
+                break;
+            }
+            endEpochDays[count] = (int) periodEnd.toEpochDay();
+            actualDays[count] = (int) (periodEnd.toEpochDay() - periodStart.toEpochDay());
+            days30360[count] = days30360(periodStart, periodEnd);
+            count++;
+            periodStart = periodEnd;
+        }
+        return new PeriodTemplate((int) start.toEpochDay(), count, endEpochDays, actualDays, days30360);
+    }
+
+    // 30/360 (bond basis): day 31 counts as 30, and an end date of 31 is
+    // treated as 30 when the start was the 30th or 31st
+    private static int days30360(LocalDate from, LocalDate to) {
+        int d1 = Math.min(from.getDayOfMonth(), 30);
+        int d2 = to.getDayOfMonth();
+        if (d2 == 31 && d1 == 30) {
+            d2 = 30;
+        }
+        return 360 * (to.getYear() - from.getYear()) + 30 * (to.getMonthValue() - from.getMonthValue())
+                + (d2 - d1);
+    }
+
+    /**
+     * Cashflow amounts for one leg over the given periods:
+     * notional * rate * days / basis, rounded to 2 dp (HALF_EVEN). Legs with no
+     * type, unknown types and Floating legs without a rate get zero amounts.
+     */
+    public GeneratedSchedule generate(PeriodTemplate periods, String legType, BigDecimal notional, Double rate,
+            DayCount dayCount) {
+        return generate(periods, legType, notional, rate, dayCount, null, BusinessDayAdjustment.UNADJUSTED);
+    }
+
+    /**
+     * As above, with payment dates rolled to business days of the given
+     * calendar using the convention (Following, Modified Following, ...).
+     * Accrual periods, and so amounts, stay on the unadjusted dates; only the
+     * payment date moves.
+     */
+    public GeneratedSchedule generate(PeriodTemplate periods, String legType, BigDecimal notional, Double rate,
+            DayCount dayCount, BusinessCalendar calendar, BusinessDayAdjustment adjustment) {
+        int[] paymentEpochDays = adjustedPaymentDays(periods, calendar, adjustment);
+        DayCount convention = dayCount != null ? dayCount : DayCount.THIRTY_360;
+        long[] cents = new long[periods.size()];
+        if (!isValued(legType, rate)) {
+            return new GeneratedSchedule(periods, paymentEpochDays, cents, null);
+        }
+        try {
+            long notionalCents = FixedPoint.units(notional != null ? notional : BigDecimal.ZERO,
+                    FixedPoint.AMOUNT_SCALE);
+            long rateUnits = rateUnits(rate);
+            long divisor = convention.basis() * FixedPoint.RATE_ONE;
+            for (int i = 0; i < cents.length; i++) {
+                long rateTimesDays = Math.multiplyExact(rateUnits, (long) convention.days(periods, i));
+                cents[i] = FixedPoint.mulDiv(notionalCents, rateTimesDays, divisor);
+            }
+            return new GeneratedSchedule(periods, paymentEpochDays, cents, null);
+        } catch (ArithmeticException e) {
+            // Notional with more than 2 dp, rate with more than 8, or an
+            // amount beyond the long range: exact BigDecimal instead
+            return new GeneratedSchedule(periods, paymentEpochDays, null,
+                    bigDecimalAmounts(periods, notional, rate, convention));
+        }
+    }
+
+    private static boolean isValued(String legType, Double rate) {
+        boolean fixed = "Fixed".equalsIgnoreCase(legType);
+        boolean floating = "Floating".equalsIgnoreCase(legType);
+        return fixed || (floating && rate != null);
+    }
+
+    // Rates above 1 are percentages (3.5 -> 0.035), so they are read two
+    // places short of RATE_SCALE
+    private static long rateUnits(Double rate) {
+        if (rate == null) {
+            return 0;
+        }
+        return rate > 1 ? FixedPoint.units(rate, FixedPoint.RATE_SCALE - 2)
+                : FixedPoint.units(rate, FixedPoint.RATE_SCALE);
+    }
+
+    private static BigDecimal[] bigDecimalAmounts(PeriodTemplate periods, BigDecimal notional, Double rate,
+            DayCount convention) {
+        BigDecimal n = notional != null ? notional : BigDecimal.ZERO;
+        BigDecimal r = BigDecimal.valueOf(rate != null ? rate : 0.0);
+        if (r.compareTo(BigDecimal.ONE) > 0) {
+            r = r.divide(HUNDRED);
+        }
+        BigDecimal notionalTimesRate = n.multiply(r);
+        BigDecimal basis = BigDecimal.valueOf(convention.basis());
+        BigDecimal[] amounts = new BigDecimal[periods.size()];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = notionalTimesRate.multiply(BigDecimal.valueOf(convention.days(periods, i)))
+                    .divide(basis, 2, RoundingMode.HALF_EVEN);
+        }
+        return amounts;
+    }
+
+    // null when nothing moves, so unadjusted schedules allocate nothing extra
+    private static int[] adjustedPaymentDays(PeriodTemplate periods, BusinessCalendar calendar,
+            BusinessDayAdjustment adjustment) {
+        if (calendar == null || adjustment == null || adjustment == BusinessDayAdjustment.UNADJUSTED) {
+            return null;
+        }
+        int[] adjusted = null;
+        for (int i = 0; i < periods.size(); i++) {
+            int day = periods.endEpochDays[i];
+            int rolled = (int) calendar.adjust(day, adjustment);
+            if (rolled != day) {
+                if (adjusted == null) {
+                    adjusted = Arrays.copyOf(periods.endEpochDays, periods.size());
+                }
+                adjusted[i] = rolled;
+            }
+        }
+        return adjusted;
+    }
+
+    int cachedTemplateCount() {
+        return templates.size();
+    }
+
+    private record TemplateKey(long startEpochDay, long maturityEpochDay, int frequencyMonths) {
+    }
+
+    /**
+     * Immutable, shareable period layout for (start, maturity, frequency).
+     * Stored as primitive arrays; LocalDates are only created on request.
+     */
+    public static final class PeriodTemplate {
+        private final int startEpochDay;
+        private final int size;
+        private final int[] endEpochDays;
+        private final int[] actualDays;
+        private final int[] days30360;
+
+        PeriodTemplate(int startEpochDay, int size, int[] endEpochDays, int[] actualDays, int[] days30360) {
+            this.startEpochDay = startEpochDay;
+            this.size = size;
+            this.endEpochDays = endEpochDays;
+            this.actualDays = actualDays;
+            this.days30360 = days30360;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int endEpochDay(int i) {
+            checkIndex(i);
+            return endEpochDays[i];
+        }
+
+        public int startEpochDay(int i) {
+            checkIndex(i);
+            return i == 0 ? startEpochDay : endEpochDays[i - 1];
+        }
+
+        public LocalDate endDate(int i) {
+            return LocalDate.ofEpochDay(endEpochDay(i));
+        }
+
+        private void checkIndex(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException("Period " + i + " of " + size);
+            }
+        }
+    }
+
+    /**
+     * Periods plus the (adjusted) payment date and amount for each period, in
+     * order. Amounts are kept in cents and only become BigDecimals in
+     * amount(i).
+     */
+    public static final class GeneratedSchedule {
+        private final PeriodTemplate periods;
+        private final int[] paymentEpochDays; // null = same as period ends
+        private final long[] cents; // null when the BigDecimal fallback was used
+        private final BigDecimal[] amounts;
+
+        GeneratedSchedule(PeriodTemplate periods, int[] paymentEpochDays, long[] cents, BigDecimal[] amounts) {
+            this.periods = periods;
+            this.paymentEpochDays = paymentEpochDays;
+            this.cents = cents;
+            this.amounts = amounts;
+        }
+
+        public int size() {
+            return periods.size();
+        }
+
+        public LocalDate paymentDate(int i) {
+            return paymentEpochDays == null ? periods.endDate(i) : LocalDate.ofEpochDay(paymentEpochDays[i]);
+        }
+
+        public LocalDate unadjustedPaymentDate(int i) {
+            return periods.endDate(i);
+        }
+
+        /** Amount rounded to 2 dp, e.g. 87500.00 */
+        public BigDecimal amount(int i) {
+            return cents != null ? FixedPoint.toBigDecimal(cents[i], FixedPoint.AMOUNT_SCALE) : amounts[i];
+        }
+
+        public PeriodTemplate getPeriods() {
+            return periods;
+        }
+    }
+}
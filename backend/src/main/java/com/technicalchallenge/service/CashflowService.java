@@ -3,9 +3,6 @@ package com.technicalchallenge.service;
 import com.technicalchallenge.dto.CashflowDTO;
 import com.technicalchallenge.model.Cashflow;
 import com.technicalchallenge.repository.CashflowRepository;
-import com.technicalchallenge.repository.BusinessDayConventionRepository;
-import com.technicalchallenge.repository.LegTypeRepository;
-import com.technicalchallenge.repository.PayRecRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -20,12 +17,10 @@ public class CashflowService {
     private static final Logger logger = LoggerFactory.getLogger(CashflowService.class);
     @Autowired
     private CashflowRepository cashflowRepository;
+    // REFACTORED: pay/rec, leg type and BDC names are looked up here rather
+    // than through their repositories
     @Autowired
-    private PayRecRepository payRecRepository;
-    @Autowired
-    private LegTypeRepository legTypeRepository;
-    @Autowired
-    private BusinessDayConventionRepository businessDayConventionRepository;
+    private ReferenceDataCache referenceDataCache;
 
     public List<Cashflow> getAllCashflows() {
         logger.info("Retrieving all cashflows");
@@ -49,7 +44,10 @@ public class CashflowService {
             throw new IllegalArgumentException("Cashflow valueDate is required");
         }
         // Ensure Cashflow is saved with related entities set, not just IDs
-        return cashflowRepository.save(cashflow);
+        boolean update = cashflow.getId() != null;
+        Cashflow saved = cashflowRepository.save(cashflow);
+        // Re-read after an update, as in CostCenterService.saveCostCenter
+        return update ? cashflowRepository.findById(saved.getId()).orElse(saved) : saved;
     }
 
     public void deleteCashflow(Long id) {
@@ -58,20 +56,18 @@ public class CashflowService {
     }
 
     public void populateReferenceDataByName(Cashflow cashflow, CashflowDTO dto) {
+        // REFACTORED: case-insensitive name lookups are served from the
+        // in-memory ReferenceDataCache instead of findAll().stream().filter()
         if (dto.getPayRec() != null) {
-            cashflow.setPayRec(payRecRepository.findAll().stream()
-                    .filter(p -> p.getPayRec().equalsIgnoreCase(dto.getPayRec()))
-                    .findFirst().orElse(null));
+            cashflow.setPayRec(referenceDataCache.payRecs().findByNameIgnoreCase(dto.getPayRec()).orElse(null));
         }
         if (dto.getPaymentType() != null) {
-            cashflow.setPaymentType(legTypeRepository.findAll().stream()
-                    .filter(l -> l.getType().equalsIgnoreCase(dto.getPaymentType()))
-                    .findFirst().orElse(null));
+            cashflow.setPaymentType(
+                    referenceDataCache.legTypes().findByNameIgnoreCase(dto.getPaymentType()).orElse(null));
         }
         if (dto.getPaymentBusinessDayConvention() != null) {
-            cashflow.setPaymentBusinessDayConvention(businessDayConventionRepository.findAll().stream()
-                    .filter(b -> b.getBdc().equalsIgnoreCase(dto.getPaymentBusinessDayConvention()))
-                    .findFirst().orElse(null));
+            cashflow.setPaymentBusinessDayConvention(referenceDataCache.businessDayConventions()
+                    .findByNameIgnoreCase(dto.getPaymentBusinessDayConvention()).orElse(null));
         }
     }
 
@@ -48,7 +48,12 @@ public class CostCenterService {
     public CostCenter saveCostCenter(CostCenter costCenter, CostCenterDTO dto) {
         logger.info("Saving cost center: {}", costCenter);
         populateReferenceDataByName(costCenter, dto);
-        return costCenterRepository.save(costCenter);
+        boolean update = costCenter.getId() != null;
+        CostCenter saved = costCenterRepository.save(costCenter);
+        // An update is merged into a new copy whose sub-desk is an unloaded
+        // proxy; read it back through its fetch plan so the controller can map
+        // it (Open Session In View is off)
+        return update ? costCenterRepository.findById(saved.getId()).orElse(saved) : saved;
     }
 
     public void deleteCostCenter(Long id) {
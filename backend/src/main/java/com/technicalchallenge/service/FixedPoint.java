@@ -0,0 +1,203 @@
+package com.technicalchallenge.service;
+
+import java.math.BigDecimal;
+
+/**
+ * FixedPoint
+ *
+ * Scaled-long arithmetic for the cashflow and notional hot paths. A value is
+ * a long count of units at a fixed decimal scale, so 87,500.00 is 8,750,000
+ * at AMOUNT_SCALE and 3.5% is 3,500,000 at RATE_SCALE. Intermediate
+ * products are held in 128 bits, so nothing allocates until a result is
+ * turned back into a BigDecimal at the persistence/DTO boundary.
+ *
+ * Rounding rules:
+ * - converting a BigDecimal or double IN is exact or fails; nothing is
+ * silently rounded on the way in;
+ * - every division rounds HALF_EVEN, the same as the BigDecimal code it
+ * replaces;
+ * - a result that does not fit in a long throws ArithmeticException.
+ *
+ * Callers catch ArithmeticException and fall back to BigDecimal for the rare
+ * input that does not fit (a notional with more than 2 dp, a rate with more
+ * than 8, or an absurdly large amount).
+ */
+public final class FixedPoint {
+
+    /** Money amounts (cashflows, risk figures) are held in cents */
+    public static final int AMOUNT_SCALE = 2;
+
+    /** Rates are held to 1e-8 (0.000001%) */
+    public static final int RATE_SCALE = 8;
+
+    public static final long RATE_ONE = 100_000_000L;
+
+    private static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    // 128/64 division below works 16 bits at a time, so the remainder
+    // shifted left by 16 must stay inside a long
+    private static final long MAX_DIVISOR = 1L << 47;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Units of the value at the given scale. Throws ArithmeticException when
+     * the value has more decimal places than the scale or does not fit.
+     */
+    public static long units(BigDecimal value, int scale) {
+        return value.setScale(scale).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Units of a double at the given scale, taking the double as the shortest
+     * decimal that prints as it (what BigDecimal.valueOf(double) does). Throws
+     * ArithmeticException when that decimal needs more places than the scale.
+     */
+    public static long units(double value, int scale) {
+        checkScale(scale);
+        double scaled = value * POW10[scale];
+        if (Double.isNaN(scaled) || Math.abs(scaled) >= 0x1p52) {
+            throw new ArithmeticException("Out of fixed-point range: " + value);
+        }
+        long units = Math.round(scaled);
+        // The units round-trip to the same double only if no digits were lost
+        if ((double) units / POW10[scale] != value) {
+            throw new ArithmeticException(value + " needs more than " + scale + " decimal places");
+        }
+        return units;
+    }
+
+    public static BigDecimal toBigDecimal(long units, int scale) {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    /**
+     * a * b / divisor rounded HALF_EVEN, with the product held in 128 bits so
+     * a * b may exceed a long. divisor must be positive and below 2^47.
+     */
+    public static long mulDiv(long a, long b, long divisor) {
+        if (divisor <= 0 || divisor >= MAX_DIVISOR) {
+            throw new IllegalArgumentException("Divisor out of range: " + divisor);
+        }
+        boolean negative = (a < 0) != (b < 0);
+        long x = Math.absExact(a);
+        long y = Math.absExact(b);
+        long hi = Math.unsignedMultiplyHigh(x, y);
+        long lo = x * y;
+
+        long quotientHi = 0;
+        long quotientLo = 0;
+        long rem = 0;
+        if (hi == 0 && lo >= 0) {
+            // Product fits in a long: the usual case for a single cashflow
+            quotientLo = lo / divisor;
+            rem = lo - quotientLo * divisor;
+            return roundHalfEven(quotientLo, rem, divisor, negative);
+        }
+        // Schoolbook long division of (hi, lo) by 16-bit digits
+        for (int shift = 112; shift >= 0; shift -= 16) {
+            long digit = (shift >= 64 ? hi >>> (shift - 64) : lo >>> shift) & 0xFFFF;
+            long current = (rem << 16) | digit;
+            long q = current / divisor;
+            rem = current - q * divisor;
+            if (shift >= 64) {
+                quotientHi |= q << (shift - 64);
+            } else {
+                quotientLo |= q << shift;
+            }
+        }
+        if (quotientHi != 0 || quotientLo < 0) {
+            throw new ArithmeticException("Fixed-point overflow");
+        }
+        return roundHalfEven(quotientLo, rem, divisor, negative);
+    }
+
+    private static long roundHalfEven(long quotient, long rem, long divisor, boolean negative) {
+        long twice = rem << 1;
+        if (twice > divisor || (twice == divisor && (quotient & 1) != 0)) {
+            quotient++;
+        }
+        return negative ? -quotient : quotient;
+    }
+
+    /** Units at fromScale re-expressed at toScale, rounding HALF_EVEN when toScale is smaller. */
+    public static long rescale(long units, int fromScale, int toScale) {
+        checkScale(fromScale);
+        checkScale(toScale);
+        if (toScale >= fromScale) {
+            return Math.multiplyExact(units, POW10[toScale - fromScale]);
+        }
+        return mulDiv(units, 1, POW10[fromScale - toScale]);
+    }
+
+    private static void checkScale(int scale) {
+        if (scale < 0 || scale >= POW10.length) {
+            throw new ArithmeticException("Unsupported scale: " + scale);
+        }
+    }
+
+    /**
+     * Running total of BigDecimals held as a long. The scale widens to the
+     * largest scale added, so toBigDecimal() equals (scale included) what
+     * chaining BigDecimal.add would give. Moves to BigDecimal for good if the
+     * total ever leaves the long range. Not thread-safe.
+     */
+    public static final class Sum {
+        private long units;
+        private int scale;
+        private BigDecimal overflow;
+
+        public Sum add(BigDecimal value) {
+            if (overflow == null) {
+                try {
+                    int valueScale = Math.max(value.scale(), 0);
+                    if (valueScale > scale) {
+                        units = rescale(units, scale, valueScale);
+                        scale = valueScale;
+                    }
+                    units = Math.addExact(units, units(value, scale));
+                    return this;
+                } catch (ArithmeticException e) {
+                    overflow = FixedPoint.toBigDecimal(units, scale);
+                }
+            }
+            overflow = overflow.add(value);
+            return this;
+        }
+
+        /** Adds units already at the given scale */
+        public Sum add(long valueUnits, int valueScale) {
+            if (overflow == null) {
+                try {
+                    if (valueScale > scale) {
+                        units = rescale(units, scale, valueScale);
+                        scale = valueScale;
+                    }
+                    units = Math.addExact(units, rescale(valueUnits, valueScale, scale));
+                    return this;
+                } catch (ArithmeticException e) {
+                    overflow = FixedPoint.toBigDecimal(units, scale);
+                }
+            }
+            overflow = overflow.add(FixedPoint.toBigDecimal(valueUnits, valueScale));
+            return this;
+        }
+
+        /** Adds another running total, e.g. when merging partial results */
+        public Sum add(Sum other) {
+            return other.overflow != null ? add(other.overflow) : add(other.units, other.scale);
+        }
+
+        public BigDecimal toBigDecimal() {
+            return overflow != null ? overflow : FixedPoint.toBigDecimal(units, scale);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.Events.ReferenceDataChangedEvent;
+import com.technicalchallenge.model.HolidayCalendar;
+import com.technicalchallenge.model.HolidayCalendarYear;
+import com.technicalchallenge.repository.HolidayCalendarRepository;
+import com.technicalchallenge.repository.HolidayCalendarYearRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HolidayCalendarRegistry
+ *
+ * In-memory BusinessCalendars for every holiday calendar, loaded once (two
+ * queries) on first use and reloaded after any change to holiday_calendar or
+ * holiday_calendar_year. Combined calendars such as "LON+NY" are built once by
+ * OR-ing the member bitsets and then memoized.
+ *
+ * FIXED: the calendars were otherwise kept forever, so holidays imported on
+ * another node or written with plain SQL were never seen. They now also expire
+ * after reference-data.cache.max-age-seconds, the same max age as
+ * ReferenceDataCache.
+ *
+ * Unknown calendar names resolve to a weekends-only calendar rather than
+ * failing, so a leg with a calendar that has no holidays loaded yet still gets
+ * weekend adjustment.
+ */
+@Component
+public class HolidayCalendarRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(HolidayCalendarRegistry.class);
+
+    private final HolidayCalendarRepository holidayCalendarRepository;
+    private final HolidayCalendarYearRepository holidayCalendarYearRepository;
+    private final long maxAgeMillis;
+
+    // Null until first use or after a change
+    private volatile Loaded loaded;
+
+    public HolidayCalendarRegistry(HolidayCalendarRepository holidayCalendarRepository,
+            HolidayCalendarYearRepository holidayCalendarYearRepository,
+            @Value("${reference-data.cache.max-age-seconds:300}") long maxAgeSeconds) {
+        this.holidayCalendarRepository = holidayCalendarRepository;
+        this.holidayCalendarYearRepository = holidayCalendarYearRepository;
+        this.maxAgeMillis = maxAgeSeconds * 1000L;
+    }
+
+    /**
+     * Calendar for a name or a '+'-separated combination ("LON+NY"),
+     * case-insensitive.
+     */
+    public BusinessCalendar calendar(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return BusinessCalendar.weekendsOnly("");
+        }
+        String key = spec.trim().toUpperCase(Locale.ROOT);
+        Loaded current = loaded();
+        BusinessCalendar single = current.calendars.get(key);
+        if (single != null) {
+            return single;
+        }
+        return current.combined.computeIfAbsent(key, k -> {
+            BusinessCalendar result = null;
+            for (String part : k.split("\\+")) {
+                String name = part.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                BusinessCalendar member = current.calendars.get(name);
+                if (member == null) {
+                    logger.warn("Unknown holiday calendar '{}', using weekends only", name);
+                    member = BusinessCalendar.weekendsOnly(name);
+                }
+                result = result == null ? member : result.or(member);
+            }
+            return result != null ? result : BusinessCalendar.weekendsOnly(k);
+        });
+    }
+
+    public void invalidate() {
+        loaded = null;
+    }
+
+    // Holiday rows are written through JPA, so ReferenceDataEntityListener
+    // raises this for both tables. As in ReferenceDataCache: drop now, and
+    // again when the writing transaction completes.
+    @EventListener
+    public void onReferenceDataChanged(ReferenceDataChangedEvent ev) {
+        if (!HolidayCalendar.class.isAssignableFrom(ev.getEntityType())
+                && !HolidayCalendarYear.class.isAssignableFrom(ev.getEntityType())) {
+            return;
+        }
+        invalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate();
+                }
+            });
+        }
+    }
+
+    private Loaded loaded() {
+        Loaded current = loaded;
+        if (current == null || current.expired(maxAgeMillis)) {
+            synchronized (this) {
+                current = loaded;
+                if (current == null || current.expired(maxAgeMillis)) {
+                    current = new Loaded(load());
+                    loaded = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Calendars keyed by upper-cased name, plus the combinations built from
+    // them; replaced as a unit so a combination never outlives its members
+    private record Loaded(Map<String, BusinessCalendar> calendars, Map<String, BusinessCalendar> combined,
+            long loadedAt) {
+        Loaded(Map<String, BusinessCalendar> calendars) {
+            this(calendars, new ConcurrentHashMap<>(), System.currentTimeMillis());
+        }
+
+        boolean expired(long maxAgeMillis) {
+            return System.currentTimeMillis() - loadedAt > maxAgeMillis;
+        }
+    }
+
+    private Map<String, BusinessCalendar> load() {
+        Map<String, Map<Integer, byte[]>> bitsByCalendar = new HashMap<>();
+        for (HolidayCalendar calendar : holidayCalendarRepository.findAll()) {
+            if (calendar.getHolidayCalendar() != null) {
+                bitsByCalendar.put(calendar.getHolidayCalendar().toUpperCase(Locale.ROOT), new HashMap<>());
+            }
+        }
+        for (HolidayCalendarYear year : holidayCalendarYearRepository.findAllWithCalendar()) {
+            String name = year.getHolidayCalendar().getHolidayCalendar();
+            if (name != null) {
+                bitsByCalendar.computeIfAbsent(name.toUpperCase(Locale.ROOT), k -> new HashMap<>())
+                        .put(year.getCalendarYear(), year.getHolidayBits());
+            }
+        }
+        Map<String, BusinessCalendar> result = new HashMap<>();
+        bitsByCalendar.forEach((name, years) -> result.put(name, BusinessCalendar.fromYearBits(name, years)));
+        logger.info("Loaded {} holiday calendars", result.size());
+        return Map.copyOf(result);
+    }
+}
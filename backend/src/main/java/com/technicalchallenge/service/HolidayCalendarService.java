@@ -1,14 +1,23 @@
 package com.technicalchallenge.service;
 
 import com.technicalchallenge.model.HolidayCalendar;
+import com.technicalchallenge.model.HolidayCalendarYear;
 import com.technicalchallenge.repository.HolidayCalendarRepository;
+import com.technicalchallenge.repository.HolidayCalendarYearRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -18,6 +27,9 @@ public class HolidayCalendarService {
     @Autowired
     private HolidayCalendarRepository holidayCalendarRepository;
 
+    @Autowired
+    private HolidayCalendarYearRepository holidayCalendarYearRepository;
+
     public List<HolidayCalendar> findAll() {
         logger.info("Retrieving all holiday calendars");
         return holidayCalendarRepository.findAll();
@@ -38,4 +50,58 @@ public class HolidayCalendarService {
         holidayCalendarRepository.deleteById(id);
     }
 
+    /*
+     * Bulk import of holiday dates into a calendar. Dates are grouped by year
+     * and OR-ed into that year's bitset, so importing decades of holidays
+     * touches one row per year (one select for the existing years plus one
+     * batched saveAll). Dates already present are ignored. Returns how many
+     * dates were newly added. HolidayCalendarRegistry reloads on the change
+     * events these saves raise.
+     */
+    @Transactional
+    public int importHolidays(HolidayCalendar calendar, Collection<LocalDate> dates) {
+        Map<Integer, HolidayCalendarYear> years = new HashMap<>();
+        List<Integer> yearNumbers = dates.stream().map(LocalDate::getYear).distinct().toList();
+        if (yearNumbers.isEmpty()) {
+            return 0;
+        }
+        for (HolidayCalendarYear existing : holidayCalendarYearRepository.findByCalendarAndYears(calendar.getId(),
+                yearNumbers)) {
+            years.put(existing.getCalendarYear(), existing);
+        }
+
+        int added = 0;
+        for (LocalDate date : dates) {
+            HolidayCalendarYear year = years.computeIfAbsent(date.getYear(),
+                    y -> new HolidayCalendarYear(calendar, y));
+            byte[] bits = year.getHolidayBits();
+            int i = date.getDayOfYear() - 1;
+            int mask = 1 << (i & 7);
+            if ((bits[i >>> 3] & mask) == 0) {
+                bits[i >>> 3] |= (byte) mask;
+                added++;
+            }
+        }
+        holidayCalendarYearRepository.saveAll(years.values());
+        logger.info("Imported {} new holidays into calendar {} across {} year(s)", added,
+                calendar.getHolidayCalendar(), years.size());
+        return added;
+    }
+
+    /* Decodes a calendar's stored bitsets back into holiday dates, in order. */
+    public List<LocalDate> findHolidays(HolidayCalendar calendar) {
+        List<LocalDate> holidays = new ArrayList<>();
+        for (HolidayCalendarYear year : holidayCalendarYearRepository
+                .findByHolidayCalendarIdOrderByCalendarYear(calendar.getId())) {
+            byte[] bits = year.getHolidayBits();
+            int daysInYear = Year.of(year.getCalendarYear()).length();
+            for (int i = 0; i < daysInYear; i++) {
+                if ((bits[i >>> 3] & (1 << (i & 7))) != 0) {
+                    holidays.add(LocalDate.ofYearDay(year.getCalendarYear(), i + 1));
+                }
+            }
+        }
+        return holidays;
+    }
+
 }
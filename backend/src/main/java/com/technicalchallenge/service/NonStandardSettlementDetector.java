@@ -0,0 +1,283 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.dto.SettlementKeywordRow;
+import com.technicalchallenge.dto.SettlementTextKeywordRow;
+import com.technicalchallenge.repository.AdditionalInfoRepository;
+import com.technicalchallenge.repository.SettlementTextRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * NonStandardSettlementDetector
+ *
+ * Finds the non-standard keywords ("manual", "offshore", "non-dvp", ...) in a
+ * settlement instruction in one pass over the text, however many keywords
+ * there are: the keywords are compiled into an Aho-Corasick automaton, a
+ * trie whose missing transitions fall back to the longest suffix that is
+ * still a keyword prefix, so the text is never re-read.
+ *
+ * AdditionalInfoService runs it whenever a settlement instruction is written
+ * and stores the result on the row (AdditionalInfo.nonStandardKeyword), so
+ * the identify-nonstandard endpoint and the settlement export read a stored
+ * value, and nonStandardOnly filters on an indexed column. CHANGED: texts
+ * stored in settlement_text (see SettlementTextStore) are checked once, when
+ * first stored, and their keyword is copied onto the rows referencing them.
+ *
+ * The keywords come from settlement.non-standard.keywords (comma separated,
+ * case-insensitive). When several occur in one text, the one listed first is
+ * reported. At startup every active settlement instruction is checked again
+ * and rows whose stored keyword differs are updated; this fills the column
+ * for rows written before it existed and applies a changed keyword list.
+ * Stored texts are checked once each, however many rows reference them.
+ */
+@Component
+public class NonStandardSettlementDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(NonStandardSettlementDetector.class);
+
+    // DVP = Delivery-Versus-Payment: securities are delivered only if payment
+    // is made
+    static final String DEFAULT_KEYWORDS = "manual,non-dvp,non dvp,offshore,physical,warehouse";
+
+    private static final int RECLASSIFY_BATCH = 1_000;
+
+    private final AdditionalInfoRepository additionalInfoRepository;
+    private final SettlementTextRepository settlementTextRepository;
+    private final TransactionTemplate batchTransaction;
+    private final KeywordAutomaton automaton;
+
+    @Autowired
+    public NonStandardSettlementDetector(AdditionalInfoRepository additionalInfoRepository,
+            SettlementTextRepository settlementTextRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${settlement.non-standard.keywords:" + DEFAULT_KEYWORDS + "}") List<String> keywords) {
+        this.additionalInfoRepository = additionalInfoRepository;
+        this.settlementTextRepository = settlementTextRepository;
+        this.batchTransaction = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+        this.automaton = new KeywordAutomaton(keywords);
+    }
+
+    /** A detector with no database behind it (unit tests) */
+    public NonStandardSettlementDetector(List<String> keywords) {
+        this(null, null, null, keywords);
+    }
+
+    public List<String> keywords() {
+        return automaton.keywords;
+    }
+
+    /**
+     * The highest priority keyword in text (case-insensitive), or null when
+     * text has none.
+     */
+    public String detect(String text) {
+        return automaton.firstKeyword(text);
+    }
+
+    // Failure is logged rather than stopping the application; rows keep the
+    // keyword they were written with.
+    @EventListener(ApplicationReadyEvent.class)
+    public void reclassifyAtStartup() {
+        try {
+            reclassify();
+        } catch (RuntimeException e) {
+            logger.warn("Could not check settlement instructions for non-standard keywords: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Checks every active settlement instruction, a batch at a time, and
+     * updates the rows whose stored keyword is out of date. Returns how many
+     * were updated. CHANGED: each stored text is checked once; when its
+     * keyword changes, every row referencing it is updated with it.
+     */
+    public int reclassify() {
+        long start = System.nanoTime();
+        int updated = reclassifyStoredTexts();
+        long afterId = 0;
+        List<SettlementKeywordRow> batch;
+        do {
+            batch = additionalInfoRepository.findSettlementKeywordsAfter(afterId,
+                    PageRequest.of(0, RECLASSIFY_BATCH));
+            List<SettlementKeywordRow> rows = batch;
+            Integer changed = batchTransaction.execute(status -> {
+                int count = 0;
+                for (SettlementKeywordRow row : rows) {
+                    String keyword = detect(row.text());
+                    // The version guard skips a row rewritten since it was
+                    // read; that write classified it already
+                    if (!Objects.equals(keyword, row.nonStandardKeyword())) {
+                        count += additionalInfoRepository.updateNonStandardKeyword(row.additionalInfoId(),
+                                row.version(), keyword);
+                    }
+                }
+                return count;
+            });
+            updated += changed == null ? 0 : changed;
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).additionalInfoId();
+            }
+        } while (batch.size() == RECLASSIFY_BATCH);
+        logger.info("Non-standard settlement keywords {}: {} rows updated in {} ms", keywords(), updated,
+                (System.nanoTime() - start) / 1_000_000);
+        return updated;
+    }
+
+    // The settlement_text rows, in hash order; returns how many
+    // AdditionalInfo rows were updated
+    private int reclassifyStoredTexts() {
+        int updated = 0;
+        String afterHash = "";
+        List<SettlementTextKeywordRow> batch;
+        do {
+            batch = settlementTextRepository.findKeywordsAfter(afterHash, PageRequest.of(0, RECLASSIFY_BATCH));
+            List<SettlementTextKeywordRow> texts = batch;
+            Integer changed = batchTransaction.execute(status -> {
+                int count = 0;
+                for (SettlementTextKeywordRow text : texts) {
+                    String keyword = detect(text.text());
+                    if (!Objects.equals(keyword, text.nonStandardKeyword())) {
+                        settlementTextRepository.updateNonStandardKeyword(text.hash(), keyword);
+                        count += additionalInfoRepository.updateNonStandardKeywordForText(text.hash(), keyword);
+                    }
+                }
+                return count;
+            });
+            updated += changed == null ? 0 : changed;
+            if (!batch.isEmpty()) {
+                afterHash = batch.get(batch.size() - 1).hash();
+            }
+        } while (batch.size() == RECLASSIFY_BATCH);
+        return updated;
+    }
+
+    /**
+     * Aho-Corasick automaton over the lower-cased keywords. Characters are
+     * mapped to a dense alphabet (the characters that occur in a keyword);
+     * any other character leads back to the root. next[state][symbol] already
+     * includes the failure transitions, so matching is one array lookup per
+     * character, and output[state] is the lowest keyword index ending at that
+     * state or at any state on its failure chain.
+     */
+    static final class KeywordAutomaton {
+        private static final int NONE = Integer.MAX_VALUE;
+
+        private final List<String> keywords;
+        private final int[] asciiSymbols = new int[128];
+        private final Map<Character, Integer> otherSymbols = new HashMap<>();
+        private final int[][] next;
+        private final int[] output;
+
+        KeywordAutomaton(List<String> configured) {
+            Set<String> distinct = new LinkedHashSet<>();
+            for (String keyword : configured == null ? List.<String>of() : configured) {
+                String normalized = keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+                if (!normalized.isEmpty()) {
+                    distinct.add(normalized);
+                }
+            }
+            this.keywords = List.copyOf(distinct);
+
+            Arrays.fill(asciiSymbols, -1);
+            int symbols = 0;
+            int maxStates = 1;
+            for (String keyword : keywords) {
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = keyword.charAt(i);
+                    if (symbol(c) < 0) {
+                        if (c < asciiSymbols.length) {
+                            asciiSymbols[c] = symbols++;
+                        } else {
+                            otherSymbols.put(c, symbols++);
+                        }
+                    }
+                }
+                maxStates += keyword.length();
+            }
+
+            // Trie; 0 is the root, so 0 also means "no child" below
+            int[][] trie = new int[maxStates][symbols];
+            int[] out = new int[maxStates];
+            Arrays.fill(out, NONE);
+            int states = 1;
+            for (int k = 0; k < keywords.size(); k++) {
+                String keyword = keywords.get(k);
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    int symbol = symbol(keyword.charAt(i));
+                    if (trie[state][symbol] == 0) {
+                        trie[state][symbol] = states++;
+                    }
+                    state = trie[state][symbol];
+                }
+                out[state] = Math.min(out[state], k);
+            }
+
+            // Breadth first, so a state's failure target is complete before
+            // the state itself is
+            int[] failure = new int[states];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                if (trie[0][symbol] != 0) {
+                    queue.add(trie[0][symbol]);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                out[state] = Math.min(out[state], out[failure[state]]);
+                for (int symbol = 0; symbol < symbols; symbol++) {
+                    int child = trie[state][symbol];
+                    if (child != 0) {
+                        failure[child] = trie[failure[state]][symbol];
+                        queue.add(child);
+                    } else {
+                        trie[state][symbol] = trie[failure[state]][symbol];
+                    }
+                }
+            }
+            this.next = Arrays.copyOf(trie, states);
+            this.output = Arrays.copyOf(out, states);
+        }
+
+        String firstKeyword(String text) {
+            if (text == null || keywords.isEmpty()) {
+                return null;
+            }
+            int best = NONE;
+            int state = 0;
+            for (int i = 0; i < text.length() && best != 0; i++) {
+                int symbol = symbol(Character.toLowerCase(text.charAt(i)));
+                state = symbol < 0 ? 0 : next[state][symbol];
+                best = Math.min(best, output[state]);
+            }
+            return best == NONE ? null : keywords.get(best);
+        }
+
+        private int symbol(char c) {
+            if (c < asciiSymbols.length) {
+                return asciiSymbols[c];
+            }
+            Integer symbol = otherSymbols.get(c);
+            return symbol == null ? -1 : symbol;
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.Events.ReferenceDataChangedEvent;
+import com.technicalchallenge.model.*;
+import com.technicalchallenge.repository.*;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * ReferenceDataCache
+ *
+ * Read-mostly, in-memory copy of the small reference tables used while
+ * booking a trade (books, counterparties, statuses, types, users and the
+ * per-leg currency/leg type/index/calendar/schedule/BDC/pay-rec tables).
+ *
+ * Each table is held as an immutable snapshot behind a volatile field, so
+ * lookups by name or id are a plain HashMap read with no locking. A snapshot
+ * is (re)loaded lazily with one findAll() when it is first used, after any
+ * write to that table (ReferenceDataChangedEvent, raised by the JPA entity
+ * listener for controller and service writes alike), or when it is
+ * older than the configured max age. A miss falls through to the repository,
+ * so rows written by another node are still found.
+ * Hit/miss counters are published to Micrometer as reference.cache.lookups
+ * so they show up under /actuator/metrics.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private final long maxAgeMillis;
+
+    // Keyed by entity class so ReferenceDataChangedEvent can find its table
+    private final Map<Class<?>, ReferenceTable<?>> tables = new LinkedHashMap<>();
+
+    private final ReferenceTable<Book> books;
+    private final ReferenceTable<Counterparty> counterparties;
+    private final ReferenceTable<TradeStatus> tradeStatuses;
+    private final ReferenceTable<TradeType> tradeTypes;
+    private final ReferenceTable<TradeSubType> tradeSubTypes;
+    private final ReferenceTable<ApplicationUser> users;
+    private final ReferenceTable<Currency> currencies;
+    private final ReferenceTable<LegType> legTypes;
+    private final ReferenceTable<Index> indices;
+    private final ReferenceTable<HolidayCalendar> holidayCalendars;
+    private final ReferenceTable<Schedule> schedules;
+    private final ReferenceTable<BusinessDayConvention> businessDayConventions;
+    private final ReferenceTable<PayRec> payRecs;
+    private final ReferenceTable<CostCenter> costCenters;
+
+    public ReferenceDataCache(BookRepository bookRepository,
+            CounterpartyRepository counterpartyRepository,
+            TradeStatusRepository tradeStatusRepository,
+            TradeTypeRepository tradeTypeRepository,
+            TradeSubTypeRepository tradeSubTypeRepository,
+            ApplicationUserRepository applicationUserRepository,
+            CurrencyRepository currencyRepository,
+            LegTypeRepository legTypeRepository,
+            IndexRepository indexRepository,
+            HolidayCalendarRepository holidayCalendarRepository,
+            ScheduleRepository scheduleRepository,
+            BusinessDayConventionRepository businessDayConventionRepository,
+            PayRecRepository payRecRepository,
+            CostCenterRepository costCenterRepository,
+            ObjectProvider<MeterRegistry> meterRegistryProvider,
+            @Value("${reference-data.cache.max-age-seconds:300}") long maxAgeSeconds) {
+        this.maxAgeMillis = maxAgeSeconds * 1000L;
+
+        this.books = register(Book.class, "book", bookRepository,
+                Book::getId, Book::getBookName, bookRepository::findByBookName, null, null);
+        this.counterparties = register(Counterparty.class, "counterparty", counterpartyRepository,
+                Counterparty::getId, Counterparty::getName, counterpartyRepository::findByName, null, null);
+        this.tradeStatuses = register(TradeStatus.class, "trade_status", tradeStatusRepository,
+                TradeStatus::getId, TradeStatus::getTradeStatus, tradeStatusRepository::findByTradeStatus, null, null);
+        this.tradeTypes = register(TradeType.class, "trade_type", tradeTypeRepository,
+                TradeType::getId, TradeType::getTradeType, tradeTypeRepository::findByTradeType, null, null);
+        this.tradeSubTypes = register(TradeSubType.class, "trade_sub_type", tradeSubTypeRepository,
+                TradeSubType::getId, TradeSubType::getTradeSubType, tradeSubTypeRepository::findByTradeSubType,
+                null, null);
+        // Users are indexed by loginId, with first name as the alternate key
+        // because TradeService has historically resolved traders by first name.
+        this.users = register(ApplicationUser.class, "application_user", applicationUserRepository,
+                ApplicationUser::getId, ApplicationUser::getLoginId, applicationUserRepository::findByLoginId,
+                ApplicationUser::getFirstName, applicationUserRepository::findByFirstName);
+        this.currencies = register(Currency.class, "currency", currencyRepository,
+                Currency::getId, Currency::getCurrency, currencyRepository::findByCurrency, null, null);
+        this.legTypes = register(LegType.class, "leg_type", legTypeRepository,
+                LegType::getId, LegType::getType, legTypeRepository::findByType, null, null);
+        this.indices = register(Index.class, "index", indexRepository,
+                Index::getId, Index::getIndex, indexRepository::findByIndex, null, null);
+        this.holidayCalendars = register(HolidayCalendar.class, "holiday_calendar", holidayCalendarRepository,
+                HolidayCalendar::getId, HolidayCalendar::getHolidayCalendar,
+                holidayCalendarRepository::findByHolidayCalendar, null, null);
+        this.schedules = register(Schedule.class, "schedule", scheduleRepository,
+                Schedule::getId, Schedule::getSchedule, scheduleRepository::findBySchedule, null, null);
+        this.businessDayConventions = register(BusinessDayConvention.class, "business_day_convention",
+                businessDayConventionRepository, BusinessDayConvention::getId, BusinessDayConvention::getBdc,
+                businessDayConventionRepository::findByBdc, null, null);
+        this.payRecs = register(PayRec.class, "pay_rec", payRecRepository,
+                PayRec::getId, PayRec::getPayRec, payRecRepository::findByPayRec, null, null);
+        this.costCenters = register(CostCenter.class, "cost_center", costCenterRepository,
+                CostCenter::getId, CostCenter::getCostCenterName, null, null, null);
+
+        MeterRegistry meterRegistry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            tables.values().forEach(table -> table.bindTo(meterRegistry));
+        }
+    }
+
+    private <T> ReferenceTable<T> register(Class<T> type, String name, JpaRepository<T, Long> repository,
+            Function<T, Long> idFn, Function<T, String> nameFn, Function<String, Optional<T>> findByName,
+            Function<T, String> alternateNameFn, Function<String, Optional<T>> findByAlternateName) {
+        ReferenceTable<T> table = new ReferenceTable<>(name, repository::findAll, idFn, nameFn,
+                alternateNameFn, maxAgeMillis, repository::findById, findByName, findByAlternateName);
+        tables.put(type, table);
+        return table;
+    }
+
+    public ReferenceTable<Book> books() {
+        return books;
+    }
+
+    public ReferenceTable<Counterparty> counterparties() {
+        return counterparties;
+    }
+
+    public ReferenceTable<TradeStatus> tradeStatuses() {
+        return tradeStatuses;
+    }
+
+    public ReferenceTable<TradeType> tradeTypes() {
+        return tradeTypes;
+    }
+
+    public ReferenceTable<TradeSubType> tradeSubTypes() {
+        return tradeSubTypes;
+    }
+
+    public ReferenceTable<ApplicationUser> users() {
+        return users;
+    }
+
+    public ReferenceTable<Currency> currencies() {
+        return currencies;
+    }
+
+    public ReferenceTable<LegType> legTypes() {
+        return legTypes;
+    }
+
+    public ReferenceTable<Index> indices() {
+        return indices;
+    }
+
+    public ReferenceTable<HolidayCalendar> holidayCalendars() {
+        return holidayCalendars;
+    }
+
+    public ReferenceTable<Schedule> schedules() {
+        return schedules;
+    }
+
+    public ReferenceTable<BusinessDayConvention> businessDayConventions() {
+        return businessDayConventions;
+    }
+
+    public ReferenceTable<PayRec> payRecs() {
+        return payRecs;
+    }
+
+    public ReferenceTable<CostCenter> costCenters() {
+        return costCenters;
+    }
+
+    /** Drop the snapshot for one entity type; the next lookup reloads it. */
+    public void invalidate(Class<?> entityType) {
+        // isAssignableFrom so Hibernate proxy subclasses map to their table
+        tables.forEach((type, table) -> {
+            if (type.isAssignableFrom(entityType)) {
+                table.invalidate();
+                logger.debug("Reference data cache invalidated for {}", table.getName());
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        tables.values().forEach(ReferenceTable::invalidate);
+        logger.info("Reference data cache invalidated for all tables");
+    }
+
+    // Published by ReferenceDataEntityListener on every insert/update/delete.
+    // Invalidate straight away so the writing transaction sees its own rows,
+    // and again once it commits or rolls back so a snapshot reloaded in the
+    // meantime (with uncommitted rows in it) does not outlive the transaction.
+    @EventListener
+    public void onReferenceDataChanged(ReferenceDataChangedEvent ev) {
+        Class<?> entityType = ev.getEntityType();
+        invalidate(entityType);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(entityType);
+                }
+            });
+        }
+    }
+
+    /** Hit/miss/size figures per table, e.g. for logging or diagnostics. */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        for (ReferenceTable<?> table : tables.values()) {
+            Map<String, Long> row = new LinkedHashMap<>();
+            row.put("hits", table.getHits());
+            row.put("misses", table.getMisses());
+            row.put("loads", table.getLoads());
+            row.put("size", (long) table.size());
+            stats.put(table.getName(), row);
+        }
+        return stats;
+    }
+
+    /**
+     * One cached reference table. Reads never lock: they dereference the
+     * current snapshot once and look up an immutable map. Loads are
+     * serialised per table so concurrent misses do not all hit the database.
+     */
+    public static final class ReferenceTable<T> {
+
+        private final String name;
+        private final Supplier<List<T>> loader;
+        private final Function<T, Long> idFn;
+        private final Function<T, String> nameFn;
+        private final Function<T, String> alternateNameFn;
+        private final long maxAgeMillis;
+        private final Function<Long, Optional<T>> idFallback;
+        private final Function<String, Optional<T>> nameFallback;
+        private final Function<String, Optional<T>> alternateNameFallback;
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder loads = new LongAdder();
+
+        private volatile Snapshot<T> snapshot;
+
+        ReferenceTable(String name, Supplier<List<T>> loader, Function<T, Long> idFn, Function<T, String> nameFn,
+                Function<T, String> alternateNameFn, long maxAgeMillis, Function<Long, Optional<T>> idFallback,
+                Function<String, Optional<T>> nameFallback, Function<String, Optional<T>> alternateNameFallback) {
+            this.name = name;
+            this.loader = loader;
+            this.idFn = idFn;
+            this.nameFn = nameFn;
+            this.alternateNameFn = alternateNameFn;
+            this.maxAgeMillis = maxAgeMillis;
+            this.idFallback = idFallback;
+            this.nameFallback = nameFallback;
+            this.alternateNameFallback = alternateNameFallback;
+        }
+
+        public Optional<T> findById(Long id) {
+            if (id == null) {
+                return Optional.empty();
+            }
+            return lookup(s -> s.byId.get(id), () -> idFallback.apply(id));
+        }
+
+        /** Exact-match lookup on the table's natural name column. */
+        public Optional<T> findByName(String key) {
+            if (key == null) {
+                return Optional.empty();
+            }
+            return lookup(s -> s.byName.get(key), nameFallback == null ? null : () -> nameFallback.apply(key));
+        }
+
+        /** Case-insensitive lookup, for callers that used equalsIgnoreCase. */
+        public Optional<T> findByNameIgnoreCase(String key) {
+            if (key == null) {
+                return Optional.empty();
+            }
+            String lower = key.toLowerCase(Locale.ROOT);
+            return lookup(s -> s.byNameLower.get(lower), null);
+        }
+
+        /** Exact-match lookup on the alternate key (e.g. user first name). */
+        public Optional<T> findByAlternateName(String key) {
+            if (key == null) {
+                return Optional.empty();
+            }
+            return lookup(s -> s.byAlternateName.get(key),
+                    alternateNameFallback == null ? null : () -> alternateNameFallback.apply(key));
+        }
+
+        private Optional<T> lookup(Function<Snapshot<T>, T> reader, Supplier<Optional<T>> fallback) {
+            T value = reader.apply(current());
+            if (value != null) {
+                hits.increment();
+                return Optional.of(value);
+            }
+            misses.increment();
+            // Not in the snapshot: the row may be newer than the snapshot
+            // (another node, direct SQL) or not yet committed by the caller's
+            // own transaction. Ask the database, but do not cache the answer.
+            return fallback == null ? Optional.empty() : fallback.get();
+        }
+
+        private Snapshot<T> current() {
+            Snapshot<T> current = snapshot;
+            if (current == null || System.currentTimeMillis() - current.loadedAt > maxAgeMillis) {
+                return reload(current);
+            }
+            return current;
+        }
+
+        private synchronized Snapshot<T> reload(Snapshot<T> seen) {
+            // Another thread may already have replaced the snapshot we saw
+            Snapshot<T> current = snapshot;
+            if (current != null && current != seen) {
+                return current;
+            }
+            List<T> rows = loader.get();
+            Snapshot<T> loaded = new Snapshot<>(rows, idFn, nameFn, alternateNameFn);
+            snapshot = loaded;
+            loads.increment();
+            logger.debug("Loaded {} rows into reference data cache table {}", rows.size(), name);
+            return loaded;
+        }
+
+        void invalidate() {
+            snapshot = null;
+        }
+
+        void bindTo(MeterRegistry registry) {
+            FunctionCounter.builder("reference.cache.lookups", hits, LongAdder::sum)
+                    .tag("table", name).tag("result", "hit")
+                    .description("Reference data lookups served from memory")
+                    .register(registry);
+            FunctionCounter.builder("reference.cache.lookups", misses, LongAdder::sum)
+                    .tag("table", name).tag("result", "miss")
+                    .description("Reference data lookups not found in memory (answered by the database)")
+                    .register(registry);
+            FunctionCounter.builder("reference.cache.loads", loads, LongAdder::sum)
+                    .tag("table", name)
+                    .description("Number of times the table snapshot was (re)loaded")
+                    .register(registry);
+            Gauge.builder("reference.cache.size", this, ReferenceTable::size)
+                    .tag("table", name)
+                    .register(registry);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getLoads() {
+            return loads.sum();
+        }
+
+        public int size() {
+            Snapshot<T> current = snapshot;
+            return current == null ? 0 : current.byId.size();
+        }
+    }
+
+    // Immutable view of one table at load time
+    private static final class Snapshot<T> {
+        final Map<Long, T> byId;
+        final Map<String, T> byName;
+        final Map<String, T> byNameLower;
+        final Map<String, T> byAlternateName;
+        final long loadedAt = System.currentTimeMillis();
+
+        Snapshot(List<T> rows, Function<T, Long> idFn, Function<T, String> nameFn,
+                Function<T, String> alternateNameFn) {
+            Map<Long, T> ids = new HashMap<>();
+            Map<String, T> names = new HashMap<>();
+            Map<String, T> lowerNames = new HashMap<>();
+            Map<String, T> alternateNames = new HashMap<>();
+            for (T row : rows) {
+                Long id = idFn.apply(row);
+                if (id != null) {
+                    ids.put(id, row);
+                }
+                String rowName = nameFn.apply(row);
+                if (rowName != null) {
+                    // First row wins, matching findAll().stream().filter().findFirst()
+                    names.putIfAbsent(rowName, row);
+                    lowerNames.putIfAbsent(rowName.toLowerCase(Locale.ROOT), row);
+                }
+                if (alternateNameFn != null) {
+                    String alternate = alternateNameFn.apply(row);
+                    if (alternate != null) {
+                        alternateNames.putIfAbsent(alternate, row);
+                    }
+                }
+            }
+            this.byId = Collections.unmodifiableMap(ids);
+            this.byName = Collections.unmodifiableMap(names);
+            this.byNameLower = Collections.unmodifiableMap(lowerNames);
+            this.byAlternateName = Collections.unmodifiableMap(alternateNames);
+        }
+    }
+}
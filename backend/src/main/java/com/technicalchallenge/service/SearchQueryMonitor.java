@@ -0,0 +1,230 @@
+package com.technicalchallenge.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SearchQueryMonitor
+ *
+ * Times the SQL statements run by the user-driven searches (RSQL, criteria
+ * filters, settlement text) and keeps the slow ones. A search marks its
+ * work with monitor("rsql", ...); every statement executed on that thread
+ * meanwhile is timed by the DataSource wrapper in SearchQueryMonitoringConfig
+ * and reported here. Statements outside a search are not touched.
+ *
+ * A statement that takes thresholdMillis or longer is kept, with its binds
+ * and the database's EXPLAIN output, in a ring of the last capacity slow
+ * queries; /actuator/slowqueries lists them. Every timing also goes to the
+ * Micrometer timer search.query (tag search=...).
+ *
+ * With a cost budget set (search.query-monitor.max-estimated-cost > 0) a
+ * search statement is EXPLAINed before it runs and refused with
+ * QueryCostExceededException when the planner's total cost estimate is over
+ * the budget. Only PostgreSQL reports a cost; on H2 the check lets every
+ * statement through.
+ */
+@Component
+public class SearchQueryMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchQueryMonitor.class);
+
+    // PostgreSQL: "Seq Scan on trade  (cost=0.00..1234.50 rows=..."; the
+    // first line is the root node, whose upper bound is the total cost
+    private static final Pattern POSTGRES_COST = Pattern.compile("cost=[0-9.]+\\.\\.([0-9.]+)");
+
+    private static final int MAX_BIND_LENGTH = 200;
+
+    /** A statement kept because it was slow or refused by the cost budget */
+    public record SlowQuery(Instant at, String search, String sql, List<Object> binds, long elapsedMillis,
+            Double estimatedCost, String plan, boolean rejected) {
+    }
+
+    /** Thrown instead of running a search statement that is over the cost budget */
+    public static class QueryCostExceededException extends RuntimeException {
+        public QueryCostExceededException(String message) {
+            super(message);
+        }
+    }
+
+    private final long thresholdMillis;
+    private final double maxEstimatedCost;
+    private final int capacity;
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadLocal<String> currentSearch = new ThreadLocal<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    public SearchQueryMonitor(ObjectProvider<MeterRegistry> meterRegistryProvider,
+            @Value("${search.query-monitor.threshold-ms:500}") long thresholdMillis,
+            @Value("${search.query-monitor.max-estimated-cost:0}") double maxEstimatedCost,
+            @Value("${search.query-monitor.capacity:100}") int capacity) {
+        this.meterRegistry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        this.thresholdMillis = thresholdMillis;
+        this.maxEstimatedCost = maxEstimatedCost;
+        this.capacity = Math.max(capacity, 1);
+    }
+
+    /** Runs work as the named search; its statements are timed and checked. */
+    public <T> T monitor(String search, Supplier<T> work) {
+        String outer = currentSearch.get();
+        currentSearch.set(search);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                currentSearch.remove();
+            } else {
+                currentSearch.set(outer);
+            }
+        }
+    }
+
+    /** The search running on this thread, or null outside one */
+    public String currentSearch() {
+        return currentSearch.get();
+    }
+
+    public long thresholdMillis() {
+        return thresholdMillis;
+    }
+
+    public double maxEstimatedCost() {
+        return maxEstimatedCost;
+    }
+
+    public boolean hasCostBudget() {
+        return maxEstimatedCost > 0;
+    }
+
+    /**
+     * Called before a search statement runs when there is a cost budget.
+     * connection is the unwrapped connection, so the EXPLAIN itself is not
+     * monitored.
+     */
+    public void checkCost(String search, Connection connection, String sql, Map<Integer, Object> binds) {
+        String plan = explain(connection, sql, binds);
+        Double cost = estimatedCost(plan);
+        if (cost != null && cost > maxEstimatedCost) {
+            record(new SlowQuery(Instant.now(), search, sql, bindList(binds), 0, cost, plan, true));
+            throw new QueryCostExceededException("Search is too expensive to run (estimated cost " + cost
+                    + ", budget " + maxEstimatedCost + "); narrow the filter");
+        }
+    }
+
+    /** Called after a search statement ran */
+    public void executed(String search, Connection connection, String sql, Map<Integer, Object> binds,
+            long elapsedNanos) {
+        if (meterRegistry != null) {
+            Timer.builder("search.query").tag("search", search).register(meterRegistry)
+                    .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (elapsedMillis < thresholdMillis) {
+            return;
+        }
+        String plan = explain(connection, sql, binds);
+        logger.warn("Slow {} search query ({} ms): {}", search, elapsedMillis, sql);
+        record(new SlowQuery(Instant.now(), search, sql, bindList(binds), elapsedMillis, estimatedCost(plan),
+                plan, false));
+    }
+
+    /** Most recent first */
+    public List<SlowQuery> slowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public void clear() {
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    private void record(SlowQuery slowQuery) {
+        synchronized (slowQueries) {
+            slowQueries.addFirst(slowQuery);
+            while (slowQueries.size() > capacity) {
+                slowQueries.removeLast();
+            }
+        }
+    }
+
+    // EXPLAIN with the same binds; H2 and PostgreSQL both take the statement
+    // text as is. Runs under a savepoint inside a transaction, because a
+    // failed statement aborts the whole transaction on PostgreSQL. A failure
+    // is kept as the plan text rather than failing the search.
+    static String explain(Connection connection, String sql, Map<Integer, Object> binds) {
+        Savepoint savepoint = null;
+        try {
+            if (!connection.getAutoCommit()) {
+                savepoint = connection.setSavepoint();
+            }
+            StringBuilder plan = new StringBuilder();
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (Map.Entry<Integer, Object> bind : binds.entrySet()) {
+                    explain.setObject(bind.getKey(), bind.getValue());
+                }
+                try (ResultSet rows = explain.executeQuery()) {
+                    while (rows.next()) {
+                        if (plan.length() > 0) {
+                            plan.append('\n');
+                        }
+                        plan.append(rows.getString(1));
+                    }
+                }
+            }
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+            }
+            logger.debug("EXPLAIN failed for {}", sql, e);
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+
+    static Double estimatedCost(String plan) {
+        Matcher matcher = POSTGRES_COST.matcher(plan);
+        return matcher.find() ? Double.valueOf(matcher.group(1)) : null;
+    }
+
+    private static List<Object> bindList(Map<Integer, Object> binds) {
+        List<Object> values = new ArrayList<>(binds.size());
+        for (Object value : binds.values()) {
+            if (value instanceof String text && text.length() > MAX_BIND_LENGTH) {
+                value = text.substring(0, MAX_BIND_LENGTH) + "...";
+            }
+            values.add(value);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,476 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.dto.SettlementTextRow;
+import com.technicalchallenge.repository.AdditionalInfoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * SettlementTextIndex
+ *
+ * In-memory trigram index over the active trade settlement instructions, so
+ * a case-insensitive substring search ("euroclear", "acct 12") does not scan
+ * additional_info with LOWER(field_value) LIKE '%...%', which no B-tree index
+ * can serve.
+ *
+ * Every instruction is lower-cased and split into its overlapping
+ * three-character sequences; each trigram keeps a sorted list of the texts
+ * containing it. A query of three or more characters intersects the lists of
+ * its own trigrams, starting with the shortest, and confirms each candidate
+ * with a plain contains() (sharing every trigram does not guarantee the
+ * trigrams are adjacent). The work depends on how many texts share the
+ * rarest trigram of the query, not on the size of the table. One- and
+ * two-character queries have no trigram and are answered by a scan of the
+ * indexed texts.
+ *
+ * CHANGED: a text is indexed once however many rows carry it (most trades
+ * use one of a few standard instructions, see SettlementTextStore); the
+ * posting lists hold distinct texts and each text keeps its rows, so the
+ * trigram and contains() work grows with the distinct instructions rather
+ * than with the trades.
+ *
+ * Results are trade ids, one per trade, ranked: a match at the start of a
+ * word before one inside a word, then the earlier match, then the more
+ * recently written instruction.
+ *
+ * The index is loaded at startup and until then isReady() is false and the
+ * searches use the database. AdditionalInfoService calls put/remove whenever
+ * it writes a settlement instruction. The change is visible at once,
+ * including to the writing transaction, and is undone if that transaction
+ * rolls back. Rows written without the service (SQL scripts, bulk loads) are
+ * seen after the next restart.
+ *
+ * Off with settlement.search.index.enabled=false.
+ */
+@Component
+@ConditionalOnProperty(name = "settlement.search.index.enabled", havingValue = "true", matchIfMissing = true)
+public class SettlementTextIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SettlementTextIndex.class);
+
+    static final int GRAM = 3;
+    private static final int LOAD_BATCH = 5_000;
+
+    /** An indexed instruction; text is lower case */
+    private record Entry(long additionalInfoId, long tradeId, String text) {
+    }
+
+    /** A distinct indexed text and the rows holding it (row id to trade id) */
+    private static final class Text {
+        private final long id;
+        private final String text;
+        private final Map<Long, Long> rows = new HashMap<>();
+
+        Text(long id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+    }
+
+    /** A confirmed match, ranked by SettlementTextIndex.RANKING */
+    private record Hit(long tradeId, boolean wordStart, int position, long additionalInfoId) {
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator.comparing((Hit hit) -> !hit.wordStart())
+            .thenComparingInt(Hit::position)
+            .thenComparing(Comparator.comparingLong(Hit::additionalInfoId).reversed());
+
+    private final AdditionalInfoRepository additionalInfoRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Text> texts = new HashMap<>();
+    private final Map<Long, Text> textsById = new HashMap<>();
+    // Trigram to text ids
+    private final Map<Long, Postings> postings = new HashMap<>();
+    // Increasing, so a new text is appended to its posting lists
+    private long nextTextId;
+
+    private volatile boolean ready;
+    // While loading, rows changed through put/remove are newer than what the
+    // load read from the database and must not be overwritten by it
+    private boolean loading;
+    private final Set<Long> changedWhileLoading = new HashSet<>();
+
+    public SettlementTextIndex(AdditionalInfoRepository additionalInfoRepository) {
+        this.additionalInfoRepository = additionalInfoRepository;
+    }
+
+    // Loading failure is logged rather than stopping the application; the
+    // searches keep using the database.
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAtStartup() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            logger.warn("Could not build settlement text index at startup: {}", e.getMessage());
+        }
+    }
+
+    /** Reads every active settlement instruction, a batch at a time. */
+    public void load() {
+        if (ready) {
+            return;
+        }
+        long start = System.nanoTime();
+        withWriteLock(() -> {
+            loading = true;
+            changedWhileLoading.clear();
+        });
+        try {
+            long afterId = 0;
+            List<SettlementTextRow> batch;
+            do {
+                batch = additionalInfoRepository.findSettlementTextAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+                List<SettlementTextRow> rows = batch;
+                withWriteLock(() -> {
+                    for (SettlementTextRow row : rows) {
+                        if (!changedWhileLoading.contains(row.additionalInfoId())) {
+                            replace(row.additionalInfoId(), entry(row.additionalInfoId(), row.tradeId(), row.text()));
+                        }
+                    }
+                });
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).additionalInfoId();
+                }
+            } while (batch.size() == LOAD_BATCH);
+            ready = true;
+        } finally {
+            withWriteLock(() -> {
+                loading = false;
+                changedWhileLoading.clear();
+            });
+        }
+        logger.info("Settlement text index: {} instructions, {} distinct texts, {} trigrams, built in {} ms",
+                size(), textCount(), trigramCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Indexes (or re-indexes) the instruction held by an AdditionalInfo row.
+     * A null or blank text removes the row.
+     */
+    public void put(long additionalInfoId, long tradeId, String text) {
+        change(additionalInfoId, entry(additionalInfoId, tradeId, text));
+    }
+
+    /** Removes a deactivated or deleted row */
+    public void remove(long additionalInfoId) {
+        change(additionalInfoId, null);
+    }
+
+    /**
+     * A page of the trades whose instructions contain keyword (case
+     * insensitive), best match first. The total counts trades, not rows.
+     * Only the trades up to the end of the page are put in order.
+     */
+    public Page<Long> search(String keyword, int page, int size) {
+        Collection<Hit> best = bestHitPerTrade(keyword);
+        int from = (int) Math.min((long) page * size, best.size());
+        int to = (int) Math.min((long) from + size, best.size());
+        // The to best hits, worst on top so it is the one dropped
+        PriorityQueue<Hit> top = new PriorityQueue<>(Math.max(to, 1), RANKING.reversed());
+        for (Hit hit : best) {
+            if (top.size() < to) {
+                top.add(hit);
+            } else if (to > 0 && RANKING.compare(hit, top.peek()) < 0) {
+                top.poll();
+                top.add(hit);
+            }
+        }
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        List<Long> tradeIds = ranked.subList(from, to).stream().map(Hit::tradeId).toList();
+        return new PageImpl<>(tradeIds, PageRequest.of(page, size), best.size());
+    }
+
+    /** Every trade whose instructions contain keyword, best match first */
+    public List<Long> matchingTradeIds(String keyword) {
+        List<Hit> ranked = new ArrayList<>(bestHitPerTrade(keyword));
+        ranked.sort(RANKING);
+        return ranked.stream().map(Hit::tradeId).toList();
+    }
+
+    // A trade with more than one matching row keeps its best ranked one
+    private Collection<Hit> bestHitPerTrade(String keyword) {
+        String query = normalize(keyword);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Hit> best = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Text text : candidates(query)) {
+                int position = text.text.indexOf(query);
+                if (position >= 0) {
+                    boolean wordStart = position == 0 || !Character.isLetterOrDigit(text.text.charAt(position - 1));
+                    for (Map.Entry<Long, Long> row : text.rows.entrySet()) {
+                        Hit hit = new Hit(row.getValue(), wordStart, position, row.getKey());
+                        best.merge(hit.tradeId(), hit, (a, b) -> RANKING.compare(a, b) <= 0 ? a : b);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return best.values();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Distinct texts indexed; at most size() */
+    int textCount() {
+        lock.readLock().lock();
+        try {
+            return texts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int trigramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Texts that may contain query: all of them below GRAM characters,
+    // otherwise those in every posting list of the query's trigrams
+    private List<Text> candidates(String query) {
+        if (query.length() < GRAM) {
+            return new ArrayList<>(texts.values());
+        }
+        long[] grams = trigrams(query);
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return List.of();
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(Postings::size));
+        // Walk the shortest list; every list is sorted, so each of the others
+        // is searched from where the previous id was found
+        List<Text> candidates = new ArrayList<>();
+        int[] cursors = new int[lists.length];
+        Postings rarest = lists[0];
+        for (int i = 0; i < rarest.size(); i++) {
+            long id = rarest.get(i);
+            boolean inAll = true;
+            for (int j = 1; j < lists.length && inAll; j++) {
+                cursors[j] = lists[j].seek(id, cursors[j]);
+                inAll = cursors[j] < lists[j].size() && lists[j].get(cursors[j]) == id;
+            }
+            if (inAll) {
+                candidates.add(textsById.get(id));
+            }
+        }
+        return candidates;
+    }
+
+    // Applies a change now. Inside a transaction the entry each row had
+    // before the transaction's first change to it is kept (one map per
+    // transaction, bound as a resource) and put back on rollback.
+    private void change(long additionalInfoId, Entry entry) {
+        Entry[] previous = new Entry[1];
+        withWriteLock(() -> {
+            previous[0] = replace(additionalInfoId, entry);
+            if (loading) {
+                changedWhileLoading.add(additionalInfoId);
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            originalsInTransaction().putIfAbsent(additionalInfoId, Optional.ofNullable(previous[0]));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Optional<Entry>> originalsInTransaction() {
+        Map<Long, Optional<Entry>> originals = (Map<Long, Optional<Entry>>) TransactionSynchronizationManager
+                .getResource(this);
+        if (originals == null) {
+            Map<Long, Optional<Entry>> bound = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SettlementTextIndex.this);
+                    if (status == STATUS_ROLLED_BACK) {
+                        withWriteLock(() -> bound.forEach((id, original) -> replace(id, original.orElse(null))));
+                    }
+                }
+            });
+            originals = bound;
+        }
+        return originals;
+    }
+
+    // Caller holds the write lock. A text is added to the posting lists
+    // with its first row and taken out with its last.
+    private Entry replace(long additionalInfoId, Entry entry) {
+        Entry previous = entries.remove(additionalInfoId);
+        if (previous != null) {
+            Text text = texts.get(previous.text());
+            text.rows.remove(additionalInfoId);
+            if (text.rows.isEmpty()) {
+                texts.remove(text.text);
+                textsById.remove(text.id);
+                for (long gram : trigrams(text.text)) {
+                    Postings list = postings.get(gram);
+                    list.remove(text.id);
+                    if (list.size() == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+        if (entry != null) {
+            entries.put(additionalInfoId, entry);
+            Text text = texts.get(entry.text());
+            if (text == null) {
+                text = new Text(nextTextId++, entry.text());
+                texts.put(text.text, text);
+                textsById.put(text.id, text);
+                for (long gram : trigrams(text.text)) {
+                    postings.computeIfAbsent(gram, g -> new Postings()).add(text.id);
+                }
+            }
+            text.rows.put(additionalInfoId, entry.tradeId());
+        }
+        return previous;
+    }
+
+    private void withWriteLock(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Entry entry(long additionalInfoId, long tradeId, String text) {
+        String normalized = normalize(text);
+        return normalized.isEmpty() ? null : new Entry(additionalInfoId, tradeId, normalized);
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** The distinct trigrams of text, each packed into a long (16 bits per char) */
+    static long[] trigrams(String text) {
+        if (text.length() < GRAM) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Sorted text ids for one trigram. Ids are handed out in increasing
+     * order, so adding is an append.
+     */
+    static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long get(int index) {
+            return ids[index];
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        /**
+         * The index of the first id >= id at or after from: gallops ahead
+         * from from, then binary searches the last step.
+         */
+        int seek(long id, int from) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && ids[high] < id) {
+                low = high + 1;
+                high = from + step;
+                step <<= 1;
+            }
+            int at = Arrays.binarySearch(ids, low, Math.min(high, size), id);
+            return at >= 0 ? at : -(at + 1);
+        }
+
+        void add(long id) {
+            int at = size == 0 || id > ids[size - 1] ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            int insertAt = -(at + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+}
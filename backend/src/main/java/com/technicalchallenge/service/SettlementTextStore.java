@@ -0,0 +1,95 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.SettlementText;
+import com.technicalchallenge.repository.SettlementTextRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * SettlementTextStore
+ *
+ * Content-addressed storage for settlement instruction bodies. Most trades
+ * carry one of a few standard instructions, so instead of a copy of the text
+ * on every AdditionalInfo row (and two more on every audit record) each
+ * distinct text is stored once in settlement_text, keyed by its SHA-256, and
+ * the rows reference the hash.
+ *
+ * intern(text) returns the stored row for a text, creating it the first time
+ * the text is seen. The non-standard keyword is worked out then, once per
+ * text, and stored with it; AdditionalInfoService copies it onto the rows.
+ *
+ * A new text is created in its own short transaction, so two requests saving
+ * the same new text at once do not fail each other: the second one's insert
+ * hits the primary key and it reads the first one's row. A text created by a
+ * request that then rolls back stays behind unreferenced; texts never change,
+ * so it is picked up by the next trade that uses the same words.
+ */
+@Component
+public class SettlementTextStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SettlementTextStore.class);
+
+    private final SettlementTextRepository settlementTextRepository;
+    private final NonStandardSettlementDetector nonStandardSettlementDetector;
+    private final TransactionTemplate createTextTransaction;
+
+    public SettlementTextStore(SettlementTextRepository settlementTextRepository,
+            NonStandardSettlementDetector nonStandardSettlementDetector,
+            PlatformTransactionManager transactionManager) {
+        this.settlementTextRepository = settlementTextRepository;
+        this.nonStandardSettlementDetector = nonStandardSettlementDetector;
+        this.createTextTransaction = new TransactionTemplate(transactionManager);
+        this.createTextTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * The stored row for text, created if this is the first time it is seen;
+     * null for a null text. Call inside the transaction that will reference
+     * the row.
+     */
+    public SettlementText intern(String text) {
+        if (text == null) {
+            return null;
+        }
+        String hash = hash(text);
+        Optional<SettlementText> stored = settlementTextRepository.findById(hash);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        try {
+            createTextTransaction.executeWithoutResult(status -> settlementTextRepository.saveAndFlush(
+                    new SettlementText(hash, text, nonStandardSettlementDetector.detect(text), LocalDateTime.now())));
+        } catch (DataIntegrityViolationException e) {
+            // Another request stored the same text first; use theirs
+            logger.debug("Settlement text {} created concurrently", hash);
+        }
+        return settlementTextRepository.findById(hash)
+                .orElseThrow(() -> new IllegalStateException("Settlement text " + hash + " could not be stored"));
+    }
+
+    /**
+     * The key of text in settlement_text: lower-case hex SHA-256 of its UTF-8
+     * bytes. The V4 migrations compute the same value in SQL.
+     */
+    public static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
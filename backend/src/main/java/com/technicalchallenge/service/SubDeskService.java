@@ -47,7 +47,10 @@ public class SubDeskService {
     public SubDesk saveSubDesk(SubDesk subDesk, SubDeskDTO dto) {
         logger.info("Saving subdesk: {}", subDesk);
         populateReferenceDataByName(subDesk, dto);
-        return subDeskRepository.save(subDesk);
+        boolean update = subDesk.getId() != null;
+        SubDesk saved = subDeskRepository.save(subDesk);
+        // Re-read after an update, as in CostCenterService.saveCostCenter
+        return update ? subDeskRepository.findById(saved.getId()).orElse(saved) : saved;
     }
 
     public void deleteSubDesk(Long id) {
@@ -4,29 +4,35 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.technicalchallenge.dto.DailySummaryDTO;
+import com.technicalchallenge.dto.LegTotalsRow;
 import com.technicalchallenge.dto.SearchCriteriaDTO;
+import com.technicalchallenge.dto.TradeBlotterRow;
+import com.technicalchallenge.dto.TradeCursor;
+import com.technicalchallenge.dto.TradeCountRow;
 import com.technicalchallenge.dto.TradeDTO;
-import com.technicalchallenge.dto.TradeLegDTO;
+import com.technicalchallenge.dto.TradeSlice;
 import com.technicalchallenge.dto.TradeSummaryDTO;
 import com.technicalchallenge.mapper.TradeMapper;
 import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.repository.TradeJpqlFilter;
 import com.technicalchallenge.repository.TradeRepository;
 
 import com.technicalchallenge.validation.UserPrivilegeValidationEngine;
@@ -34,10 +40,6 @@ import com.technicalchallenge.repository.AdditionalInfoRepository;
 import com.technicalchallenge.model.AdditionalInfo;
 import com.technicalchallenge.model.UserPrivilege;
 
-import cz.jirutka.rsql.parser.RSQLParser;
-import cz.jirutka.rsql.parser.ast.ComparisonOperator;
-import cz.jirutka.rsql.parser.ast.Node;
-import cz.jirutka.rsql.parser.ast.RSQLOperators;
 
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
@@ -58,16 +60,71 @@ public class TradeDashboardService {
      * Filter trades using flexible criteria and pagination.
      * Privilege validation is performed before querying.
      * Returns a Page of TradeDTOs matching the criteria.
+     *
+     * Offset paging, kept for callers that still pass a page number; a deep
+     * page costs more than the first. size is capped at
+     * TradeSlice.MAX_PAGE_SIZE. Prefer the cursor overload below.
      */
     @Transactional(readOnly = true)
     public Page<TradeDTO> filterTrades(SearchCriteriaDTO criteria, int page, int size) {
         // Privilege validation: only users with TRADE_VIEW privilege allowed
-        String currentUser = resolveCurrentTraderId();
-        if (!hasPrivilege(currentUser, "TRADE_VIEW")) {
-            throw new org.springframework.security.access.AccessDeniedException("Insufficient privileges");
-        }
+        requireTradeView();
+
+        Pageable pageable = PageRequest.of(page, TradeSlice.pageSize(size, size));
+        // CHANGED: blotter projection (header + leg summaries, no cashflows)
+        Page<TradeBlotterRow> rowPage = monitored("filter",
+                () -> tradeRepository.findBlotterRows(criteriaSpec(criteria), pageable));
+        List<TradeDTO> tradeDtos = toBlotterDtos(rowPage.getContent());
+        // Batch-enrich DTOs with settlement instructions (avoids N+1)
+        enrichSettlementInstructionsForTrades(tradeDtos);
+
+        return new PageImpl<>(tradeDtos, pageable, rowPage.getTotalElements()); // return paged DTOs
+    }
+
+    /**
+     * ADDED: keyset-paged filter (see TradeCursor). Every page, however deep,
+     * is one indexed range read. cursor is null for the first page; size is
+     * capped at TradeSlice.MAX_PAGE_SIZE; withCount=false skips the count
+     * query for callers that do not show a total.
+     */
+    @Transactional(readOnly = true)
+    public TradeSlice filterTrades(SearchCriteriaDTO criteria, String cursor, int size, boolean withCount) {
+        requireTradeView();
+        TradeSlice slice = seek("filter", criteriaSpec(criteria), cursor, size, withCount);
+        enrichSettlementInstructionsForTrades(slice.content());
+        return slice;
+    }
+
+    // ADDED: one keyset page of blotter DTOs for a Specification. search
+    // names the page's queries for SearchQueryMonitor.
+    private TradeSlice seek(String search, Specification<Trade> spec, String cursor, Integer size,
+            boolean withCount) {
+        TradeCursor after = TradeCursor.decode(cursor);
+        Slice<TradeBlotterRow> rows = monitored(search, () -> tradeRepository.findBlotterRowsAfter(spec, after,
+                TradeSlice.pageSize(size, TradeSlice.MAX_PAGE_SIZE)));
+        Long count = withCount ? monitored(search, () -> tradeRepository.count(spec)) : null;
+        return TradeSlice.of(rows, toBlotterDtos(rows.getContent()), count);
+    }
+
+    // ADDED: the same page for a compiled JPQL filter
+    private TradeSlice seekJpql(String search, TradeJpqlFilter filter, String cursor, Integer size,
+            boolean withCount) {
+        TradeCursor after = TradeCursor.decode(cursor);
+        Slice<TradeBlotterRow> rows = monitored(search, () -> tradeRepository.findBlotterRowsMatching(filter,
+                after, TradeSlice.pageSize(size, TradeSlice.MAX_PAGE_SIZE)));
+        Long count = withCount ? monitored(search, () -> tradeRepository.countBlotterRowsMatching(filter)) : null;
+        return TradeSlice.of(rows, toBlotterDtos(rows.getContent()), count);
+    }
 
-        // Build JPA Specification based on criteria
+    // ADDED: runs a user-driven query under SearchQueryMonitor (timing, slow
+    // query capture, cost budget)
+    private <T> T monitored(String search, Supplier<T> query) {
+        return searchQueryMonitor.monitor(search, query);
+    }
+
+    // REFACTORED: the Specification searchTrades and filterTrades each built
+    // inline
+    private Specification<Trade> criteriaSpec(SearchCriteriaDTO criteria) {
         Specification<Trade> spec = Specification.where(null);
         // Fix: Compare nested fields for entity relationships to avoid Hibernate type
         // mismatch errors
@@ -84,9 +141,10 @@ public class TradeDashboardService {
                             Long.valueOf(criteria.getBook())));
         }
         if (criteria.getTrader() != null && !criteria.getTrader().isBlank()) {
+            // CHANGED: compare the indexed lower-case column rather than
+            // lower(loginId)
             spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.equal(
-                    criteriaBuilder.lower(root.get("traderUser").get("loginId")),
-                    criteria.getTrader().toLowerCase()));
+                    root.get("traderUser").get("loginIdLower"), criteria.getTrader().toLowerCase()));
         }
         if (criteria.getStatus() != null && !criteria.getStatus().isBlank()) {
             // If tradeStatus is an entity, compare by tradeStatus field
@@ -103,18 +161,23 @@ public class TradeDashboardService {
             spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get("tradeDate"),
                     criteria.getEndDate()));
         }
+        return spec;
+    }
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Trade> tradePage = tradeRepository.findAll(spec, pageable);
-        List<TradeDTO> tradeDtos = new ArrayList<>();
-        for (Trade tradeEntity : tradePage.getContent()) {
-            TradeDTO tradeDto = tradeMapper.toDto(tradeEntity);
-            tradeDtos.add(tradeDto);
+    private void requireTradeView() {
+        String currentUser = resolveCurrentTraderId();
+        if (!hasPrivilege(currentUser, "TRADE_VIEW")) {
+            throw new org.springframework.security.access.AccessDeniedException("Insufficient privileges");
         }
-        // Batch-enrich DTOs with settlement instructions (avoids N+1)
-        enrichSettlementInstructionsForTrades(tradePage.getContent(), tradeDtos);
+    }
 
-        return new PageImpl<>(tradeDtos, pageable, tradePage.getTotalElements()); // return paged DTOs
+    // ADDED: blotter DTOs for a list of projection rows. Two statements
+    // whatever the number of trades: the rows, then their leg summaries.
+    private List<TradeDTO> toBlotterDtos(List<TradeBlotterRow> rows) {
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return tradeMapper.toBlotterDtos(rows, tradeRepository.findLegSummaries(rows));
     }
 
     private final TradeMapper tradeMapper;
@@ -124,6 +187,28 @@ public class TradeDashboardService {
     @SuppressWarnings("unused")
     private final UserPrivilegeValidationEngine privilegeValidationEngine;
 
+    // ADDED: incrementally maintained all-time totals (see TradeSummaryStore).
+    // Field-injected so the existing constructors stay as they are.
+    @Autowired
+    private TradeSummaryStore tradeSummaryStore;
+
+    // ADDED: compiled RSQL queries. Replaced by the application's bean (field
+    // metadata from the JPA metamodel); unit tests keep this reflective one.
+    @Autowired(required = false)
+    private TradeRsqlQueryCache rsqlQueryCache = new TradeRsqlQueryCache();
+
+    // ADDED: which engine runs /rsql. "criteria" (the default) applies the
+    // compiled Specification; "jpql" runs one JPQL statement with the
+    // reference tables joined once and the values bound as parameters (see
+    // TradeRsqlJpqlCompiler and TradeRsqlSearchBenchmark).
+    @Value("${trade.rsql.engine:criteria}")
+    private String rsqlEngine = "criteria";
+
+    // ADDED: times the search queries and keeps the slow ones (see
+    // SearchQueryMonitor)
+    @Autowired
+    private SearchQueryMonitor searchQueryMonitor;
+
     @Autowired
     public TradeDashboardService(TradeRepository tradeRepository, TradeMapper tradeMapper,
             AdditionalInfoRepository additionalInfoRepository,
@@ -163,68 +248,37 @@ public class TradeDashboardService {
      * date range).
      * Privilege validation is performed before querying.
      * Returns a list of TradeDTOs matching the criteria.
+     *
+     * CHANGED: returns the first keyset page only (at most
+     * TradeSlice.MAX_PAGE_SIZE trades); use the cursor overload to read on.
      */
     @Transactional(readOnly = true)
     public List<TradeDTO> searchTrades(SearchCriteriaDTO criteriaDTO) {
-        // Privilege validation: only users with TRADE_VIEW privilege allowed
-        String currentUser = resolveCurrentTraderId();
-        if (!hasPrivilege(currentUser, "TRADE_VIEW")) {
-            throw new org.springframework.security.access.AccessDeniedException("Insufficient privileges");
-        }
+        return searchTrades(criteriaDTO, null, null).content();
+    }
 
-        // Build JPA Specification based on criteria
-        Specification<Trade> spec = Specification.where(null);
-        if (criteriaDTO.getCounterparty() != null && !criteriaDTO.getCounterparty().isBlank()) {
-            // Compare by counterparty name, not the whole entity
-            spec = spec.and(
-                    (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("counterparty").get("name"),
-                            criteriaDTO.getCounterparty()));
-        }
-        if (criteriaDTO.getBook() != null && !criteriaDTO.getBook().isBlank()) {
-            // Compare by book id, not the whole entity
-            spec = spec.and(
-                    (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("book").get("id"),
-                            Long.valueOf(criteriaDTO.getBook())));
-        }
-        if (criteriaDTO.getTrader() != null && !criteriaDTO.getTrader().isBlank()) {
-            spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.equal(
-                    criteriaBuilder.lower(root.get("traderUser").get("loginId")),
-                    criteriaDTO.getTrader().toLowerCase()));
-        }
-        if (criteriaDTO.getStatus() != null && !criteriaDTO.getStatus().isBlank()) {
-            // If tradeStatus is an entity, compare by tradeStatus field
-            spec = spec.and(
-                    (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("tradeStatus").get("tradeStatus"),
-                            criteriaDTO.getStatus()));
-        }
-        if (criteriaDTO.getStartDate() != null) {
-            spec = spec.and(
-                    (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("tradeDate"),
-                            criteriaDTO.getStartDate()));
-        }
-        if (criteriaDTO.getEndDate() != null) {
-            spec = spec.and((root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get("tradeDate"),
-                    criteriaDTO.getEndDate()));
-        }
+    @Transactional(readOnly = true)
+    public TradeSlice searchTrades(SearchCriteriaDTO criteriaDTO, String cursor, Integer size) {
+        // Privilege validation: only users with TRADE_VIEW privilege allowed
+        requireTradeView();
 
-        // Query repository and map results to DTOs
-        List<Trade> tradeEntities = tradeRepository.findAll(spec);
-        List<TradeDTO> tradeDtos = new ArrayList<>();
-        for (Trade tradeEntity : tradeEntities) {
-            TradeDTO tradeDto = tradeMapper.toDto(tradeEntity);
-            tradeDtos.add(tradeDto);
-        }
-        return tradeDtos;
+        // Query repository and map results to DTOs (blotter projection)
+        return seek("search", criteriaSpec(criteriaDTO), cursor, size, false);
     }
 
     // RSQL Search
+    // CHANGED: first keyset page only, see the cursor overload
     @Transactional(readOnly = true)
     public List<TradeDTO> searchTradesRsql(String query) {
+        return searchTradesRsql(query, null, null, false).content();
+    }
+
+    @Transactional(readOnly = true)
+    public TradeSlice searchTradesRsql(String query, String cursor, Integer size, boolean withCount) {
         // Privilege validation: only users with TRADE_VIEW privilege allowed
-        String currentUser = resolveCurrentTraderId();
-        if (!hasPrivilege(currentUser, "TRADE_VIEW")) {
-            throw new org.springframework.security.access.AccessDeniedException("Insufficient privileges");
-        }
+        requireTradeView();
+        // Decoded up front so a bad cursor is reported as such, not as bad RSQL
+        TradeCursor.decode(cursor);
 
         /*
          * The test failures showed:
@@ -239,22 +293,14 @@ public class TradeDashboardService {
          * status,
          */
         try {
-            Set<ComparisonOperator> operators = new HashSet<>(RSQLOperators.defaultOperators());
-            ComparisonOperator LIKE = new ComparisonOperator("=like=");
-            operators.add(LIKE);
-
-            RSQLParser parser = new RSQLParser(operators);
-            Node root = parser.parse(query);
-            Specification<Trade> spec = root.accept(new TradeRsqlVisitor());
-
-            List<Trade> tradeEntities = tradeRepository.findAll(spec);
-            List<TradeDTO> tradeDtos = new ArrayList<>();
-
-            for (Trade tradeEntity : tradeEntities) {
-                TradeDTO tradeDto = tradeMapper.toDto(tradeEntity);
-                tradeDtos.add(tradeDto);
+            if ("jpql".equalsIgnoreCase(rsqlEngine)) {
+                return seekJpql("rsql", rsqlQueryCache.compileJpql(query), cursor, size, withCount);
             }
-            return tradeDtos;
+            // CHANGED: compiled once per distinct query and cached (see
+            // TradeRsqlQueryCache) instead of a new parser and visitor per call
+            Specification<Trade> spec = rsqlQueryCache.compile(query);
+
+            return seek("rsql", spec, cursor, size, withCount);
 
         } catch (cz.jirutka.rsql.parser.RSQLParserException e) {
             throw new org.springframework.web.server.ResponseStatusException(
@@ -262,6 +308,10 @@ public class TradeDashboardService {
         } catch (IllegalArgumentException e) {
             throw new org.springframework.web.server.ResponseStatusException(
                     org.springframework.http.HttpStatus.BAD_REQUEST, "Invalid RSQL query");
+        } catch (SearchQueryMonitor.QueryCostExceededException e) {
+            // ADDED: a valid query over the cost budget says so
+            throw new org.springframework.web.server.ResponseStatusException(
+                    org.springframework.http.HttpStatus.BAD_REQUEST, e.getMessage(), e);
         } catch (Exception e) {
             throw new org.springframework.web.server.ResponseStatusException(
                     org.springframework.http.HttpStatus.BAD_REQUEST, "Invalid RSQL query", e);
@@ -269,18 +319,21 @@ public class TradeDashboardService {
     }
 
     // Fetch trades filtered by trader
+    // CHANGED: first keyset page only, see the cursor overload
     @Transactional(readOnly = true)
     public List<TradeDTO> getTradesByTrader(String traderId) {
+        return getTradesByTrader(traderId, null, null).content();
+    }
+
+    @Transactional(readOnly = true)
+    public TradeSlice getTradesByTrader(String traderId, String cursor, Integer size) {
         // Privilege validation: only users with TRADE_VIEW privilege allowed
-        String currentUser = resolveCurrentTraderId();
-        if (!hasPrivilege(currentUser, "TRADE_VIEW")) {
-            throw new org.springframework.security.access.AccessDeniedException("Insufficient privileges");
-        }
+        requireTradeView();
 
         SearchCriteriaDTO criteriaDTO = new SearchCriteriaDTO();
         criteriaDTO.setTrader(traderId);
 
-        return searchTrades(criteriaDTO);
+        return searchTrades(criteriaDTO, cursor, size);
     }
 
     @Transactional(readOnly = true)
@@ -290,18 +343,21 @@ public class TradeDashboardService {
     }
 
     // returns all trades belonging to a specific book
+    // CHANGED: first keyset page only, see the cursor overload
     @Transactional(readOnly = true)
     public List<TradeDTO> getTradesByBook(Long bookId) {
+        return getTradesByBook(bookId, null, null).content();
+    }
+
+    @Transactional(readOnly = true)
+    public TradeSlice getTradesByBook(Long bookId, String cursor, Integer size) {
         // Privilege validation: only users with TRADE_VIEW privilege allowed
-        String currentUser = resolveCurrentTraderId();
-        if (!hasPrivilege(currentUser, "TRADE_VIEW")) {
-            throw new org.springframework.security.access.AccessDeniedException("Insufficient privileges");
-        }
+        requireTradeView();
 
         SearchCriteriaDTO criteriaDTO = new SearchCriteriaDTO();
         criteriaDTO.setBook(String.valueOf(bookId));
 
-        return searchTrades(criteriaDTO);
+        return searchTrades(criteriaDTO, cursor, size);
     }
 
     // REFACTORED
@@ -358,158 +414,80 @@ public class TradeDashboardService {
             // DTO that will be returned. Use an internal fetch that does NOT
             // perform redundant privilege checks (already validated above).
             TradeSummaryDTO summaryDTO = new TradeSummaryDTO();
-            List<TradeDTO> tradesForTrader = fetchTradesForTraderWithoutPrivilegeCheck(traderId);
+            // If traderId not provided, default to the current authenticated user
+            String traderFilter = (traderId == null || traderId.isBlank()) ? resolveCurrentTraderId() : traderId;
 
             // Debug log: record the resolved role for troubleshooting
             // Debug: record the resolved role for troubleshooting (keeps the
             // helper resolveCurrentUserRole method in use)
             logger.debug("Current role for user {}: {}", resolveCurrentTraderId(), resolveCurrentUserRole());
 
+            // REFACTORED: the aggregates are grouped by the database rather than
+            // worked out from every trade mapped to a TradeDTO. Four queries
+            // return rows per book/status/type/counterparty and per
+            // book/currency: all-time, and per trade date for the last seven
+            // days. Their size depends on how many books, currencies etc. the
+            // trader uses, not on how many trades they have booked.
+            // TradeSummaryAggregator turns the rows into the DTO figures: the
+            // all-time rows give the all-time and book totals, the dated rows
+            // the weekly and per-day ones.
+            // The all-time rows are read from TradeSummaryStore, so their cost
+            // no longer grows with the trader's history. The seven-day queries
+            // stay live: they only touch a week of trades.
+            LocalDate today = LocalDate.now();
+            LocalDate weekStart = today.minusDays(6);
+            String loginId = traderFilter.toLowerCase();
+
+            TradeSummaryAggregator allTimeAggregates = new TradeSummaryAggregator(weekStart, 7);
+            tradeSummaryStore.countTradesForTrader(loginId).forEach(allTimeAggregates::add);
+            tradeSummaryStore.sumLegsForTrader(loginId).forEach(allTimeAggregates::add);
+
+            TradeSummaryAggregator weekAggregates = new TradeSummaryAggregator(weekStart, 7);
+            tradeRepository.countTradesForTraderBetween(loginId, weekStart, today).forEach(weekAggregates::add);
+            tradeRepository.sumLegsForTraderBetween(loginId, weekStart, today).forEach(weekAggregates::add);
+
+            TradeSummaryAggregator.Totals allTime = allTimeAggregates.allTime();
+            TradeSummaryAggregator.Totals week = weekAggregates.window();
+
             // Aggregation trades by status: group by tradeStatus and count
-            Map<String, Long> tradesByStatus = tradesForTrader.stream()
-                    .map(TradeDTO::getTradeStatus)
-                    .filter(status -> status != null && !status.isBlank())
-                    .collect(Collectors.groupingBy(status -> status, Collectors.counting()));
+            Map<String, Long> tradesByStatus = allTime.tradesByStatus();
             summaryDTO.setTradesByStatus(tradesByStatus);
             // ALSO set labeled all-time field for clarity in the UI
             summaryDTO.setAllTimeTradesByStatus(tradesByStatus);
 
-            // Aggregation notional by currency: iterate all trade legs and sum
-            // notionals per currency using BigDecimal to avoid floating-point errors.
-            Map<String, BigDecimal> notionalByCurrency = new HashMap<>();
-            for (TradeDTO tradeDto : tradesForTrader) {
-                List<TradeLegDTO> tradeLegs = tradeDto.getTradeLegs();
-                if (tradeLegs == null)
-                    continue;
-                for (TradeLegDTO tradeLeg : tradeLegs) {
-                    if (tradeLeg == null)
-                        continue;
-                    String currency = tradeLeg.getCurrency();
-                    BigDecimal notional = tradeLeg.getNotional();
-                    if (currency == null || notional == null)
-                        continue;
-                    notionalByCurrency.merge(currency, notional, BigDecimal::add);
-                }
-            }
+            // Aggregation notional by currency: sum leg notionals per currency
+            Map<String, BigDecimal> notionalByCurrency = allTime.notionalByCurrency();
             summaryDTO.setNotionalByCurrency(notionalByCurrency);
             // ALSO set labeled all-time notional totals
             summaryDTO.setAllTimeNotionalByCurrency(notionalByCurrency);
 
-            // Aggregation trades by type and counterparty: build a compact key
-            // "tradeType:counterparty" and count occurrences.
-            Map<String, Long> tradesByTypeAndCounterparty = tradesForTrader.stream()
-                    .map(trade -> {
-                        String tradeType = trade.getTradeType() == null ? "UNKNOWN" : trade.getTradeType();
-                        String counterparty = trade.getCounterpartyName() == null ? "UNKNOWN"
-                                : trade.getCounterpartyName();
-                        return tradeType + ":" + counterparty;
-                    })
-                    .collect(Collectors.groupingBy(key -> key, Collectors.counting()));
+            // Aggregation trades by type and counterparty: a compact key
+            // "tradeType:counterparty" and its count.
+            Map<String, Long> tradesByTypeAndCounterparty = allTime.tradesByTypeAndCounterparty();
             summaryDTO.setTradesByTypeAndCounterparty(tradesByTypeAndCounterparty);
             // Also expose as explicit all-time mapping
             summaryDTO.setAllTimeTradesByTypeAndCounterparty(tradesByTypeAndCounterparty);
 
-            // Risk placeholder: calculate a naive 'delta' as sum(notional * rate)
-            // across legs. This is a demonstration value, not a financial Greek.
-            BigDecimal delta = BigDecimal.ZERO;
-            for (TradeDTO tradeDto : tradesForTrader) {
-                if (tradeDto == null || tradeDto.getTradeLegs() == null)
-                    continue;
-                for (TradeLegDTO leg : tradeDto.getTradeLegs()) {
-                    if (leg == null)
-                        continue;
-                    BigDecimal notional = leg.getNotional();
-                    Double rateDouble = leg.getRate();
-                    if (notional == null || rateDouble == null)
-                        continue;
-                    BigDecimal rate = BigDecimal.valueOf(rateDouble);
-                    delta = delta.add(notional.multiply(rate));
-                }
-            }
-            // vega left at zero because volatility-based sensitivity is not computed
-            // by this placeholder logic.
-            Map<String, BigDecimal> allTimeRisk = Map.of("delta", delta, "vega", BigDecimal.ZERO);
+            // Risk placeholder: a naive 'delta' as sum(notional * rate) across
+            // legs. This is a demonstration value, not a financial Greek. vega is
+            // left at zero because no volatility-based sensitivity is computed.
+            Map<String, BigDecimal> allTimeRisk = allTime.riskExposure();
             summaryDTO.setRiskExposureSummary(allTimeRisk);
             // Also label as all-time risk summary
             summaryDTO.setAllTimeRiskExposureSummary(allTimeRisk);
 
-            // Weekly comparisons: create seven per-day summaries (oldest -> newest)
-            // and at the same time calculate weekly aggregate totals used for the
-            // labeled weekly fields below.
-            List<DailySummaryDTO.DailyComparisonSummary> weekly = new ArrayList<>();
-            LocalDate today = LocalDate.now();
-            List<TradeDTO> weekTrades = new ArrayList<>();
-            for (int i = 6; i >= 0; i--) { // oldest first
-                LocalDate day = today.minusDays(i);
-                List<TradeDTO> tradesOnDay = tradesForTrader.stream()
-                        .filter(t -> t != null && t.getTradeDate() != null && t.getTradeDate().isEqual(day))
-                        .toList();
-                // collect for weekly totals
-                weekTrades.addAll(tradesOnDay);
-                DailySummaryDTO.DailyComparisonSummary daySummary = new DailySummaryDTO.DailyComparisonSummary();
-                daySummary.setTradeCount(tradesOnDay.size());
-                daySummary.setNotionalByCurrency(sumNotionalByCurrency(tradesOnDay));
-                weekly.add(daySummary);
-            }
-            summaryDTO.setWeeklyComparisons(weekly);
-
-            // Compute weekly labeled aggregates (summing the weekTrades list)
-            Map<String, Long> weeklyTradesByStatus = weekTrades.stream()
-                    .map(TradeDTO::getTradeStatus)
-                    .filter(status -> status != null && !status.isBlank())
-                    .collect(Collectors.groupingBy(status -> status, Collectors.counting()));
-            Map<String, BigDecimal> weeklyNotionalByCurrency = sumNotionalByCurrency(weekTrades);
-            Map<String, Long> weeklyTradesByTypeAndCounterparty = weekTrades.stream()
-                    .map(trade -> {
-                        String tradeType = trade.getTradeType() == null ? "UNKNOWN" : trade.getTradeType();
-                        String counterparty = trade.getCounterpartyName() == null ? "UNKNOWN"
-                                : trade.getCounterpartyName();
-                        return tradeType + ":" + counterparty;
-                    })
-                    .collect(Collectors.groupingBy(key -> key, Collectors.counting()));
-            // naive weekly risk (same placeholder method applied to weekTrades)
-            BigDecimal weeklyDelta = BigDecimal.ZERO;
-            for (TradeDTO tradeDto : weekTrades) {
-                if (tradeDto == null || tradeDto.getTradeLegs() == null)
-                    continue;
-                for (TradeLegDTO leg : tradeDto.getTradeLegs()) {
-                    if (leg == null)
-                        continue;
-                    BigDecimal notional = leg.getNotional();
-                    Double rateDouble = leg.getRate();
-                    if (notional == null || rateDouble == null)
-                        continue;
-                    BigDecimal rate = BigDecimal.valueOf(rateDouble);
-                    weeklyDelta = weeklyDelta.add(notional.multiply(rate));
-                }
-            }
-            Map<String, BigDecimal> weeklyRisk = Map.of("delta", weeklyDelta, "vega", BigDecimal.ZERO);
-
-            summaryDTO.setWeeklyTradesByStatus(weeklyTradesByStatus);
-            summaryDTO.setWeeklyNotionalByCurrency(weeklyNotionalByCurrency);
-            summaryDTO.setWeeklyTradesByTypeAndCounterparty(weeklyTradesByTypeAndCounterparty);
-            summaryDTO.setWeeklyRiskExposureSummary(weeklyRisk);
-
-            // Book-level activity summaries: group all trades by bookId and aggregate
-            // trade count and notional by currency for each book. This supports the
-            // dashboard "Active Books" count display.
-            Map<Long, DailySummaryDTO.BookActivitySummary> bookActivitySummary = new HashMap<>();
-            for (TradeDTO tradeDto : tradesForTrader) {
-                Long bookKey = tradeDto.getBookId() == null ? -1L : tradeDto.getBookId();
-                DailySummaryDTO.BookActivitySummary activitySummary = bookActivitySummary.computeIfAbsent(bookKey,
-                        bookIdKey -> {
-                            DailySummaryDTO.BookActivitySummary bookSummary = new DailySummaryDTO.BookActivitySummary();
-                            bookSummary.setTradeCount(0);
-                            bookSummary.setNotionalByCurrency(new HashMap<>());
-                            return bookSummary;
-                        });
-                activitySummary.setTradeCount(activitySummary.getTradeCount() + 1);
-                Map<String, BigDecimal> legTotals = sumNotionalByCurrency(List.of(tradeDto));
-                for (Map.Entry<String, BigDecimal> entry : legTotals.entrySet()) {
-                    activitySummary.getNotionalByCurrency().merge(entry.getKey(), entry.getValue(), BigDecimal::add);
-                }
-            }
-            summaryDTO.setBookActivitySummaries(bookActivitySummary);
+            // Weekly comparisons: seven per-day summaries (oldest -> newest) and
+            // the labeled weekly aggregates over the same seven days.
+            summaryDTO.setWeeklyComparisons(weekAggregates.dailyComparisons());
+            summaryDTO.setWeeklyTradesByStatus(week.tradesByStatus());
+            summaryDTO.setWeeklyNotionalByCurrency(week.notionalByCurrency());
+            summaryDTO.setWeeklyTradesByTypeAndCounterparty(week.tradesByTypeAndCounterparty());
+            summaryDTO.setWeeklyRiskExposureSummary(week.riskExposure());
+
+            // Book-level activity summaries: trade count and notional by currency
+            // for each book. This supports the dashboard "Active Books" count
+            // display.
+            summaryDTO.setBookActivitySummaries(allTimeAggregates.bookActivity());
 
             return summaryDTO;
         } catch (Exception e) {
@@ -524,85 +502,6 @@ public class TradeDashboardService {
         }
     }
 
-    /**
-     * Internal helper that fetches trades for a trader without performing the
-     * hasPrivilege() check. Intended for use only after this service has
-     * already validated authorization, so callers should ensure that proper
-     * privileges were checked earlier.
-     */
-    private List<TradeDTO> fetchTradesForTraderWithoutPrivilegeCheck(String traderId) {
-
-        // Resolve authentication and caller identity
-        Authentication auth = SecurityContextHolder.getContext() != null
-                ? SecurityContextHolder.getContext().getAuthentication()
-                : null;
-
-        String caller = (auth == null || auth.getName() == null)
-                ? "__UNKNOWN_TRADER__"
-                : auth.getName();
-
-        // Check whether the caller has authority to view other traders
-        boolean canViewOthers = auth != null
-                && auth.getAuthorities() != null
-                && auth.getAuthorities().stream().anyMatch(a -> {
-                    String ga = a.getAuthority();
-                    return "ROLE_MIDDLE_OFFICE".equals(ga)
-                            || "ROLE_SUPERUSER".equals(ga)
-                            || "TRADE_VIEW_ALL".equals(ga);
-                });
-
-        // Defensive authorization check
-        if (traderId != null
-                && !traderId.isBlank()
-                && !traderId.equalsIgnoreCase(caller)
-                && !canViewOthers) {
-            throw new AccessDeniedException(
-                    "Insufficient privileges to view another trader's data (defensive check)");
-        }
-
-        // Resolve effective trader filter
-        String traderFilter = (traderId == null || traderId.isBlank())
-                ? resolveCurrentTraderId()
-                : traderId;
-
-        // Build query specification
-        Specification<Trade> spec = (root, query, cb) -> cb.equal(
-                cb.lower(root.get("traderUser").get("loginId")),
-                traderFilter.toLowerCase());
-
-        // Fetch trades
-        List<Trade> tradeEntities = tradeRepository.findAll(spec);
-
-        // Info-level summary logging
-        logger.info(
-                "fetchTradesForTraderWithoutPrivilegeCheck: traderFilter='{}' fetched={}",
-                traderFilter,
-                tradeEntities == null ? 0 : tradeEntities.size());
-
-        // Debug-level detailed logging
-        if (tradeEntities != null && logger.isDebugEnabled()) {
-            String ids = tradeEntities.stream()
-                    .map(t -> t.getId() == null ? "null" : t.getId().toString())
-                    .collect(Collectors.joining(","));
-
-            logger.debug(
-                    "fetchTradesForTraderWithoutPrivilegeCheck: traderFilter='{}', fetched={}, ids=[{}]",
-                    traderFilter,
-                    tradeEntities.size(),
-                    ids);
-        }
-
-        // Map entities to DTOs
-        List<TradeDTO> dtos = tradeEntities.stream()
-                .map(tradeMapper::toDto)
-                .toList();
-
-        // Enrich DTOs with settlement instructions in batch
-        enrichSettlementInstructionsForTrades(tradeEntities, dtos);
-
-        return dtos;
-    }
-
     /**
      * Refactored helper: enrich a list of TradeDTOs with settlement instructions.
      *
@@ -615,14 +514,14 @@ public class TradeDashboardService {
      * This method is defensive: it returns early when inputs are empty and
      * catches exceptions so enrichment failures do not break callers.
      */
-    private void enrichSettlementInstructionsForTrades(List<Trade> tradeEntities, List<TradeDTO> dtos) {
-        if (tradeEntities == null || tradeEntities.isEmpty() || dtos == null || dtos.isEmpty()) {
+    private void enrichSettlementInstructionsForTrades(List<TradeDTO> dtos) {
+        if (dtos == null || dtos.isEmpty()) {
             return; // nothing to do
         }
         try {
             // LinkedHashSet Removes duplicates. Preserves order. Faster lookup than List
             java.util.Set<Long> idSet = new java.util.LinkedHashSet<>();
-            for (Trade tradeItem : tradeEntities) {
+            for (TradeDTO tradeItem : dtos) {
                 if (tradeItem == null)
                     continue;
                 Long tid = tradeItem.getTradeId();
@@ -705,55 +604,33 @@ public class TradeDashboardService {
             // If traderId not provided, default to the current authenticated user
             String traderFilter = (traderId == null || traderId.isBlank()) ? resolveCurrentTraderId() : traderId;
 
-            Specification<Trade> todaySpec = (root, query, criteriaBuilder) -> criteriaBuilder.and(
-                    criteriaBuilder.equal(criteriaBuilder.lower(root.get("traderUser").get("loginId")),
-                            traderFilter.toLowerCase()),
-                    criteriaBuilder.equal(root.get("tradeDate"), today));
-
-            List<Trade> todayTradeEntities = tradeRepository.findAll(todaySpec);
-            List<TradeDTO> todayTradeDtos = todayTradeEntities.stream().map(tradeMapper::toDto).toList();
-
-            Specification<Trade> yesterdaySpec = (root, query, criteriaBuilder) -> criteriaBuilder.and(
-                    criteriaBuilder.equal(criteriaBuilder.lower(root.get("traderUser").get("loginId")),
-                            traderFilter.toLowerCase()),
-                    criteriaBuilder.equal(root.get("tradeDate"), yesterday));
-
-            List<Trade> yesterdayTradeEntities = tradeRepository.findAll(yesterdaySpec);
-            List<TradeDTO> yesterdayTradeDtos = yesterdayTradeEntities.stream().map(tradeMapper::toDto).toList();
+            // REFACTORED: grouped rows for yesterday and today from the database
+            // (see getTradeSummary) instead of mapping each day's trades to
+            // TradeDTOs, split by trade date into one aggregator per day.
+            String loginId = traderFilter.toLowerCase();
+            TradeSummaryAggregator todayAggregates = new TradeSummaryAggregator(today, 1);
+            TradeSummaryAggregator yesterdayAggregates = new TradeSummaryAggregator(yesterday, 1);
+            for (TradeCountRow row : tradeRepository.countTradesForTraderBetween(loginId, yesterday, today)) {
+                (today.equals(row.tradeDate()) ? todayAggregates : yesterdayAggregates).add(row);
+            }
+            for (LegTotalsRow row : tradeRepository.sumLegsForTraderBetween(loginId, yesterday, today)) {
+                (today.equals(row.tradeDate()) ? todayAggregates : yesterdayAggregates).add(row);
+            }
+            int todaysTradeCount = (int) todayAggregates.allTime().getTradeCount();
 
             DailySummaryDTO summaryDto = new DailySummaryDTO();
-            summaryDto.setTodaysTradeCount(todayTradeDtos.size());
-            summaryDto.setTodaysNotionalByCurrency(sumNotionalByCurrency(todayTradeDtos));
+            summaryDto.setTodaysTradeCount(todaysTradeCount);
+            summaryDto.setTodaysNotionalByCurrency(todayAggregates.allTime().notionalByCurrency());
             // Creates a key-value metrics block to show simple performance numbers in the
             // UI
             Map<String, Object> performanceMetrics = new HashMap<>();
-            performanceMetrics.put("tradeCount", todayTradeDtos.size());
+            performanceMetrics.put("tradeCount", todaysTradeCount);
             performanceMetrics.put("notionalCcyCount", summaryDto.getTodaysNotionalByCurrency().size());
             summaryDto.setUserPerformanceMetrics(performanceMetrics);
 
-            Map<Long, DailySummaryDTO.BookActivitySummary> bookActivitySummary = new HashMap<>();
-            for (TradeDTO tradeDto : todayTradeDtos) {
-                Long bookKey = tradeDto.getBookId() == null ? -1L : tradeDto.getBookId();
-                // computeIfAbsent, if the map does contain the key, return the existing one.
-                // Having to check manually with containsKey()
-                DailySummaryDTO.BookActivitySummary activitySummary = bookActivitySummary.computeIfAbsent(bookKey,
-                        bookIdKey -> {
-                            DailySummaryDTO.BookActivitySummary bookSummary = new DailySummaryDTO.BookActivitySummary();
-                            bookSummary.setTradeCount(0);
-                            bookSummary.setNotionalByCurrency(new HashMap<>());
-                            return bookSummary;
-                        });
-                activitySummary.setTradeCount(activitySummary.getTradeCount() + 1);
-                Map<String, BigDecimal> legTotals = sumNotionalByCurrency(List.of(tradeDto));
-                for (Map.Entry<String, BigDecimal> entry : legTotals.entrySet()) {
-                    activitySummary.getNotionalByCurrency().merge(entry.getKey(), entry.getValue(), BigDecimal::add);
-                }
-            }
-            summaryDto.setBookActivitySummaries(bookActivitySummary);
+            summaryDto.setBookActivitySummaries(todayAggregates.bookActivity());
 
-            DailySummaryDTO.DailyComparisonSummary yesterdaySummary = new DailySummaryDTO.DailyComparisonSummary();
-            yesterdaySummary.setTradeCount(yesterdayTradeDtos.size());
-            yesterdaySummary.setNotionalByCurrency(sumNotionalByCurrency(yesterdayTradeDtos));
+            DailySummaryDTO.DailyComparisonSummary yesterdaySummary = yesterdayAggregates.dailyComparisons().get(0);
 
             List<DailySummaryDTO.DailyComparisonSummary> historicalComparison = new ArrayList<>();
             historicalComparison.add(yesterdaySummary);
@@ -945,30 +822,4 @@ public class TradeDashboardService {
         return authentication.getName();
     }
 
-    // calculates the total notional amounts for each currency across a list of
-    // trades
-    private Map<String, BigDecimal> sumNotionalByCurrency(List<TradeDTO> trades) {
-        Map<String, BigDecimal> notionalTotalsByCurrency = new HashMap<>();
-        if (trades == null)
-            return notionalTotalsByCurrency;// returns the empty map
-
-        for (TradeDTO tradeDto : trades) {
-            if (tradeDto == null || tradeDto.getTradeLegs() == null)
-                continue;
-
-            for (TradeLegDTO tradeLeg : tradeDto.getTradeLegs()) {
-                if (tradeLeg == null)
-                    continue;
-                String currency = tradeLeg.getCurrency();
-                BigDecimal notional = tradeLeg.getNotional();
-                if (currency == null || notional == null)
-                    continue;
-                notionalTotalsByCurrency.merge(currency, notional, BigDecimal::add);// using the merge method to add the
-                                                                                    // notional to the running total for
-                                                                                    // that currency in the map. This
-            }
-        }
-        return notionalTotalsByCurrency;
-    }
-
 }
@@ -0,0 +1,127 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.IdAllocation;
+import com.technicalchallenge.repository.IdAllocationRepository;
+import com.technicalchallenge.repository.TradeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TradeIdAllocator
+ *
+ * Hands out business trade ids (trade.trade_id) using hi/lo block allocation.
+ * Each backend node reserves a block of ids from the id_allocation row for
+ * "trade_id" (one locked UPDATE per block) and then serves ids from that
+ * block with a single atomic increment. Ids are unique across nodes because
+ * a block is only ever reserved once; they are not gap-free, since a node
+ * that restarts abandons the rest of its block.
+ *
+ * Replaces the old 10000 + count() scheme, which scanned the trade table on
+ * every booking and produced duplicates under concurrent creates and once
+ * amendments had added extra versions.
+ */
+@Component
+public class TradeIdAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeIdAllocator.class);
+
+    static final String SEQUENCE_NAME = "trade_id";
+
+    // First id handed out on an empty database, as before
+    static final long FIRST_TRADE_ID = 10000L;
+
+    private final IdAllocationRepository idAllocationRepository;
+    private final TradeRepository tradeRepository;
+    private final TransactionTemplate reserveTransaction;
+    private final int blockSize;
+
+    // Current block; replaced (never mutated in place) when exhausted
+    private volatile Block block = Block.EMPTY;
+
+    public TradeIdAllocator(IdAllocationRepository idAllocationRepository,
+            TradeRepository tradeRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${trade-id.allocator.block-size:100}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("trade-id.allocator.block-size must be at least 1");
+        }
+        this.idAllocationRepository = idAllocationRepository;
+        this.tradeRepository = tradeRepository;
+        this.blockSize = blockSize;
+        // The reservation must commit on its own: if it joined the booking
+        // transaction the counter row would stay locked until the booking
+        // finished, and a rolled-back booking would hand the same block out twice.
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long nextTradeId() {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return id;
+            }
+            synchronized (this) {
+                // Another thread may already have replaced the exhausted block
+                if (block == current) {
+                    block = reserveBlock();
+                }
+            }
+        }
+    }
+
+    private Block reserveBlock() {
+        for (int attempt = 1;; attempt++) {
+            try {
+                Long start = reserveTransaction.execute(status -> {
+                    IdAllocation row = idAllocationRepository.findForUpdate(SEQUENCE_NAME)
+                            .orElseGet(this::seedRow);
+                    long first = row.getNextValue();
+                    row.setNextValue(first + blockSize);
+                    idAllocationRepository.saveAndFlush(row);
+                    return first;
+                });
+                logger.debug("Reserved trade id block [{}, {})", start, start + blockSize);
+                return new Block(start, start + blockSize);
+            } catch (DataIntegrityViolationException e) {
+                // Two nodes raced to create the counter row; the loser retries
+                // and locks the row the winner inserted.
+                if (attempt >= 3) {
+                    throw e;
+                }
+                logger.debug("Trade id counter row created concurrently, retrying");
+            }
+        }
+    }
+
+    // First use on this database: continue after any trade ids already
+    // present (seed data, rows booked before the allocator existed).
+    private IdAllocation seedRow() {
+        long next = tradeRepository.findMaxTradeId()
+                .map(max -> Math.max(max + 1, FIRST_TRADE_ID))
+                .orElse(FIRST_TRADE_ID);
+        logger.info("Initialising trade id counter at {}", next);
+        return idAllocationRepository.saveAndFlush(new IdAllocation(SEQUENCE_NAME, next));
+    }
+
+    private static final class Block {
+        static final Block EMPTY = new Block(0, 0);
+
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
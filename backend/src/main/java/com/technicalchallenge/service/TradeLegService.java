@@ -32,7 +32,10 @@ public class TradeLegService {
     public TradeLeg saveTradeLeg(TradeLeg tradeLeg, TradeLegDTO dto) {
         logger.info("Saving trade leg: {}", tradeLeg);
         // Ensure TradeLeg is saved with related entities set, not just IDs
-        return tradeLegRepository.save(tradeLeg);
+        boolean update = tradeLeg.getLegId() != null;
+        TradeLeg saved = tradeLegRepository.save(tradeLeg);
+        // Re-read after an update, as in CostCenterService.saveCostCenter
+        return update ? tradeLegRepository.findById(saved.getLegId()).orElse(saved) : saved;
     }
 
     public void deleteTradeLeg(Long id) {
@@ -0,0 +1,65 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.ApplicationUser;
+import com.technicalchallenge.model.Book;
+import com.technicalchallenge.model.Counterparty;
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.model.TradeStatus;
+import com.technicalchallenge.model.TradeSubType;
+import com.technicalchallenge.model.TradeType;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * TradeResolutionContext
+ *
+ * The reference entities of one booking or amendment (book, counterparty,
+ * status, users, trade type), resolved once by
+ * TradeService.resolveReferences(...) from the names/ids in the TradeDTO.
+ * The same context is handed to the validation engine, whose entity status
+ * checks read it instead of querying the repositories again, and is then
+ * applied to the Trade that is saved. So each reference is looked up at most
+ * once per request, and validation checks exactly the entities that are
+ * booked.
+ *
+ * A null field means the DTO named nothing for it or the lookup found
+ * nothing; the validators tell the two apart from the DTO. Lives as long as
+ * the request that built it and is not shared between threads.
+ */
+@Getter
+@Setter
+public class TradeResolutionContext {
+
+    private Book book;
+    private Counterparty counterparty;
+    private TradeStatus tradeStatus;
+    private ApplicationUser traderUser;
+    private ApplicationUser tradeInputterUser;
+    private TradeType tradeType;
+    private TradeSubType tradeSubType;
+
+    /** Sets every reference that was found on trade; the others are left as they are. */
+    public void applyTo(Trade trade) {
+        if (book != null) {
+            trade.setBook(book);
+        }
+        if (counterparty != null) {
+            trade.setCounterparty(counterparty);
+        }
+        if (tradeStatus != null) {
+            trade.setTradeStatus(tradeStatus);
+        }
+        if (traderUser != null) {
+            trade.setTraderUser(traderUser);
+        }
+        if (tradeInputterUser != null) {
+            trade.setTradeInputterUser(tradeInputterUser);
+        }
+        if (tradeType != null) {
+            trade.setTradeType(tradeType);
+        }
+        if (tradeSubType != null) {
+            trade.setTradeSubType(tradeSubType);
+        }
+    }
+}
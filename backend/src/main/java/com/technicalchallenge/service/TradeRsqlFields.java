@@ -0,0 +1,131 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.Trade;
+
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TradeRsqlFields
+ *
+ * Every field path an RSQL query may name on a Trade ("tradeId",
+ * "counterparty.name", "traderUser.loginId", ...), with its Java type, worked
+ * out once instead of walking the class hierarchy with getDeclaredField on
+ * every comparison.
+ *
+ * Paths follow single-valued attributes only, up to MAX_DEPTH segments, so
+ * the collections (trade legs, cashflows) are not queryable - they never
+ * were, the old reflection check rejected them too. An association can still
+ * be named as the last segment ("tradeType"), as before.
+ */
+public final class TradeRsqlFields {
+
+    /** How many segments a path may have, e.g. traderUser.userProfile.userType */
+    static final int MAX_DEPTH = 3;
+
+    /** A queryable path: the segments to walk from the root and the type at the end */
+    public record FieldPath(String path, String[] segments, Class<?> javaType) {
+    }
+
+    private final Map<String, FieldPath> paths;
+
+    private TradeRsqlFields(Map<String, FieldPath> paths) {
+        this.paths = Collections.unmodifiableMap(paths);
+    }
+
+    /**
+     * Paths read from the JPA metamodel, i.e. exactly what Hibernate maps.
+     * Used by the application (see TradeRsqlQueryCache).
+     */
+    public static TradeRsqlFields fromMetamodel(Metamodel metamodel) {
+        Map<String, FieldPath> paths = new HashMap<>();
+        addAttributes(metamodel.entity(Trade.class), "", 1, paths);
+        return new TradeRsqlFields(paths);
+    }
+
+    /**
+     * Paths read from the entity classes by reflection, for code that runs
+     * without a persistence unit (the visitor's no-arg constructor, unit
+     * tests). Built once per JVM.
+     */
+    public static TradeRsqlFields reflective() {
+        return ReflectiveHolder.INSTANCE;
+    }
+
+    private static final class ReflectiveHolder {
+        private static final TradeRsqlFields INSTANCE = buildReflective();
+    }
+
+    /**
+     * The path's metadata. Throws IllegalArgumentException for a path that
+     * is not a queryable Trade field.
+     */
+    public FieldPath resolve(String path) {
+        FieldPath field = path == null ? null : paths.get(path);
+        if (field == null) {
+            throw new IllegalArgumentException("Invalid field in query: " + path);
+        }
+        return field;
+    }
+
+    public int size() {
+        return paths.size();
+    }
+
+    private static void addAttributes(ManagedType<?> type, String prefix, int depth, Map<String, FieldPath> paths) {
+        for (Attribute<?, ?> attribute : type.getAttributes()) {
+            // Collections cannot be compared against a single value
+            if (attribute.isCollection() || !(attribute instanceof SingularAttribute<?, ?> singular)) {
+                continue;
+            }
+            String path = prefix + attribute.getName();
+            paths.put(path, new FieldPath(path, path.split("\\."), attribute.getJavaType()));
+            Type<?> target = singular.getType();
+            if (depth < MAX_DEPTH && target instanceof ManagedType<?> managed) {
+                addAttributes(managed, path + ".", depth + 1, paths);
+            }
+        }
+    }
+
+    private static TradeRsqlFields buildReflective() {
+        Map<String, FieldPath> paths = new HashMap<>();
+        addFields(Trade.class, "", 1, paths);
+        return new TradeRsqlFields(paths);
+    }
+
+    private static void addFields(Class<?> type, String prefix, int depth, Map<String, FieldPath> paths) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current
+                .getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                        || Collection.class.isAssignableFrom(field.getType())
+                        || Map.class.isAssignableFrom(field.getType())) {
+                    continue;
+                }
+                String path = prefix + field.getName();
+                if (paths.containsKey(path)) {
+                    // Shadowed by a subclass field of the same name
+                    continue;
+                }
+                paths.put(path, new FieldPath(path, path.split("\\."), field.getType()));
+                Class<?> target = field.getType();
+                if (depth < MAX_DEPTH && (target.isAnnotationPresent(Entity.class)
+                        || target.isAnnotationPresent(Embeddable.class))) {
+                    addFields(target, path + ".", depth + 1, paths);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.repository.TradeJpqlFilter;
+
+import cz.jirutka.rsql.parser.ast.AndNode;
+import cz.jirutka.rsql.parser.ast.ComparisonNode;
+import cz.jirutka.rsql.parser.ast.LogicalNode;
+import cz.jirutka.rsql.parser.ast.Node;
+import cz.jirutka.rsql.parser.ast.OrNode;
+import cz.jirutka.rsql.parser.ast.RSQLVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TradeRsqlJpqlCompiler
+ *
+ * The second RSQL engine: compiles the parsed query into a JPQL where clause
+ * over TradeJpqlFilter's aliases instead of a Criteria Specification. A
+ * reference field ("counterparty.name") is read from the join the blotter
+ * select already has ("cp.name"), so the filter adds no joins of its own,
+ * and every value becomes a bound parameter.
+ *
+ * Same semantics as TradeRsqlVisitor: fields are checked against
+ * TradeRsqlFields, text is compared case-insensitively for ==, != and
+ * =like=, and a null value means "is null". Values are converted to the
+ * field's type here, so a bad value fails when the query is compiled.
+ */
+public class TradeRsqlJpqlCompiler implements RSQLVisitor<String, List<Object>> {
+
+    private final TradeRsqlFields fields;
+
+    public TradeRsqlJpqlCompiler(TradeRsqlFields fields) {
+        this.fields = fields;
+    }
+
+    /** The filter for a parsed query */
+    public TradeJpqlFilter compile(Node root) {
+        List<Object> parameters = new ArrayList<>();
+        String where = root.accept(this, parameters);
+        return new TradeJpqlFilter(where, parameters);
+    }
+
+    @Override
+    public String visit(AndNode node, List<Object> parameters) {
+        return join(node, " and ", parameters);
+    }
+
+    @Override
+    public String visit(OrNode node, List<Object> parameters) {
+        return join(node, " or ", parameters);
+    }
+
+    private String join(LogicalNode node, String operator, List<Object> parameters) {
+        StringBuilder clause = new StringBuilder("(");
+        for (Node child : node.getChildren()) {
+            if (clause.length() > 1) {
+                clause.append(operator);
+            }
+            clause.append(child.accept(this, parameters));
+        }
+        return clause.append(')').toString();
+    }
+
+    @Override
+    public String visit(ComparisonNode node, List<Object> parameters) {
+        String symbol = node.getOperator().getSymbol();
+        TradeRsqlVisitor.Operator operator = TradeRsqlVisitor.OPERATORS.get(symbol);
+        if (operator == null) {
+            throw new IllegalArgumentException("Unsupported operator: " + symbol);
+        }
+        TradeRsqlFields.FieldPath field = fields.resolve(node.getSelector());
+        Class<?> type = field.javaType();
+        if (operator == TradeRsqlVisitor.Operator.LIKE && type != String.class) {
+            throw new IllegalArgumentException("Operator " + symbol + " needs a text field: " + field.path());
+        }
+
+        List<String> arguments = node.getArguments();
+        String path = jpqlPath(field);
+        if (operator.multiValued) {
+            List<Object> values = new ArrayList<>(arguments.size());
+            for (String argument : arguments) {
+                values.add(TradeRsqlVisitor.convertValue(type, argument));
+            }
+            String in = operator == TradeRsqlVisitor.Operator.IN ? " in :" : " not in :";
+            return path + in + bind(values, parameters);
+        }
+
+        Object value = TradeRsqlVisitor.convertValue(type, arguments.get(0));
+        if (value == null) {
+            switch (operator) {
+                case EQUAL:
+                    return path + " is null";
+                case NOT_EQUAL:
+                    return path + " is not null";
+                default:
+                    throw new IllegalArgumentException("Operator " + symbol + " needs a value: " + field.path());
+            }
+        }
+        if (operator.ignoresCase && value instanceof String text) {
+            path = "lower(" + path + ")";
+            value = text.toLowerCase();
+            if (operator == TradeRsqlVisitor.Operator.LIKE) {
+                value = ((String) value).replace("*", "%");
+            }
+        }
+        return path + jpqlOperator(operator) + bind(value, parameters);
+    }
+
+    private static String jpqlOperator(TradeRsqlVisitor.Operator operator) {
+        switch (operator) {
+            case EQUAL:
+                return " = :";
+            case NOT_EQUAL:
+                return " <> :";
+            case GREATER_THAN:
+                return " > :";
+            case LESS_THAN:
+                return " < :";
+            case GREATER_OR_EQUAL:
+                return " >= :";
+            case LESS_OR_EQUAL:
+                return " <= :";
+            case LIKE:
+                return " like :";
+            default:
+                throw new IllegalArgumentException("Unsupported operator: " + operator.symbol);
+        }
+    }
+
+    private static String bind(Object value, List<Object> parameters) {
+        parameters.add(value);
+        return TradeJpqlFilter.parameterName(parameters.size() - 1);
+    }
+
+    // counterparty.name -> cp.name; tradeId -> t.tradeId. Only paths from the
+    // field registry get here, so nothing user-typed reaches the JPQL text.
+    private static String jpqlPath(TradeRsqlFields.FieldPath field) {
+        String[] segments = field.segments();
+        String alias = segments.length > 1 ? TradeJpqlFilter.ALIASES.get(segments[0]) : null;
+        if (alias == null) {
+            return TradeJpqlFilter.TRADE + "." + field.path();
+        }
+        return alias + field.path().substring(segments[0].length());
+    }
+}
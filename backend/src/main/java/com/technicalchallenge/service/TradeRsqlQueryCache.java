@@ -0,0 +1,185 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.repository.TradeJpqlFilter;
+
+import cz.jirutka.rsql.parser.RSQLParser;
+import cz.jirutka.rsql.parser.ast.ComparisonOperator;
+import cz.jirutka.rsql.parser.ast.RSQLOperators;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * TradeRsqlQueryCache
+ *
+ * Compiled RSQL queries for the dashboard search. A query is parsed and
+ * turned into a Specification once; the same query again (the blotter
+ * re-runs the same handful of filters all day) comes straight out of an LRU
+ * map without parsing or touching the field metadata.
+ *
+ * The key is the query with the whitespace around its operators and
+ * separators removed, so "tradeId == 5" and "tradeId==5" share a plan; the
+ * query itself is parsed as given. FIXED: the whitespace around the "and" /
+ * "or" keyword operators is kept (collapsed to one space), since
+ * "tradeId==5andversion==1" is not valid RSQL. The plan holds the literal
+ * values; Hibernate binds them as JDBC parameters, so its own SQL plan cache
+ * sees one statement per query shape.
+ *
+ * Queries that fail to parse or name an unknown field are not cached.
+ *
+ * ADDED: compileJpql keeps a second LRU of the same size for the JPQL engine
+ * (TradeRsqlJpqlCompiler), used when trade.rsql.engine=jpql.
+ */
+@Component
+public class TradeRsqlQueryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeRsqlQueryCache.class);
+
+    static final int DEFAULT_CAPACITY = 256;
+
+    // RSQLParser is immutable once built and safe to share between threads
+    private static final RSQLParser PARSER = buildParser();
+
+    private final TradeRsqlVisitor visitor;
+    private final TradeRsqlJpqlCompiler jpqlCompiler;
+    private final Map<String, Specification<Trade>> plans;
+    private final Map<String, TradeJpqlFilter> jpqlPlans;
+
+    @Autowired
+    public TradeRsqlQueryCache(EntityManagerFactory entityManagerFactory,
+            @Value("${trade.rsql.plan-cache-size:256}") int capacity) {
+        this(TradeRsqlFields.fromMetamodel(entityManagerFactory.getMetamodel()), capacity);
+    }
+
+    /** For unit tests and code without a persistence unit: reflective field metadata */
+    public TradeRsqlQueryCache() {
+        this(TradeRsqlFields.reflective(), DEFAULT_CAPACITY);
+    }
+
+    TradeRsqlQueryCache(TradeRsqlFields fields, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("RSQL plan cache size must be positive: " + capacity);
+        }
+        this.visitor = new TradeRsqlVisitor(fields);
+        this.jpqlCompiler = new TradeRsqlJpqlCompiler(fields);
+        this.plans = lru(capacity);
+        this.jpqlPlans = lru(capacity);
+        logger.debug("RSQL plan cache: {} queryable trade fields, capacity {}", fields.size(), capacity);
+    }
+
+    // Access-ordered, so the eldest entry is the least recently used
+    private static <V> Map<String, V> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private static RSQLParser buildParser() {
+        Set<ComparisonOperator> operators = new HashSet<>(RSQLOperators.defaultOperators());
+        operators.add(new ComparisonOperator("=like="));
+        return new RSQLParser(operators);
+    }
+
+    /**
+     * The compiled Specification for a query. Throws RSQLParserException for
+     * bad syntax and IllegalArgumentException for an unknown field or
+     * operator.
+     */
+    public Specification<Trade> compile(String query) {
+        return cached(plans, query, original -> PARSER.parse(original).accept(visitor));
+    }
+
+    /**
+     * The compiled JPQL filter for a query, for
+     * TradeRepository.findBlotterRowsMatching. Throws as compile does, and
+     * also IllegalArgumentException for a value that does not fit its field.
+     */
+    public TradeJpqlFilter compileJpql(String query) {
+        return cached(jpqlPlans, query, original -> jpqlCompiler.compile(PARSER.parse(original)));
+    }
+
+    private static <V> V cached(Map<String, V> cache, String query, Function<String, V> compiler) {
+        if (query == null) {
+            throw new IllegalArgumentException("RSQL query is required");
+        }
+        String key = normalize(query);
+        synchronized (cache) {
+            V plan = cache.get(key);
+            if (plan != null) {
+                return plan;
+            }
+        }
+        // Compiled outside the lock; two threads may race on a new query and
+        // both compile it, which is harmless
+        V plan = compiler.apply(query);
+        synchronized (cache) {
+            cache.put(key, plan);
+        }
+        return plan;
+    }
+
+    public int size() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    /**
+     * The cache key: whitespace outside quoted values is dropped next to an
+     * operator character, ';' or ',' and collapsed to one space elsewhere
+     * (around "and"/"or" and parentheses). RSQL only allows whitespace
+     * around tokens and inside quotes, so queries with the same key mean the
+     * same thing.
+     */
+    static String normalize(String query) {
+        StringBuilder normalized = new StringBuilder(query.length());
+        char quote = 0;
+        boolean space = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (quote == 0 && Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space && normalized.length() > 0 && !isDelimiter(normalized.charAt(normalized.length() - 1))
+                    && !isDelimiter(c)) {
+                normalized.append(' ');
+            }
+            space = false;
+            if (quote != 0) {
+                normalized.append(c);
+                if (c == '\\' && i + 1 < query.length()) {
+                    normalized.append(query.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                normalized.append(c);
+            } else {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    // Characters of comparison operators, ';' and ','. Not parentheses: a
+    // keyword operator needs its spaces next to them too, as in ") and ("
+    private static boolean isDelimiter(char c) {
+        return "=!<>~;,".indexOf(c) >= 0;
+    }
+}
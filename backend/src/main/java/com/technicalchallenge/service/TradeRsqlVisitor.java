@@ -1,11 +1,19 @@
 package com.technicalchallenge.service;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.NonNull;
 
 import com.technicalchallenge.model.Trade;
 
@@ -27,10 +35,27 @@ import java.time.format.DateTimeFormatter;
  * Visits the RSQL Abstract Syntax Tree (AST) and converts it into a single
  * Spring Data JPA Specification<Trade> that can be executed by the repository.
  * Implement three visit methods:
+ *
+ * Field paths are checked against a TradeRsqlFields registry built once,
+ * and operators are dispatched through the OPERATORS table. The visitor keeps
+ * no per-query state, so one instance can compile any number of queries.
  */
 // Specification<Trade> what each visit returns
 public class TradeRsqlVisitor implements RSQLVisitor<Specification<Trade>, Void> {
 
+    private static final Logger logger = LoggerFactory.getLogger(TradeRsqlVisitor.class);
+
+    private final TradeRsqlFields fields;
+
+    /** Uses the reflective field registry; see TradeRsqlFields.reflective() */
+    public TradeRsqlVisitor() {
+        this(TradeRsqlFields.reflective());
+    }
+
+    public TradeRsqlVisitor(TradeRsqlFields fields) {
+        this.fields = fields;
+    }
+
     // visit(AndNode...), combines child specs with AND
     @Override
     public Specification<Trade> visit(AndNode node, Void param) {
@@ -85,209 +110,224 @@ public class TradeRsqlVisitor implements RSQLVisitor<Specification<Trade>, Void>
         return result;
     }
 
+    /*
+     * REFACTORED: the field is looked up in TradeRsqlFields (worked out once
+     * from the JPA metamodel) instead of a getDeclaredField walk per
+     * comparison, and the operator in the OPERATORS table instead of a chain
+     * of String.equals. The result is a plain value object, so a compiled
+     * query can be cached and run again (see TradeRsqlQueryCache).
+     */
     @Override
     public Specification<Trade> visit(ComparisonNode node, Void param) {
 
-        // pull parts Abstract Syntax Tree
         // field is the left-hand side of a condition, the field path e.g.
         // counterparty.name==ABC
         String field = node.getSelector();
         // operator symbol e.g == or =ge=
-        String operator = node.getOperator().getSymbol();
-        // FIX: to fix the failing test. List all supported operators
-        List<String> supportedOperators = Arrays.asList("==", "!=", "=gt=", "=lt=", "=ge=", "=le=", "=in=", "=like=",
-                "=out=");
+        String symbol = node.getOperator().getSymbol();
+        Operator operator = OPERATORS.get(symbol);
         // Throw an exception if the operator is not recognised
-        if (!supportedOperators.contains(operator)) {
-            throw new IllegalArgumentException("Unsupported operator: " + operator);
+        if (operator == null) {
+            throw new IllegalArgumentException("Unsupported operator: " + symbol);
+        }
+        TradeRsqlFields.FieldPath fieldPath = fields.resolve(field);
+        if (operator == Operator.LIKE && fieldPath.javaType() != String.class) {
+            throw new IllegalArgumentException("Operator " + symbol + " needs a text field: " + field);
         }
 
         // values is the right-hand of the expression(list of literal text values) e.g
         // status=in=(LIVE,NEW). values = ["LIVE", "NEW"]
-        List<String> values = node.getArguments();// e.g ["ABC"]
-
-        // for debugging to see what parsed
-        System.out
-                .println("[RSQL] ComparisonNode -> field=" + field + ", operation=" + operator + ", values=" + values);
-
-        // Strict reflection-based field existence check for nested fields (run
-        // immediately)
-        String[] fieldParts = field.split("\\.");
-        Class<?> currentClass = Trade.class;
-        for (int i = 0; i < fieldParts.length; i++) {
-            String part = fieldParts[i];
-            java.lang.reflect.Field f = null;
-            Class<?> searchClass = currentClass;// find the field part in the class examining e.g. Trade.
-            while (searchClass != null) {
-                try {
-                    f = searchClass.getDeclaredField(part);
-                    break;
-                } catch (NoSuchFieldException ex) {
-                    searchClass = searchClass.getSuperclass();// If not found the field in the class, check its
-                                                              // superclass.
-                }
-            }
-            if (f == null) {
-                throw new IllegalArgumentException("Invalid field in query: " + field);
+        List<String> values = node.getArguments();
+        logger.debug("RSQL comparison: field={}, operator={}, values={}", field, symbol, values);
+
+        return new Comparison(fieldPath, operator, values);
+    }
+
+    /**
+     * One compiled comparison. The text values are converted to the field's
+     * type the first time the predicate is built and kept, so a cached plan
+     * converts them once; a value that does not fit the type is reported
+     * (IllegalArgumentException) when the query runs, as before.
+     */
+    private static final class Comparison implements Specification<Trade> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TradeRsqlFields.FieldPath field;
+        private final Operator operator;
+        private final List<String> values;
+        // Benign race: two threads may both convert, with the same result
+        private transient volatile List<Object> typedValues;
+
+        Comparison(TradeRsqlFields.FieldPath field, Operator operator, List<String> values) {
+            this.field = field;
+            this.operator = operator;
+            // Not List.copyOf: "==" with a null value is allowed
+            this.values = Collections.unmodifiableList(new ArrayList<>(values));
+        }
+
+        @Override
+        public Predicate toPredicate(@NonNull Root<Trade> root, @NonNull CriteriaQuery<?> query,
+                @NonNull CriteriaBuilder criteriaBuilder) {
+            Path<?> path = root;// start at the root
+            for (String segment : field.segments()) {
+                path = path.get(segment);// e.g. path = path.get("tradeDate")tradeDate==2023-01-01
             }
-            // For nested fields, ensure the type is not a JPA proxy or collection
-            if (i < fieldParts.length - 1) {
-                Class<?> type = f.getType();// Retrieve field type. e.g. Counterparty.class
-                if (type.isPrimitive() || type == String.class || Number.class.isAssignableFrom(type)
-                        || type.isEnum()) {
-                    // Reject traversing into primitives or simple fields
-                    throw new IllegalArgumentException(
-                            "Cannot traverse into non-entity field: " + part + " in query: " + field);
+            return operator.build(criteriaBuilder, path, typedValues());
+        }
+
+        private List<Object> typedValues() {
+            List<Object> typed = typedValues;
+            if (typed == null) {
+                Class<?> type = field.javaType();
+                int count = operator.multiValued ? values.size() : 1;
+                List<Object> converted = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    Object value = convertValue(type, values.get(i));
+                    if (operator.ignoresCase && value instanceof String text) {
+                        value = text.toLowerCase();
+                    }
+                    converted.add(value);
                 }
-                currentClass = type;
-            } else {
-                currentClass = f.getType();
+                typed = Collections.unmodifiableList(converted);
+                typedValues = typed;
             }
+            return typed;
         }
+    }
 
-        // build predicate(condition) by returning anonymous inner class
-        return new Specification<Trade>() {
+    /**
+     * The supported operators. Text is compared case-insensitively for ==, !=
+     * and =like=; the range operators compare any Comparable field (numbers,
+     * dates, text).
+     */
+    enum Operator {
+        EQUAL("==", false, true) {
             @Override
-            public Predicate toPredicate(
-                    @org.springframework.lang.NonNull Root<Trade> root,
-                    @org.springframework.lang.NonNull CriteriaQuery<?> query,
-                    @org.springframework.lang.NonNull CriteriaBuilder criteriaBuilder) {
-
-                // Now traverse the path as before
-                Path<?> path = root;// start at the root
-                for (String part : fieldParts) {
-                    path = path.get(part);// e.g. path = path.get("tradeDate")tradeDate==2023-01-01
+            Predicate build(CriteriaBuilder cb, Path<?> path, List<Object> values) {
+                Object value = values.get(0);
+                if (value == null) {
+                    return cb.isNull(path);
                 }
-                Class<?> fieldType;
-                try {
-                    fieldType = path.getJavaType();
-                } catch (NullPointerException e) {
-                    throw new IllegalArgumentException("Invalid field in query: " + field, e);
-                }
-                Object typedValue;
-                try {
-                    typedValue = convertValue(fieldType, values.get(0));
-                } catch (Exception e) {
-                    throw new IllegalArgumentException(
-                            "Invalid value '" + values.get(0) + "' for type " + fieldType.getSimpleName(), e);
-                }
-
-                // Fixed: Use typedValue for type safety and cast to String for string
-                // operations
-                if (operator.equals("==")) {
-                    if (fieldType == String.class) {
-                        return criteriaBuilder.equal(
-                                criteriaBuilder.lower(path.as(String.class)),
-                                ((String) typedValue).toLowerCase());
-                    } else {
-                        return criteriaBuilder.equal(path, typedValue);
-                    }
-                }
-
-                if (operator.equals("!=")) {
-                    if (fieldType == String.class) {
-                        return criteriaBuilder.notEqual(
-                                criteriaBuilder.lower(path.as(String.class)),
-                                ((String) typedValue).toLowerCase());
-                    } else {
-                        return criteriaBuilder.notEqual(path, typedValue);
-                    }
+                return value instanceof String text ? cb.equal(cb.lower(path.as(String.class)), text)
+                        : cb.equal(path, value);
+            }
+        },
+        NOT_EQUAL("!=", false, true) {
+            @Override
+            Predicate build(CriteriaBuilder cb, Path<?> path, List<Object> values) {
+                Object value = values.get(0);
+                if (value == null) {
+                    return cb.isNotNull(path);
                 }
+                return value instanceof String text ? cb.notEqual(cb.lower(path.as(String.class)), text)
+                        : cb.notEqual(path, value);
+            }
+        },
+        GREATER_THAN("=gt=", false, false) {
+            @Override
+            Predicate build(CriteriaBuilder cb, Path<?> path, List<Object> values) {
+                return cb.greaterThan(comparable(path), comparable(values));
+            }
+        },
+        LESS_THAN("=lt=", false, false) {
+            @Override
+            Predicate build(CriteriaBuilder cb, Path<?> path, List<Object> values) {
+                return cb.lessThan(comparable(path), comparable(values));
+            }
+        },
+        GREATER_OR_EQUAL("=ge=", false, false) {
+            @Override
+            Predicate build(CriteriaBuilder cb, Path<?> path, List<Object> values) {
+                return cb.greaterThanOrEqualTo(comparable(path), comparable(values));
+            }
+        },
+        LESS_OR_EQUAL("=le=", false, false) {
+            @Override
+            Predicate build(CriteriaBuilder cb, Path<?> path, List<Object> values) {
+                return cb.lessThanOrEqualTo(comparable(path), comparable(values));
+            }
+        },
+        IN("=in=", true, false) {
+            @Override
+            Predicate build(CriteriaBuilder cb, Path<?> path, List<Object> values) {
+                return path.in(values);
+            }
+        },
+        NOT_IN("=out=", true, false) {
+            @Override
+            Predicate build(CriteriaBuilder cb, Path<?> path, List<Object> values) {
+                return cb.not(path.in(values));
+            }
+        },
+        LIKE("=like=", false, true) {
+            @Override
+            Predicate build(CriteriaBuilder cb, Path<?> path, List<Object> values) {
+                String pattern = String.valueOf(values.get(0)).replace("*", "%");
+                return cb.like(cb.lower(path.as(String.class)), pattern);
+            }
+        };
 
-                if (operator.equals("=gt=")) {
-                    if (fieldType == Integer.class || fieldType == int.class) {
-                        return criteriaBuilder.greaterThan(path.as(Integer.class), (Integer) typedValue);
-                    } else if (fieldType == Long.class || fieldType == long.class) {
-                        return criteriaBuilder.greaterThan(path.as(Long.class), (Long) typedValue);
-                    } else if (fieldType == Double.class || fieldType == double.class) {
-                        return criteriaBuilder.greaterThan(path.as(Double.class), (Double) typedValue);
-                    } else if (fieldType == LocalDate.class) {
-                        // I've added this to support LocalDate comparisons correctly
-                        return criteriaBuilder.greaterThan(path.as(LocalDate.class), (LocalDate) typedValue);
-                    } else {
-                        return criteriaBuilder.greaterThan(path.as(String.class), ((String) typedValue));
-                    }
-                }
+        final String symbol;
+        final boolean multiValued;
+        final boolean ignoresCase;
 
-                if (operator.equals("=lt=")) {
-                    if (fieldType == Integer.class || fieldType == int.class) {
-                        return criteriaBuilder.lessThan(path.as(Integer.class), (Integer) typedValue);
-                    } else if (fieldType == Long.class || fieldType == long.class) {
-                        return criteriaBuilder.lessThan(path.as(Long.class), (Long) typedValue);
-                    } else if (fieldType == Double.class || fieldType == double.class) {
-                        return criteriaBuilder.lessThan(path.as(Double.class), (Double) typedValue);
-                    } else if (fieldType == LocalDate.class) {
-                        // I've added this for proper LocalDate less-than comparisons
-                        return criteriaBuilder.lessThan(path.as(LocalDate.class), (LocalDate) typedValue);
-                    } else {
-                        return criteriaBuilder.lessThan(path.as(String.class), ((String) typedValue));
-                    }
-                }
+        Operator(String symbol, boolean multiValued, boolean ignoresCase) {
+            this.symbol = symbol;
+            this.multiValued = multiValued;
+            this.ignoresCase = ignoresCase;
+        }
 
-                if (operator.equals("=ge=")) {
-                    if (fieldType == Integer.class || fieldType == int.class) {
-                        return criteriaBuilder.greaterThanOrEqualTo(path.as(Integer.class), (Integer) typedValue);
-                    } else if (fieldType == Long.class || fieldType == long.class) {
-                        return criteriaBuilder.greaterThanOrEqualTo(path.as(Long.class), (Long) typedValue);
-                    } else if (fieldType == Double.class || fieldType == double.class) {
-                        return criteriaBuilder.greaterThanOrEqualTo(path.as(Double.class), (Double) typedValue);
-                    } else if (fieldType == LocalDate.class) {
-                        // I've added this to allow LocalDate >= comparisons
-                        return criteriaBuilder.greaterThanOrEqualTo(path.as(LocalDate.class), (LocalDate) typedValue);
-                    } else {
-                        return criteriaBuilder.greaterThanOrEqualTo(path.as(String.class), ((String) typedValue));
-                    }
-                }
+        abstract Predicate build(CriteriaBuilder cb, Path<?> path, List<Object> values);
 
-                if (operator.equals("=le=")) {
-                    if (fieldType == Integer.class || fieldType == int.class) {
-                        return criteriaBuilder.lessThanOrEqualTo(path.as(Integer.class), (Integer) typedValue);
-                    } else if (fieldType == Long.class || fieldType == long.class) {
-                        return criteriaBuilder.lessThanOrEqualTo(path.as(Long.class), (Long) typedValue);
-                    } else if (fieldType == Double.class || fieldType == double.class) {
-                        return criteriaBuilder.lessThanOrEqualTo(path.as(Double.class), (Double) typedValue);
-                    } else if (fieldType == LocalDate.class) {
-                        // I've added this for proper LocalDate <= comparisons
-                        return criteriaBuilder.lessThanOrEqualTo(path.as(LocalDate.class), (LocalDate) typedValue);
-                    } else {
-                        return criteriaBuilder.lessThanOrEqualTo(path.as(String.class), ((String) typedValue));
-                    }
-                }
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private static Expression<Comparable> comparable(Path<?> path) {
+            return (Expression<Comparable>) (Expression) path;
+        }
 
-                if (operator.equals("=in=")) {
-                    List<Object> typedValues = new ArrayList<>();
-                    for (String v : values) {
-                        typedValues.add(convertValue(fieldType, v));
-                    }
-                    return path.in(typedValues);
-                }
+        @SuppressWarnings("rawtypes")
+        private static Comparable comparable(List<Object> values) {
+            if (!(values.get(0) instanceof Comparable<?> value)) {
+                throw new IllegalArgumentException("Value cannot be compared: " + values.get(0));
+            }
+            return value;
+        }
+    }
 
-                if (operator.equals("=like=")) {
-                    if (fieldType == String.class) {
-                        String pattern = ((String) typedValue).replace("*", "%").toLowerCase();
-                        return criteriaBuilder.like(
-                                criteriaBuilder.lower(path.as(String.class)),
-                                pattern);
-                    }
-                }
+    // Operator dispatch table, keyed by RSQL symbol
+    static final Map<String, Operator> OPERATORS;
 
-                if (operator.equals("=out=")) {
-                    List<Object> typedValues = new ArrayList<>();
-                    for (String v : values) {
-                        typedValues.add(convertValue(fieldType, v));
-                    }
-                    return criteriaBuilder.not(path.in(typedValues));
-                }
+    static {
+        Map<String, Operator> operators = new HashMap<>();
+        for (Operator operator : Operator.values()) {
+            operators.put(operator.symbol, operator);
+        }
+        OPERATORS = Collections.unmodifiableMap(operators);
+    }
 
-                throw new IllegalStateException("No predicate could be built for operator: " + operator);
-            }
+    // Text value parsers by field type, used by convertValue
+    private static final Map<Class<?>, Function<String, Object>> PARSERS = Map.ofEntries(
+            Map.entry(String.class, value -> value),
+            Map.entry(Integer.class, Integer::parseInt),
+            Map.entry(int.class, Integer::parseInt),
+            Map.entry(Long.class, Long::parseLong),
+            Map.entry(long.class, Long::parseLong),
+            Map.entry(Double.class, Double::parseDouble),
+            Map.entry(double.class, Double::parseDouble),
+            Map.entry(Boolean.class, Boolean::parseBoolean),
+            Map.entry(boolean.class, Boolean::parseBoolean),
+            Map.entry(BigDecimal.class, BigDecimal::new),
+            // I've added this section for LocalDate so that date-only fields parse
+            // correctly.
+            Map.entry(LocalDate.class,
+                    value -> LocalDate.parse(unquote(value), DateTimeFormatter.ISO_LOCAL_DATE)),
+            // I've added this section for LocalDateTime in case timestamp fields are
+            // queried.
+            Map.entry(LocalDateTime.class,
+                    value -> LocalDateTime.parse(unquote(value), DateTimeFormatter.ISO_LOCAL_DATE_TIME)));
 
-            /*
-             * Future Improvements: Add logic that checks the actual field type (e.g., if
-             * it's a date, parse it into LocalDate and call greaterThan() on a
-             * Path<LocalDate> instead).
-             */
-        };
+    private static String unquote(String value) {
+        return value.replace("'", "").replace("\"", "");
     }
 
     /*
@@ -300,36 +340,15 @@ public class TradeRsqlVisitor implements RSQLVisitor<Specification<Trade>, Void>
      * Catchs conversion errors and throw an exception.
      */
     public static Object convertValue(Class<?> type, String value) {
-        // I refactored this method to handle LocalDate and LocalDateTime conversions
-        // properly, while preserving existing logic and comments.
-        try {
-            if (type == String.class)
-                return value;
-            if (type == Integer.class || type == int.class)
-                return Integer.parseInt(value);
-            if (type == Long.class || type == long.class)
-                return Long.parseLong(value);
-            if (type == Double.class || type == double.class)
-                return Double.parseDouble(value);
-            if (type == Boolean.class || type == boolean.class)
-                return Boolean.parseBoolean(value);
-
-            // I've added this section for LocalDate so that date-only fields parse
-            // correctly.
-            if (type == LocalDate.class) {
-                String clean = value.replace("'", "").replace("\"", "");
-                return LocalDate.parse(clean, DateTimeFormatter.ISO_LOCAL_DATE);
-            }
-
-            // I've added this section for LocalDateTime in case timestamp fields are
-            // queried.
-            if (type == LocalDateTime.class) {
-                String clean = value.replace("'", "").replace("\"", "");
-                return LocalDateTime.parse(clean, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-            }
-
+        // CHANGED: parsers come from the PARSERS table (same types as before,
+        // plus BigDecimal)
+        Function<String, Object> parser = PARSERS.get(type);
+        if (parser == null) {
             // Add more types as needed
             throw new IllegalArgumentException("Unsupported type: " + type.getSimpleName());
+        }
+        try {
+            return parser.apply(value);
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid value '" + value + "' for type " + type.getSimpleName());
         }
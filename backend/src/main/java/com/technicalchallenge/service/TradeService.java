@@ -1,23 +1,35 @@
 package com.technicalchallenge.service;
 
+import com.technicalchallenge.dto.SettlementExportRow;
+import com.technicalchallenge.dto.TradeBlotterRow;
+import com.technicalchallenge.dto.TradeCursor;
 import com.technicalchallenge.dto.TradeDTO;
 import com.technicalchallenge.dto.TradeLegDTO;
+import com.technicalchallenge.dto.TradeSlice;
 import com.technicalchallenge.model.*;
 import com.technicalchallenge.repository.*;
 
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 // Security imports used to perform server-side ownership and privilege checks
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -70,21 +82,10 @@ public class TradeService {
     private TradeRepository tradeRepository;
     private TradeLegRepository tradeLegRepository;
     private CashflowRepository cashflowRepository;
-    private TradeStatusRepository tradeStatusRepository;
-    private BookRepository bookRepository;
-    private CounterpartyRepository counterpartyRepository;
-    private ApplicationUserRepository applicationUserRepository;
-    private TradeTypeRepository tradeTypeRepository;
-    private TradeSubTypeRepository tradeSubTypeRepository;
-    private CurrencyRepository currencyRepository;
-
-    private LegTypeRepository legTypeRepository;
-    private IndexRepository indexRepository;
-    private HolidayCalendarRepository holidayCalendarRepository;
-    private ScheduleRepository scheduleRepository;
-    private BusinessDayConventionRepository businessDayConventionRepository;
-
-    private PayRecRepository payRecRepository;
+    // REFACTORED: the reference repositories (book, counterparty, status,
+    // user, type, currency, leg type, index, calendar, schedule, BDC,
+    // pay/rec) are no longer held here; every lookup goes through
+    // ReferenceDataCache, which asks them for what it does not hold.
     private AdditionalInfoRepository additionalInfoRepository;
 
     // Mapper used to convert between Trade entities and TradeDTOs. Kept in the
@@ -92,20 +93,52 @@ public class TradeService {
     private TradeMapper tradeMapper;
 
     // Security validator used to check ownership/edit privileges at the service
-    // layer.
-    // We prefer the Spring-injected validator, but keep a null-check fallback so
-    // unit tests that construct this service directly (without Spring) continue
-    // to work. The fallback reproduces the minimal ownership logic used
-    // elsewhere (defence-in-depth) to avoid allowing remote clients to bypass
-    // server-side checks.
+    // layer (defence-in-depth, so remote clients cannot bypass server-side
+    // checks). REFACTORED: required; the inline ownership fallback for unit
+    // tests without Spring is gone, they mock the validator instead.
     private UserPrivilegeValidator userPrivilegeValidator;
 
     // Centralized validation engine (business rules + field validators)
     private TradeValidationEngine tradeValidationEngine;
 
+    // In-memory reference data (books, counterparties, currencies, ...) so a
+    // booking does not pay one repository round trip per name/id lookup. A
+    // name or id missing from it is looked up in its repository by the cache.
+    private ReferenceDataCache referenceDataCache;
+
+    // Hi/lo allocator for business trade ids (see TradeIdAllocator)
+    private TradeIdAllocator tradeIdAllocator;
+
+    // Shared schedule/amount logic (also used by the cashflow preview endpoint)
+    private CashflowScheduleEngine cashflowScheduleEngine;
+
+    // In-memory holiday calendars for business day adjustment
+    private HolidayCalendarRegistry holidayCalendarRegistry;
+
+    // ADDED: incrementally maintained dashboard totals (see TradeSummaryStore).
+    // Updated inside the same transaction as each booking and status change.
+    private TradeSummaryStore tradeSummaryStore;
+
+    // ADDED: writes the settlement instructions of bookings and amendments
+    // (classified, interned, indexed and audited)
+    private AdditionalInfoService additionalInfoService;
+
     public List<Trade> getAllTrades() {
         logger.info("Retrieving all trades");
 
+        String ownTradesLoginId = ownTradesOnlyLoginId();
+        if (ownTradesLoginId != null) {
+            return tradeRepository
+                    .findAllByTraderUser_LoginIdAndActiveTrueOrderByTradeIdDesc(ownTradesLoginId);
+        }
+
+        return tradeRepository.findAll();
+    }
+
+    // REFACTORED out of getAllTrades() so the blotter projection applies the
+    // same scoping. Returns the caller's login id when they may only see their
+    // own active trades (a TRADER without elevated view), otherwise null.
+    private String ownTradesOnlyLoginId() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String currentUser = (auth != null && auth.getName() != null) ? auth.getName() : null;
 
@@ -115,37 +148,159 @@ public class TradeService {
                         .anyMatch(a -> "ROLE_TRADER".equalsIgnoreCase(a.getAuthority()));
 
         // IMROVED centralised privilege check
-        boolean hasElevatedView = userPrivilegeValidator != null
-                && userPrivilegeValidator.hasElevatedTradeView(auth);
+        boolean hasElevatedView = userPrivilegeValidator.hasElevatedTradeView(auth);
 
-        if (isTrader && !hasElevatedView && currentUser != null) {
-            return tradeRepository
-                    .findAllByTraderUser_LoginIdAndActiveTrueOrderByTradeIdDesc(currentUser);
+        return isTrader && !hasElevatedView ? currentUser : null;
+    }
+
+    // ADDED: getAllTrades() scoping as a Specification, for the keyset-paged
+    // blotter queries. Null (no restriction) for elevated users.
+    private Specification<Trade> visibleTradesSpec() {
+        String ownTradesLoginId = ownTradesOnlyLoginId();
+        if (ownTradesLoginId == null) {
+            return null;
         }
+        return (root, query, cb) -> cb.and(cb.equal(root.get("traderUser").get("loginId"), ownTradesLoginId),
+                cb.isTrue(root.get("active")));
+    }
 
-        return tradeRepository.findAll();
+    /**
+     * CHANGED: the trade blotter (GET /api/trades), one keyset page at a time
+     * (see TradeCursor). Reads the trade headers and leg summaries as
+     * projection rows rather than entities, so the legs come without their
+     * cashflows. Same scoping as getAllTrades(). cursor is null for the first
+     * page; size defaults to and is capped at TradeSlice.MAX_PAGE_SIZE.
+     */
+    @Transactional(readOnly = true)
+    public TradeSlice getAllTradeDtos(String cursor, Integer size) {
+        logger.info("Retrieving trade blotter");
+
+        Slice<TradeBlotterRow> rows = tradeRepository.findBlotterRowsAfter(visibleTradesSpec(),
+                TradeCursor.decode(cursor), TradeSlice.pageSize(size, TradeSlice.MAX_PAGE_SIZE));
+        List<TradeDTO> dtos = rows.isEmpty() ? new ArrayList<>()
+                : tradeMapper.toBlotterDtos(rows.getContent(), tradeRepository.findLegSummaries(rows.getContent()));
+        return TradeSlice.of(rows, dtos, null);
+    }
+
+    // First page of the blotter
+    @Transactional(readOnly = true)
+    public List<TradeDTO> getAllTradeDtos() {
+        return getAllTradeDtos(null, null).content();
+    }
+
+    /**
+     * The same page as getAllTradeDtos(cursor, size) mapped to full DTOs,
+     * cashflows included, for callers that ask for them explicitly
+     * (GET /api/trades?includeCashflows=true). Mapped inside the transaction
+     * since Open Session In View is off; the legs, cashflows and their
+     * reference data load in batches.
+     */
+    @Transactional(readOnly = true)
+    public TradeSlice getAllTradeDtosWithCashflows(String cursor, Integer size) {
+        Slice<TradeBlotterRow> rows = tradeRepository.findBlotterRowsAfter(visibleTradesSpec(),
+                TradeCursor.decode(cursor), TradeSlice.pageSize(size, TradeSlice.MAX_PAGE_SIZE));
+        List<Long> ids = rows.map(TradeBlotterRow::id).getContent();
+        Map<Long, Trade> tradesById = new HashMap<>();
+        if (!ids.isEmpty()) {
+            tradeRepository.findAllByIdIn(ids).forEach(trade -> tradesById.put(trade.getId(), trade));
+        }
+        // Keep the page order
+        List<TradeDTO> dtos = ids.stream().map(tradesById::get).map(tradeMapper::toDto).toList();
+        return TradeSlice.of(rows, dtos, null);
+    }
+
+    // Rows per JDBC fetch and per leg-summary query when streaming
+    private static final int STREAM_CHUNK_SIZE = 500;
+
+    /**
+     * ADDED: every trade the caller may see (same scoping as getAllTrades()),
+     * as blotter DTOs handed to sink one at a time, newest first. Header rows
+     * come from a forward-only cursor and legs are read per chunk of
+     * STREAM_CHUNK_SIZE trades, so memory stays flat however many trades
+     * there are. Returns the number of trades written.
+     */
+    @Transactional(readOnly = true)
+    public long streamAllTradeDtos(Consumer<TradeDTO> sink) {
+        long written = 0;
+        List<TradeBlotterRow> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        try (Stream<TradeBlotterRow> rows = tradeRepository.streamBlotterRows(visibleTradesSpec(),
+                STREAM_CHUNK_SIZE)) {
+            Iterator<TradeBlotterRow> it = rows.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    written += writeChunk(chunk, sink);
+                }
+            }
+        }
+        return written + writeChunk(chunk, sink);
+    }
+
+    private int writeChunk(List<TradeBlotterRow> chunk, Consumer<TradeDTO> sink) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        tradeMapper.toBlotterDtos(chunk, tradeRepository.findLegSummaries(chunk)).forEach(sink);
+        int size = chunk.size();
+        chunk.clear();
+        return size;
+    }
+
+    /**
+     * ADDED: every trade the caller may see (same scoping as getAllTrades())
+     * with its active settlement instruction, handed to sink one at a time
+     * in trade row order, for the settlement CSV export. ownerLoginId
+     * further limits the trades to that trader's (null for all) and
+     * nonStandardOnly to those whose instruction has a stored non-standard
+     * keyword. Read in
+     * keyset chunks of STREAM_CHUNK_SIZE trades, each chunk one query joining
+     * the trades to their instructions, so memory stays flat however many
+     * trades there are. Returns the number of trades handed over.
+     */
+    @Transactional(readOnly = true)
+    public long streamSettlementExport(String ownerLoginId, boolean nonStandardOnly,
+            Consumer<SettlementExportRow> sink) {
+        String ownTradesLoginId = ownTradesOnlyLoginId();
+        boolean activeOnly = ownTradesLoginId != null;
+        if (ownTradesLoginId != null) {
+            if (ownerLoginId != null && !ownerLoginId.equals(ownTradesLoginId)) {
+                return 0;
+            }
+            ownerLoginId = ownTradesLoginId;
+        }
+        long written = 0;
+        long afterId = 0;
+        List<SettlementExportRow> chunk;
+        do {
+            chunk = tradeRepository.findSettlementExportRowsAfter(afterId, ownerLoginId, activeOnly,
+                    nonStandardOnly, PageRequest.of(0, STREAM_CHUNK_SIZE));
+            for (SettlementExportRow row : chunk) {
+                // Rows of one trade are adjacent, newest instruction first;
+                // the export keeps that one
+                if (row.id() > afterId) {
+                    sink.accept(row);
+                    written++;
+                    afterId = row.id();
+                }
+            }
+        } while (chunk.size() == STREAM_CHUNK_SIZE);
+        return written;
     }
 
     // Fetch a single trade
     public Optional<Trade> getTradeById(Long tradeId) {
         logger.debug("Retrieving trade by id: {}", tradeId);
 
+        // CHANGED: one lookup (Trade.detail fetch plan) serves both the debug
+        // logging and the active-version filter; it used to run twice.
+        Optional<Trade> opt = java.util.Optional.empty();
         try {
             var allMatches = tradeRepository.findByTradeId(tradeId);
             logger.debug("Found {} trades with tradeId={}", allMatches == null ? 0 : allMatches.size(), tradeId);
-            if (allMatches != null && !allMatches.isEmpty()) {
+            if (allMatches != null) {
                 for (Trade t : allMatches) {
                     logger.debug("trade row id={} active={}", t.getId(), t.getActive());
                 }
-            }
-        } catch (Exception e) {
-            logger.warn("Error while debugging trade lookup: {}", e.getMessage());
-        }
-
-        Optional<Trade> opt = java.util.Optional.empty();
-        try {
-            var allMatches = tradeRepository.findByTradeId(tradeId);
-            if (allMatches != null) {
                 opt = allMatches.stream()
                         .filter(t -> Boolean.TRUE.equals(t.getActive()))
                         .findFirst();
@@ -163,8 +318,7 @@ public class TradeService {
             String currentUser = (auth != null && auth.getName() != null) ? auth.getName() : null;
 
             // ADDED: centralised privilege check
-            boolean hasElevatedView = userPrivilegeValidator != null
-                    && userPrivilegeValidator.hasElevatedTradeView(auth);
+            boolean hasElevatedView = userPrivilegeValidator.hasElevatedTradeView(auth);
 
             if (!hasElevatedView && currentUser != null) {
                 Trade t = opt.get();
@@ -228,13 +382,29 @@ public class TradeService {
         return tradeRepository.findAllByTradeIdIn(tradeIds);
     }
 
+    // ADDED: a page of blotter rows (e.g. a settlement search page) as blotter
+    // DTOs: the leg summaries for the whole page come in one more statement
+    @Transactional(readOnly = true)
+    public Page<TradeDTO> getBlotterDtos(Page<TradeBlotterRow> rows) {
+        List<TradeDTO> dtos = rows.isEmpty() ? new ArrayList<>()
+                : tradeMapper.toBlotterDtos(rows.getContent(), tradeRepository.findLegSummaries(rows.getContent()));
+        return new PageImpl<>(dtos, rows.getPageable(), rows.getTotalElements());
+    }
+
+    // ADDED: getTradesByIds mapped inside the transaction (see getAllTradeDtos)
+    @Transactional(readOnly = true)
+    public List<TradeDTO> getTradeDtosByIds(List<Long> tradeIds) {
+        return getTradesByIds(tradeIds).stream().map(tradeMapper::toDto).toList();
+    }
+
     @Transactional
     public Trade createTrade(TradeDTO tradeDTO) {
         logger.info("Creating new trade with ID: {}", tradeDTO.getTradeId());
 
         // Generate trade ID if not provided
         if (tradeDTO.getTradeId() == null) {
-            // Generate sequential trade ID starting from 10000
+            // Generate trade ID starting from 10000 (block-allocated, unique
+            // across nodes)
             Long generatedTradeId = generateNextTradeId();
             tradeDTO.setTradeId(generatedTradeId);
             logger.info("Generated trade ID: {}", generatedTradeId);
@@ -242,17 +412,42 @@ public class TradeService {
 
         // Validate business rules (existing light checks)
         validateTradeCreation(tradeDTO);
+        validatePaymentConventions(tradeDTO);
+
+        // Set default trade status to NEW if not provided
+        // CHANGED: before the references are resolved, so the status is
+        // resolved with them
+        if (tradeDTO.getTradeStatus() == null) {
+            tradeDTO.setTradeStatus("NEW");
+        }
+
+        // CHANGED: every reference is looked up once here; validation and the
+        // trade entity below both use this context
+        TradeResolutionContext references = resolveReferences(tradeDTO);
 
         // Run centralized validation engine when available. This consolidates
         // business-rule checks and field-level validators (e.g. settlement
         // instructions). In test contexts where the engine may not be provided,
         // skip with a debug log to preserve existing unit-test behaviour.
+        String instructions = tradeDTO.getSettlementInstructions();
+        boolean hasInstructions = instructions != null && !instructions.trim().isEmpty();
         if (tradeValidationEngine != null) {
-            TradeValidationResult validationResult = tradeValidationEngine.validateTradeBusinessRules(tradeDTO);
+            TradeValidationResult validationResult = tradeValidationEngine.validateTradeBusinessRules(tradeDTO,
+                    references);
             if (!validationResult.isValid()) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                         "Validation failed: " + String.join("; ", validationResult.getErrors()));
             }
+            // CHANGED: settlement instructions are validated before anything
+            // is written, rather than after the trade has been saved
+            if (hasInstructions) {
+                TradeValidationResult settlementResult = tradeValidationEngine
+                        .validateSettlementInstructions(instructions.trim());
+                if (!settlementResult.isValid()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Settlement instructions invalid: " + String.join("; ", settlementResult.getErrors()));
+                }
+            }
         } else {
             logger.debug("TradeValidationEngine not present - skipping centralized validation");
         }
@@ -264,13 +459,8 @@ public class TradeService {
         trade.setCreatedDate(LocalDateTime.now());
         trade.setLastTouchTimestamp(LocalDateTime.now());
 
-        // Set default trade status to NEW if not provided
-        if (tradeDTO.getTradeStatus() == null) {
-            tradeDTO.setTradeStatus("NEW");
-        }
-
         // Populate reference data
-        populateReferenceDataByName(trade, tradeDTO);
+        references.applyTo(trade);
 
         // Ensure have essential reference data
         validateReferenceData(trade);
@@ -279,32 +469,18 @@ public class TradeService {
         // Refactored. Settlement was not saving while creating a new trade o the UI.
         // The UI sends settlementInstructions in the TradeDTO. Then persist it
         // into the additional_info table so it can be searched/edited later.
-        if (tradeDTO.getSettlementInstructions() != null && !tradeDTO.getSettlementInstructions().trim().isEmpty()) {
-            // Validate settlement instructions via validation engine (if present)
-            if (tradeValidationEngine != null) {
-                TradeValidationResult settlementResult = tradeValidationEngine
-                        .validateSettlementInstructions(tradeDTO.getSettlementInstructions());
-                if (!settlementResult.isValid()) {
-                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                            "Settlement instructions invalid: " + String.join("; ", settlementResult.getErrors()));
-                }
-            }
-
-            AdditionalInfo settlementInfo = new AdditionalInfo();
-            settlementInfo.setEntityType("TRADE");
-            settlementInfo.setEntityId(savedTrade.getTradeId());
-            settlementInfo.setFieldName("SETTLEMENT_INSTRUCTIONS");
-            settlementInfo.setFieldValue(tradeDTO.getSettlementInstructions());
-            settlementInfo.setFieldType("STRING");
-            settlementInfo.setActive(true);
-            settlementInfo.setCreatedDate(LocalDateTime.now());
-            settlementInfo.setLastModifiedDate(LocalDateTime.now());
-            settlementInfo.setVersion(1);
-            additionalInfoRepository.save(settlementInfo);
+        // CHANGED: this is the only place a booking writes its settlement
+        // instruction (TradeController no longer writes a second row). The
+        // text is stored trimmed, through AdditionalInfoService, so the row is
+        // classified, interned, indexed and audited like any other settlement
+        // write.
+        if (hasInstructions) {
+            additionalInfoService.saveValidatedSettlement(savedTrade.getTradeId(), instructions.trim(), false);
         }
 
         // Create trade legs and cashflows
-        createTradeLegsWithCashflows(tradeDTO, savedTrade);
+        List<TradeLeg> legs = createTradeLegsWithCashflows(tradeDTO, savedTrade);
+        tradeSummaryStore.addTrade(savedTrade, legs);
 
         logger.info("Successfully created trade with ID: {}", savedTrade.getTradeId());
         return savedTrade;
@@ -324,42 +500,69 @@ public class TradeService {
     }
 
     // FIXED: Populate reference data by names from DTO
+    // REFACTORED: names/ids are resolved through ReferenceDataCache when it is
+    // available instead of one repository query per field.
+    // CHANGED: resolves into a TradeResolutionContext and applies it; booking
+    // and amendment resolve once themselves and share the context with
+    // validation (see resolveReferences).
     public void populateReferenceDataByName(Trade trade, TradeDTO tradeDTO) {
-        logger.debug("Populating reference data for trade");
+        resolveReferences(tradeDTO).applyTo(trade);
+    }
 
-        // Populate Book
-        if (tradeDTO.getBookName() != null) {
-            bookRepository.findByBookName(tradeDTO.getBookName())
-                    .ifPresent(trade::setBook);
-        } else if (tradeDTO.getBookId() != null) {
-            bookRepository.findById(tradeDTO.getBookId())
-                    .ifPresent(trade::setBook);
-        }
+    /**
+     * ADDED: looks up every reference the DTO names (book, counterparty,
+     * status, trader, inputter, trade type and sub type) once. The context is
+     * validated by TradeValidationEngine and then applied to the trade being
+     * saved, so neither repeats the lookups.
+     */
+    public TradeResolutionContext resolveReferences(TradeDTO tradeDTO) {
+        logger.debug("Resolving reference data for trade");
+        TradeResolutionContext context = new TradeResolutionContext();
+
+        // Book
+        resolve(referenceDataCache.books(), tradeDTO.getBookName(), tradeDTO.getBookId())
+                .ifPresent(context::setBook);
+
+        // Counterparty
+        resolve(referenceDataCache.counterparties(), tradeDTO.getCounterpartyName(), tradeDTO.getCounterpartyId())
+                .ifPresent(context::setCounterparty);
+
+        // TradeStatus
+        resolve(referenceDataCache.tradeStatuses(), tradeDTO.getTradeStatus(), tradeDTO.getTradeStatusId())
+                .ifPresent(context::setTradeStatus);
+
+        // Other reference data
+        resolveUserReferences(context, tradeDTO);
+        resolveTradeTypeReferences(context, tradeDTO);
+        return context;
+    }
 
-        // Populate Counterparty
-        if (tradeDTO.getCounterpartyName() != null) {
-            counterpartyRepository.findByName(tradeDTO.getCounterpartyName())
-                    .ifPresent(trade::setCounterparty);
-        } else if (tradeDTO.getCounterpartyId() != null) {
-            counterpartyRepository.findById(tradeDTO.getCounterpartyId())
-                    .ifPresent(trade::setCounterparty);
+    /*
+     * Resolve one reference field from ReferenceDataCache: prefer the name
+     * when the DTO carries one, otherwise the id.
+     */
+    private static <T> Optional<T> resolve(ReferenceDataCache.ReferenceTable<T> table, String name, Long id) {
+        if (name != null) {
+            return table.findByName(name);
         }
+        return table.findById(id);
+    }
 
-        // Populate TradeStatus
-        if (tradeDTO.getTradeStatus() != null) {
-            tradeStatusRepository.findByTradeStatus(tradeDTO.getTradeStatus())
-                    .ifPresent(trade::setTradeStatus);
-        } else if (tradeDTO.getTradeStatusId() != null) {
-            tradeStatusRepository.findById(tradeDTO.getTradeStatusId())
-                    .ifPresent(trade::setTradeStatus);
-        }
+    // Lifecycle statuses (AMENDED, CANCELLED, TERMINATED) by name
+    private Optional<TradeStatus> findTradeStatus(String status) {
+        return referenceDataCache.tradeStatuses().findByName(status);
+    }
 
-        // Populate other reference data
-        populateUserReferences(trade, tradeDTO);
-        populateTradeTypeReferences(trade, tradeDTO);
+    // Same lookup order as before: first name, then loginId (common when the
+    // frontend sends the login)
+    private Optional<ApplicationUser> resolveUserByName(String name) {
+        String[] nameParts = name.split("\\s+");
+        String firstName = nameParts[0];
+        return referenceDataCache.users().findByAlternateName(firstName)
+                .or(() -> referenceDataCache.users().findByName(name));
     }
 
-    private void populateUserReferences(Trade trade, TradeDTO tradeDTO) {
+    private void resolveUserReferences(TradeResolutionContext context, TradeDTO tradeDTO) {
         // Prefer numeric IDs when provided (more reliable).
         // If no numeric id is provided, fall back to name-based lookup.
         // Name-based lookup first tries by first name (legacy behavior) then
@@ -368,73 +571,30 @@ public class TradeService {
         // Trader resolution
         if (tradeDTO.getTraderUserId() != null) {
             logger.debug("Looking up trader user by id: {}", tradeDTO.getTraderUserId());
-            applicationUserRepository.findById(tradeDTO.getTraderUserId())
-                    .ifPresent(trade::setTraderUser); // CHANGED: prefer id-based lookup first
+            referenceDataCache.users().findById(tradeDTO.getTraderUserId())
+                    .ifPresent(context::setTraderUser); // CHANGED: prefer id-based lookup first
         } else if (tradeDTO.getTraderUserName() != null) {
             logger.debug("Looking up trader user by name/login: {}", tradeDTO.getTraderUserName());
-            String name = tradeDTO.getTraderUserName().trim();
-            String[] nameParts = name.split("\\s+");
-            boolean matched = false;
-            if (nameParts.length >= 1) {
-                String firstName = nameParts[0];
-                Optional<ApplicationUser> userOpt = applicationUserRepository.findByFirstName(firstName);
-                if (userOpt.isPresent()) {
-                    trade.setTraderUser(userOpt.get());
-                    matched = true;
-                }
-            }
-            // If first-name lookup failed, try loginId (common when frontend sends login)
-            if (!matched) {
-                applicationUserRepository.findByLoginId(name).ifPresent(trade::setTraderUser); // CHANGED: try loginId
-                                                                                               // fallback when
-                                                                                               // first-name lookup
-                                                                                               // misses
-            }
+            resolveUserByName(tradeDTO.getTraderUserName().trim()).ifPresent(context::setTraderUser);
         }
 
         // Inputter resolution
         if (tradeDTO.getTradeInputterUserId() != null) {
             logger.debug("Looking up inputter user by id: {}", tradeDTO.getTradeInputterUserId());
-            applicationUserRepository.findById(tradeDTO.getTradeInputterUserId())
-                    .ifPresent(trade::setTradeInputterUser); // CHANGED: prefer id-based lookup first for inputter
+            referenceDataCache.users().findById(tradeDTO.getTradeInputterUserId())
+                    .ifPresent(context::setTradeInputterUser); // CHANGED: prefer id-based lookup first for inputter
         } else if (tradeDTO.getInputterUserName() != null) {
             logger.debug("Looking up inputter user by name/login: {}", tradeDTO.getInputterUserName());
-            String name = tradeDTO.getInputterUserName().trim();
-            String[] nameParts = name.split("\\s+");
-            boolean matched = false;
-            if (nameParts.length >= 1) {
-                String firstName = nameParts[0];
-                Optional<ApplicationUser> userOpt = applicationUserRepository.findByFirstName(firstName);
-                if (userOpt.isPresent()) {
-                    trade.setTradeInputterUser(userOpt.get());
-                    matched = true;
-                }
-            }
-            if (!matched) {
-                applicationUserRepository.findByLoginId(name).ifPresent(trade::setTradeInputterUser); // CHANGED: try
-                                                                                                      // loginId
-                                                                                                      // fallback for
-                                                                                                      // inputter
-            }
+            resolveUserByName(tradeDTO.getInputterUserName().trim()).ifPresent(context::setTradeInputterUser);
         }
     }
 
-    private void populateTradeTypeReferences(Trade trade, TradeDTO tradeDTO) {
-        if (tradeDTO.getTradeType() != null) {
-            tradeTypeRepository.findByTradeType(tradeDTO.getTradeType())
-                    .ifPresent(trade::setTradeType);
-        } else if (tradeDTO.getTradeTypeId() != null) {
-            tradeTypeRepository.findById(tradeDTO.getTradeTypeId())
-                    .ifPresent(trade::setTradeType);
-        }
+    private void resolveTradeTypeReferences(TradeResolutionContext context, TradeDTO tradeDTO) {
+        resolve(referenceDataCache.tradeTypes(), tradeDTO.getTradeType(), tradeDTO.getTradeTypeId())
+                .ifPresent(context::setTradeType);
 
-        if (tradeDTO.getTradeSubType() != null) {
-            tradeSubTypeRepository.findByTradeSubType(tradeDTO.getTradeSubType())
-                    .ifPresent(trade::setTradeSubType);
-        } else if (tradeDTO.getTradeSubTypeId() != null) {
-            tradeSubTypeRepository.findById(tradeDTO.getTradeSubTypeId())
-                    .ifPresent(trade::setTradeSubType);
-        }
+        resolve(referenceDataCache.tradeSubTypes(), tradeDTO.getTradeSubType(), tradeDTO.getTradeSubTypeId())
+                .ifPresent(context::setTradeSubType);
     }
 
     // NEW METHOD: Delete trade (mark as cancelled)
@@ -469,8 +629,13 @@ public class TradeService {
 
         // Centralized validation (null-safe). Validate business rules and
         // settlement instructions before creating the amended trade.
+        // CHANGED: references resolved once, for validation and the new
+        // version alike (see createTrade)
+        TradeResolutionContext references = resolveReferences(tradeDTO);
+        validatePaymentConventions(tradeDTO);
         if (tradeValidationEngine != null) {
-            TradeValidationResult validationResult = tradeValidationEngine.validateTradeBusinessRules(tradeDTO);
+            TradeValidationResult validationResult = tradeValidationEngine.validateTradeBusinessRules(tradeDTO,
+                    references);
             if (!validationResult.isValid()) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                         "Validation failed: " + String.join("; ", validationResult.getErrors()));
@@ -504,45 +669,30 @@ public class TradeService {
         amendedTrade.setLastTouchTimestamp(LocalDateTime.now());
 
         // Populate reference data
-        populateReferenceDataByName(amendedTrade, tradeDTO);
+        references.applyTo(amendedTrade);
 
         // Set status to AMENDED
-        TradeStatus amendedStatus = tradeStatusRepository.findByTradeStatus("AMENDED")
+        TradeStatus amendedStatus = findTradeStatus("AMENDED")
                 .orElseThrow(() -> new RuntimeException("AMENDED status not found"));
         amendedTrade.setTradeStatus(amendedStatus);
 
         Trade savedTrade = tradeRepository.save(amendedTrade);
         // --- Update or create settlement instructions ---
         // If the DTO includes settlement instructions, either update the
-        // existing AdditionalInfo row or create a new one. We use
-        // findActiveOne(...) to locate a single active record.
+        // existing AdditionalInfo row or create a new one.
+        // FIXED: written through AdditionalInfoService like a booking's, so
+        // the amended text is interned, its non-standard keyword recomputed,
+        // the settlement text index updated and the change audited.
         if (tradeDTO.getSettlementInstructions() != null && !tradeDTO.getSettlementInstructions().trim().isEmpty()) {
-            Optional<AdditionalInfo> existingInfoOpt = additionalInfoRepository.findActiveOne(
-                    "TRADE", savedTrade.getTradeId(), "SETTLEMENT_INSTRUCTIONS");
-
-            if (existingInfoOpt.isPresent()) {
-                AdditionalInfo existingInfo = existingInfoOpt.get();
-                existingInfo.setFieldValue(tradeDTO.getSettlementInstructions());
-                existingInfo.setLastModifiedDate(LocalDateTime.now());
-                existingInfo.setVersion(existingInfo.getVersion() == null ? 1 : existingInfo.getVersion() + 1);
-                additionalInfoRepository.save(existingInfo);
-            } else {
-                AdditionalInfo newInfo = new AdditionalInfo();
-                newInfo.setEntityType("TRADE");
-                newInfo.setEntityId(savedTrade.getTradeId());
-                newInfo.setFieldName("SETTLEMENT_INSTRUCTIONS");
-                newInfo.setFieldValue(tradeDTO.getSettlementInstructions());
-                newInfo.setFieldType("STRING");
-                newInfo.setActive(true);
-                newInfo.setCreatedDate(LocalDateTime.now());
-                newInfo.setLastModifiedDate(LocalDateTime.now());
-                newInfo.setVersion(1);
-                additionalInfoRepository.save(newInfo);
-            }
+            additionalInfoService.saveValidatedSettlement(savedTrade.getTradeId(),
+                    tradeDTO.getSettlementInstructions().trim(), true);
         }
 
         // Create new trade legs and cashflows
-        createTradeLegsWithCashflows(tradeDTO, savedTrade);
+        List<TradeLeg> legs = createTradeLegsWithCashflows(tradeDTO, savedTrade);
+        // The previous version keeps its place in the summary (the dashboard
+        // counts every version); only the new version is added
+        tradeSummaryStore.addTrade(savedTrade, legs);
 
         logger.info("Successfully amended trade with ID: {}", savedTrade.getTradeId());
         return savedTrade;
@@ -558,13 +708,16 @@ public class TradeService {
         }
 
         Trade trade = tradeOpt.get();
-        TradeStatus terminatedStatus = tradeStatusRepository.findByTradeStatus("TERMINATED")
+        TradeStatus terminatedStatus = findTradeStatus("TERMINATED")
                 .orElseThrow(() -> new RuntimeException("TERMINATED status not found"));
 
+        String oldStatus = statusName(trade);
         trade.setTradeStatus(terminatedStatus);
         trade.setLastTouchTimestamp(LocalDateTime.now());
 
-        return tradeRepository.save(trade);
+        Trade saved = tradeRepository.save(trade);
+        tradeSummaryStore.changeStatus(trade, oldStatus);
+        return saved;
     }
 
     @Transactional
@@ -581,46 +734,15 @@ public class TradeService {
 
         Trade trade = tradeOpt.get();
         // ENFORCE EDIT PERMISSIONS: a user must be allowed to edit/cancel the
-        // trade. Prefer the centralised UserPrivilegeValidator when available;
-        // otherwise perform an inline ownership check as a safe fallback.
+        // trade, as decided by the centralised UserPrivilegeValidator.
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        boolean allowedToEdit = false;
-        if (userPrivilegeValidator != null) {
-            try {
-                boolean validatorResult = userPrivilegeValidator.canEditTrade(trade, auth);
-                logger.debug("UserPrivilegeValidator present - canEditTrade returned: {}", validatorResult);
-                allowedToEdit = validatorResult;
-            } catch (Exception e) {
-                logger.warn("UserPrivilegeValidator threw an exception: {}", e.getMessage());
-                allowedToEdit = false;
-            }
-        } else {
-            // Fallback inline check: only the owning trader or users with
-            // elevated edit privileges may cancel a trade. This mirrors the
-            // validator's minimal logic so unit tests that instantiate the
-            // service without Spring continue to behave as before.
-            String currentUser = (auth != null && auth.getName() != null) ? auth.getName() : null;
-            boolean canEditOthers = auth != null && auth.getAuthorities() != null && auth.getAuthorities().stream()
-                    .anyMatch(a -> {
-                        String ga = a.getAuthority();
-                        return "ROLE_SALES".equalsIgnoreCase(ga) || "ROLE_SUPERUSER".equalsIgnoreCase(ga)
-                                || "TRADE_EDIT_ALL".equalsIgnoreCase(ga);
-                    });
-            String ownerLogin = (trade.getTraderUser() != null && trade.getTraderUser().getLoginId() != null)
-                    ? trade.getTraderUser().getLoginId()
-                    : null;
-            if (ownerLogin == null) {
-                // If the persisted trade has no owner recorded (ownerLogin == null)
-                // allow a caller with the TRADER role to edit/cancel it. This
-                // mirrors the historical behavior used by tests which create
-                // ownerless trades in setup. Users with elevated privileges
-                // (canEditOthers) remain allowed as before.
-                boolean isTrader = auth != null && auth.getAuthorities() != null && auth.getAuthorities().stream()
-                        .anyMatch(a -> "ROLE_TRADER".equalsIgnoreCase(a.getAuthority()));
-                allowedToEdit = canEditOthers || isTrader;
-            } else {
-                allowedToEdit = canEditOthers || (currentUser != null && ownerLogin.equalsIgnoreCase(currentUser));
-            }
+        boolean allowedToEdit;
+        try {
+            allowedToEdit = userPrivilegeValidator.canEditTrade(trade, auth);
+            logger.debug("UserPrivilegeValidator canEditTrade returned: {}", allowedToEdit);
+        } catch (Exception e) {
+            logger.warn("UserPrivilegeValidator threw an exception: {}", e.getMessage());
+            allowedToEdit = false;
         }
 
         if (!allowedToEdit) {
@@ -632,20 +754,27 @@ public class TradeService {
         // Debug: log whether CANCELLED status exists to help diagnose 404s in
         // integration tests where the controller maps a RuntimeException to 404.
         try {
-            var cancelledOpt = tradeStatusRepository.findByTradeStatus("CANCELLED");
+            var cancelledOpt = findTradeStatus("CANCELLED");
             logger.debug("CANCELLED status present: {}", cancelledOpt.isPresent());
             cancelledOpt.ifPresent(cs -> logger.debug("CANCELLED status id={}", cs.getId()));
         } catch (Exception e) {
             logger.warn("Error while checking CANCELLED trade status: {}", e.getMessage());
         }
 
-        TradeStatus cancelledStatus = tradeStatusRepository.findByTradeStatus("CANCELLED")
+        TradeStatus cancelledStatus = findTradeStatus("CANCELLED")
                 .orElseThrow(() -> new RuntimeException("CANCELLED status not found"));
 
+        String oldStatus = statusName(trade);
         trade.setTradeStatus(cancelledStatus);
         trade.setLastTouchTimestamp(LocalDateTime.now());
 
-        return tradeRepository.save(trade);
+        Trade saved = tradeRepository.save(trade);
+        tradeSummaryStore.changeStatus(trade, oldStatus);
+        return saved;
+    }
+
+    private static String statusName(Trade trade) {
+        return trade.getTradeStatus() != null ? trade.getTradeStatus().getTradeStatus() : null;
     }
 
     private void validateTradeCreation(TradeDTO tradeDTO) {
@@ -667,6 +796,31 @@ public class TradeService {
         }
     }
 
+    /*
+     * FIXED: the /api/cashflows/generate preview answers 400 for a payment
+     * business day convention it cannot apply, while booking logged a warning
+     * and saved the legs with unadjusted payment dates (or dropped a name that
+     * is not in the reference table). Each leg's convention must now exist and
+     * be one the schedule engine supports; checked before anything is written.
+     * IllegalArgumentException is mapped to 400 by ApiExceptionHandler.
+     */
+    private void validatePaymentConventions(TradeDTO tradeDTO) {
+        if (tradeDTO.getTradeLegs() == null) {
+            return;
+        }
+        for (TradeLegDTO legDTO : tradeDTO.getTradeLegs()) {
+            String name = legDTO.getPaymentBusinessDayConvention();
+            if ((name == null || name.isBlank()) && legDTO.getPaymentBdcId() == null) {
+                continue;
+            }
+            BusinessDayConvention convention = resolve(referenceDataCache.businessDayConventions(),
+                    name != null && !name.isBlank() ? name : null, legDTO.getPaymentBdcId())
+                    .orElseThrow(() -> new IllegalArgumentException("Unsupported business day convention: "
+                            + (name != null && !name.isBlank() ? name : "id " + legDTO.getPaymentBdcId())));
+            BusinessDayAdjustment.fromName(convention.getBdc());
+        }
+    }
+
     private Trade mapDTOToEntity(TradeDTO dto) {
         Trade trade = new Trade();
         trade.setTradeId(dto.getTradeId());
@@ -680,7 +834,9 @@ public class TradeService {
         return trade;
     }
 
-    private void createTradeLegsWithCashflows(TradeDTO tradeDTO, Trade savedTrade) {
+    // Returns the legs created, for the summary store
+    private List<TradeLeg> createTradeLegsWithCashflows(TradeDTO tradeDTO, Trade savedTrade) {
+        List<TradeLeg> legs = new ArrayList<>();
         for (int i = 0; i < tradeDTO.getTradeLegs().size(); i++) {
             var legDTO = tradeDTO.getTradeLegs().get(i);
 
@@ -701,78 +857,42 @@ public class TradeService {
             populateLegReferenceData(tradeLeg, legDTO);
 
             TradeLeg savedLeg = tradeLegRepository.save(tradeLeg);
+            legs.add(tradeLeg);
 
             // Generate cashflows for this leg
             if (tradeDTO.getTradeStartDate() != null && tradeDTO.getTradeMaturityDate() != null) {
                 generateCashflows(savedLeg, tradeDTO.getTradeStartDate(), tradeDTO.getTradeMaturityDate());
             }
         }
+        return legs;
     }
 
     private void populateLegReferenceData(TradeLeg leg, TradeLegDTO legDTO) {
-        if (legDTO.getCurrency() != null) {
-            currencyRepository.findByCurrency(legDTO.getCurrency())
-                    .ifPresent(leg::setCurrency);
-        } else if (legDTO.getCurrencyId() != null) {
-            currencyRepository.findById(legDTO.getCurrencyId())
-                    .ifPresent(leg::setCurrency);
-        }
+        resolve(referenceDataCache.currencies(), legDTO.getCurrency(), legDTO.getCurrencyId())
+                .ifPresent(leg::setCurrency);
 
-        if (legDTO.getLegType() != null) {
-            legTypeRepository.findByType(legDTO.getLegType())
-                    .ifPresent(leg::setLegRateType);
-        } else if (legDTO.getLegTypeId() != null) {
-            legTypeRepository.findById(legDTO.getLegTypeId())
-                    .ifPresent(leg::setLegRateType);
-        }
+        resolve(referenceDataCache.legTypes(), legDTO.getLegType(), legDTO.getLegTypeId())
+                .ifPresent(leg::setLegRateType);
 
-        if (legDTO.getIndexName() != null) {
-            indexRepository.findByIndex(legDTO.getIndexName())
-                    .ifPresent(leg::setIndex);
-        } else if (legDTO.getIndexId() != null) {
-            indexRepository.findById(legDTO.getIndexId())
-                    .ifPresent(leg::setIndex);
-        }
+        resolve(referenceDataCache.indices(), legDTO.getIndexName(), legDTO.getIndexId())
+                .ifPresent(leg::setIndex);
 
-        if (legDTO.getHolidayCalendar() != null) {
-            holidayCalendarRepository.findByHolidayCalendar(legDTO.getHolidayCalendar())
-                    .ifPresent(leg::setHolidayCalendar);
-        } else if (legDTO.getHolidayCalendarId() != null) {
-            holidayCalendarRepository.findById(legDTO.getHolidayCalendarId())
-                    .ifPresent(leg::setHolidayCalendar);
-        }
+        resolve(referenceDataCache.holidayCalendars(), legDTO.getHolidayCalendar(), legDTO.getHolidayCalendarId())
+                .ifPresent(leg::setHolidayCalendar);
 
-        if (legDTO.getCalculationPeriodSchedule() != null) {
-            scheduleRepository.findBySchedule(legDTO.getCalculationPeriodSchedule())
-                    .ifPresent(leg::setCalculationPeriodSchedule);
-        } else if (legDTO.getScheduleId() != null) {
-            scheduleRepository.findById(legDTO.getScheduleId())
-                    .ifPresent(leg::setCalculationPeriodSchedule);
-        }
+        resolve(referenceDataCache.schedules(), legDTO.getCalculationPeriodSchedule(), legDTO.getScheduleId())
+                .ifPresent(leg::setCalculationPeriodSchedule);
 
-        if (legDTO.getPaymentBusinessDayConvention() != null) {
-            businessDayConventionRepository.findByBdc(legDTO.getPaymentBusinessDayConvention())
-                    .ifPresent(leg::setPaymentBusinessDayConvention);
-        } else if (legDTO.getPaymentBdcId() != null) {
-            businessDayConventionRepository.findById(legDTO.getPaymentBdcId())
-                    .ifPresent(leg::setPaymentBusinessDayConvention);
-        }
+        resolve(referenceDataCache.businessDayConventions(), legDTO.getPaymentBusinessDayConvention(),
+                legDTO.getPaymentBdcId())
+                .ifPresent(leg::setPaymentBusinessDayConvention);
 
-        if (legDTO.getFixingBusinessDayConvention() != null) {
-            businessDayConventionRepository.findByBdc(legDTO.getFixingBusinessDayConvention())
-                    .ifPresent(leg::setFixingBusinessDayConvention);
-        } else if (legDTO.getFixingBdcId() != null) {
-            businessDayConventionRepository.findById(legDTO.getFixingBdcId())
-                    .ifPresent(leg::setFixingBusinessDayConvention);
-        }
+        resolve(referenceDataCache.businessDayConventions(), legDTO.getFixingBusinessDayConvention(),
+                legDTO.getFixingBdcId())
+                .ifPresent(leg::setFixingBusinessDayConvention);
 
-        if (legDTO.getPayReceiveFlag() != null) {
-            payRecRepository.findByPayRec(legDTO.getPayReceiveFlag())
-                    .ifPresent(leg::setPayReceiveFlag);
-        } else if (legDTO.getPayRecId() != null) {
-            payRecRepository.findById(legDTO.getPayRecId())
-                    .ifPresent(leg::setPayReceiveFlag);
-        }
+        resolve(referenceDataCache.payRecs(), legDTO.getPayReceiveFlag(), legDTO.getPayRecId())
+                .ifPresent(leg::setPayReceiveFlag);
     }
 
     /**
@@ -787,193 +907,81 @@ public class TradeService {
 
         logger.info("Generating cashflows for leg {} from {} to {}", leg.getLegId(), startDate, maturityDate);
 
-        String schedule = "3M"; // Default to quarterly
+        String schedule = null; // Engine defaults to quarterly
         if (leg.getCalculationPeriodSchedule() != null) {
             schedule = leg.getCalculationPeriodSchedule().getSchedule();
         }
-        // Converts the schedule string into a numeric interval (months between
-        // payments).
-        int monthsInterval = parseSchedule(schedule);
-        // calculatePaymentDates Calculates all payment dates between the start and
-        // maturity dates using this interval.
-        List<LocalDate> paymentDates = calculatePaymentDates(startDate, maturityDate, monthsInterval);
+
+        // REFACTORED: schedule parsing, payment dates and amounts come from
+        // CashflowScheduleEngine, the same code the /api/cashflows/generate
+        // preview uses, so a booked trade and its preview always agree. Period
+        // templates are memoized, so both legs of a swap share one.
+        CashflowScheduleEngine engine = cashflowScheduleEngine;
+        int monthsInterval;
+        try {
+            monthsInterval = engine.frequencyMonths(schedule);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        String legRateType = (leg.getLegRateType() != null) ? leg.getLegRateType().getType() : null;
+        // ADDED: payment dates are rolled to business days of the leg's holiday
+        // calendar using its payment business day convention (previously the
+        // convention was stored but never applied).
+        // FIXED: a convention the engine cannot apply is rejected (400), as the
+        // /api/cashflows/generate preview does, instead of booking the leg
+        // with unadjusted payment dates. Bookings are checked up front by
+        // validatePaymentConventions; this covers any other caller.
+        BusinessCalendar calendar = null;
+        BusinessDayAdjustment adjustment = BusinessDayAdjustment.UNADJUSTED;
+        if (leg.getPaymentBusinessDayConvention() != null) {
+            try {
+                adjustment = BusinessDayAdjustment.fromName(leg.getPaymentBusinessDayConvention().getBdc());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+            calendar = holidayCalendarRegistry.calendar(
+                    leg.getHolidayCalendar() != null ? leg.getHolidayCalendar().getHolidayCalendar() : null);
+        }
+        CashflowScheduleEngine.GeneratedSchedule generated = engine.generate(
+                engine.periods(startDate, maturityDate, monthsInterval), legRateType, leg.getNotional(),
+                leg.getRate(), CashflowScheduleEngine.DayCount.THIRTY_360, calendar, adjustment);
+
+        // Operators can see missing inputs without switching to DEBUG. Logged
+        // once per leg rather than once per cashflow.
+        Long tradeId = (leg.getTrade() != null) ? leg.getTrade().getId() : null;
+        if (leg.getLegRateType() == null || leg.getRate() == null || leg.getNotional() == null) {
+            logger.info(
+                    "Potential zero cashflows or missing inputs -> legId={}, tradeId={}, notional={}, rate={}, legRateType={}",
+                    leg.getLegId(), tradeId, leg.getNotional(), leg.getRate(), legRateType);
+        }
 
         /*
          * For each payment date, creates a new Cashflow object. Sets its properties
-         * (leg, paymentdate, rate). Calculates the payment value using the leg type and
-         * interval. Saves the cashflow to the database.
+         * (leg, paymentdate, rate, amount from the engine). Saves the cashflows to
+         * the database.
+         *
+         * REFACTORED: cashflows are collected and persisted with one saveAll()
+         * so Hibernate sends them as JDBC batches (hibernate.jdbc.batch_size)
+         * instead of one save() and INSERT round trip per payment date. A
+         * 30Y monthly leg was 360 round trips on its own.
          */
-        for (LocalDate paymentDate : paymentDates) {
+        LocalDateTime createdDate = LocalDateTime.now();
+        List<Cashflow> cashflows = new ArrayList<>(generated.size());
+        for (int i = 0; i < generated.size(); i++) {
             Cashflow cashflow = new Cashflow();
             cashflow.setTradeLeg(leg);
-            cashflow.setValueDate(paymentDate);
+            cashflow.setValueDate(generated.paymentDate(i));
             cashflow.setRate(leg.getRate());
-
-            BigDecimal cashflowValue = calculateCashflowValue(leg, monthsInterval);
-
-            // Debug instrumentation: log leg inputs and computed value so can
-            // diagnose why some cashflows are persisted with payment_value = 0.00
-            String legRateType = (leg.getLegRateType() != null) ? leg.getLegRateType().getType() : null;
-            Long tradeId = (leg.getTrade() != null) ? leg.getTrade().getId() : null;
-            logger.debug(
-                    "Cashflow inputs before save -> legId={}, tradeId={}, notional={}, rate={}, legRateType={}, payRec={}, paymentDate={}, monthsInterval={}",
-                    leg.getLegId(), tradeId, leg.getNotional(), leg.getRate(), legRateType, leg.getPayReceiveFlag(),
-                    paymentDate, monthsInterval);
-            logger.debug("Computed cashflowValue for leg {} on {} = {}", leg.getLegId(), paymentDate, cashflowValue);
-
-            // If the computed value is zero or key inputs are missing, also emit
-            // an INFO-level summary so operators can see the issue without
-            // changing logger levels to DEBUG.
-            try {
-                boolean isZero = cashflowValue == null || cashflowValue.compareTo(BigDecimal.ZERO) == 0;
-                boolean missingInputs = (leg.getLegRateType() == null) || (leg.getRate() == null)
-                        || (leg.getNotional() == null);
-                if (isZero || missingInputs) {
-                    logger.info(
-                            "Potential zero cashflow or missing inputs -> legId={}, tradeId={}, notional={}, rate={}, legRateType={}, paymentDate={}, computedValue={}",
-                            leg.getLegId(), tradeId, leg.getNotional(), leg.getRate(), legRateType, paymentDate,
-                            cashflowValue);
-                }
-            } catch (Exception ignore) {
-                // Best-effort logging - do not break cashflow generation if logging throws
-            }
-
-            cashflow.setPaymentValue(cashflowValue);
-
+            cashflow.setPaymentValue(generated.amount(i));
             cashflow.setPayRec(leg.getPayReceiveFlag());
             cashflow.setPaymentBusinessDayConvention(leg.getPaymentBusinessDayConvention());
-            cashflow.setCreatedDate(LocalDateTime.now());
+            cashflow.setCreatedDate(createdDate);
             cashflow.setActive(true);
-
-            cashflowRepository.save(cashflow);
-        }
-
-        logger.info("Generated {} cashflows for leg {}", paymentDates.size(), leg.getLegId());
-    }
-
-    private int parseSchedule(String schedule) {
-        if (schedule == null || schedule.trim().isEmpty()) {
-            return 3; // Default to quarterly
-        }
-
-        schedule = schedule.trim();
-
-        switch (schedule.toLowerCase()) {
-            case "monthly":
-                return 1;
-            case "quarterly":
-                return 3;
-            case "semi-annually":
-            case "semiannually":
-            case "half-yearly":
-                return 6;
-            case "annually":
-            case "yearly":
-                return 12;
-            default:
-                if (schedule.endsWith("M") || schedule.endsWith("m")) {
-                    try { // e.g 12M" becomes 12 (months interval), and the "M" is removed.
-                        return Integer.parseInt(schedule.substring(0, schedule.length() - 1));
-                    } catch (NumberFormatException e) {
-                        throw new RuntimeException("Invalid schedule format: " + schedule);
-                    }
-                }
-                throw new RuntimeException("Invalid schedule format: " + schedule);
+            cashflows.add(cashflow);
         }
-    }
-
-    private List<LocalDate> calculatePaymentDates(LocalDate startDate, LocalDate maturityDate, int monthsInterval) {
-        List<LocalDate> dates = new ArrayList<>();
-        LocalDate currentDate = startDate.plusMonths(monthsInterval);
-
-        while (!currentDate.isAfter(maturityDate)) {
-            dates.add(currentDate);
-            // plusMonths is from built in java LocalDate.class
-            currentDate = currentDate.plusMonths(monthsInterval);
-        }
-
-        return dates;
-    }
+        cashflowRepository.saveAll(cashflows);
 
-    /*
-     * Calculates the payment value for a cashflow, based on the properties of a
-     * trade leg and the payment interval (in months).
-     */
-    private BigDecimal calculateCashflowValue(TradeLeg leg, int monthsInterval) {
-        if (leg.getLegRateType() == null) { // If the leg's rate type is not set, the method returns zero, prevents
-                                            // calculation errors and signals missing data.
-            return BigDecimal.ZERO.setScale(2, RoundingMode.HALF_EVEN);// REFACRORED:format number to 2 decimal places
-                                                                       // using banker's rounding
-        }
-
-        String legType = leg.getLegRateType().getType();
-        // Notional is the principal amount or face value on which interest payments are
-        // calculated in a financial contract (like a loan, bond, or swap). For "Fixed"
-        // legs, the cashflow value is calculated as:Cashflow = Notional * Rate * Months
-        // /12. This formula annualises the rate and scales it by the payment
-        // interval(This ensures the payment matches the correct portion of the annual
-        // interest for the interval.To calculate the payment for a period shorter than
-        // a year, multiply the notional by the annual rate, then adjust for the
-        // fraction of the year covered by the payment interval (e.g., for a quarterly
-        // payment, use 3/12 of the annual rate). The result is wrapped in a
-        // BigDecimal for precision.
-        // REFACTORED: changed .equals to equalsIgnoreCase to make the leg-type checks
-        // case-insensitive, if the database or test says "fixed" or "FIXED", this
-        // fails.
-        if ("Fixed".equalsIgnoreCase(legType)) {
-            // REFACTORED changed double to BigDecimal for money to stay as BigDecimal to
-            // avoid floating-point drift, loses precision and to avoid null notionals by
-            // using 0 instead to avoid a NullPointerException.
-            BigDecimal notional = (leg.getNotional() == null) ? BigDecimal.ZERO : leg.getNotional();
-            // REFACTORED TO FIX THE 100x bug
-            BigDecimal rawRate = BigDecimal.valueOf(leg.getRate());
-            // If the rate > 1 (like 3.5), it assumes it's a percentage and divides by 100.
-            // If the rate ≤ 1 (like 0.035), it assumes it's already a decimal and leaves it
-            // as-is.
-            BigDecimal rateDecimal = (rawRate.compareTo(BigDecimal.ONE) > 0) ? rawRate.divide(BigDecimal.valueOf(100))
-                    : rawRate;
-            // Converts months into fraction e.g 3 months into 0.25 a quarter, keeping 10
-            // decimal places
-            BigDecimal yearFraction = BigDecimal.valueOf(monthsInterval).divide(BigDecimal.valueOf(12), 10,
-                    RoundingMode.HALF_EVEN);// month/12 e.g 3/12 = 0.25 as BigDecimal
-            // 10,000,000 * 0.035 * (3 / 12) = 87,500
-            BigDecimal result = notional.multiply(rateDecimal).multiply(yearFraction).setScale(2,
-                    RoundingMode.HALF_EVEN);
-
-            return result;
-        } else if ("Floating".equalsIgnoreCase(legType)) {
-            // Refactor: when an explicit `rate` is present on the TradeLeg. Historically
-            // floating legs always returned zero here because the system expects
-            // index fixings from market data. To make UI-driven testing and
-            // one-off pricing easier calculate payments when the caller
-            // provides a concrete rate. If no rate is supplied preserve the
-            // prior behaviour and return zero so production flows that rely on
-            // a RateProvider remain unchanged.
-            // If/when a MarketData service is added, this method should be
-            // updated to fetch index fixings and fall back to any explicit
-            // rate only when market data is unavailable.
-            // If a floating leg has an explicit rate (e.g. provided by the UI or
-            // pre-populated), use it to calculate the cashflow value using the same
-            // accrual logic as a fixed leg. If no rate is available keep the
-            // previous behaviour and return zero (this preserves current behaviour
-            // until a MarketData/RateProvider is implemented).
-            if (leg.getRate() != null) {
-                BigDecimal notional = (leg.getNotional() == null) ? BigDecimal.ZERO : leg.getNotional();
-                BigDecimal rawRate = BigDecimal.valueOf(leg.getRate());
-                BigDecimal rateDecimal = (rawRate.compareTo(BigDecimal.ONE) > 0)
-                        ? rawRate.divide(BigDecimal.valueOf(100))
-                        : rawRate;
-                BigDecimal yearFraction = BigDecimal.valueOf(monthsInterval).divide(BigDecimal.valueOf(12), 10,
-                        RoundingMode.HALF_EVEN);
-                BigDecimal result = notional.multiply(rateDecimal).multiply(yearFraction).setScale(2,
-                        RoundingMode.HALF_EVEN);
-                return result;
-            }
-            // No explicit rate available for floating leg return zero as before.
-            return BigDecimal.ZERO.setScale(2, RoundingMode.HALF_EVEN);
-        }
-        // Fallback for unknown leg types return 0,0
-        return BigDecimal.ZERO.setScale(2, RoundingMode.HALF_EVEN);
+        logger.info("Generated {} cashflows for leg {}", cashflows.size(), leg.getLegId());
     }
 
     private void validateReferenceData(Trade trade) {
@@ -988,9 +996,12 @@ public class TradeService {
         }
     }
 
-    // NEW METHOD: Generate the next trade ID (sequential)
+    // REFACTORED: trade IDs come from TradeIdAllocator instead of
+    // 10000 + count(). count() scanned the whole table on every booking and
+    // repeated IDs once amendments added extra versions or two bookings ran
+    // concurrently.
     private Long generateNextTradeId() {
-        return 10000L + tradeRepository.count();
+        return tradeIdAllocator.nextTradeId();
     }
 
 }
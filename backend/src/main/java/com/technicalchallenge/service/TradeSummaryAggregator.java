@@ -0,0 +1,330 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.dto.DailySummaryDTO;
+import com.technicalchallenge.dto.LegTotalsRow;
+import com.technicalchallenge.dto.TradeCountRow;
+import com.technicalchallenge.dto.TradeDTO;
+import com.technicalchallenge.dto.TradeLegDTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * TradeSummaryAggregator
+ *
+ * Every dashboard aggregate worked out in one pass over the trades, replacing
+ * the separate stream/loop per figure (status counts, notional by currency,
+ * type:counterparty counts, delta, seven per-day filters, weekly
+ * re-aggregation and book activity) that getTradeSummary used to run.
+ *
+ * Each trade is added to the all-time totals, its book's totals and, when its
+ * trade date falls in the window (e.g. the last seven days), to the window
+ * totals and that day's totals. Each leg's notional and notional * rate are
+ * converted to scaled longs once and then added everywhere they count.
+ *
+ * Partial aggregators can be combined, so large trade lists (an MO user
+ * viewing big books) are aggregated on a parallel stream: see aggregate().
+ * A single instance is not thread-safe.
+ *
+ * The same totals can be fed pre-grouped rows from the database
+ * (TradeCountRow, LegTotalsRow) instead of TradeDTOs, so the dashboard need
+ * not load the trades at all.
+ */
+public final class TradeSummaryAggregator {
+
+    /** Below this many trades a parallel stream costs more than it saves */
+    static final int PARALLEL_THRESHOLD = 5_000;
+
+    private final long windowStartEpochDay;
+    private final Totals allTime = new Totals();
+    private final Totals window = new Totals();
+    private final Totals[] days;
+    private final Map<Long, Totals> books = new HashMap<>();
+
+    /**
+     * @param windowStart first day of the window, e.g. today minus 6
+     * @param windowDays  number of days in the window, e.g. 7
+     */
+    public TradeSummaryAggregator(LocalDate windowStart, int windowDays) {
+        this.windowStartEpochDay = windowStart.toEpochDay();
+        this.days = new Totals[windowDays];
+        for (int i = 0; i < windowDays; i++) {
+            days[i] = new Totals();
+        }
+    }
+
+    public static Collector<TradeDTO, ?, TradeSummaryAggregator> collector(LocalDate windowStart, int windowDays) {
+        return Collector.of(() -> new TradeSummaryAggregator(windowStart, windowDays),
+                TradeSummaryAggregator::accept,
+                TradeSummaryAggregator::combine);
+    }
+
+    /**
+     * Aggregates the trades in one pass, splitting large lists across a
+     * parallel stream and merging the partial results.
+     */
+    public static TradeSummaryAggregator aggregate(List<TradeDTO> trades, LocalDate windowStart, int windowDays) {
+        if (trades == null) {
+            return new TradeSummaryAggregator(windowStart, windowDays);
+        }
+        return (trades.size() >= PARALLEL_THRESHOLD ? trades.parallelStream() : trades.stream())
+                .collect(collector(windowStart, windowDays));
+    }
+
+    public void accept(TradeDTO trade) {
+        if (trade == null) {
+            return;
+        }
+        Totals book = book(trade.getBookId());
+        Totals day = day(trade.getTradeDate());
+        addTrades(book, day, trade.getTradeStatus(), trade.getTradeType(), trade.getCounterpartyName(), 1);
+
+        if (trade.getTradeLegs() == null) {
+            return;
+        }
+        for (TradeLegDTO leg : trade.getTradeLegs()) {
+            if (leg == null) {
+                continue;
+            }
+            addNotional(leg, book, day);
+            addDelta(leg, day);
+        }
+    }
+
+    /** Adds a pre-grouped row of trade counts */
+    public void add(TradeCountRow row) {
+        long count = row.tradeCount() == null ? 0 : row.tradeCount();
+        addTrades(book(row.bookId()), day(row.tradeDate()), row.tradeStatus(), row.tradeType(),
+                row.counterpartyName(), count);
+    }
+
+    /**
+     * Adds a pre-grouped row of leg totals. The row's delta is a sum over many
+     * legs, so it is rounded to cents once here rather than per leg.
+     */
+    public void add(LegTotalsRow row) {
+        Totals book = book(row.bookId());
+        Totals day = day(row.tradeDate());
+        String currency = row.currency();
+        BigDecimal notional = row.notional();
+        if (currency != null && notional != null) {
+            allTime.notional(currency).add(notional);
+            book.notional(currency).add(notional);
+            if (day != null) {
+                window.notional(currency).add(notional);
+                day.notional(currency).add(notional);
+            }
+        }
+        if (row.delta() != null) {
+            BigDecimal delta = toBigDecimal(row.delta()).setScale(FixedPoint.AMOUNT_SCALE, RoundingMode.HALF_EVEN);
+            allTime.delta.add(delta);
+            if (day != null) {
+                window.delta.add(delta);
+            }
+        }
+    }
+
+    private static BigDecimal toBigDecimal(Number n) {
+        if (n instanceof BigDecimal) {
+            return (BigDecimal) n;
+        }
+        if (n instanceof Double || n instanceof Float) {
+            return BigDecimal.valueOf(n.doubleValue());
+        }
+        return new BigDecimal(n.toString());
+    }
+
+    private Totals book(Long bookId) {
+        return books.computeIfAbsent(bookId == null ? -1L : bookId, k -> new Totals());
+    }
+
+    // Totals for the window day of the trade date, or null outside the window
+    private Totals day(LocalDate tradeDate) {
+        if (tradeDate == null) {
+            return null;
+        }
+        long offset = tradeDate.toEpochDay() - windowStartEpochDay;
+        return offset >= 0 && offset < days.length ? days[(int) offset] : null;
+    }
+
+    private void addTrades(Totals book, Totals day, String status, String tradeType, String counterparty,
+            long count) {
+        String countedStatus = status != null && !status.isBlank() ? status : null;
+        String typeAndCounterparty = (tradeType == null ? "UNKNOWN" : tradeType) + ":"
+                + (counterparty == null ? "UNKNOWN" : counterparty);
+        allTime.addTrades(countedStatus, typeAndCounterparty, count);
+        book.tradeCount += count;
+        if (day != null) {
+            window.addTrades(countedStatus, typeAndCounterparty, count);
+            day.addTrades(countedStatus, typeAndCounterparty, count);
+        }
+    }
+
+    private void addNotional(TradeLegDTO leg, Totals book, Totals day) {
+        String currency = leg.getCurrency();
+        BigDecimal notional = leg.getNotional();
+        if (currency == null || notional == null) {
+            return;
+        }
+        int scale = Math.max(notional.scale(), 0);
+        long units;
+        try {
+            units = FixedPoint.units(notional, scale);
+        } catch (ArithmeticException e) {
+            // Too large for a long: Sum takes the BigDecimal as is
+            allTime.notional(currency).add(notional);
+            book.notional(currency).add(notional);
+            if (day != null) {
+                window.notional(currency).add(notional);
+                day.notional(currency).add(notional);
+            }
+            return;
+        }
+        allTime.notional(currency).add(units, scale);
+        book.notional(currency).add(units, scale);
+        if (day != null) {
+            window.notional(currency).add(units, scale);
+            day.notional(currency).add(units, scale);
+        }
+    }
+
+    // Naive delta placeholder: notional * rate, rounded to cents (HALF_EVEN)
+    // per leg. A leg whose notional or rate has too many decimal places for
+    // the scaled-long path is multiplied as BigDecimal and rounded the same way.
+    private void addDelta(TradeLegDTO leg, Totals day) {
+        if (leg.getNotional() == null || leg.getRate() == null) {
+            return;
+        }
+        long cents;
+        try {
+            long notionalCents = FixedPoint.units(leg.getNotional(), FixedPoint.AMOUNT_SCALE);
+            long rateUnits = FixedPoint.units(leg.getRate(), FixedPoint.RATE_SCALE);
+            cents = FixedPoint.mulDiv(notionalCents, rateUnits, FixedPoint.RATE_ONE);
+        } catch (ArithmeticException e) {
+            BigDecimal delta = leg.getNotional().multiply(BigDecimal.valueOf(leg.getRate()))
+                    .setScale(FixedPoint.AMOUNT_SCALE, RoundingMode.HALF_EVEN);
+            allTime.delta.add(delta);
+            if (day != null) {
+                window.delta.add(delta);
+            }
+            return;
+        }
+        allTime.delta.add(cents, FixedPoint.AMOUNT_SCALE);
+        if (day != null) {
+            window.delta.add(cents, FixedPoint.AMOUNT_SCALE);
+        }
+    }
+
+    /** Merges another partial result (same window) into this one */
+    public TradeSummaryAggregator combine(TradeSummaryAggregator other) {
+        if (other.windowStartEpochDay != windowStartEpochDay || other.days.length != days.length) {
+            throw new IllegalArgumentException("Cannot combine aggregators over different windows");
+        }
+        allTime.merge(other.allTime);
+        window.merge(other.window);
+        for (int i = 0; i < days.length; i++) {
+            days[i].merge(other.days[i]);
+        }
+        other.books.forEach((bookKey, totals) -> books.computeIfAbsent(bookKey, k -> new Totals()).merge(totals));
+        return this;
+    }
+
+    /** Totals over every trade */
+    public Totals allTime() {
+        return allTime;
+    }
+
+    /** Totals over trades dated inside the window */
+    public Totals window() {
+        return window;
+    }
+
+    /** One comparison summary per window day, oldest first */
+    public List<DailySummaryDTO.DailyComparisonSummary> dailyComparisons() {
+        List<DailySummaryDTO.DailyComparisonSummary> result = new ArrayList<>(days.length);
+        for (Totals day : days) {
+            DailySummaryDTO.DailyComparisonSummary summary = new DailySummaryDTO.DailyComparisonSummary();
+            summary.setTradeCount((int) day.tradeCount);
+            summary.setNotionalByCurrency(day.notionalByCurrency());
+            result.add(summary);
+        }
+        return result;
+    }
+
+    /** Trade count and notional by currency per book (-1 for trades with no book) */
+    public Map<Long, DailySummaryDTO.BookActivitySummary> bookActivity() {
+        Map<Long, DailySummaryDTO.BookActivitySummary> result = new HashMap<>();
+        books.forEach((bookKey, totals) -> {
+            DailySummaryDTO.BookActivitySummary summary = new DailySummaryDTO.BookActivitySummary();
+            summary.setTradeCount((int) totals.tradeCount);
+            summary.setNotionalByCurrency(totals.notionalByCurrency());
+            result.put(bookKey, summary);
+        });
+        return result;
+    }
+
+    /**
+     * Counts and sums for one slice of the trades. Amounts stay as
+     * FixedPoint.Sum until read, so results only allocate BigDecimals once.
+     */
+    public static final class Totals {
+        private long tradeCount;
+        private final Map<String, Long> byStatus = new HashMap<>();
+        private final Map<String, FixedPoint.Sum> notional = new HashMap<>();
+        private final Map<String, Long> byTypeAndCounterparty = new HashMap<>();
+        private final FixedPoint.Sum delta = new FixedPoint.Sum().add(0, FixedPoint.AMOUNT_SCALE);
+
+        private void addTrades(String status, String typeAndCounterparty, long count) {
+            tradeCount += count;
+            if (status != null) {
+                byStatus.merge(status, count, Long::sum);
+            }
+            byTypeAndCounterparty.merge(typeAndCounterparty, count, Long::sum);
+        }
+
+        private FixedPoint.Sum notional(String currency) {
+            return notional.computeIfAbsent(currency, c -> new FixedPoint.Sum());
+        }
+
+        private void merge(Totals other) {
+            tradeCount += other.tradeCount;
+            other.byStatus.forEach((k, v) -> byStatus.merge(k, v, Long::sum));
+            other.byTypeAndCounterparty.forEach((k, v) -> byTypeAndCounterparty.merge(k, v, Long::sum));
+            other.notional.forEach((currency, sum) -> notional(currency).add(sum));
+            delta.add(other.delta);
+        }
+
+        public long getTradeCount() {
+            return tradeCount;
+        }
+
+        public Map<String, Long> tradesByStatus() {
+            return new HashMap<>(byStatus);
+        }
+
+        public Map<String, BigDecimal> notionalByCurrency() {
+            Map<String, BigDecimal> result = new HashMap<>();
+            notional.forEach((currency, sum) -> result.put(currency, sum.toBigDecimal()));
+            return result;
+        }
+
+        public Map<String, Long> tradesByTypeAndCounterparty() {
+            return new HashMap<>(byTypeAndCounterparty);
+        }
+
+        public BigDecimal delta() {
+            return delta.toBigDecimal();
+        }
+
+        /** "delta" and "vega"; vega stays zero as no volatility sensitivity is computed */
+        public Map<String, BigDecimal> riskExposure() {
+            return Map.of("delta", delta(), "vega", BigDecimal.ZERO);
+        }
+    }
+}
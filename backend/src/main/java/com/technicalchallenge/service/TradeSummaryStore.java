@@ -0,0 +1,351 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.dto.LegTotalsRow;
+import com.technicalchallenge.dto.TradeCountRow;
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.model.TradeLeg;
+import com.technicalchallenge.model.TradeSummaryCount;
+import com.technicalchallenge.model.TradeSummaryLeg;
+import com.technicalchallenge.repository.TradeRepository;
+import com.technicalchallenge.repository.TradeSummaryCountRepository;
+import com.technicalchallenge.repository.TradeSummaryLegRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * TradeSummaryStore
+ *
+ * Dashboard totals maintained as trades are booked instead of recomputed on
+ * every request: trade counts per trader, book, trade date, status, type and
+ * counterparty (trade_summary_count) and notional/delta per trader, book,
+ * trade date and currency (trade_summary_leg). TradeService applies the
+ * add/subtract deltas inside the booking transaction, so the store commits or
+ * rolls back with the trade itself.
+ *
+ * The store counts every version of a trade, like the live dashboard queries:
+ * booking or amending adds the new version, and a status change moves one
+ * count from the old status to the new one.
+ *
+ * Rows are locked with SELECT ... FOR UPDATE in key order, so two bookings
+ * touching the same rows cannot deadlock. A missing row is created (at zero)
+ * in its own short transaction first, so two bookings racing to create the
+ * same row do not fail each other.
+ *
+ * Trades written without going through TradeService (bulk loads, seed data,
+ * manual fixes) are not seen; rebuild() recomputes the whole store from the
+ * trade tables. It runs automatically at startup when the store is empty.
+ *
+ * FIXED: a rebuild no longer races the bookings. A booking holds the read
+ * side of rebuildLock from its first delta until its transaction completes;
+ * rebuild() holds the write side for its whole transaction. So a rebuild
+ * waits for the bookings that already applied deltas to commit (their trades
+ * are then counted from the trade tables), and bookings that come during the
+ * rebuild wait and apply their deltas to the rebuilt rows. The lock is per
+ * application instance, as the other in-memory caches assume.
+ */
+@Component
+public class TradeSummaryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeSummaryStore.class);
+
+    // Scale of the stored delta; the dashboard rounds the total to cents
+    static final int DELTA_SCALE = 8;
+
+    private static final long NO_BOOK = -1L;
+
+    // Unit separator: cannot appear in a login id, status or name typed in the UI
+    private static final char KEY_SEPARATOR = '\u001F';
+
+    private final TradeSummaryCountRepository countRepository;
+    private final TradeSummaryLegRepository legRepository;
+    private final TradeRepository tradeRepository;
+    private final TransactionTemplate createRowTransaction;
+    private final TransactionTemplate rebuildTransaction;
+    // Read side: bookings applying deltas; write side: rebuild()
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    public TradeSummaryStore(TradeSummaryCountRepository countRepository,
+            TradeSummaryLegRepository legRepository,
+            TradeRepository tradeRepository,
+            PlatformTransactionManager transactionManager) {
+        this.countRepository = countRepository;
+        this.legRepository = legRepository;
+        this.tradeRepository = tradeRepository;
+        // A zero row must commit on its own so a concurrent booking can lock
+        // it; a rolled-back booking just leaves the zero row behind.
+        this.createRowTransaction = new TransactionTemplate(transactionManager);
+        this.createRowTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /** Result of rebuild(), returned by the rebuild endpoint */
+    public record RebuildResult(int traders, int countRows, int legRows) {
+    }
+
+    /**
+     * Adds a newly saved trade version and its legs. Must be called inside
+     * the transaction that saved them.
+     */
+    public void addTrade(Trade trade, List<TradeLeg> legs) {
+        String loginId = loginId(trade);
+        if (loginId == null) {
+            // Not visible on any dashboard (the queries match on trader)
+            return;
+        }
+        Map<String, TradeSummaryCount> counts = new TreeMap<>();
+        TradeSummaryCount count = countRow(loginId, trade, statusOf(trade));
+        count.setTradeCount(1L);
+        counts.put(count.getSummaryKey(), count);
+
+        Map<String, TradeSummaryLeg> legTotals = new TreeMap<>();
+        for (TradeLeg leg : legs) {
+            if (leg == null || leg.getNotional() == null) {
+                continue;
+            }
+            TradeSummaryLeg row = legRow(loginId, trade,
+                    leg.getCurrency() != null ? leg.getCurrency().getCurrency() : null);
+            TradeSummaryLeg existing = legTotals.putIfAbsent(row.getSummaryKey(), row);
+            TradeSummaryLeg target = existing != null ? existing : row;
+            target.setNotional(target.getNotional().add(leg.getNotional()));
+            if (leg.getRate() != null) {
+                target.setDelta(target.getDelta().add(leg.getNotional()
+                        .multiply(BigDecimal.valueOf(leg.getRate()))
+                        .setScale(DELTA_SCALE, RoundingMode.HALF_EVEN)));
+            }
+        }
+        apply(counts, legTotals);
+    }
+
+    /**
+     * Moves one count of an existing trade version from oldStatus to its
+     * current status. Must be called inside the transaction that changed it.
+     */
+    public void changeStatus(Trade trade, String oldStatus) {
+        String loginId = loginId(trade);
+        String newStatus = statusOf(trade);
+        if (loginId == null || newStatus.equals(nullToEmpty(oldStatus))) {
+            return;
+        }
+        Map<String, TradeSummaryCount> counts = new TreeMap<>();
+        TradeSummaryCount removed = countRow(loginId, trade, nullToEmpty(oldStatus));
+        removed.setTradeCount(-1L);
+        counts.put(removed.getSummaryKey(), removed);
+        TradeSummaryCount added = countRow(loginId, trade, newStatus);
+        added.setTradeCount(1L);
+        counts.put(added.getSummaryKey(), added);
+        apply(counts, Map.of());
+    }
+
+    /** All-time counts for a (lower-case) trader, as TradeRepository.countTradesForTrader returns them */
+    public List<TradeCountRow> countTradesForTrader(String loginId) {
+        return countRepository.countTradesForTrader(loginId);
+    }
+
+    /** All-time leg totals for a (lower-case) trader, as TradeRepository.sumLegsForTrader returns them */
+    public List<LegTotalsRow> sumLegsForTrader(String loginId) {
+        return legRepository.sumLegsForTrader(loginId);
+    }
+
+    /**
+     * Recomputes the whole store from the trade and leg tables. Waits for the
+     * bookings that have applied deltas to complete, and holds new ones back
+     * until the rebuilt store has committed.
+     */
+    public RebuildResult rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            return rebuildTransaction.execute(status -> rebuildRows());
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    private RebuildResult rebuildRows() {
+        countRepository.deleteAllRows();
+        legRepository.deleteAllRows();
+        List<TradeSummaryCount> counts = new ArrayList<>();
+        List<TradeSummaryLeg> legs = new ArrayList<>();
+        List<String> loginIds = tradeRepository.findTraderLoginIds();
+        for (String loginId : loginIds) {
+            for (TradeCountRow row : tradeRepository.countTradesForTraderByDate(loginId)) {
+                TradeSummaryCount count = countRow(loginId, row.tradeDate(), row.bookId(),
+                        nullToEmpty(row.tradeStatus()), row.tradeType(), row.counterpartyName());
+                count.setTradeCount(row.tradeCount());
+                counts.add(count);
+            }
+            for (LegTotalsRow row : tradeRepository.sumLegsForTraderByDate(loginId)) {
+                TradeSummaryLeg leg = legRow(loginId, row.tradeDate(), row.bookId(), row.currency());
+                leg.setNotional(row.notional() != null ? row.notional() : BigDecimal.ZERO);
+                if (row.delta() != null) {
+                    leg.setDelta(new BigDecimal(row.delta().toString())
+                            .setScale(DELTA_SCALE, RoundingMode.HALF_EVEN));
+                }
+                legs.add(leg);
+            }
+        }
+        countRepository.saveAll(counts);
+        legRepository.saveAll(legs);
+        logger.info("Rebuilt trade summary store: {} traders, {} count rows, {} leg rows",
+                loginIds.size(), counts.size(), legs.size());
+        return new RebuildResult(loginIds.size(), counts.size(), legs.size());
+    }
+
+    // Fill an empty store (new database, or first start after the store was
+    // added). Failure is logged rather than stopping the application; the
+    // rebuild endpoint can be used afterwards.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        try {
+            if (countRepository.count() == 0 && legRepository.count() == 0) {
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not build trade summary store at startup: {}", e.getMessage());
+        }
+    }
+
+    // Lock every affected row in key order and add the deltas
+    private void apply(Map<String, TradeSummaryCount> counts, Map<String, TradeSummaryLeg> legs) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuildLock.readLock().lock();
+            try {
+                applyDeltas(counts, legs);
+            } finally {
+                rebuildLock.readLock().unlock();
+            }
+            return;
+        }
+        holdReadLockUntilCompletion();
+        applyDeltas(counts, legs);
+    }
+
+    // Once per transaction; released when it commits or rolls back, so a
+    // rebuild never reads the trade tables between a delta and its commit
+    private void holdReadLockUntilCompletion() {
+        if (TransactionSynchronizationManager.hasResource(rebuildLock)) {
+            return;
+        }
+        rebuildLock.readLock().lock();
+        TransactionSynchronizationManager.bindResource(rebuildLock, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(rebuildLock);
+                rebuildLock.readLock().unlock();
+            }
+        });
+    }
+
+    private void applyDeltas(Map<String, TradeSummaryCount> counts, Map<String, TradeSummaryLeg> legs) {
+        counts.values().forEach(delta -> {
+            TradeSummaryCount row = lockCount(delta);
+            row.setTradeCount(row.getTradeCount() + delta.getTradeCount());
+        });
+        legs.values().forEach(delta -> {
+            TradeSummaryLeg row = lockLeg(delta);
+            row.setNotional(row.getNotional().add(delta.getNotional()));
+            row.setDelta(row.getDelta().add(delta.getDelta()));
+        });
+    }
+
+    private TradeSummaryCount lockCount(TradeSummaryCount delta) {
+        String key = delta.getSummaryKey();
+        return countRepository.findForUpdate(key).orElseGet(() -> {
+            createRow(key, () -> countRepository.saveAndFlush(new TradeSummaryCount(key, delta.getTraderLoginId(),
+                    delta.getBookId(), delta.getTradeDate(), delta.getTradeStatus(), delta.getTradeType(),
+                    delta.getCounterpartyName(), 0L)));
+            return countRepository.findForUpdate(key)
+                    .orElseThrow(() -> new IllegalStateException("Summary row missing after insert: " + key));
+        });
+    }
+
+    private TradeSummaryLeg lockLeg(TradeSummaryLeg delta) {
+        String key = delta.getSummaryKey();
+        return legRepository.findForUpdate(key).orElseGet(() -> {
+            createRow(key, () -> legRepository.saveAndFlush(new TradeSummaryLeg(key, delta.getTraderLoginId(),
+                    delta.getBookId(), delta.getTradeDate(), delta.getCurrency(), BigDecimal.ZERO,
+                    BigDecimal.ZERO)));
+            return legRepository.findForUpdate(key)
+                    .orElseThrow(() -> new IllegalStateException("Summary row missing after insert: " + key));
+        });
+    }
+
+    private void createRow(String key, Runnable insertZeroRow) {
+        try {
+            createRowTransaction.executeWithoutResult(status -> insertZeroRow.run());
+        } catch (DataIntegrityViolationException e) {
+            // Another booking created the row first; lock theirs
+            logger.debug("Summary row {} created concurrently", key);
+        }
+    }
+
+    private static TradeSummaryCount countRow(String loginId, Trade trade, String status) {
+        return countRow(loginId, trade.getTradeDate(), trade.getBook() != null ? trade.getBook().getId() : null,
+                status, trade.getTradeType() != null ? trade.getTradeType().getTradeType() : null,
+                trade.getCounterparty() != null ? trade.getCounterparty().getName() : null);
+    }
+
+    private static TradeSummaryCount countRow(String loginId, LocalDate tradeDate, Long bookId, String status,
+            String tradeType, String counterpartyName) {
+        long book = bookId != null ? bookId : NO_BOOK;
+        String type = nullToEmpty(tradeType);
+        String counterparty = nullToEmpty(counterpartyName);
+        String key = key(loginId, book, tradeDate, status, type, counterparty);
+        return new TradeSummaryCount(key, loginId, book, tradeDate, status, type, counterparty, 0L);
+    }
+
+    private static TradeSummaryLeg legRow(String loginId, Trade trade, String currency) {
+        return legRow(loginId, trade.getTradeDate(), trade.getBook() != null ? trade.getBook().getId() : null,
+                currency);
+    }
+
+    private static TradeSummaryLeg legRow(String loginId, LocalDate tradeDate, Long bookId, String currency) {
+        long book = bookId != null ? bookId : NO_BOOK;
+        String ccy = nullToEmpty(currency);
+        return new TradeSummaryLeg(key(loginId, book, tradeDate, ccy), loginId, book, tradeDate, ccy,
+                BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    private static String key(String loginId, long bookId, LocalDate tradeDate, String... names) {
+        StringBuilder key = new StringBuilder(loginId).append(KEY_SEPARATOR).append(bookId)
+                .append(KEY_SEPARATOR).append(tradeDate != null ? tradeDate.toString() : "");
+        for (String name : names) {
+            key.append(KEY_SEPARATOR).append(name);
+        }
+        return key.toString();
+    }
+
+    private static String loginId(Trade trade) {
+        if (trade.getTraderUser() == null || trade.getTraderUser().getLoginId() == null) {
+            return null;
+        }
+        return trade.getTraderUser().getLoginId().toLowerCase(Locale.ROOT);
+    }
+
+    private static String statusOf(Trade trade) {
+        return trade.getTradeStatus() != null ? nullToEmpty(trade.getTradeStatus().getTradeStatus()) : "";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -3,6 +3,7 @@ package com.technicalchallenge.validation;
 import org.springframework.stereotype.Component;
 
 import com.technicalchallenge.dto.TradeDTO;
+import com.technicalchallenge.service.TradeResolutionContext;
 
 /**
  * Adapter/engine that delegates to the repository-backed
@@ -27,4 +28,17 @@ public class EntityStatusValidationEngine {
         return result;
     }
 
+    /**
+     * ADDED: as validate(trade), checking the references already resolved in
+     * references; null looks them up as validate(trade) does.
+     */
+    public TradeValidationResult validate(TradeDTO trade, TradeResolutionContext references) {
+        if (references == null) {
+            return validate(trade);
+        }
+        TradeValidationResult result = new TradeValidationResult();
+        entityValidator.validate(trade, references, result);
+        return result;
+    }
+
 }
@@ -11,6 +11,7 @@ import com.technicalchallenge.model.ApplicationUser;
 import com.technicalchallenge.repository.BookRepository;
 import com.technicalchallenge.repository.CounterpartyRepository;
 import com.technicalchallenge.repository.ApplicationUserRepository;
+import com.technicalchallenge.service.TradeResolutionContext;
 
 /**
  * Validator that ensures referenced entities (book, counterparty, users)
@@ -118,4 +119,45 @@ public class EntityStatusValidator {
             result.setError("Trader user reference is required");
         }
     }
+
+    /**
+     * ADDED: the same checks against references the booking has resolved
+     * already (TradeService.resolveReferences), so no repository is queried.
+     * What is checked is what will be booked: the book and counterparty are
+     * found by name first and the trader by first name, then login id, as
+     * TradeService resolves them.
+     */
+    public void validate(TradeDTO trade, TradeResolutionContext references, TradeValidationResult result) {
+        if (trade == null) {
+            result.setError("Trade is null");
+            return;
+        }
+
+        Book book = references.getBook();
+        if (trade.getBookId() == null && trade.getBookName() == null) {
+            result.setError("Book reference is required");
+        } else if (book == null) {
+            result.setError("Book not found");
+        } else if (!book.isActive()) {
+            result.setError("Book is not active");
+        }
+
+        Counterparty counterparty = references.getCounterparty();
+        if (trade.getCounterpartyId() == null && trade.getCounterpartyName() == null) {
+            result.setError("Counterparty reference is required");
+        } else if (counterparty == null) {
+            result.setError("Counterparty not found");
+        } else if (!counterparty.isActive()) {
+            result.setError("Counterparty is not active");
+        }
+
+        ApplicationUser trader = references.getTraderUser();
+        if (trade.getTraderUserId() == null && trade.getTraderUserName() == null) {
+            result.setError("Trader user reference is required");
+        } else if (trader == null) {
+            result.setError("Trader user not found");
+        } else if (!trader.isActive()) {
+            result.setError("Trader user is not active");
+        }
+    }
 }
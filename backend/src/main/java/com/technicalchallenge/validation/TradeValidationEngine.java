@@ -2,8 +2,13 @@ package com.technicalchallenge.validation;
 
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import com.technicalchallenge.dto.TradeDTO;
 import com.technicalchallenge.dto.TradeLegDTO;
+import com.technicalchallenge.service.TradeResolutionContext;
 
 // This class runs all validators and returns results. Acts as the main entry point, clean, testable orchestration of multiple validations for easy maintenance if validations scale
 @Service
@@ -12,6 +17,13 @@ public class TradeValidationEngine {
     // This engine now validates trade-related business rules and, when
     // available, repository-backed entity status via EntityStatusValidationEngine.
     public TradeValidationResult validateTradeBusinessRules(TradeDTO tradeDTO) {
+        return validateTradeBusinessRules(tradeDTO, null);
+    }
+
+    // ADDED: as above, with the trade's references already resolved by the
+    // booking (see TradeResolutionContext); the entity status checks then read
+    // them instead of looking them up again. A null context looks them up.
+    public TradeValidationResult validateTradeBusinessRules(TradeDTO tradeDTO, TradeResolutionContext references) {
         TradeValidationResult result = new TradeValidationResult();
         TradeDateValidator dateValidator = new TradeDateValidator();
         dateValidator.validate(tradeDTO, result);
@@ -42,7 +54,8 @@ public class TradeValidationEngine {
         // tests; the no-arg constructor used in lightweight unit tests keeps
         // this field null to avoid requiring DB wiring.
         if (this.entityStatusValidationEngine != null) {
-            TradeValidationResult entityResult = this.entityStatusValidationEngine.validate(tradeDTO);
+            TradeValidationResult entityResult = this.entityStatusValidationEngine.validate(tradeDTO,
+                    references);
             if (!entityResult.isValid()) {
                 for (String err : entityResult.getErrors()) {
                     result.setError(err);
@@ -63,12 +76,46 @@ public class TradeValidationEngine {
      * codebase and makes future additions easier.
      */
     public TradeValidationResult validateSettlementInstructions(String text) {
+        // CHANGED: the outcome depends on the text alone, and most trades
+        // carry one of a few standard instructions, so the errors found for a
+        // text are kept (SETTLEMENT_VERDICTS most recently used texts) and the
+        // validator runs once per distinct text. Each call still gets its own
+        // result. Texts longer than the validator allows are not kept; they
+        // fail on the length check at once anyway.
+        boolean cacheable = text != null && text.length() <= MAX_CACHED_TEXT;
+        List<String> errors = null;
+        if (cacheable) {
+            synchronized (settlementVerdicts) {
+                errors = settlementVerdicts.get(text);
+            }
+        }
+        if (errors == null) {
+            TradeValidationResult validated = new TradeValidationResult();
+            // Delegate to injected field-level validator (uses Spring DI)
+            settlementInstructionValidator.validate(text, validated);
+            errors = List.copyOf(validated.getErrors());
+            if (cacheable) {
+                synchronized (settlementVerdicts) {
+                    settlementVerdicts.put(text, errors);
+                }
+            }
+        }
         TradeValidationResult result = new TradeValidationResult();
-        // Delegate to injected field-level validator (uses Spring DI)
-        settlementInstructionValidator.validate(text, result);
+        errors.forEach(result::setError);
         return result;
     }
 
+    static final int SETTLEMENT_VERDICTS = 1024;
+    private static final int MAX_CACHED_TEXT = 512;
+
+    // Access-ordered, so the eldest entry is the least recently used
+    private final Map<String, List<String>> settlementVerdicts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+            return size() > SETTLEMENT_VERDICTS;
+        }
+    };
+
     // Refactored: Replaced direct instantiation of the validator inside the engine.
     // Before: validateSettlementInstructions created a new instance inline.
     private final SettlementInstructionValidator settlementInstructionValidator;
@@ -0,0 +1,35 @@
+-- Performance index set for the trade tables (H2).
+-- The tables themselves are created by Hibernate (ddl-auto); see
+-- SchemaMigrationConfig. Keep in step with ../postgresql/V1.
+-- H2 already indexes each foreign key column on its own; the composite
+-- indexes below are what it lacks.
+
+-- Current version of a trade by business id (findByTradeIdAndActiveTrue and
+-- the booking/amend/cancel paths)
+CREATE INDEX IF NOT EXISTS idx_trade_trade_id_active ON trade (trade_id, active);
+
+-- A trader's trades (dashboard, summary and "my trades")
+CREATE INDEX IF NOT EXISTS idx_trade_trader_active ON trade (trader_user_id, active);
+
+-- Trade date windows (weekly and daily summaries, date filters)
+CREATE INDEX IF NOT EXISTS idx_trade_trade_date ON trade (trade_date);
+
+-- Book filters and book totals
+CREATE INDEX IF NOT EXISTS idx_trade_book ON trade (book_id);
+
+-- Legs of a trade
+CREATE INDEX IF NOT EXISTS idx_trade_leg_trade ON trade_leg (trade_id);
+
+-- Cashflows of a leg in value date order
+CREATE INDEX IF NOT EXISTS idx_cashflow_leg_value_date ON cashflow (leg_id, value_date);
+
+-- Holders of a privilege; the primary key (user_id, privilege_id) already
+-- serves the per-user lookup
+CREATE INDEX IF NOT EXISTS idx_user_privilege_privilege ON user_privilege (privilege_id, user_id);
+
+-- Case-insensitive login lookups. H2 cannot index an expression, so
+-- lower(login_id) is kept as a generated column (ApplicationUser.loginIdLower,
+-- which Hibernate normally adds first) and that column is indexed.
+ALTER TABLE application_user ADD COLUMN IF NOT EXISTS login_id_lower VARCHAR(255)
+    GENERATED ALWAYS AS (LOWER(login_id));
+CREATE INDEX IF NOT EXISTS idx_application_user_login_id_lower ON application_user (login_id_lower);
@@ -0,0 +1,9 @@
+-- Stored non-standard keyword of a settlement instruction (H2).
+-- AdditionalInfo.nonStandardKeyword, set by AdditionalInfoService on every
+-- write; rows written before the column existed are filled in by
+-- NonStandardSettlementDetector at startup. Keep in step with ../postgresql/V2.
+ALTER TABLE additional_info ADD COLUMN IF NOT EXISTS non_standard_keyword VARCHAR(64);
+
+-- Flagged instructions (nonStandardOnly export, identify-nonstandard). H2
+-- has no partial indexes; nulls make up most of this one.
+CREATE INDEX IF NOT EXISTS idx_ai_non_standard_keyword ON additional_info (non_standard_keyword, entity_id);
@@ -0,0 +1,5 @@
+-- Settlement audit trail read path (H2). One page of a trade's changes,
+-- newest first (AdditionalInfoAuditRepository.findByTradeIdOrderByChangedAtDescIdDesc).
+-- H2 has no table partitioning; see ../postgresql/V3 for the monthly
+-- partitions. Keep in step with it.
+CREATE INDEX IF NOT EXISTS idx_ai_audit_trade_changed ON additional_info_audit (trade_id, changed_at DESC, id DESC);
@@ -0,0 +1,51 @@
+-- Settlement instruction texts stored once per distinct text (H2). See
+-- SettlementTextStore: settlement_text is keyed by the lower-case hex
+-- SHA-256 of the UTF-8 text; settlement rows and their audit records hold
+-- the hash instead of a copy of the text. Keep in step with ../postgresql/V4.
+CREATE TABLE IF NOT EXISTS settlement_text (
+    hash VARCHAR(64) PRIMARY KEY,
+    body CHARACTER LARGE OBJECT NOT NULL,
+    non_standard_keyword VARCHAR(64),
+    created_date TIMESTAMP(6) NOT NULL
+);
+ALTER TABLE additional_info ADD COLUMN IF NOT EXISTS settlement_text_hash VARCHAR(64);
+ALTER TABLE additional_info_audit ADD COLUMN IF NOT EXISTS old_text_hash VARCHAR(64);
+ALTER TABLE additional_info_audit ADD COLUMN IF NOT EXISTS new_text_hash VARCHAR(64);
+
+-- Existing settlement instructions: one settlement_text row per distinct
+-- text (MERGE ... KEY keeps one row per hash), carrying the keyword already
+-- stored on the rows, then the rows reference it instead of holding it
+MERGE INTO settlement_text (hash, body, non_standard_keyword, created_date) KEY (hash)
+SELECT LOWER(RAWTOHEX(HASH('SHA-256', field_value))), field_value, non_standard_keyword, created_date
+FROM additional_info
+WHERE UPPER(entity_type) = 'TRADE' AND UPPER(field_name) = 'SETTLEMENT_INSTRUCTIONS'
+  AND settlement_text_hash IS NULL AND field_value IS NOT NULL AND TRIM(field_value) <> '';
+
+UPDATE additional_info
+SET settlement_text_hash = LOWER(RAWTOHEX(HASH('SHA-256', field_value))), field_value = NULL
+WHERE UPPER(entity_type) = 'TRADE' AND UPPER(field_name) = 'SETTLEMENT_INSTRUCTIONS'
+  AND settlement_text_hash IS NULL AND field_value IS NOT NULL AND TRIM(field_value) <> '';
+
+-- Audit records of settlement instructions, old and new side
+MERGE INTO settlement_text (hash, body, non_standard_keyword, created_date) KEY (hash)
+SELECT LOWER(RAWTOHEX(HASH('SHA-256', old_value))), old_value, NULL, changed_at
+FROM additional_info_audit
+WHERE field_name = 'SETTLEMENT_INSTRUCTIONS' AND old_text_hash IS NULL AND old_value IS NOT NULL
+  AND LOWER(RAWTOHEX(HASH('SHA-256', old_value))) NOT IN (SELECT hash FROM settlement_text);
+
+MERGE INTO settlement_text (hash, body, non_standard_keyword, created_date) KEY (hash)
+SELECT LOWER(RAWTOHEX(HASH('SHA-256', new_value))), new_value, NULL, changed_at
+FROM additional_info_audit
+WHERE field_name = 'SETTLEMENT_INSTRUCTIONS' AND new_text_hash IS NULL AND new_value IS NOT NULL
+  AND LOWER(RAWTOHEX(HASH('SHA-256', new_value))) NOT IN (SELECT hash FROM settlement_text);
+
+UPDATE additional_info_audit
+SET old_text_hash = LOWER(RAWTOHEX(HASH('SHA-256', old_value))), old_value = NULL
+WHERE field_name = 'SETTLEMENT_INSTRUCTIONS' AND old_text_hash IS NULL AND old_value IS NOT NULL;
+
+UPDATE additional_info_audit
+SET new_text_hash = LOWER(RAWTOHEX(HASH('SHA-256', new_value))), new_value = NULL
+WHERE field_name = 'SETTLEMENT_INSTRUCTIONS' AND new_text_hash IS NULL AND new_value IS NOT NULL;
+
+-- Rows of one text (NonStandardSettlementDetector updates them together)
+CREATE INDEX IF NOT EXISTS idx_ai_settlement_text_hash ON additional_info (settlement_text_hash);
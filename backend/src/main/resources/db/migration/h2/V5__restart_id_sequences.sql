@@ -0,0 +1,26 @@
+-- Moves the id sequences of the pooled generators (Trade, TradeLeg, Cashflow,
+-- AdditionalInfo: initialValue 10000, allocationSize 50) past the ids already
+-- in their tables (H2). Hibernate creates the sequences at 10000 on a database
+-- whose rows were numbered by IDENTITY before, so the first generated ids can
+-- collide with existing ones. The pooled optimizer hands out the 50 ids up to
+-- the value it reads, so a sequence restarts at MAX(id) + 50; one that is
+-- already further on is left alone. Keep in step with ../postgresql/V5.
+ALTER SEQUENCE IF EXISTS trade_seq RESTART WITH (
+    SELECT GREATEST(COALESCE(MAX(id), 0) + 50, (SELECT base_value FROM information_schema.sequences
+        WHERE LOWER(sequence_name) = 'trade_seq'))
+    FROM trade);
+
+ALTER SEQUENCE IF EXISTS trade_leg_seq RESTART WITH (
+    SELECT GREATEST(COALESCE(MAX(leg_id), 0) + 50, (SELECT base_value FROM information_schema.sequences
+        WHERE LOWER(sequence_name) = 'trade_leg_seq'))
+    FROM trade_leg);
+
+ALTER SEQUENCE IF EXISTS cashflow_seq RESTART WITH (
+    SELECT GREATEST(COALESCE(MAX(id), 0) + 50, (SELECT base_value FROM information_schema.sequences
+        WHERE LOWER(sequence_name) = 'cashflow_seq'))
+    FROM cashflow);
+
+ALTER SEQUENCE IF EXISTS additional_info_seq RESTART WITH (
+    SELECT GREATEST(COALESCE(MAX(additional_info_id), 0) + 50, (SELECT base_value FROM information_schema.sequences
+        WHERE LOWER(sequence_name) = 'additional_info_seq'))
+    FROM additional_info);
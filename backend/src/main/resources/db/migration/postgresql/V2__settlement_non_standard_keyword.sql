@@ -0,0 +1,10 @@
+-- Stored non-standard keyword of a settlement instruction (PostgreSQL).
+-- AdditionalInfo.nonStandardKeyword, set by AdditionalInfoService on every
+-- write; rows written before the column existed are filled in by
+-- NonStandardSettlementDetector at startup. Keep in step with ../h2/V2.
+ALTER TABLE additional_info ADD COLUMN IF NOT EXISTS non_standard_keyword VARCHAR(64);
+
+-- Flagged active instructions only (nonStandardOnly export,
+-- identify-nonstandard); standard rows are left out of the index.
+CREATE INDEX IF NOT EXISTS idx_ai_non_standard_keyword ON additional_info (entity_id, non_standard_keyword)
+    WHERE non_standard_keyword IS NOT NULL AND active;
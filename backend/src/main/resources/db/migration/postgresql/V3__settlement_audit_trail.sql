@@ -0,0 +1,69 @@
+-- Settlement audit trail partitioned by month of changed_at (PostgreSQL).
+-- The audit table only grows; monthly partitions keep each index small and
+-- let old months be detached or dropped whole. Rows are written by
+-- SettlementAuditWriter, which also calls additional_info_audit_add_partitions
+-- daily for the coming months. Keep in step with ../h2/V3.
+
+-- Creates the monthly partitions from from_month to to_month (inclusive)
+-- that do not exist yet and returns how many it created. A month whose rows
+-- already sit in the default partition is skipped with a warning; move them
+-- out of the default partition by hand first.
+CREATE OR REPLACE FUNCTION additional_info_audit_add_partitions(from_month DATE, to_month DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    month DATE := date_trunc('month', from_month)::date;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    WHILE month <= to_month LOOP
+        partition_name := 'additional_info_audit_' || to_char(month, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            BEGIN
+                EXECUTE format('CREATE TABLE %I PARTITION OF additional_info_audit FOR VALUES FROM (%L) TO (%L)',
+                        partition_name, month, (month + INTERVAL '1 month')::date);
+                created := created + 1;
+            EXCEPTION WHEN check_violation THEN
+                RAISE WARNING 'additional_info_audit partition % skipped: rows for it are in the default partition',
+                        partition_name;
+            END;
+        END IF;
+        month := (month + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Hibernate created the table unpartitioned; rebuild it partitioned and copy
+-- the rows over. The primary key has to include the partition column.
+ALTER TABLE additional_info_audit RENAME TO additional_info_audit_unpartitioned;
+
+CREATE TABLE additional_info_audit (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    trade_id BIGINT NOT NULL,
+    field_name VARCHAR(64) NOT NULL,
+    old_value TEXT,
+    new_value TEXT,
+    changed_by VARCHAR(128) NOT NULL,
+    changed_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id, changed_at)
+) PARTITION BY RANGE (changed_at);
+
+-- Catches rows for a month without a partition (the writer was not running
+-- when the month started)
+CREATE TABLE additional_info_audit_default PARTITION OF additional_info_audit DEFAULT;
+
+SELECT additional_info_audit_add_partitions(
+        COALESCE((SELECT MIN(changed_at) FROM additional_info_audit_unpartitioned), LOCALTIMESTAMP)::date,
+        (date_trunc('month', now()) + INTERVAL '3 months')::date);
+
+INSERT INTO additional_info_audit (id, trade_id, field_name, old_value, new_value, changed_by, changed_at)
+SELECT id, trade_id, field_name, old_value, new_value, changed_by, changed_at
+FROM additional_info_audit_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('additional_info_audit', 'id'),
+        COALESCE((SELECT MAX(id) FROM additional_info_audit), 0) + 1, false);
+
+DROP TABLE additional_info_audit_unpartitioned;
+
+-- One page of a trade's changes, newest first; created on every partition
+CREATE INDEX IF NOT EXISTS idx_ai_audit_trade_changed ON additional_info_audit (trade_id, changed_at DESC, id DESC);
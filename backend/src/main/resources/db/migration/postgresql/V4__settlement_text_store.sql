@@ -0,0 +1,56 @@
+-- Settlement instruction texts stored once per distinct text (PostgreSQL).
+-- See SettlementTextStore: settlement_text is keyed by the lower-case hex
+-- SHA-256 of the UTF-8 text; settlement rows and their audit records hold
+-- the hash instead of a copy of the text. Keep in step with ../h2/V4.
+CREATE TABLE IF NOT EXISTS settlement_text (
+    hash VARCHAR(64) PRIMARY KEY,
+    body TEXT NOT NULL,
+    non_standard_keyword VARCHAR(64),
+    created_date TIMESTAMP(6) NOT NULL
+);
+ALTER TABLE additional_info ADD COLUMN IF NOT EXISTS settlement_text_hash VARCHAR(64);
+-- V3 rebuilt the audit table without these
+ALTER TABLE additional_info_audit ADD COLUMN IF NOT EXISTS old_text_hash VARCHAR(64);
+ALTER TABLE additional_info_audit ADD COLUMN IF NOT EXISTS new_text_hash VARCHAR(64);
+
+-- Existing settlement instructions: one settlement_text row per distinct
+-- text, carrying the keyword already stored on the rows, then the rows
+-- reference it instead of holding it
+INSERT INTO settlement_text (hash, body, non_standard_keyword, created_date)
+SELECT DISTINCT ON (hash) hash, field_value, non_standard_keyword, created_date
+FROM (SELECT encode(sha256(convert_to(field_value, 'UTF8')), 'hex') AS hash, field_value,
+             non_standard_keyword, created_date
+      FROM additional_info
+      WHERE UPPER(entity_type) = 'TRADE' AND UPPER(field_name) = 'SETTLEMENT_INSTRUCTIONS'
+        AND settlement_text_hash IS NULL AND field_value IS NOT NULL AND TRIM(field_value) <> '') rows
+ORDER BY hash, created_date
+ON CONFLICT (hash) DO NOTHING;
+
+UPDATE additional_info
+SET settlement_text_hash = encode(sha256(convert_to(field_value, 'UTF8')), 'hex'), field_value = NULL
+WHERE UPPER(entity_type) = 'TRADE' AND UPPER(field_name) = 'SETTLEMENT_INSTRUCTIONS'
+  AND settlement_text_hash IS NULL AND field_value IS NOT NULL AND TRIM(field_value) <> '';
+
+-- Audit records of settlement instructions, old and new side
+INSERT INTO settlement_text (hash, body, non_standard_keyword, created_date)
+SELECT DISTINCT ON (hash) hash, text, NULL, changed_at
+FROM (SELECT encode(sha256(convert_to(old_value, 'UTF8')), 'hex') AS hash, old_value AS text, changed_at
+      FROM additional_info_audit
+      WHERE field_name = 'SETTLEMENT_INSTRUCTIONS' AND old_text_hash IS NULL AND old_value IS NOT NULL
+      UNION ALL
+      SELECT encode(sha256(convert_to(new_value, 'UTF8')), 'hex'), new_value, changed_at
+      FROM additional_info_audit
+      WHERE field_name = 'SETTLEMENT_INSTRUCTIONS' AND new_text_hash IS NULL AND new_value IS NOT NULL) texts
+ORDER BY hash, changed_at
+ON CONFLICT (hash) DO NOTHING;
+
+UPDATE additional_info_audit
+SET old_text_hash = CASE WHEN old_value IS NOT NULL THEN encode(sha256(convert_to(old_value, 'UTF8')), 'hex') END,
+    new_text_hash = CASE WHEN new_value IS NOT NULL THEN encode(sha256(convert_to(new_value, 'UTF8')), 'hex') END,
+    old_value = NULL,
+    new_value = NULL
+WHERE field_name = 'SETTLEMENT_INSTRUCTIONS' AND old_text_hash IS NULL AND new_text_hash IS NULL
+  AND (old_value IS NOT NULL OR new_value IS NOT NULL);
+
+-- Rows of one text (NonStandardSettlementDetector updates them together)
+CREATE INDEX IF NOT EXISTS idx_ai_settlement_text_hash ON additional_info (settlement_text_hash);
@@ -0,0 +1,31 @@
+-- Moves the id sequences of the pooled generators (Trade, TradeLeg, Cashflow,
+-- AdditionalInfo: initialValue 10000, allocationSize 50) past the ids already
+-- in their tables (PostgreSQL). Hibernate creates the sequences at 10000 on a
+-- database whose rows were numbered by IDENTITY before, so the first
+-- generated ids can collide with existing ones. The pooled optimizer hands
+-- out the increment_by ids up to the value it reads, so a sequence restarts
+-- at MAX(id) + increment_by; one that is already further on is left alone.
+-- Keep in step with ../h2/V5.
+DO $$
+DECLARE
+    s RECORD;
+    step BIGINT;
+    wanted BIGINT;
+    next_value BIGINT;
+BEGIN
+    FOR s IN SELECT * FROM (VALUES
+            ('trade_seq', 'trade', 'id'),
+            ('trade_leg_seq', 'trade_leg', 'leg_id'),
+            ('cashflow_seq', 'cashflow', 'id'),
+            ('additional_info_seq', 'additional_info', 'additional_info_id')) AS v (seq, tbl, col)
+    LOOP
+        CONTINUE WHEN to_regclass(s.seq) IS NULL OR to_regclass(s.tbl) IS NULL;
+        SELECT increment_by INTO step FROM pg_sequence WHERE seqrelid = to_regclass(s.seq);
+        EXECUTE format('SELECT COALESCE(MAX(%I), 0) + %s FROM %I', s.col, step, s.tbl) INTO wanted;
+        EXECUTE format('SELECT CASE WHEN is_called THEN last_value + %s ELSE last_value END FROM %I', step, s.seq)
+            INTO next_value;
+        IF wanted > next_value THEN
+            PERFORM setval(s.seq, wanted, false);
+        END IF;
+    END LOOP;
+END $$;
@@ -0,0 +1,105 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.repository.AdditionalInfoRepository;
+import com.technicalchallenge.service.NonStandardSettlementDetector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Non-standard keywords are found when a settlement instruction is written
+ * and read back from the row. Trade 200001 in data.sql belongs to simon.
+ */
+@WithMockUser(username = "simon", roles = { "TRADER" })
+public class NonStandardSettlementIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AdditionalInfoRepository additionalInfoRepository;
+    @Autowired
+    private NonStandardSettlementDetector nonStandardSettlementDetector;
+    @Autowired
+    private DataSource dataSource;
+
+    private void saveInstructions(long tradeId, String text) throws Exception {
+        mockMvc.perform(put("/api/trades/{id}/settlement-instructions", tradeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        Map.of("fieldName", "SETTLEMENT_INSTRUCTIONS", "fieldValue", text))))
+                .andExpect(status().isOk());
+    }
+
+    @DisplayName("The keyword is stored on write and reported by identify-nonstandard")
+    @Test
+    void testKeywordIsStoredOnWrite() throws Exception {
+        saveInstructions(200001L, "Deliver to Offshore custodian, manual release");
+
+        assertEquals("manual", additionalInfoRepository
+                .findActiveByEntityTypeAndEntityIdAndFieldName("TRADE", 200001L, "SETTLEMENT_INSTRUCTIONS")
+                .getNonStandardKeyword());
+        mockMvc.perform(get("/api/trades/{id}/settlement-instructions/identify-nonstandard", 200001L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nonStandardKeyword").value("manual"));
+        mockMvc.perform(get("/api/trades/{id}/settlement-instructions", 200001L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nonStandardKeyword").value("manual"));
+
+        saveInstructions(200001L, "DVP via Euroclear acct 12345");
+        mockMvc.perform(get("/api/trades/{id}/settlement-instructions/identify-nonstandard", 200001L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nonStandardKeyword").isEmpty());
+    }
+
+    @DisplayName("identify-nonstandard reports the newest active instruction, not an older flagged one")
+    @Test
+    void testNewestActiveInstructionDecidesTheAlert() throws Exception {
+        new JdbcTemplate(dataSource).update("INSERT INTO additional_info (additional_info_id, entity_type, "
+                + "entity_id, field_name, field_value, field_type, active, created_date, version, "
+                + "non_standard_keyword) VALUES "
+                + "(96000011, 'TRADE', 200001, 'SETTLEMENT_INSTRUCTIONS', 'Manual release', 'STRING', TRUE, ?, 1, "
+                + "'manual'), "
+                + "(96000012, 'TRADE', 200001, 'SETTLEMENT_INSTRUCTIONS', 'DVP', 'STRING', TRUE, ?, 1, NULL)",
+                LocalDateTime.now(), LocalDateTime.now());
+
+        mockMvc.perform(get("/api/trades/{id}/settlement-instructions/identify-nonstandard", 200001L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nonStandardKeyword").isEmpty());
+    }
+
+    @DisplayName("Rows written without the service are classified by reclassify()")
+    @Test
+    void testReclassifyFillsMissingKeywords() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("INSERT INTO additional_info (additional_info_id, entity_type, entity_id, field_name, "
+                + "field_value, field_type, active, created_date, version, non_standard_keyword) VALUES "
+                + "(96000001, 'TRADE', 960001, 'SETTLEMENT_INSTRUCTIONS', 'Physical delivery', 'STRING', TRUE, ?, 1, "
+                + "NULL), "
+                + "(96000002, 'TRADE', 960002, 'SETTLEMENT_INSTRUCTIONS', 'DVP', 'STRING', TRUE, ?, 1, 'manual')",
+                LocalDateTime.now(), LocalDateTime.now());
+
+        assertTrue(nonStandardSettlementDetector.reclassify() >= 2);
+
+        assertEquals("physical", jdbc.queryForObject(
+                "SELECT non_standard_keyword FROM additional_info WHERE additional_info_id = 96000001", String.class));
+        assertNull(jdbc.queryForObject(
+                "SELECT non_standard_keyword FROM additional_info WHERE additional_info_id = 96000002", String.class));
+        assertEquals(0, nonStandardSettlementDetector.reclassify());
+    }
+}
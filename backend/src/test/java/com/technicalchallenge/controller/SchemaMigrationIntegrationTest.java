@@ -0,0 +1,135 @@
+package com.technicalchallenge.controller;
+
+import com.technicalchallenge.model.ApplicationUser;
+import com.technicalchallenge.repository.ApplicationUserRepository;
+import com.technicalchallenge.service.SettlementTextStore;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The versioned migrations run after Hibernate has built the schema: V1 is
+ * applied, its indexes exist, and the trader lookup on the computed
+ * lower-case login column uses its index.
+ *
+ * ADDED: V5, run again on a database of its own, restarts the id sequences
+ * past the existing rows.
+ */
+public class SchemaMigrationIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationUserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @DisplayName("V1 is applied on top of the Hibernate schema and creates the trade index set")
+    @Test
+    void testIndexSetIsCreated() {
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"version\" = '1' AND \"success\"",
+                Integer.class));
+
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES", String.class);
+        assertTrue(indexes.containsAll(List.of("idx_trade_trade_id_active", "idx_trade_trader_active",
+                "idx_trade_trade_date", "idx_trade_book", "idx_trade_leg_trade", "idx_cashflow_leg_value_date",
+                "idx_user_privilege_privilege", "idx_application_user_login_id_lower")), indexes.toString());
+    }
+
+    @DisplayName("V2 indexes the stored non-standard settlement keyword")
+    @Test
+    void testNonStandardKeywordIndexIsCreated() {
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"version\" = '2' AND \"success\"",
+                Integer.class));
+        assertTrue(jdbcTemplate.queryForList("SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES",
+                String.class).contains("idx_ai_non_standard_keyword"));
+    }
+
+    @DisplayName("V3 indexes the settlement audit trail by trade and change time")
+    @Test
+    void testAuditTrailIndexIsCreated() {
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"version\" = '3' AND \"success\"",
+                Integer.class));
+        assertTrue(jdbcTemplate.queryForList("SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES",
+                String.class).contains("idx_ai_audit_trade_changed"));
+    }
+
+    @DisplayName("V4 indexes settlement rows by text hash, computed in SQL as SettlementTextStore does")
+    @Test
+    void testSettlementTextMigration() {
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"version\" = '4' AND \"success\"",
+                Integer.class));
+        assertTrue(jdbcTemplate.queryForList("SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES",
+                String.class).contains("idx_ai_settlement_text_hash"));
+
+        String text = "Zahlung über Euroclear, Konto 12345";
+        assertEquals(SettlementTextStore.hash(text), jdbcTemplate.queryForObject(
+                "SELECT LOWER(RAWTOHEX(HASH('SHA-256', CAST(? AS CHARACTER LARGE OBJECT))))", String.class, text));
+    }
+
+    @DisplayName("V5 moves the id sequences past the ids already in their tables, and never back")
+    @Test
+    void testIdSequencesRestartPastExistingIds() {
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"version\" = '5' AND \"success\"",
+                Integer.class));
+
+        // A database of its own: its sequences start at 10000 as Hibernate
+        // creates them, but trade already holds ids past that
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:sequence-restart;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (String[] table : new String[][] { { "trade", "id" }, { "trade_leg", "leg_id" }, { "cashflow", "id" },
+                { "additional_info", "additional_info_id" } }) {
+            jdbc.execute("CREATE TABLE " + table[0] + " (" + table[1] + " BIGINT PRIMARY KEY)");
+            jdbc.execute("CREATE SEQUENCE " + table[0] + "_seq START WITH 10000 INCREMENT BY 50");
+        }
+        jdbc.update("INSERT INTO trade (id) VALUES (12345)");
+        jdbc.update("INSERT INTO trade_leg (leg_id) VALUES (150)");
+        ResourceDatabasePopulator migration = new ResourceDatabasePopulator(
+                new ClassPathResource("db/migration/h2/V5__restart_id_sequences.sql"));
+
+        migration.execute(dataSource);
+        // The pooled optimizer uses the 50 ids up to the value read
+        assertEquals(12395L, jdbc.queryForObject("SELECT NEXT VALUE FOR trade_seq", Long.class));
+        assertEquals(10000L, jdbc.queryForObject("SELECT NEXT VALUE FOR trade_leg_seq", Long.class));
+
+        // Run again, the sequences carry on where they are
+        migration.execute(dataSource);
+        assertEquals(12445L, jdbc.queryForObject("SELECT NEXT VALUE FOR trade_seq", Long.class));
+        assertEquals(10050L, jdbc.queryForObject("SELECT NEXT VALUE FOR trade_leg_seq", Long.class));
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @DisplayName("loginIdLower is computed by the database and the trader lookup uses its index")
+    @Test
+    void testLowerCaseLoginColumn() {
+        ApplicationUser user = new ApplicationUser();
+        user.setFirstName("Mixed");
+        user.setLastName("Case");
+        user.setLoginId("MixedCaseTrader");
+        user.setActive(true);
+        userRepository.saveAndFlush(user);
+        entityManager.clear();
+
+        assertEquals("mixedcasetrader", userRepository.findById(user.getId()).orElseThrow().getLoginIdLower());
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT COUNT(*) FROM trade t "
+                + "JOIN application_user u ON u.id = t.trader_user_id WHERE u.login_id_lower = 'simon'", String.class);
+        assertTrue(plan.toLowerCase().contains("idx_application_user_login_id_lower"), plan);
+    }
+}
@@ -0,0 +1,131 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.model.AdditionalInfoAudit;
+import com.technicalchallenge.service.SettlementAuditWriter;
+import com.technicalchallenge.service.SettlementTextStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/trades/{id}/audit-trail with the audit records written in batches
+ * by SettlementAuditWriter. Not transactional, unlike BaseIntegrationTest: the
+ * records are only written when a transaction commits. Each test uses its own
+ * trade id, so the committed rows do not meet other tests.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WithMockUser(username = "testTrader", roles = { "MIDDLE_OFFICE" })
+public class SettlementAuditTrailIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SettlementAuditWriter settlementAuditWriter;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private SettlementTextStore settlementTextStore;
+    @Autowired
+    private DataSource dataSource;
+
+    private static AdditionalInfoAudit audit(long tradeId, String newValue, LocalDateTime changedAt) {
+        AdditionalInfoAudit audit = new AdditionalInfoAudit();
+        audit.setTradeId(tradeId);
+        audit.setFieldName("SETTLEMENT_INSTRUCTIONS");
+        audit.setNewValue(newValue);
+        audit.setChangedBy("simon");
+        audit.setChangedAt(changedAt);
+        return audit;
+    }
+
+    private JsonNode trail(long tradeId, int page, int size) throws Exception {
+        String body = mockMvc.perform(get("/api/trades/{id}/audit-trail", tradeId)
+                .param("page", String.valueOf(page)).param("size", String.valueOf(size)))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static List<String> newValues(JsonNode page) {
+        List<String> values = new ArrayList<>();
+        page.get("content").forEach(record -> values.add(record.get("newValue").asText()));
+        return values;
+    }
+
+    @DisplayName("The trail is paged newest first and includes every record committed before it is read")
+    @Test
+    void testTrailIsPagedNewestFirst() throws Exception {
+        long tradeId = 970001L;
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                settlementAuditWriter.record(audit(tradeId, "v" + i, start.plusMinutes(i)));
+            }
+        });
+
+        JsonNode first = trail(tradeId, 0, 2);
+        assertEquals(5, first.get("totalElements").asLong());
+        assertEquals(List.of("v4", "v3"), newValues(first));
+        assertEquals(List.of("v0"), newValues(trail(tradeId, 2, 2)));
+    }
+
+    @DisplayName("Records of a rolled back transaction are never written")
+    @Test
+    void testRolledBackRecordsAreDropped() throws Exception {
+        long tradeId = 970002L;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            settlementAuditWriter.record(audit(tradeId, "rolled back", LocalDateTime.now()));
+            status.setRollbackOnly();
+        });
+
+        mockMvc.perform(get("/api/trades/{id}/audit-trail", tradeId)).andExpect(status().isNotFound());
+    }
+
+    @DisplayName("Settlement texts are written as hashes and read back in full")
+    @Test
+    void testTextsAreReferencedByHash() throws Exception {
+        long tradeId = 970003L;
+        String oldText = "Pay via Euroclear acct 70003";
+        String newText = "Pay via Clearstream acct 70003";
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            AdditionalInfoAudit audit = audit(tradeId, null, LocalDateTime.now());
+            audit.setOldText(settlementTextStore.intern(oldText));
+            audit.setNewText(settlementTextStore.intern(newText));
+            settlementAuditWriter.record(audit);
+        });
+
+        Map<String, Object> row = new JdbcTemplate(dataSource).queryForMap("SELECT old_value, new_value, "
+                + "old_text_hash, new_text_hash FROM additional_info_audit WHERE trade_id = ?", tradeId);
+        assertNull(row.get("old_value"));
+        assertNull(row.get("new_value"));
+        assertEquals(SettlementTextStore.hash(oldText), row.get("old_text_hash"));
+        assertEquals(SettlementTextStore.hash(newText), row.get("new_text_hash"));
+
+        JsonNode record = trail(tradeId, 0, 10).get("content").get(0);
+        assertEquals(oldText, record.get("oldValue").asText());
+        assertEquals(newText, record.get("newValue").asText());
+    }
+}
@@ -0,0 +1,169 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.Events.SettlementInstructionsBulkUpdatedEvent;
+import com.technicalchallenge.Events.SettlementInstructionsUpdatedEvent;
+import com.technicalchallenge.repository.BookRepository;
+import com.technicalchallenge.service.SettlementTextStore;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PUT /api/trades/settlement-instructions/bulk. Trades 980000.. belong to
+ * simon (user 1002 in data.sql), 980900 to joey (1004). Explicit ids, as in
+ * SettlementSearchIntegrationTest.
+ */
+@WithMockUser(username = "simon", roles = { "TRADER" })
+@RecordApplicationEvents
+public class SettlementBulkUpdateIntegrationTest extends BaseIntegrationTest {
+
+    private static final long FIRST_TRADE_ID = 980000L;
+    private static final long JOEYS_TRADE_ID = 980900L;
+    private static final long FIRST_ROW_ID = 98_000_000L;
+    private static final int TRADES = 40;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ApplicationEvents events;
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void createTrades() {
+        jdbc = new JdbcTemplate(dataSource);
+        long bookId = bookRepository.findAll().get(0).getId();
+        for (int i = 0; i <= TRADES; i++) {
+            long tradeId = i < TRADES ? FIRST_TRADE_ID + i : JOEYS_TRADE_ID;
+            jdbc.update("INSERT INTO trade (id, trade_id, version, active, trade_date, book_id, trader_user_id) "
+                    + "VALUES (?, ?, 1, TRUE, ?, ?, ?)", FIRST_ROW_ID + i, tradeId, LocalDate.now(), bookId,
+                    i < TRADES ? 1002L : 1004L);
+        }
+    }
+
+    private static Map<String, Object> item(long tradeId, String text) {
+        return Map.of("tradeId", tradeId, "fieldValue", text);
+    }
+
+    private JsonNode bulk(List<Map<String, Object>> items) throws Exception {
+        String body = mockMvc.perform(put("/api/trades/settlement-instructions/bulk")
+                .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(items)))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        // The test transaction stays open; the batched writes happen here
+        entityManager.flush();
+        return objectMapper.readTree(body);
+    }
+
+    private static List<Map<String, Object>> allTrades(int count, String text) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(item(FIRST_TRADE_ID + i, text));
+        }
+        return items;
+    }
+
+    @DisplayName("Each item gets its own result, in request order; rejected items do not stop the rest")
+    @Test
+    void testResultsPerItem() throws Exception {
+        String text = "Manual release via Euroclear acct 80000";
+        List<Map<String, Object>> items = new ArrayList<>(allTrades(3, text));
+        items.add(item(FIRST_TRADE_ID + 3, "Pay; drop table trade"));
+        items.add(item(989999L, text));
+        items.add(item(JOEYS_TRADE_ID, text));
+        items.add(item(FIRST_TRADE_ID, text));
+
+        JsonNode response = bulk(items);
+
+        List<String> statuses = new ArrayList<>();
+        response.get("results").forEach(result -> statuses.add(result.get("status").asText()));
+        assertEquals(List.of("CREATED", "CREATED", "CREATED", "INVALID", "NOT_FOUND", "FORBIDDEN", "INVALID"),
+                statuses);
+        assertEquals(FIRST_TRADE_ID + 3, response.get("results").get(3).get("tradeId").asLong());
+        assertEquals("manual", response.get("results").get(0).get("nonStandardKeyword").asText());
+        assertEquals(3, response.get("counts").get("CREATED").asInt());
+
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM additional_info WHERE active "
+                + "AND field_name = 'SETTLEMENT_INSTRUCTIONS' AND settlement_text_hash = ?", Integer.class,
+                SettlementTextStore.hash(text)));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM additional_info WHERE entity_id IN (?, ?)",
+                Integer.class, FIRST_TRADE_ID + 3, JOEYS_TRADE_ID));
+
+        // The same texts again change nothing
+        JsonNode again = bulk(allTrades(3, text));
+        again.get("results").forEach(result -> assertEquals("UNCHANGED", result.get("status").asText()));
+    }
+
+    @DisplayName("One aggregated event is published, not one per trade")
+    @Test
+    void testOneEventPerRequest() throws Exception {
+        bulk(allTrades(TRADES, "DVP via Euroclear acct 80001"));
+
+        List<SettlementInstructionsBulkUpdatedEvent> published = events
+                .stream(SettlementInstructionsBulkUpdatedEvent.class).toList();
+        assertEquals(1, published.size());
+        assertEquals(TRADES, published.get(0).getTradeIds().size());
+        assertEquals("simon", published.get(0).getChangedBy());
+        assertEquals(0, events.stream(SettlementInstructionsUpdatedEvent.class).count());
+    }
+
+    @DisplayName("A request takes the same number of statements however many trades it updates")
+    @Test
+    void testStatementsDoNotGrowWithItems() throws Exception {
+        bulk(allTrades(TRADES, "DVP via Euroclear acct 80002"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        statistics.clear();
+        bulk(allTrades(5, "DVP via Clearstream acct 80002"));
+        long few = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        bulk(allTrades(TRADES, "DVP via DTC acct 80002"));
+        long many = statistics.getPrepareStatementCount();
+
+        assertEquals(few, many);
+        assertEquals(TRADES, jdbc.queryForObject("SELECT COUNT(*) FROM additional_info WHERE active "
+                + "AND settlement_text_hash = ?", Integer.class, SettlementTextStore.hash("DVP via DTC acct 80002")));
+    }
+
+    @DisplayName("An empty request is rejected")
+    @Test
+    void testEmptyRequestIsRejected() throws Exception {
+        mockMvc.perform(put("/api/trades/settlement-instructions/bulk")
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,146 @@
+package com.technicalchallenge.controller;
+
+import com.technicalchallenge.repository.ApplicationUserRepository;
+import com.technicalchallenge.repository.BookRepository;
+import com.technicalchallenge.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GET /api/trades/exports/settlements: every visible trade once with its
+ * settlement instruction, across more than one read chunk (500 trades).
+ */
+public class SettlementExportIntegrationTest extends BaseIntegrationTest {
+
+    private static final long FIRST_TRADE_ID = 950000L;
+    private static final int TRADES = 510;
+    private static final long FIRST_ROW_ID = 95_000_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TradeRepository tradeRepository;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private ApplicationUserRepository applicationUserRepository;
+
+    private JdbcTemplate jdbc;
+    private int nextInfo;
+
+    // Trade i belongs to simon when i is even, joey otherwise. Every third
+    // trade has no instruction; trade 1 has two (the newer one is exported),
+    // trade 2 an old deactivated one, trade 4 one needing quotes and trade 5
+    // a non-standard one (stored keyword "manual"), trade 3 a non-standard
+    // one replaced by a newer standard one. Inserted with explicit
+    // ids: the test contexts share one in-memory database, and a context
+    // starting up recreates the id sequences under the pooled generators of
+    // the others.
+    @BeforeEach
+    void createTrades() {
+        jdbc = new JdbcTemplate(dataSource);
+        long bookId = bookRepository.findAll().get(0).getId();
+        long simon = applicationUserRepository.findByLoginId("simon").orElseThrow().getId();
+        long joey = applicationUserRepository.findByLoginId("joey").orElseThrow().getId();
+        for (int i = 0; i < TRADES; i++) {
+            jdbc.update("INSERT INTO trade (id, trade_id, version, active, trade_date, book_id, trader_user_id) "
+                    + "VALUES (?, ?, 1, TRUE, ?, ?, ?)", FIRST_ROW_ID + i, FIRST_TRADE_ID + i, LocalDate.now(),
+                    bookId, i % 2 == 0 ? simon : joey);
+        }
+        for (int i = 0; i < TRADES; i++) {
+            if (i % 3 != 0) {
+                settlement(i, "Pay via Euroclear acct " + i, true);
+            }
+        }
+        settlement(1, "Pay via DTC acct 1", true);
+        settlement(2, "Old instruction", false);
+        settlement(4, "Pay via Euroclear, ref \"A\"\nacct 4", true);
+        settlement(5, "Pay via Euroclear acct 5, manual", true);
+        settlement(3, "Pay via Euroclear acct 3, manual", true);
+        settlement(3, "Pay via DTC acct 3", true);
+    }
+
+    private void settlement(int i, String text, boolean active) {
+        jdbc.update("INSERT INTO additional_info (additional_info_id, entity_type, entity_id, field_name, "
+                + "field_value, field_type, active, created_date, version, non_standard_keyword) "
+                + "VALUES (?, 'TRADE', ?, 'SETTLEMENT_INSTRUCTIONS', ?, 'STRING', ?, ?, 1, ?)",
+                FIRST_ROW_ID + nextInfo++, FIRST_TRADE_ID + i, text, active, LocalDateTime.now(),
+                text.contains("manual") ? "manual" : null);
+    }
+
+    // tradeId -> the rest of its CSV line
+    private Map<Long, String> export(String query) throws Exception {
+        String body = mockMvc.perform(get("/api/trades/exports/settlements" + query))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=settlements.csv"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lines = body.split("\n");
+        assertEquals("tradeId,settlementInstructions,nonStandard", lines[0]);
+        Map<Long, String> rows = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int comma = lines[i].indexOf(',');
+            assertNull(rows.put(Long.valueOf(lines[i].substring(0, comma)), lines[i].substring(comma + 1)),
+                    lines[i]);
+        }
+        return rows;
+    }
+
+    @DisplayName("Every trade is exported once with its newest active instruction")
+    @Test
+    @WithMockUser(username = "testTrader", roles = { "MIDDLE_OFFICE" })
+    void testExportsEveryTradeOnce() throws Exception {
+        Map<Long, String> rows = export("");
+
+        assertEquals(tradeRepository.count(), rows.size());
+        assertEquals(",false", rows.get(FIRST_TRADE_ID));
+        assertEquals("Pay via DTC acct 1,false", rows.get(FIRST_TRADE_ID + 1));
+        assertEquals("Pay via Euroclear acct 2,false", rows.get(FIRST_TRADE_ID + 2));
+        assertEquals("Pay via DTC acct 3,false", rows.get(FIRST_TRADE_ID + 3));
+        assertEquals("\"Pay via Euroclear, ref \"\"A\"\" acct 4\",false", rows.get(FIRST_TRADE_ID + 4));
+        assertEquals("Pay via Euroclear acct 509,false", rows.get(FIRST_TRADE_ID + 509));
+    }
+
+    @DisplayName("nonStandardOnly keeps only the instructions with a stored keyword")
+    @Test
+    @WithMockUser(username = "testTrader", roles = { "MIDDLE_OFFICE" })
+    void testNonStandardOnly() throws Exception {
+        Map<Long, String> rows = export("?nonStandardOnly=true");
+
+        assertFalse(rows.containsKey(FIRST_TRADE_ID + 4));
+        // Its newest instruction is standard; the older flagged one is not exported
+        assertFalse(rows.containsKey(FIRST_TRADE_ID + 3));
+        assertEquals("\"Pay via Euroclear acct 5, manual\",true", rows.get(FIRST_TRADE_ID + 5));
+        rows.values().forEach(row -> assertTrue(row.endsWith(",true"), row));
+    }
+
+    @DisplayName("A trader exports their own active trades only")
+    @Test
+    @WithMockUser(username = "simon", roles = { "TRADER" })
+    void testTraderExportsOwnTrades() throws Exception {
+        Map<Long, String> rows = export("?mineOnly=true");
+
+        assertEquals(TRADES / 2, rows.keySet().stream().filter(id -> id >= FIRST_TRADE_ID).count());
+        assertTrue(rows.containsKey(FIRST_TRADE_ID + 508));
+        assertFalse(rows.containsKey(FIRST_TRADE_ID + 509));
+        assertEquals(export(""), rows);
+    }
+}
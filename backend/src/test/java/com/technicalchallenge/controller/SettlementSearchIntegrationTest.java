@@ -0,0 +1,138 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.repository.BookRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GET /api/trades/search/settlement-instructions answered by the database
+ * (the settlement text index is switched off): one page of active trades from
+ * one joined query, a count of trades, and the page's leg summaries.
+ */
+@TestPropertySource(properties = "settlement.search.index.enabled=false")
+@WithMockUser(username = "testTrader", roles = { "MIDDLE_OFFICE" })
+public class SettlementSearchIntegrationTest extends BaseIntegrationTest {
+
+    private static final long FIRST_TRADE_ID = 960000L;
+    private static final int TRADES = 30;
+    private static final long FIRST_ROW_ID = 96_000_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate jdbc;
+    private Statistics statistics;
+
+    // Every trade has an amended (inactive) version 1 and an active version 2,
+    // and an instruction naming Vorbank. Trade 0 has a second active
+    // instruction that also matches, trade 1 one that only matches through
+    // an old deactivated row. Explicit ids, as in
+    // SettlementExportIntegrationTest.
+    @BeforeEach
+    void createTrades() {
+        jdbc = new JdbcTemplate(dataSource);
+        long bookId = bookRepository.findAll().get(0).getId();
+        for (int i = 0; i < TRADES; i++) {
+            for (int version = 1; version <= 2; version++) {
+                jdbc.update("INSERT INTO trade (id, trade_id, version, active, trade_date, book_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)", FIRST_ROW_ID + 2 * i + version - 1, FIRST_TRADE_ID + i,
+                        version, version == 2, LocalDate.now(), bookId);
+            }
+        }
+        int info = 0;
+        for (int i = 2; i < TRADES; i++) {
+            settlement(info++, i, "Pay via Vorbank acct " + i, true);
+        }
+        settlement(info++, 0, "Pay via Vorbank acct 0", true);
+        settlement(info++, 0, "Vorbank fallback, acct 0", true);
+        settlement(info++, 1, "Pay via Vorbank acct 1", false);
+        settlement(info, 1, "Pay via DTC acct 1", true);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    private void settlement(int row, int trade, String text, boolean active) {
+        jdbc.update("INSERT INTO additional_info (additional_info_id, entity_type, entity_id, field_name, "
+                + "field_value, field_type, active, created_date, version) "
+                + "VALUES (?, 'TRADE', ?, 'SETTLEMENT_INSTRUCTIONS', ?, 'STRING', ?, ?, 1)",
+                FIRST_ROW_ID + row, FIRST_TRADE_ID + trade, text, active, LocalDateTime.now());
+    }
+
+    private JsonNode search(String text, int page, int size) throws Exception {
+        String body = mockMvc.perform(get("/api/trades/search/settlement-instructions").param("instructions", text)
+                .param("page", String.valueOf(page)).param("size", String.valueOf(size)))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    @DisplayName("Pages hold active versions only and the total counts trades")
+    @Test
+    void testPagesActiveTrades() throws Exception {
+        Set<Long> found = new HashSet<>();
+        for (int page = 0; page < 3; page++) {
+            JsonNode result = search("VORBANK", page, 12);
+            assertEquals(TRADES - 1, result.get("totalElements").asLong());
+            result.get("content").forEach(trade -> {
+                assertEquals(2, trade.get("version").asInt());
+                assertTrue(trade.get("active").asBoolean());
+                assertTrue(found.add(trade.get("tradeId").asLong()), trade.toString());
+            });
+        }
+        assertEquals(TRADES - 1, found.size());
+        assertTrue(found.contains(FIRST_TRADE_ID));
+        assertFalse(found.contains(FIRST_TRADE_ID + 1));
+    }
+
+    @DisplayName("A page takes the same number of statements whatever its size")
+    @Test
+    void testStatementsPerPageAreFixed() throws Exception {
+        statistics.clear();
+        assertEquals(2, search("vorbank", 0, 2).get("content").size());
+        long small = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        assertEquals(25, search("vorbank", 0, 25).get("content").size());
+        long large = statistics.getPrepareStatementCount();
+
+        // trades, count, leg summaries
+        assertEquals(3, small);
+        assertEquals(small, large);
+    }
+
+    @DisplayName("LIKE wildcards in the search text match themselves")
+    @Test
+    void testWildcardsAreLiteral() throws Exception {
+        assertEquals(0, search("vor%bank", 0, 25).get("totalElements").asLong());
+        assertEquals(0, search("_orbank", 0, 25).get("totalElements").asLong());
+    }
+}
@@ -0,0 +1,115 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.service.SettlementTextIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The settlement search endpoint served by SettlementTextIndex: the index is
+ * loaded at startup and follows the writes made through the settlement
+ * instruction endpoints. Trades 200001 and 200002 in data.sql belong to simon.
+ */
+@WithMockUser(username = "simon", roles = { "TRADER" })
+public class SettlementTextIndexIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SettlementTextIndex settlementTextIndex;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private void saveInstructions(long tradeId, String text) throws Exception {
+        mockMvc.perform(put("/api/trades/{id}/settlement-instructions", tradeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        Map.of("fieldName", "SETTLEMENT_INSTRUCTIONS", "fieldValue", text))))
+                .andExpect(status().isOk());
+    }
+
+    private JsonNode search(String text) throws Exception {
+        String body = mockMvc.perform(get("/api/trades/search/settlement-instructions").param("instructions", text))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private List<Long> tradeIds(JsonNode page) {
+        List<Long> ids = new ArrayList<>();
+        page.get("content").forEach(trade -> ids.add(trade.get("tradeId").asLong()));
+        return ids;
+    }
+
+    @DisplayName("The index is loaded at startup")
+    @Test
+    void testIndexIsReady() {
+        assertTrue(settlementTextIndex.isReady());
+    }
+
+    @DisplayName("Saved instructions are searchable at once, updated text replaces the old")
+    @Test
+    void testUpsertIsSearchable() throws Exception {
+        saveInstructions(200001L, "Settle via Zephyrclear acct 4711");
+        assertEquals(List.of(200001L), tradeIds(search("ZEPHYRCLEAR")));
+        assertEquals(1, search("zephyr").get("totalElements").asLong());
+
+        saveInstructions(200001L, "Settle via Quillbank acct 4711");
+        assertEquals(List.of(), tradeIds(search("zephyrclear")));
+        assertEquals(List.of(200001L), tradeIds(search("quillbank")));
+    }
+
+    @DisplayName("Deleted instructions are no longer found")
+    @Test
+    void testDeleteRemovesFromSearch() throws Exception {
+        saveInstructions(200001L, "Settle via Zephyrclear acct 4711");
+        mockMvc.perform(delete("/api/trades/{id}/settlement-instructions", 200001L))
+                .andExpect(status().isNoContent());
+
+        assertEquals(List.of(), tradeIds(search("zephyrclear")));
+    }
+
+    @DisplayName("Trades come back best match first")
+    @Test
+    void testResultsAreRanked() throws Exception {
+        saveInstructions(200001L, "Pay via Xanthobank nostro");
+        saveInstructions(200002L, "Xanthobank nostro only");
+
+        assertEquals(List.of(200002L, 200001L), tradeIds(search("xanthobank")));
+    }
+
+    @DisplayName("An index search page reads its trades and their legs in two statements")
+    @Test
+    void testTradesReadInTwoStatements() throws Exception {
+        saveInstructions(200001L, "Pay via Xanthobank nostro");
+        saveInstructions(200002L, "Xanthobank nostro only");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        JsonNode page = search("xanthobank");
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(2, page.get("totalElements").asLong());
+        page.get("content").forEach(trade -> assertTrue(trade.get("active").asBoolean()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.service.NonStandardSettlementDetector;
+import com.technicalchallenge.service.SettlementTextStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Settlement instruction texts are stored once in settlement_text and the
+ * rows reference them by hash. Trades 200001 and 200002 in data.sql belong
+ * to simon.
+ */
+@WithMockUser(username = "simon", roles = { "TRADER" })
+public class SettlementTextStoreIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private NonStandardSettlementDetector nonStandardSettlementDetector;
+    @Autowired
+    private DataSource dataSource;
+
+    private void saveInstructions(long tradeId, String text) throws Exception {
+        mockMvc.perform(put("/api/trades/{id}/settlement-instructions", tradeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        Map.of("fieldName", "SETTLEMENT_INSTRUCTIONS", "fieldValue", text))))
+                .andExpect(status().isOk());
+    }
+
+    @DisplayName("Trades with the same instruction share one stored text")
+    @Test
+    void testSameTextIsStoredOnce() throws Exception {
+        String text = "Manual release via Euroclear acct 55501";
+        saveInstructions(200001L, text);
+        saveInstructions(200002L, text);
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        List<Map<String, Object>> rows = jdbc.queryForList("SELECT field_value, settlement_text_hash, "
+                + "non_standard_keyword FROM additional_info WHERE entity_id IN (200001, 200002) "
+                + "AND field_name = 'SETTLEMENT_INSTRUCTIONS' AND active");
+        assertEquals(2, rows.size());
+        for (Map<String, Object> row : rows) {
+            assertNull(row.get("field_value"));
+            assertEquals(SettlementTextStore.hash(text), row.get("settlement_text_hash"));
+            assertEquals("manual", row.get("non_standard_keyword"));
+        }
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM settlement_text WHERE hash = ?", Integer.class,
+                SettlementTextStore.hash(text)));
+        assertEquals("manual", jdbc.queryForObject(
+                "SELECT non_standard_keyword FROM settlement_text WHERE hash = ?", String.class,
+                SettlementTextStore.hash(text)));
+
+        mockMvc.perform(get("/api/trades/{id}/settlement-instructions", 200002L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fieldValue").value(text));
+        mockMvc.perform(get("/api/trades/search/settlement-instructions").param("instructions", "acct 55501"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @DisplayName("reclassify() checks each stored text once and updates the rows referencing it")
+    @Test
+    void testReclassifyUpdatesRowsOfStoredText() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        String text = "Warehouse receipt against payment";
+        String hash = SettlementTextStore.hash(text);
+        jdbc.update("INSERT INTO settlement_text (hash, body, non_standard_keyword, created_date) "
+                + "VALUES (?, ?, NULL, ?)", hash, text, LocalDateTime.now());
+        for (long row = 0; row < 3; row++) {
+            jdbc.update("INSERT INTO additional_info (additional_info_id, entity_type, entity_id, field_name, "
+                    + "settlement_text_hash, field_type, active, created_date, version) "
+                    + "VALUES (?, 'TRADE', ?, 'SETTLEMENT_INSTRUCTIONS', ?, 'STRING', TRUE, ?, 1)",
+                    97_000_000L + row, 970100L + row, hash, LocalDateTime.now());
+        }
+
+        assertTrue(nonStandardSettlementDetector.reclassify() >= 3);
+
+        assertEquals("warehouse", jdbc.queryForObject(
+                "SELECT non_standard_keyword FROM settlement_text WHERE hash = ?", String.class, hash));
+        assertEquals(List.of("warehouse", "warehouse", "warehouse"), jdbc.queryForList(
+                "SELECT non_standard_keyword FROM additional_info WHERE settlement_text_hash = ?", String.class,
+                hash));
+        assertEquals(0, nonStandardSettlementDetector.reclassify());
+    }
+}
@@ -0,0 +1,77 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.service.SearchQueryMonitor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Slow-query capture for the search endpoints. The threshold is 0 here, so
+ * every search statement counts as slow and is kept with its binds and plan.
+ */
+@TestPropertySource(properties = {
+        "search.query-monitor.threshold-ms=0",
+        "management.endpoints.web.exposure.include=health,slowqueries",
+        // settlement text searches go to the database, not the in-memory index
+        "settlement.search.index.enabled=false" })
+@WithMockUser(username = "testTrader", roles = { "MIDDLE_OFFICE" })
+public class SlowQueryCaptureIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SearchQueryMonitor searchQueryMonitor;
+
+    @BeforeEach
+    void clear() {
+        searchQueryMonitor.clear();
+    }
+
+    private JsonNode captured() throws Exception {
+        String body = mockMvc.perform(get("/actuator/slowqueries")).andExpect(status().isOk()).andReturn()
+                .getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("queries");
+    }
+
+    @DisplayName("An RSQL search statement is captured with its binds and EXPLAIN output")
+    @Test
+    void testRsqlSearchIsCaptured() throws Exception {
+        mockMvc.perform(get("/api/dashboard/rsql").param("query", "counterparty.name=like=*Bank*")
+                .param("withCount", "false")).andExpect(status().isOk());
+
+        JsonNode queries = captured();
+        assertFalse(queries.isEmpty());
+        JsonNode query = queries.get(queries.size() - 1);
+        assertEquals("rsql", query.get("search").asText());
+        assertTrue(query.get("sql").asText().toLowerCase().contains("like"), query.get("sql").asText());
+        assertTrue(query.get("binds").toString().contains("%bank%"), query.get("binds").toString());
+        String plan = query.get("plan").asText();
+        assertFalse(plan.isBlank());
+        assertFalse(plan.startsWith("EXPLAIN failed"), plan);
+        assertFalse(query.get("rejected").asBoolean());
+    }
+
+    @DisplayName("Settlement text searches are captured; other reads are not")
+    @Test
+    void testOnlySearchesAreCaptured() throws Exception {
+        mockMvc.perform(get("/api/trades/search/settlement-instructions").param("instructions", "Euroclear"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/trades/1000")).andReturn();
+
+        JsonNode queries = captured();
+        assertFalse(queries.isEmpty());
+        queries.forEach(query -> assertEquals("settlement-text", query.get("search").asText()));
+    }
+}
@@ -11,12 +11,17 @@ import com.technicalchallenge.model.ApplicationUser;
 import com.technicalchallenge.model.Book;
 import com.technicalchallenge.model.Counterparty;
 import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.model.TradeLeg;
 import com.technicalchallenge.repository.ApplicationUserRepository;
 import com.technicalchallenge.repository.BookRepository;
 import com.technicalchallenge.repository.CounterpartyRepository;
+import com.technicalchallenge.repository.CurrencyRepository;
+import com.technicalchallenge.repository.TradeLegRepository;
 import com.technicalchallenge.repository.TradeRepository;
 import com.technicalchallenge.repository.TradeStatusRepository;
+import com.technicalchallenge.service.TradeSummaryStore;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -73,6 +78,15 @@ public class SummaryIntegrationTest extends BaseIntegrationTest {
         @Autowired
         private TradeStatusRepository tradeStatusRepository;
 
+        @Autowired
+        private TradeLegRepository tradeLegRepository;
+
+        @Autowired
+        private CurrencyRepository currencyRepository;
+
+        @Autowired
+        private TradeSummaryStore tradeSummaryStore;
+
         private static final String SUMMARY_ENDPOINT = "/api/dashboard/daily-summary";
 
         @MockBean
@@ -243,6 +257,37 @@ public class SummaryIntegrationTest extends BaseIntegrationTest {
                                 .andExpect(jsonPath("$.historicalComparisons[*].tradeCount").value(0));
         }
 
+        @DisplayName("Trade summary endpoint aggregates counts, notional and delta from grouped queries")
+        @Test
+        void testTradeSummaryEndpointAggregatesInDatabase() throws Exception {
+                // Give today's trade a USD leg so the leg totals query has a row
+                Trade todayTrade = tradeRepository.findAll().stream()
+                                .filter(trade -> trade.getTradeDate().isEqual(LocalDate.now()))
+                                .findFirst().orElseThrow();
+                TradeLeg leg = new TradeLeg();
+                leg.setTrade(todayTrade);
+                leg.setNotional(new BigDecimal("1000000.00"));
+                leg.setRate(0.05);
+                leg.setCurrency(currencyRepository.findByCurrency("USD").orElseThrow());
+                tradeLegRepository.save(leg);
+                // The all-time figures come from the summary store, which only
+                // sees bookings made through TradeService
+                tradeSummaryStore.rebuild();
+
+                mockMvc.perform(get("/api/dashboard/summary").param("traderId", "testTrader"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.tradesByStatus.NEW").value(2))
+                                .andExpect(jsonPath("$.tradesByTypeAndCounterparty['UNKNOWN:TestCounterparty']")
+                                                .value(2))
+                                .andExpect(jsonPath("$.notionalByCurrency.USD").value(1000000.00))
+                                .andExpect(jsonPath("$.riskExposureSummary.delta").value(50000.00))
+                                .andExpect(jsonPath("$.weeklyComparisons.length()").value(7))
+                                .andExpect(jsonPath("$.weeklyComparisons[6].tradeCount").value(1))
+                                .andExpect(jsonPath("$.weeklyTradesByStatus.NEW").value(2))
+                                .andExpect(jsonPath("$.bookActivitySummaries['" + book.getId() + "'].tradeCount")
+                                                .value(2));
+        }
+
         @DisplayName("Summary endpoint returns correct trade counts when no trades exist at all")
         @Test
         void testSummaryEndpointNoTradesAtAll() throws Exception {
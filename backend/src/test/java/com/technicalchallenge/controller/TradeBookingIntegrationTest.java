@@ -0,0 +1,201 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.dto.TradeDTO;
+import com.technicalchallenge.dto.TradeLegDTO;
+import com.technicalchallenge.service.SettlementTextIndex;
+import com.technicalchallenge.service.SettlementTextStore;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/trades: the settlement instruction of a booking is validated
+ * before anything is written and stored once, by TradeService.createTrade.
+ * PUT /api/trades/{id}: an amendment updates that row through the same
+ * AdditionalInfoService write.
+ */
+@WithMockUser(username = "simon", roles = { "TRADER" })
+public class TradeBookingIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private SettlementTextIndex settlementTextIndex;
+
+    private long book(TradeDTO trade) throws Exception {
+        String body = mockMvc.perform(post("/api/trades").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(trade)))
+                .andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+        entityManager.flush();
+        return objectMapper.readTree(body).get("tradeId").asLong();
+    }
+
+    private void amend(long tradeId, String settlementInstructions) throws Exception {
+        TradeDTO amendment = swap(settlementInstructions);
+        amendment.setTradeId(tradeId);
+        mockMvc.perform(put("/api/trades/{id}", tradeId).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(amendment))).andExpect(status().isOk());
+        entityManager.flush();
+    }
+
+    private List<Map<String, Object>> settlementRows(long tradeId) {
+        return new JdbcTemplate(dataSource).queryForList("SELECT field_value, settlement_text_hash, "
+                + "non_standard_keyword, version FROM additional_info WHERE entity_type = 'TRADE' "
+                + "AND entity_id = ? AND field_name = 'SETTLEMENT_INSTRUCTIONS' AND active", tradeId);
+    }
+
+    private static TradeDTO swap(String settlementInstructions) {
+        LocalDate today = LocalDate.now();
+        TradeDTO dto = new TradeDTO();
+        dto.setBookName("RATES-BOOK-1");
+        dto.setCounterpartyName("MegaFund");
+        dto.setTraderUserName("simon");
+        dto.setInputterUserName("alice");
+        dto.setTradeType("Swap");
+        dto.setTradeSubType("IR Swap");
+        dto.setTradeDate(today);
+        dto.setTradeStartDate(today.plusDays(2));
+        dto.setTradeMaturityDate(today.plusDays(2).plusYears(1));
+        dto.setTradeExecutionDate(today);
+        dto.setSettlementInstructions(settlementInstructions);
+        dto.setTradeLegs(List.of(leg("Fixed", "Pay", 4.75, null, dto.getTradeMaturityDate()),
+                leg("Floating", "Receive", 0.0, "LIBOR", dto.getTradeMaturityDate())));
+        return dto;
+    }
+
+    private static TradeLegDTO leg(String legType, String payRec, double rate, String index, LocalDate maturity) {
+        TradeLegDTO leg = new TradeLegDTO();
+        leg.setTradeMaturityDate(maturity);
+        leg.setNotional(BigDecimal.valueOf(10_000_000));
+        leg.setCurrency("USD");
+        leg.setLegType(legType);
+        leg.setRate(rate);
+        leg.setIndexName(index);
+        leg.setHolidayCalendar("NY");
+        leg.setCalculationPeriodSchedule("Quarterly");
+        leg.setPaymentBusinessDayConvention("Modified Following");
+        leg.setFixingBusinessDayConvention("Modified Following");
+        leg.setPayReceiveFlag(payRec);
+        return leg;
+    }
+
+    @DisplayName("The settlement instruction of a booking is written once, trimmed and classified")
+    @Test
+    void testSettlementInstructionWrittenOnce() throws Exception {
+        long tradeId = book(swap("  Manual release via Euroclear acct 12345  "));
+
+        List<Map<String, Object>> rows = new JdbcTemplate(dataSource).queryForList(
+                "SELECT field_value, settlement_text_hash, non_standard_keyword FROM additional_info "
+                        + "WHERE entity_type = 'TRADE' AND entity_id = ? AND field_name = 'SETTLEMENT_INSTRUCTIONS'",
+                tradeId);
+        assertEquals(1, rows.size());
+        assertNull(rows.get(0).get("field_value"));
+        assertEquals(SettlementTextStore.hash("Manual release via Euroclear acct 12345"),
+                rows.get(0).get("settlement_text_hash"));
+        assertEquals("manual", rows.get(0).get("non_standard_keyword"));
+    }
+
+    @DisplayName("Invalid settlement instructions reject the booking before anything is written")
+    @Test
+    void testInvalidSettlementRejectsBooking() throws Exception {
+        long before = new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM trade", Long.class);
+
+        mockMvc.perform(post("/api/trades").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(swap("Pay; drop table trade"))))
+                .andExpect(status().isBadRequest());
+
+        entityManager.flush();
+        assertEquals(before, new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM trade", Long.class));
+    }
+
+    @DisplayName("An unknown payment business day convention rejects the booking, as in the cashflow preview")
+    @Test
+    void testUnknownPaymentConventionRejectsBooking() throws Exception {
+        long before = new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM trade", Long.class);
+        TradeDTO trade = swap("Settle via CLS");
+        trade.getTradeLegs().get(0).setPaymentBusinessDayConvention("End of Month");
+
+        mockMvc.perform(post("/api/trades").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(trade)))
+                .andExpect(status().isBadRequest());
+
+        entityManager.flush();
+        assertEquals(before, new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM trade", Long.class));
+    }
+
+    @DisplayName("An amendment updates the booking's settlement row instead of adding one")
+    @Test
+    void testAmendmentUpdatesTheSettlementRow() throws Exception {
+        long tradeId = book(swap("DVP via Euroclear acct 12347"));
+
+        amend(tradeId, "DVP via Clearstream acct 12347");
+
+        List<Map<String, Object>> rows = settlementRows(tradeId);
+        assertEquals(1, rows.size());
+        assertEquals(2, ((Number) rows.get(0).get("version")).intValue());
+    }
+
+    @DisplayName("The settlement text index follows an amended instruction")
+    @Test
+    void testAmendmentUpdatesTheSettlementIndex() throws Exception {
+        long tradeId = book(swap("DVP via Euroclear acct 12348"));
+
+        amend(tradeId, "DVP via Clearstream acct 12348");
+
+        assertEquals(List.of(tradeId), settlementTextIndex.matchingTradeIds("Clearstream acct 12348"));
+        assertEquals(List.of(), settlementTextIndex.matchingTradeIds("Euroclear acct 12348"));
+    }
+
+    @DisplayName("An amended instruction gets its own non-standard keyword")
+    @Test
+    void testAmendmentReclassifiesTheInstruction() throws Exception {
+        long tradeId = book(swap("Manual release via Euroclear acct 12349"));
+        assertEquals("manual", settlementRows(tradeId).get(0).get("non_standard_keyword"));
+
+        amend(tradeId, "DVP via Euroclear acct 12349");
+        assertNull(settlementRows(tradeId).get(0).get("non_standard_keyword"));
+
+        amend(tradeId, "Offshore custody, acct 12349");
+        assertEquals("offshore", settlementRows(tradeId).get(0).get("non_standard_keyword"));
+    }
+
+    @DisplayName("An amended instruction is stored by content hash, shared with equal texts")
+    @Test
+    void testAmendmentInternsTheInstruction() throws Exception {
+        String text = "DVP via Clearstream acct 12350";
+        long first = book(swap("DVP via Euroclear acct 12350"));
+        long second = book(swap(text));
+
+        amend(first, text);
+
+        Map<String, Object> row = settlementRows(first).get(0);
+        assertNull(row.get("field_value"));
+        assertEquals(SettlementTextStore.hash(text), row.get("settlement_text_hash"));
+        assertEquals(row.get("settlement_text_hash"), settlementRows(second).get(0).get("settlement_text_hash"));
+        assertEquals(1, new JdbcTemplate(dataSource).queryForObject(
+                "SELECT COUNT(*) FROM settlement_text WHERE hash = ?", Integer.class, SettlementTextStore.hash(text)));
+    }
+}
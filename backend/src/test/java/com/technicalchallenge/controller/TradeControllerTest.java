@@ -3,6 +3,7 @@ package com.technicalchallenge.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.technicalchallenge.dto.TradeDTO;
+import com.technicalchallenge.dto.TradeSlice;
 import com.technicalchallenge.mapper.TradeMapper;
 import com.technicalchallenge.model.Trade;
 import com.technicalchallenge.service.TradeService;
@@ -87,10 +88,9 @@ public class TradeControllerTest extends BaseIntegrationTest {
 
     @Test
     void testGetAllTrades() throws Exception {
-        // Given
-        List<Trade> trades = List.of(trade);
-
-        when(tradeService.getAllTrades()).thenReturn(trades);
+        // Given: the service maps inside its transaction (Open Session In
+        // View is off)
+        when(tradeService.getAllTradeDtos(isNull(), isNull())).thenReturn(new TradeSlice(List.of(tradeDTO), null, null));
 
         // When/Then
         mockMvc.perform(get("/api/trades")
@@ -99,9 +99,21 @@ public class TradeControllerTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].tradeId", is(1001)))
                 .andExpect(jsonPath("$[0].bookName", is("TEST-BOOK-1")))
-                .andExpect(jsonPath("$[0].counterpartyName", is("TestCounterparty")));
+                .andExpect(jsonPath("$[0].counterpartyName", is("TestCounterparty")))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
 
-        verify(tradeService).getAllTrades();
+        verify(tradeService).getAllTradeDtos(null, null);
+    }
+
+    @Test
+    void testGetAllTradesPassesCursorAndReturnsNextCursor() throws Exception {
+        when(tradeService.getAllTradeDtos("abc", 1)).thenReturn(new TradeSlice(List.of(tradeDTO), "def", null));
+
+        mockMvc.perform(get("/api/trades").param("cursor", "abc").param("size", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string("X-Next-Cursor", "def"));
     }
 
     @Test
@@ -139,7 +151,6 @@ public class TradeControllerTest extends BaseIntegrationTest {
     void testCreateTrade() throws Exception {
         // Given
         when(tradeService.saveTrade(any(Trade.class), any(TradeDTO.class))).thenReturn(trade);
-        doNothing().when(tradeService).populateReferenceDataByName(any(Trade.class), any(TradeDTO.class));
 
         // When/Then
         mockMvc.perform(post("/api/trades")
@@ -150,7 +161,8 @@ public class TradeControllerTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.tradeId", is(1001)));
 
         verify(tradeService).saveTrade(any(Trade.class), any(TradeDTO.class));
-        verify(tradeService).populateReferenceDataByName(any(Trade.class), any(TradeDTO.class));
+        // CHANGED: references are resolved once, inside the service
+        verify(tradeService, never()).populateReferenceDataByName(any(Trade.class), any(TradeDTO.class));
     }
 
     // I am adding the TRADER role to this test method to match the privilege
@@ -0,0 +1,179 @@
+package com.technicalchallenge.controller;
+
+import com.technicalchallenge.dto.TradeDTO;
+import com.technicalchallenge.model.Cashflow;
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.model.TradeLeg;
+import com.technicalchallenge.repository.ApplicationUserRepository;
+import com.technicalchallenge.repository.BookRepository;
+import com.technicalchallenge.repository.CashflowRepository;
+import com.technicalchallenge.repository.CounterpartyRepository;
+import com.technicalchallenge.repository.CurrencyRepository;
+import com.technicalchallenge.repository.PayRecRepository;
+import com.technicalchallenge.repository.TradeLegRepository;
+import com.technicalchallenge.repository.TradeRepository;
+import com.technicalchallenge.repository.TradeStatusRepository;
+import com.technicalchallenge.service.TradeService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the trade fetch plans: mapping a list of trades (with legs,
+ * cashflows and all their reference data) to DTOs runs the same number of
+ * statements whatever the number of trades, instead of several lazy loads per
+ * trade, leg and cashflow. The blotter projection skips the entities (and the
+ * cashflows) altogether.
+ */
+@WithMockUser(username = "testTrader", roles = { "MIDDLE_OFFICE" })
+public class TradeFetchPlanIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private TradeService tradeService;
+    @Autowired
+    private TradeRepository tradeRepository;
+    @Autowired
+    private TradeLegRepository tradeLegRepository;
+    @Autowired
+    private CashflowRepository cashflowRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CounterpartyRepository counterpartyRepository;
+    @Autowired
+    private ApplicationUserRepository userRepository;
+    @Autowired
+    private TradeStatusRepository tradeStatusRepository;
+    @Autowired
+    private CurrencyRepository currencyRepository;
+    @Autowired
+    private PayRecRepository payRecRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    // Books trades with two legs and three cashflows each, then detaches
+    // everything so the read has to go to the database
+    private List<Long> bookTrades(int count, long firstTradeId) {
+        List<Long> tradeIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Trade trade = new Trade();
+            trade.setTradeId(firstTradeId + i);
+            trade.setVersion(1);
+            trade.setActive(true);
+            trade.setTradeDate(LocalDate.now());
+            trade.setBook(bookRepository.findAll().get(0));
+            trade.setCounterparty(counterpartyRepository.findAll().get(0));
+            trade.setTraderUser(userRepository.findAll().get(0));
+            trade.setTradeStatus(tradeStatusRepository.findByTradeStatus("NEW").orElseThrow());
+            tradeRepository.save(trade);
+            for (String ccy : List.of("USD", "EUR")) {
+                TradeLeg leg = new TradeLeg();
+                leg.setTrade(trade);
+                leg.setNotional(new BigDecimal("1000000.00"));
+                leg.setRate(0.05);
+                leg.setCurrency(currencyRepository.findByCurrency(ccy).orElseThrow());
+                leg.setPayReceiveFlag(payRecRepository.findAll().get(0));
+                tradeLegRepository.save(leg);
+                for (int c = 1; c <= 3; c++) {
+                    Cashflow cashflow = new Cashflow();
+                    cashflow.setTradeLeg(leg);
+                    cashflow.setPaymentValue(new BigDecimal("12500.00"));
+                    cashflow.setValueDate(LocalDate.now().plusMonths(3L * c));
+                    cashflow.setPayRec(payRecRepository.findAll().get(0));
+                    cashflowRepository.save(cashflow);
+                }
+            }
+            tradeIds.add(trade.getTradeId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return tradeIds;
+    }
+
+    private long statementsToMap(List<Long> tradeIds, int expectedTrades) {
+        entityManager.clear();
+        statistics.clear();
+        List<TradeDTO> dtos = tradeService.getTradeDtosByIds(tradeIds);
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(expectedTrades, dtos.size());
+        dtos.forEach(dto -> {
+            assertNotNull(dto.getBookName());
+            assertEquals(2, dto.getTradeLegs().size());
+            dto.getTradeLegs().forEach(leg -> {
+                assertNotNull(leg.getCurrency());
+                assertEquals(3, leg.getCashflows().size());
+                assertNotNull(leg.getCashflows().get(0).getPayRec());
+            });
+        });
+        return statements;
+    }
+
+    @DisplayName("Mapping trades to DTOs runs a fixed number of statements regardless of how many trades")
+    @Test
+    void testStatementCountDoesNotGrowWithTradeCount() {
+        List<Long> few = bookTrades(2, 900000L);
+        List<Long> many = bookTrades(20, 910000L);
+
+        long forFew = statementsToMap(few, 2);
+        long forMany = statementsToMap(many, 20);
+
+        assertEquals(forFew, forMany);
+        // trades + legs + cashflows, plus one batch per kind of reference data
+        assertTrue(forMany <= 8, "statements: " + forMany);
+    }
+
+    @DisplayName("The blotter reads trade headers and leg summaries in two statements and leaves cashflows out")
+    @Test
+    void testBlotterSkipsCashflows() {
+        List<Long> booked = bookTrades(20, 920000L);
+        entityManager.clear();
+        statistics.clear();
+
+        List<TradeDTO> blotter = tradeService.getAllTradeDtos();
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        List<TradeDTO> ours = blotter.stream().filter(dto -> booked.contains(dto.getTradeId())).toList();
+        assertEquals(20, ours.size());
+        ours.forEach(dto -> {
+            assertNotNull(dto.getBookName());
+            assertNotNull(dto.getTraderUserName());
+            assertEquals("NEW", dto.getTradeStatus());
+            assertEquals(2, dto.getTradeLegs().size());
+            dto.getTradeLegs().forEach(leg -> {
+                assertNotNull(leg.getCurrency());
+                assertNotNull(leg.getPayReceiveFlag());
+                assertNull(leg.getCashflows());
+            });
+        });
+
+        // Asked for explicitly, the cashflows are still there
+        TradeDTO full = tradeService.getAllTradeDtosWithCashflows(null, null).content().stream()
+                .filter(dto -> dto.getTradeId().equals(booked.get(0))).findFirst().orElseThrow();
+        assertEquals(3, full.getTradeLegs().get(0).getCashflows().size());
+    }
+}
@@ -0,0 +1,129 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.model.Counterparty;
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.repository.BookRepository;
+import com.technicalchallenge.repository.CounterpartyRepository;
+import com.technicalchallenge.repository.TradeRepository;
+import com.technicalchallenge.repository.TradeStatusRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Keyset (cursor) paging of the trade lists: following nextCursor visits
+ * every matching trade once, newest first, and the count can be skipped.
+ */
+@WithMockUser(username = "testTrader", roles = { "TRADER" })
+public class TradeKeysetPaginationIntegrationTest extends BaseIntegrationTest {
+
+    private static final String COUNTERPARTY = "KeysetBank";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TradeRepository tradeRepository;
+    @Autowired
+    private CounterpartyRepository counterpartyRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private TradeStatusRepository tradeStatusRepository;
+
+    // Seven trades, the last booked in two versions (same tradeId)
+    @BeforeEach
+    void bookTrades() {
+        Counterparty counterparty = new Counterparty();
+        counterparty.setName(COUNTERPARTY);
+        counterparty.setActive(true);
+        counterpartyRepository.save(counterparty);
+        for (int i = 0; i < 7; i++) {
+            for (int version = 1; version <= (i == 6 ? 2 : 1); version++) {
+                Trade trade = new Trade();
+                trade.setTradeId(930000L + i);
+                trade.setVersion(version);
+                trade.setTradeDate(LocalDate.now());
+                trade.setCounterparty(counterparty);
+                trade.setBook(bookRepository.findAll().get(0));
+                trade.setTradeStatus(tradeStatusRepository.findByTradeStatus("NEW").orElseThrow());
+                tradeRepository.save(trade);
+            }
+        }
+        tradeRepository.flush();
+    }
+
+    private JsonNode filterPage(String cursor, boolean withCount) throws Exception {
+        var request = get("/api/dashboard/filter").param("counterparty", COUNTERPARTY).param("size", "3")
+                .param("withCount", String.valueOf(withCount));
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    @DisplayName("Following nextCursor through /filter returns every trade version once, newest first")
+    @Test
+    void testFilterWalksAllPages() throws Exception {
+        List<Long> tradeIds = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            JsonNode page = filterPage(cursor, pages == 0);
+            if (pages == 0) {
+                assertEquals(8, page.get("count").asLong());
+            } else {
+                assertFalse(page.has("count"));
+            }
+            page.get("content").forEach(trade -> tradeIds.add(trade.get("tradeId").asLong()));
+            cursor = page.has("nextCursor") ? page.get("nextCursor").asText() : null;
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of(930006L, 930006L, 930005L, 930004L, 930003L, 930002L, 930001L, 930000L), tradeIds);
+    }
+
+    @DisplayName("Array endpoints are capped and hand out the next cursor as a header")
+    @Test
+    void testSearchReturnsNextCursorHeader() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/dashboard/search").param("counterparty", COUNTERPARTY)
+                .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+
+        mockMvc.perform(get("/api/dashboard/search").param("counterparty", COUNTERPARTY)
+                .param("size", "5").param("cursor", first.getResponse().getHeader("X-Next-Cursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[2].tradeId").value(930000))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @DisplayName("A token that is not a cursor is rejected with 400")
+    @Test
+    void testInvalidCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/dashboard/filter").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/trades").param("cursor", "bm9wZQ"))
+                .andExpect(status().isBadRequest());
+    }
+}
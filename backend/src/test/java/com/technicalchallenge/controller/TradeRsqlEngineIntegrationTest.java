@@ -0,0 +1,183 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.dto.TradeBlotterRow;
+import com.technicalchallenge.model.Counterparty;
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.repository.BookRepository;
+import com.technicalchallenge.repository.CounterpartyRepository;
+import com.technicalchallenge.repository.TradeJpqlFilter;
+import com.technicalchallenge.repository.TradeRepository;
+import com.technicalchallenge.repository.TradeStatusRepository;
+import com.technicalchallenge.service.TradeDashboardService;
+import com.technicalchallenge.service.TradeRsqlQueryCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The two RSQL engines: the JPQL one returns the same rows as the Criteria
+ * one, in one statement, and /api/dashboard/rsql pages the same way with
+ * either.
+ */
+@WithMockUser(username = "testTrader", roles = { "MIDDLE_OFFICE" })
+public class TradeRsqlEngineIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TradeRepository tradeRepository;
+    @Autowired
+    private CounterpartyRepository counterpartyRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private TradeStatusRepository tradeStatusRepository;
+    @Autowired
+    private TradeRsqlQueryCache rsqlQueryCache;
+    @Autowired
+    private TradeDashboardService tradeDashboardService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Twelve trades over two counterparties, two statuses and four dates;
+    // every third has no counterparty
+    @BeforeEach
+    void bookTrades() {
+        Counterparty first = counterparty("EngineBankA");
+        Counterparty second = counterparty("EngineBankB");
+        for (int i = 0; i < 12; i++) {
+            Trade trade = new Trade();
+            trade.setTradeId(940000L + i);
+            trade.setVersion(1);
+            trade.setActive(true);
+            trade.setTradeDate(LocalDate.of(2025, 3, 1).plusDays(i % 4));
+            trade.setCounterparty(i % 3 == 2 ? null : (i % 2 == 0 ? first : second));
+            trade.setBook(bookRepository.findAll().get(i % 2));
+            trade.setTradeStatus(tradeStatusRepository.findByTradeStatus(i < 6 ? "NEW" : "LIVE").orElseThrow());
+            tradeRepository.save(trade);
+        }
+        tradeRepository.flush();
+        entityManager.clear();
+    }
+
+    private Counterparty counterparty(String name) {
+        Counterparty counterparty = new Counterparty();
+        counterparty.setName(name);
+        counterparty.setActive(true);
+        return counterpartyRepository.save(counterparty);
+    }
+
+    private static List<Long> ids(List<TradeBlotterRow> rows) {
+        return rows.stream().map(TradeBlotterRow::id).toList();
+    }
+
+    @DisplayName("The JPQL engine returns the same rows and count as the Criteria engine")
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "counterparty.name==enginebanka",
+            "counterparty.name=like=EngineBank*;tradeStatus.tradeStatus==LIVE",
+            "counterparty.name!=EngineBankA;tradeId=ge=940000",
+            "(counterparty.name==EngineBankA,counterparty.name==EngineBankB);tradeDate=le=2025-03-02",
+            "tradeId=out=(940000,940001);tradeId=gt=939999;book.bookName=like=*BOOK*",
+            "tradeId=in=(940003,940004,940011)" })
+    void testEnginesAgree(String query) {
+        List<TradeBlotterRow> criteria = tradeRepository
+                .findBlotterRowsAfter(rsqlQueryCache.compile(query), null, 500).getContent();
+        TradeJpqlFilter filter = rsqlQueryCache.compileJpql(query);
+        List<TradeBlotterRow> jpql = tradeRepository.findBlotterRowsMatching(filter, null, 500).getContent();
+
+        assertFalse(jpql.isEmpty(), query);
+        assertEquals(ids(criteria), ids(jpql), query);
+        assertEquals(criteria, jpql, query);
+        assertEquals(tradeRepository.count(rsqlQueryCache.compile(query)),
+                tradeRepository.countBlotterRowsMatching(filter), query);
+    }
+
+    // The one place the engines differ: Criteria paths join the reference
+    // tables with inner joins, so an OR across a reference field drops the
+    // trades where that reference is missing. The JPQL engine's outer joins
+    // keep them, which is what the OR says.
+    @DisplayName("An OR across a reference field keeps trades without that reference on the JPQL engine")
+    @Test
+    void testJpqlEngineKeepsTradesWithoutTheReference() {
+        String query = "(counterparty.name==EngineBankA,tradeStatus.tradeStatus=in=(LIVE));tradeId=ge=940000";
+
+        List<Long> criteria = tradeRepository.findBlotterRowsAfter(rsqlQueryCache.compile(query), null, 500)
+                .getContent().stream().map(TradeBlotterRow::tradeId).toList();
+        List<Long> jpql = tradeRepository.findBlotterRowsMatching(rsqlQueryCache.compileJpql(query), null, 500)
+                .getContent().stream().map(TradeBlotterRow::tradeId).toList();
+
+        assertEquals(List.of(940010L, 940009L, 940007L, 940006L, 940004L, 940000L), criteria);
+        assertEquals(List.of(940011L, 940010L, 940009L, 940008L, 940007L, 940006L, 940004L, 940000L), jpql);
+    }
+
+    @DisplayName("A JPQL engine page is one statement and loads no entities")
+    @Test
+    void testJpqlEngineRunsOneStatement() {
+        TradeJpqlFilter filter = rsqlQueryCache
+                .compileJpql("counterparty.name==EngineBankB;tradeStatus.tradeStatus==NEW");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<TradeBlotterRow> rows = tradeRepository.findBlotterRowsMatching(filter, null, 500).getContent();
+
+        assertEquals(List.of(940003L, 940001L), rows.stream().map(TradeBlotterRow::tradeId).toList());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(List.of("enginebankb", "new"), filter.parameters());
+    }
+
+    @DisplayName("GET /api/dashboard/rsql pages through the JPQL engine with cursor and count")
+    @Test
+    void testRsqlEndpointOnJpqlEngine() throws Exception {
+        ReflectionTestUtils.setField((Object) AopTestUtils.getTargetObject(tradeDashboardService), "rsqlEngine", "jpql");
+        try {
+            MvcResult first = mockMvc.perform(get("/api/dashboard/rsql")
+                    .param("query", "counterparty.name=like=EngineBank*").param("size", "5"))
+                    .andExpect(status().isOk()).andReturn();
+            JsonNode page = objectMapper.readTree(first.getResponse().getContentAsString());
+            assertEquals(8, page.get("count").asLong());
+            assertEquals(5, page.get("content").size());
+            assertEquals(940010L, page.get("content").get(0).get("tradeId").asLong());
+
+            MvcResult second = mockMvc.perform(get("/api/dashboard/rsql")
+                    .param("query", "counterparty.name=like=EngineBank*").param("size", "5")
+                    .param("cursor", page.get("nextCursor").asText()))
+                    .andExpect(status().isOk()).andReturn();
+            JsonNode next = objectMapper.readTree(second.getResponse().getContentAsString());
+            assertEquals(3, next.get("content").size());
+            assertFalse(next.has("nextCursor"));
+
+            mockMvc.perform(get("/api/dashboard/rsql").param("query", "tradeId==notANumber"))
+                    .andExpect(status().isBadRequest());
+        } finally {
+            ReflectionTestUtils.setField((Object) AopTestUtils.getTargetObject(tradeDashboardService), "rsqlEngine", "criteria");
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.technicalchallenge.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.model.TradeLeg;
+import com.technicalchallenge.repository.BookRepository;
+import com.technicalchallenge.repository.CurrencyRepository;
+import com.technicalchallenge.repository.TradeLegRepository;
+import com.technicalchallenge.repository.TradeRepository;
+import com.technicalchallenge.repository.TradeStatusRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GET /api/trades/stream: one blotter trade per NDJSON line, across more
+ * than one read chunk.
+ */
+@WithMockUser(username = "testTrader", roles = { "MIDDLE_OFFICE" })
+public class TradeStreamIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TradeRepository tradeRepository;
+    @Autowired
+    private TradeLegRepository tradeLegRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private TradeStatusRepository tradeStatusRepository;
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @DisplayName("Streams every trade once, newest first, each with its legs and no cashflows")
+    @Test
+    void testStreamsAllTradesAsNdjson() throws Exception {
+        // More trades than one chunk (500) so legs are matched across chunks
+        List<Trade> trades = new ArrayList<>();
+        List<TradeLeg> legs = new ArrayList<>();
+        for (int i = 0; i < 510; i++) {
+            Trade trade = new Trade();
+            trade.setTradeId(940000L + i);
+            trade.setVersion(1);
+            trade.setTradeDate(LocalDate.now());
+            trade.setBook(bookRepository.findAll().get(0));
+            trade.setTradeStatus(tradeStatusRepository.findByTradeStatus("NEW").orElseThrow());
+            trades.add(trade);
+            TradeLeg leg = new TradeLeg();
+            leg.setTrade(trade);
+            leg.setNotional(BigDecimal.valueOf(1000L + i));
+            leg.setCurrency(currencyRepository.findByCurrency("USD").orElseThrow());
+            legs.add(leg);
+        }
+        tradeRepository.saveAll(trades);
+        tradeLegRepository.saveAll(legs);
+        tradeRepository.flush();
+
+        MvcResult result = mockMvc.perform(get("/api/trades/stream"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(tradeRepository.count(), lines.length);
+        Set<Long> rowIds = new HashSet<>();
+        long previousTradeId = Long.MAX_VALUE;
+        for (String line : lines) {
+            JsonNode trade = objectMapper.readTree(line);
+            assertTrue(rowIds.add(trade.get("id").asLong()));
+            long tradeId = trade.get("tradeId").asLong();
+            assertTrue(tradeId <= previousTradeId);
+            previousTradeId = tradeId;
+            if (tradeId >= 940000L) {
+                JsonNode tradeLegs = trade.get("tradeLegs");
+                assertEquals(1, tradeLegs.size());
+                assertEquals(1000L + tradeId - 940000L, tradeLegs.get(0).get("notional").asLong());
+                assertTrue(tradeLegs.get(0).get("cashflows").isNull());
+            }
+        }
+    }
+}
@@ -3,9 +3,11 @@ package com.technicalchallenge.service;
 import com.technicalchallenge.dto.BookDTO;
 import com.technicalchallenge.mapper.BookMapper;
 import com.technicalchallenge.model.Book;
+import com.technicalchallenge.model.CostCenter;
 import com.technicalchallenge.repository.BookRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -28,6 +30,11 @@ public class BookServiceTest {
     @Mock
     private BookMapper bookMapper;
 
+    // Cost centres are looked up in the cache; every table finds nothing
+    // unless a test stubs it
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private ReferenceDataCache referenceDataCache;
+
     @InjectMocks
     private BookService bookService;
 
@@ -86,6 +93,32 @@ public class BookServiceTest {
         assertFalse(found.isPresent());
     }
 
+    @Test
+    void testPopulateCostCenterByName() {
+        CostCenter costCenter = new CostCenter();
+        costCenter.setCostCenterName("Rates");
+        when(referenceDataCache.costCenters().findByNameIgnoreCase("rates")).thenReturn(Optional.of(costCenter));
+        BookDTO dto = new BookDTO();
+        dto.setCostCenterName("rates");
+        Book book = new Book();
+
+        bookService.populateReferenceDataByName(book, dto);
+
+        assertSame(costCenter, book.getCostCenter());
+    }
+
+    @Test
+    void testPopulateUnknownCostCenterThrows() {
+        BookDTO dto = new BookDTO();
+        dto.setCostCenterName("Nowhere");
+        when(referenceDataCache.costCenters().findByNameIgnoreCase("Nowhere")).thenReturn(Optional.empty());
+
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> bookService.populateReferenceDataByName(new Book(), dto));
+
+        assertTrue(exception.getMessage().contains("CostCenter 'Nowhere' does not exist"));
+    }
+
     // Business logic: test book cannot be created with null name
     @Test
     void testBookCreationWithNullNameThrowsException() {
@@ -0,0 +1,79 @@
+package com.technicalchallenge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusinessCalendarTest {
+
+    // Per-year bitset as stored in holiday_calendar_year
+    private static byte[] bits(LocalDate... holidays) {
+        byte[] bits = new byte[46];
+        for (LocalDate d : holidays) {
+            int i = d.getDayOfYear() - 1;
+            bits[i >>> 3] |= (byte) (1 << (i & 7));
+        }
+        return bits;
+    }
+
+    private static BusinessCalendar calendar(String name, LocalDate... holidays) {
+        return BusinessCalendar.fromYearBits(name, Map.of(holidays[0].getYear(), bits(holidays)));
+    }
+
+    @Test
+    void testWeekendsAndHolidays() {
+        // 2025-12-25 Thursday, 2025-12-26 Friday
+        BusinessCalendar lon = calendar("LON", LocalDate.of(2025, 12, 25), LocalDate.of(2025, 12, 26));
+
+        assertFalse(lon.isBusinessDay(LocalDate.of(2025, 12, 25)));
+        assertFalse(lon.isBusinessDay(LocalDate.of(2025, 12, 27))); // Saturday
+        assertTrue(lon.isBusinessDay(LocalDate.of(2025, 12, 24)));
+        assertTrue(lon.isBusinessDay(LocalDate.of(2025, 12, 29)));
+        // Outside the loaded years only weekends apply
+        assertTrue(lon.isBusinessDay(LocalDate.of(2030, 12, 25)));
+    }
+
+    @Test
+    void testFollowingAndModifiedFollowing() {
+        BusinessCalendar weekends = BusinessCalendar.weekendsOnly("NONE");
+        LocalDate saturday = LocalDate.of(2025, 5, 31); // last day of May
+
+        assertEquals(LocalDate.of(2025, 6, 2), weekends.adjust(saturday, BusinessDayAdjustment.FOLLOWING));
+        // Following would cross into June, so Modified Following goes back to Friday
+        assertEquals(LocalDate.of(2025, 5, 30), weekends.adjust(saturday, BusinessDayAdjustment.MODIFIED_FOLLOWING));
+        assertEquals(saturday, weekends.adjust(saturday, BusinessDayAdjustment.UNADJUSTED));
+
+        LocalDate midMonthSaturday = LocalDate.of(2025, 3, 15);
+        assertEquals(LocalDate.of(2025, 3, 17),
+                weekends.adjust(midMonthSaturday, BusinessDayAdjustment.MODIFIED_FOLLOWING));
+    }
+
+    @Test
+    void testCombinedCalendarIsUnionOfHolidays() {
+        BusinessCalendar lon = calendar("LON", LocalDate.of(2025, 8, 25)); // UK summer bank holiday
+        BusinessCalendar ny = BusinessCalendar.fromYearBits("NY",
+                Map.of(2026, bits(LocalDate.of(2026, 7, 3)))); // different year range
+
+        BusinessCalendar both = lon.or(ny);
+
+        assertEquals("LON+NY", both.getName());
+        assertFalse(both.isBusinessDay(LocalDate.of(2025, 8, 25)));
+        assertFalse(both.isBusinessDay(LocalDate.of(2026, 7, 3)));
+        assertTrue(both.isBusinessDay(LocalDate.of(2025, 8, 26)));
+        assertTrue(lon.isBusinessDay(LocalDate.of(2026, 7, 3)));
+        // Bank holiday Monday rolls to Tuesday
+        assertEquals(LocalDate.of(2025, 8, 26),
+                both.adjust(LocalDate.of(2025, 8, 25), BusinessDayAdjustment.FOLLOWING));
+    }
+
+    @Test
+    void testConventionNames() {
+        assertEquals(BusinessDayAdjustment.MODIFIED_FOLLOWING, BusinessDayAdjustment.fromName("Modified Following"));
+        assertEquals(BusinessDayAdjustment.FOLLOWING, BusinessDayAdjustment.fromName("following"));
+        assertEquals(BusinessDayAdjustment.UNADJUSTED, BusinessDayAdjustment.fromName(null));
+        assertThrows(IllegalArgumentException.class, () -> BusinessDayAdjustment.fromName("Nearest"));
+    }
+}
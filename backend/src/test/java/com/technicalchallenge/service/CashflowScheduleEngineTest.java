@@ -0,0 +1,105 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.service.CashflowScheduleEngine.DayCount;
+import com.technicalchallenge.service.CashflowScheduleEngine.GeneratedSchedule;
+import com.technicalchallenge.service.CashflowScheduleEngine.PeriodTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CashflowScheduleEngineTest {
+
+    private final CashflowScheduleEngine engine = new CashflowScheduleEngine();
+
+    @Test
+    void testFrequencyParsing() {
+        assertEquals(1, engine.frequencyMonths("Monthly"));
+        assertEquals(3, engine.frequencyMonths("Quarterly"));
+        assertEquals(3, engine.frequencyMonths("3M"));
+        assertEquals(6, engine.frequencyMonths("semi-annually"));
+        assertEquals(12, engine.frequencyMonths("12M"));
+        assertEquals(12, engine.frequencyMonths("1Y"));
+        assertEquals(3, engine.frequencyMonths(null));
+        assertThrows(IllegalArgumentException.class, () -> engine.frequencyMonths("fortnightly"));
+    }
+
+    @Test
+    void testPeriodsStopAtMaturityWithoutStub() {
+        PeriodTemplate periods = engine.periods(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 4, 2), 3);
+
+        assertEquals(1, periods.size());
+        assertEquals(LocalDate.of(2025, 4, 1), periods.endDate(0));
+    }
+
+    @Test
+    void testMonthEndStartDoesNotDrift() {
+        PeriodTemplate periods = engine.periods(LocalDate.of(2025, 1, 31), LocalDate.of(2025, 4, 30), 1);
+
+        assertEquals(3, periods.size());
+        assertEquals(LocalDate.of(2025, 2, 28), periods.endDate(0));
+        assertEquals(LocalDate.of(2025, 3, 31), periods.endDate(1));
+        assertEquals(LocalDate.of(2025, 4, 30), periods.endDate(2));
+    }
+
+    @Test
+    void testTemplatesAreMemoized() {
+        LocalDate start = LocalDate.of(2025, 1, 17);
+        LocalDate maturity = LocalDate.of(2055, 1, 17);
+
+        PeriodTemplate first = engine.periods(start, maturity, 1);
+        PeriodTemplate second = engine.periods(start, maturity, 1);
+
+        assertSame(first, second);
+        assertEquals(360, first.size());
+        assertEquals(1, engine.cachedTemplateCount());
+    }
+
+    @Test
+    void testDayCountConventions() {
+        // 10m at 3.5% over Jan 1 -> Apr 1 2025 (90 actual days, 90 30/360 days)
+        PeriodTemplate quarter = engine.periods(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 4, 1), 3);
+        BigDecimal notional = new BigDecimal("10000000");
+
+        assertEquals(new BigDecimal("87500.00"),
+                engine.generate(quarter, "Fixed", notional, 3.5, DayCount.THIRTY_360).amount(0));
+        assertEquals(new BigDecimal("87500.00"),
+                engine.generate(quarter, "Fixed", notional, 0.035, DayCount.ACT_360).amount(0));
+        assertEquals(new BigDecimal("86301.37"),
+                engine.generate(quarter, "Fixed", notional, 3.5, DayCount.ACT_365F).amount(0));
+        assertEquals(DayCount.ACT_365F, DayCount.fromName("Act/365"));
+        assertEquals(DayCount.THIRTY_360, DayCount.fromName(null));
+    }
+
+    @Test
+    void testFloatingWithoutRateAndUnknownTypeAreZero() {
+        PeriodTemplate periods = engine.periods(LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1), 6);
+        BigDecimal zero = new BigDecimal("0.00");
+
+        GeneratedSchedule floating = engine.generate(periods, "Floating", BigDecimal.TEN, null, null);
+        GeneratedSchedule unknown = engine.generate(periods, null, BigDecimal.TEN, 5.0, null);
+
+        assertEquals(2, floating.size());
+        assertEquals(zero, floating.amount(0));
+        assertEquals(zero, unknown.amount(1));
+    }
+
+    @Test
+    void testPaymentDatesRolledButAccrualUnadjusted() {
+        // Two-monthly from 2025-03-31: May 31 2025 is a Saturday
+        PeriodTemplate periods = engine.periods(LocalDate.of(2025, 3, 31), LocalDate.of(2025, 5, 31), 2);
+        BusinessCalendar weekends = BusinessCalendar.weekendsOnly("NONE");
+
+        GeneratedSchedule adjusted = engine.generate(periods, "Fixed", new BigDecimal("1000000"), 4.0,
+                DayCount.ACT_360, weekends, BusinessDayAdjustment.MODIFIED_FOLLOWING);
+        GeneratedSchedule unadjusted = engine.generate(periods, "Fixed", new BigDecimal("1000000"), 4.0,
+                DayCount.ACT_360);
+
+        assertEquals(LocalDate.of(2025, 5, 30), adjusted.paymentDate(0));
+        assertEquals(LocalDate.of(2025, 5, 31), adjusted.unadjustedPaymentDate(0));
+        assertEquals(LocalDate.of(2025, 5, 31), unadjusted.paymentDate(0));
+        assertEquals(unadjusted.amount(0), adjusted.amount(0));
+    }
+}
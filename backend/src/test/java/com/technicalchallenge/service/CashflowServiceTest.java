@@ -1,19 +1,20 @@
 package com.technicalchallenge.service;
 
+import com.technicalchallenge.dto.CashflowDTO;
+import com.technicalchallenge.model.BusinessDayConvention;
 import com.technicalchallenge.model.Cashflow;
 import com.technicalchallenge.model.LegType;
 import com.technicalchallenge.model.PayRec;
 import com.technicalchallenge.model.TradeLeg;
 import com.technicalchallenge.repository.CashflowRepository;
-import com.technicalchallenge.repository.BusinessDayConventionRepository;
-import com.technicalchallenge.repository.LegTypeRepository;
-import com.technicalchallenge.repository.PayRecRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -32,14 +33,14 @@ public class CashflowServiceTest {
     @Mock
     private CashflowRepository cashflowRepository;
 
-    @Mock
-    private PayRecRepository payRecRepository;
-
-    @Mock
-    private LegTypeRepository legTypeRepository;
+    // CHANGED: pay/rec, leg type and BDC names are looked up in the cache;
+    // every table finds nothing unless a test stubs it
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private ReferenceDataCache referenceDataCache;
 
-    @Mock
-    private BusinessDayConventionRepository businessDayConventionRepository;
+    // The real engine behind TradeService.generateCashflows
+    @Spy
+    private CashflowScheduleEngine cashflowScheduleEngine = new CashflowScheduleEngine();
 
     @InjectMocks
     private CashflowService cashflowService;
@@ -201,6 +202,30 @@ public class CashflowServiceTest {
     }
 
     @Test
+    void testPopulateReferenceDataByNameIgnoresCase() {
+        LegType fixed = new LegType();
+        fixed.setType("Fixed");
+        BusinessDayConvention following = new BusinessDayConvention();
+        following.setBdc("Following");
+        when(referenceDataCache.payRecs().findByNameIgnoreCase("pay")).thenReturn(Optional.of(payRec));
+        when(referenceDataCache.legTypes().findByNameIgnoreCase("fixed")).thenReturn(Optional.of(fixed));
+        when(referenceDataCache.businessDayConventions().findByNameIgnoreCase("following"))
+                .thenReturn(Optional.of(following));
+        CashflowDTO dto = new CashflowDTO();
+        dto.setPayRec("pay");
+        dto.setPaymentType("fixed");
+        dto.setPaymentBusinessDayConvention("following");
+        Cashflow cashflow = new Cashflow();
+
+        cashflowService.populateReferenceDataByName(cashflow, dto);
+
+        assertSame(payRec, cashflow.getPayRec());
+        assertSame(fixed, cashflow.getPaymentType());
+        assertSame(following, cashflow.getPaymentBusinessDayConvention());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
     void testGenerateQuarterlyCashflow() {
 
         TradeLeg leg = new TradeLeg();// a new leg to use for calcualtion
@@ -224,14 +249,15 @@ public class CashflowServiceTest {
         // trigger the calculation.calls the production method, then save a new cashflow
         // in the database
         tradeService.generateCashflows(leg, startDate, endDate);
-        ArgumentCaptor<Cashflow> captor = ArgumentCaptor.forClass(Cashflow.class);// Catch the cashflow object's exact
-                                                                                  // value calcualted that is saved,
-                                                                                  // without a real database.
-        verify(cashflowRepository, atLeastOnce()).save(captor.capture());// watch for any call to
-                                                                         // cashflowRepository.save(...) and capture the
-                                                                         // object that was passed in.
-
-        List<Cashflow> cashflows = captor.getAllValues();// get all captured cashflows in this case only one.
+        ArgumentCaptor<List<Cashflow>> captor = ArgumentCaptor.forClass(List.class);// Catch the cashflow objects'
+                                                                                    // exact values calculated that
+                                                                                    // are saved, without a real
+                                                                                    // database.
+        verify(cashflowRepository).saveAll(captor.capture());// REFACTORED: generateCashflows now persists the
+                                                             // whole schedule with one saveAll(...) (batched
+                                                             // insert); capture the list that was passed in.
+
+        List<Cashflow> cashflows = captor.getValue();// all captured cashflows, in this case only one.
 
         assertEquals(1, cashflows.size(), "Should generate exactly one quarterly cashflow");
 
@@ -0,0 +1,102 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.service.CashflowScheduleEngine.DayCount;
+import com.technicalchallenge.service.CashflowScheduleEngine.GeneratedSchedule;
+import com.technicalchallenge.service.CashflowScheduleEngine.PeriodTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FixedPointBenchmark
+ *
+ * Throughput and heap allocation per cashflow for a 30Y monthly fixed leg
+ * (360 periods, 100m at 4.125% ACT/360), three ways:
+ * - bigDecimal: notional * rate * days / basis as a BigDecimal chain per
+ * period, which is how amounts were computed before FixedPoint;
+ * - fixedPoint: CashflowScheduleEngine.generate, amounts held as cents;
+ * - fixedPoint+boundary: the same plus amount(i) for every period, i.e. the
+ * BigDecimal a Cashflow entity or DTO needs.
+ *
+ * Allocation is read from the JVM's per-thread allocated-bytes counter, so
+ * the numbers are for this thread only. Not part of the normal build (the
+ * class name does not end in Test). Run:
+ *
+ * mvn test -Dtest=FixedPointBenchmark
+ */
+class FixedPointBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20_000;
+    private static final int MEASURED_ROUNDS = 50_000;
+
+    private static final BigDecimal NOTIONAL = new BigDecimal("100000000.00");
+    private static final double RATE = 4.125;
+
+    private final CashflowScheduleEngine engine = new CashflowScheduleEngine();
+    private final PeriodTemplate periods = engine.periods(LocalDate.of(2025, 1, 17), LocalDate.of(2055, 1, 17), 1);
+
+    // Keeps the JIT from discarding results
+    private long sink;
+
+    @Test
+    void compareBigDecimalAndFixedPoint() {
+        // Same amounts either way
+        GeneratedSchedule schedule = engine.generate(periods, "Fixed", NOTIONAL, RATE, DayCount.ACT_360);
+        BigDecimal[] reference = bigDecimalAmounts();
+        for (int i = 0; i < periods.size(); i++) {
+            assertEquals(reference[i], schedule.amount(i));
+        }
+
+        Runnable bigDecimal = () -> sink += bigDecimalAmounts()[0].scale();
+        Runnable fixedPoint = () -> sink += engine.generate(periods, "Fixed", NOTIONAL, RATE, DayCount.ACT_360)
+                .size();
+        Runnable fixedPointBoundary = () -> {
+            GeneratedSchedule s = engine.generate(periods, "Fixed", NOTIONAL, RATE, DayCount.ACT_360);
+            for (int i = 0; i < s.size(); i++) {
+                sink += s.amount(i).scale();
+            }
+        };
+
+        report("bigDecimal", bigDecimal);
+        report("fixedPoint", fixedPoint);
+        report("fixedPoint+boundary", fixedPointBoundary);
+        assertNotEquals(0, sink);
+    }
+
+    private BigDecimal[] bigDecimalAmounts() {
+        BigDecimal rate = BigDecimal.valueOf(RATE).divide(BigDecimal.valueOf(100));
+        BigDecimal basis = BigDecimal.valueOf(360);
+        BigDecimal[] amounts = new BigDecimal[periods.size()];
+        for (int i = 0; i < amounts.length; i++) {
+            long days = periods.endEpochDay(i) - periods.startEpochDay(i);
+            amounts[i] = NOTIONAL.multiply(rate).multiply(BigDecimal.valueOf(days))
+                    .divide(basis, 2, RoundingMode.HALF_EVEN);
+        }
+        return amounts;
+    }
+
+    private void report(String name, Runnable round) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run();
+        }
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            round.run();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        double cashflows = (double) MEASURED_ROUNDS * periods.size();
+        System.out.printf("Benchmark %-20s %,12.0f cashflows/s %8.1f ns per cashflow %8.1f bytes per cashflow%n",
+                name, cashflows / (elapsedNanos / 1e9), elapsedNanos / cashflows, bytes / cashflows);
+    }
+}
@@ -0,0 +1,65 @@
+package com.technicalchallenge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTest {
+
+    @Test
+    void testUnitsAreExactOrFail() {
+        assertEquals(1_000_000_000L, FixedPoint.units(new BigDecimal("10000000"), 2));
+        assertEquals(3_500_000L, FixedPoint.units(0.035, FixedPoint.RATE_SCALE));
+        assertEquals(3_500_000L, FixedPoint.units(3.5, FixedPoint.RATE_SCALE - 2));
+        assertEquals(10_000_000L, FixedPoint.units(0.1, FixedPoint.RATE_SCALE));
+
+        assertThrows(ArithmeticException.class, () -> FixedPoint.units(new BigDecimal("1.005"), 2));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.units(0.123456789, FixedPoint.RATE_SCALE));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.units(Double.NaN, FixedPoint.RATE_SCALE));
+    }
+
+    @Test
+    void testMulDivRoundsHalfEven() {
+        assertEquals(2, FixedPoint.mulDiv(5, 1, 2)); // 2.5 -> 2
+        assertEquals(4, FixedPoint.mulDiv(7, 1, 2)); // 3.5 -> 4
+        assertEquals(-2, FixedPoint.mulDiv(-5, 1, 2));
+        assertEquals(3, FixedPoint.mulDiv(8, 1, 3)); // 2.67 -> 3
+        assertThrows(IllegalArgumentException.class, () -> FixedPoint.mulDiv(1, 1, 0));
+    }
+
+    @Test
+    void testMulDivMatchesBigDecimalBeyondLongProduct() {
+        // 2bn notional in cents * 5.25% in 1e-8 units * 181 days: ~1.9e20, past a long
+        long cents = 200_000_000_000L;
+        long rateTimesDays = 5_250_000L * 181;
+        long divisor = 360 * FixedPoint.RATE_ONE;
+
+        BigDecimal expected = BigDecimal.valueOf(cents).multiply(BigDecimal.valueOf(rateTimesDays))
+                .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_EVEN);
+
+        assertEquals(expected.longValueExact(), FixedPoint.mulDiv(cents, rateTimesDays, divisor));
+        assertThrows(ArithmeticException.class, () -> FixedPoint.mulDiv(Long.MAX_VALUE, Long.MAX_VALUE, 2));
+    }
+
+    @Test
+    void testSumKeepsBigDecimalScale() {
+        FixedPoint.Sum sum = new FixedPoint.Sum()
+                .add(new BigDecimal("1000000"))
+                .add(new BigDecimal("250.5"))
+                .add(new BigDecimal("0.25"));
+
+        assertEquals(new BigDecimal("1000250.75"), sum.toBigDecimal());
+        assertEquals(new BigDecimal("1000000"), new FixedPoint.Sum().add(new BigDecimal("1000000")).toBigDecimal());
+    }
+
+    @Test
+    void testSumFallsBackToBigDecimalOnOverflow() {
+        BigDecimal big = BigDecimal.valueOf(Long.MAX_VALUE);
+        FixedPoint.Sum sum = new FixedPoint.Sum().add(big).add(big).add(new BigDecimal("0.01"));
+
+        assertEquals(big.add(big).add(new BigDecimal("0.01")), sum.toBigDecimal());
+    }
+}
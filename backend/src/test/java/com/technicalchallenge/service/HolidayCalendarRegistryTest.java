@@ -0,0 +1,93 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.Events.ReferenceDataChangedEvent;
+import com.technicalchallenge.model.HolidayCalendar;
+import com.technicalchallenge.model.HolidayCalendarYear;
+import com.technicalchallenge.repository.HolidayCalendarRepository;
+import com.technicalchallenge.repository.HolidayCalendarYearRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HolidayCalendarRegistryTest {
+
+    private static final LocalDate CHRISTMAS = LocalDate.of(2025, 12, 25);
+
+    @Mock
+    private HolidayCalendarRepository holidayCalendarRepository;
+    @Mock
+    private HolidayCalendarYearRepository holidayCalendarYearRepository;
+
+    private static HolidayCalendar calendar(String name) {
+        HolidayCalendar calendar = new HolidayCalendar();
+        calendar.setId(1L);
+        calendar.setHolidayCalendar(name);
+        return calendar;
+    }
+
+    private static HolidayCalendarYear year(HolidayCalendar calendar, LocalDate holiday) {
+        HolidayCalendarYear year = new HolidayCalendarYear(calendar, holiday.getYear());
+        int i = holiday.getDayOfYear() - 1;
+        year.getHolidayBits()[i >>> 3] |= (byte) (1 << (i & 7));
+        return year;
+    }
+
+    @Test
+    void testCalendarsLoadOnceWithinMaxAge() {
+        HolidayCalendar lon = calendar("LON");
+        when(holidayCalendarRepository.findAll()).thenReturn(List.of(lon));
+        when(holidayCalendarYearRepository.findAllWithCalendar()).thenReturn(List.of(year(lon, CHRISTMAS)));
+        HolidayCalendarRegistry registry = new HolidayCalendarRegistry(holidayCalendarRepository,
+                holidayCalendarYearRepository, 300);
+
+        assertFalse(registry.calendar("LON").isBusinessDay(CHRISTMAS));
+        assertFalse(registry.calendar("lon").isBusinessDay(CHRISTMAS));
+
+        verify(holidayCalendarRepository, times(1)).findAll();
+        verify(holidayCalendarYearRepository, times(1)).findAllWithCalendar();
+    }
+
+    @Test
+    void testCalendarsReloadOnceOlderThanMaxAge() throws InterruptedException {
+        // Holidays written where no change event reaches this node (another
+        // node, plain SQL) are picked up when the loaded calendars expire
+        HolidayCalendar lon = calendar("LON");
+        when(holidayCalendarRepository.findAll()).thenReturn(List.of(lon));
+        when(holidayCalendarYearRepository.findAllWithCalendar())
+                .thenReturn(List.of())
+                .thenReturn(List.of(year(lon, CHRISTMAS)));
+        HolidayCalendarRegistry registry = new HolidayCalendarRegistry(holidayCalendarRepository,
+                holidayCalendarYearRepository, 0);
+
+        assertTrue(registry.calendar("LON").isBusinessDay(CHRISTMAS));
+        Thread.sleep(5);
+        assertFalse(registry.calendar("LON").isBusinessDay(CHRISTMAS));
+
+        verify(holidayCalendarYearRepository, times(2)).findAllWithCalendar();
+    }
+
+    @Test
+    void testHolidayChangeEventReloads() {
+        HolidayCalendar lon = calendar("LON");
+        when(holidayCalendarRepository.findAll()).thenReturn(List.of(lon));
+        when(holidayCalendarYearRepository.findAllWithCalendar())
+                .thenReturn(List.of())
+                .thenReturn(List.of(year(lon, CHRISTMAS)));
+        HolidayCalendarRegistry registry = new HolidayCalendarRegistry(holidayCalendarRepository,
+                holidayCalendarYearRepository, 300);
+
+        assertTrue(registry.calendar("LON").isBusinessDay(CHRISTMAS));
+        registry.onReferenceDataChanged(new ReferenceDataChangedEvent(HolidayCalendarYear.class, Instant.now()));
+
+        assertFalse(registry.calendar("LON").isBusinessDay(CHRISTMAS));
+    }
+}
@@ -0,0 +1,69 @@
+package com.technicalchallenge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NonStandardSettlementDetectorTest {
+
+    private final NonStandardSettlementDetector detector = new NonStandardSettlementDetector(
+            Arrays.asList(NonStandardSettlementDetector.DEFAULT_KEYWORDS.split(",")));
+
+    @Test
+    void testFindsKeywordsCaseInsensitively() {
+        assertEquals("manual", detector.detect("Settle MANUALLY via ops desk"));
+        assertEquals("offshore", detector.detect("Pay to Offshore account 123"));
+        assertEquals("non dvp", detector.detect("Free of payment, Non DVP"));
+        assertNull(detector.detect("DVP via Euroclear acct 12345"));
+        assertNull(detector.detect(""));
+        assertNull(detector.detect(null));
+    }
+
+    @Test
+    void testListedFirstWinsWhenSeveralOccur() {
+        // "warehouse" comes before "manual" in the text, "manual" first in the list
+        assertEquals("manual", detector.detect("warehouse receipt, manual release"));
+        assertEquals("non-dvp", detector.detect("physical delivery, non-dvp"));
+    }
+
+    @Test
+    void testFailureTransitionsFindKeywordsAfterPartialMatches() {
+        NonStandardSettlementDetector overlapping = new NonStandardSettlementDetector(
+                List.of("abcd", "bce", "ce"));
+
+        // "abc" leads into abcd, fails on 'e', and continues as "bce"
+        assertEquals("bce", overlapping.detect("xxabcexx"));
+        assertEquals("ce", new NonStandardSettlementDetector(List.of("abcd", "ce")).detect("abce"));
+        assertEquals("abcd", overlapping.detect("abcabcd"));
+        assertNull(overlapping.detect("abcbcxe"));
+    }
+
+    @Test
+    void testKeywordListIsNormalized() {
+        NonStandardSettlementDetector configured = new NonStandardSettlementDetector(
+                List.of(" Manual ", "", "MANUAL", "Überweisung"));
+
+        assertEquals(List.of("manual", "überweisung"), configured.keywords());
+        assertEquals("überweisung", configured.detect("per ÜBERWEISUNG"));
+        assertNull(new NonStandardSettlementDetector(List.of()).detect("manual"));
+    }
+
+    @Test
+    void testAgreesWithContainsScan() {
+        List<String> keywords = List.of("ab", "bab", "abba", "b", "aab", "cab");
+        NonStandardSettlementDetector random = new NonStandardSettlementDetector(keywords);
+        Random rnd = new Random(7);
+        for (int round = 0; round < 2_000; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = rnd.nextInt(12); i > 0; i--) {
+                text.append("abcX".charAt(rnd.nextInt(4)));
+            }
+            String expected = keywords.stream().filter(text.toString()::contains).findFirst().orElse(null);
+            assertEquals(expected, random.detect(text.toString()), text.toString());
+        }
+    }
+}
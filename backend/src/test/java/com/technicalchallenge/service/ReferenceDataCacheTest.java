@@ -0,0 +1,150 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.Events.ReferenceDataChangedEvent;
+import com.technicalchallenge.model.ApplicationUser;
+import com.technicalchallenge.model.Book;
+import com.technicalchallenge.model.Currency;
+import com.technicalchallenge.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReferenceDataCacheTest {
+
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private CounterpartyRepository counterpartyRepository;
+    @Mock
+    private TradeStatusRepository tradeStatusRepository;
+    @Mock
+    private TradeTypeRepository tradeTypeRepository;
+    @Mock
+    private TradeSubTypeRepository tradeSubTypeRepository;
+    @Mock
+    private ApplicationUserRepository applicationUserRepository;
+    @Mock
+    private CurrencyRepository currencyRepository;
+    @Mock
+    private LegTypeRepository legTypeRepository;
+    @Mock
+    private IndexRepository indexRepository;
+    @Mock
+    private HolidayCalendarRepository holidayCalendarRepository;
+    @Mock
+    private ScheduleRepository scheduleRepository;
+    @Mock
+    private BusinessDayConventionRepository businessDayConventionRepository;
+    @Mock
+    private PayRecRepository payRecRepository;
+    @Mock
+    private CostCenterRepository costCenterRepository;
+
+    private ReferenceDataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        // No MeterRegistry in unit tests; counters are still kept in memory
+        cache = new ReferenceDataCache(bookRepository, counterpartyRepository, tradeStatusRepository,
+                tradeTypeRepository, tradeSubTypeRepository, applicationUserRepository, currencyRepository,
+                legTypeRepository, indexRepository, holidayCalendarRepository, scheduleRepository,
+                businessDayConventionRepository, payRecRepository, costCenterRepository, null, 300);
+    }
+
+    private static Book book(long id, String name) {
+        Book book = new Book();
+        book.setId(id);
+        book.setBookName(name);
+        return book;
+    }
+
+    @Test
+    void testRepeatedLookupsLoadTableOnce() {
+        when(bookRepository.findAll()).thenReturn(List.of(book(1L, "FX-BOOK-1"), book(2L, "RATES-BOOK-1")));
+
+        assertEquals(1L, cache.books().findByName("FX-BOOK-1").orElseThrow().getId());
+        assertEquals("RATES-BOOK-1", cache.books().findById(2L).orElseThrow().getBookName());
+        assertTrue(cache.books().findByName("FX-BOOK-1").isPresent());
+
+        // One findAll() serves every lookup, no per-name queries
+        verify(bookRepository, times(1)).findAll();
+        verify(bookRepository, never()).findByBookName(anyString());
+        assertEquals(3, cache.books().getHits());
+        assertEquals(0, cache.books().getMisses());
+    }
+
+    @Test
+    void testUnknownNameCountsAsMiss() {
+        when(bookRepository.findAll()).thenReturn(List.of(book(1L, "FX-BOOK-1")));
+
+        assertTrue(cache.books().findByName("NO-SUCH-BOOK").isEmpty());
+        assertTrue(cache.books().findByName(null).isEmpty());
+
+        assertEquals(1, cache.books().getMisses());
+        assertEquals(0, cache.books().getHits());
+    }
+
+    @Test
+    void testMissFallsBackToRepositoryWithoutCaching() {
+        // Row created after the snapshot was taken (e.g. by another node)
+        when(bookRepository.findAll()).thenReturn(List.of(book(1L, "FX-BOOK-1")));
+        when(bookRepository.findByBookName("NEW-BOOK")).thenReturn(Optional.of(book(9L, "NEW-BOOK")));
+
+        assertEquals(9L, cache.books().findByName("NEW-BOOK").orElseThrow().getId());
+        assertEquals(9L, cache.books().findByName("NEW-BOOK").orElseThrow().getId());
+
+        verify(bookRepository, times(2)).findByBookName("NEW-BOOK");
+        assertEquals(2, cache.books().getMisses());
+    }
+
+    @Test
+    void testChangeEventReloadsOnlyThatTable() {
+        Currency usd = new Currency();
+        usd.setId(1L);
+        usd.setCurrency("USD");
+        Currency eur = new Currency();
+        eur.setId(2L);
+        eur.setCurrency("EUR");
+        when(currencyRepository.findAll()).thenReturn(List.of(usd)).thenReturn(List.of(usd, eur));
+        when(bookRepository.findAll()).thenReturn(List.of(book(1L, "FX-BOOK-1")));
+
+        cache.books().findByName("FX-BOOK-1");
+        assertTrue(cache.currencies().findByName("USD").isPresent());
+
+        cache.onReferenceDataChanged(new ReferenceDataChangedEvent(Currency.class, Instant.now()));
+
+        assertTrue(cache.currencies().findByName("EUR").isPresent());
+        assertTrue(cache.books().findByName("FX-BOOK-1").isPresent());
+        verify(currencyRepository, times(2)).findAll();
+        verify(bookRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testIgnoreCaseAndUserAlternateName() {
+        when(bookRepository.findAll()).thenReturn(List.of(book(1L, "FX-BOOK-1")));
+        ApplicationUser user = new ApplicationUser();
+        user.setId(1001L);
+        user.setFirstName("Simon");
+        user.setLoginId("simon");
+        when(applicationUserRepository.findAll()).thenReturn(List.of(user));
+
+        assertTrue(cache.books().findByNameIgnoreCase("fx-book-1").isPresent());
+        assertTrue(cache.books().findByName("fx-book-1").isEmpty());
+
+        assertEquals(1001L, cache.users().findByAlternateName("Simon").orElseThrow().getId());
+        assertEquals(1001L, cache.users().findByName("simon").orElseThrow().getId());
+    }
+}
@@ -0,0 +1,97 @@
+package com.technicalchallenge.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SearchQueryMonitorTest {
+
+    // A connection whose EXPLAIN returns the given plan lines
+    private static Connection explaining(String... planLines) throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement explain = mock(PreparedStatement.class);
+        ResultSet rows = mock(ResultSet.class);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(explain);
+        when(explain.executeQuery()).thenReturn(rows);
+        Boolean[] more = new Boolean[planLines.length];
+        Arrays.fill(more, true);
+        more[planLines.length - 1] = false;
+        when(rows.next()).thenReturn(true, more);
+        when(rows.getString(1)).thenReturn(planLines[0], Arrays.copyOfRange(planLines, 1, planLines.length));
+        return connection;
+    }
+
+    @Test
+    void testPostgresCostIsReadFromTheRootNode() {
+        assertEquals(2500.0, SearchQueryMonitor.estimatedCost(
+                "Limit  (cost=0.00..2500.00 rows=101 width=120)\n  ->  Seq Scan on trade  (cost=0.00..9999.00 rows=1)"));
+        assertNull(SearchQueryMonitor.estimatedCost("SELECT ... /* PUBLIC.TRADE.tableScan */"));
+    }
+
+    @Test
+    void testStatementOverTheBudgetIsRefusedAndKept() throws Exception {
+        SearchQueryMonitor monitor = new SearchQueryMonitor(null, 500, 1000, 10);
+        Connection connection = explaining("Seq Scan on trade  (cost=0.00..2500.00 rows=5000 width=64)");
+        Map<Integer, Object> binds = new TreeMap<>(Map.of(1, "%bank%"));
+
+        assertThrows(SearchQueryMonitor.QueryCostExceededException.class,
+                () -> monitor.checkCost("rsql", connection, "select * from trade where name like ?", binds));
+
+        SearchQueryMonitor.SlowQuery kept = monitor.slowQueries().get(0);
+        assertTrue(kept.rejected());
+        assertEquals(2500.0, kept.estimatedCost());
+        assertEquals(List.of("%bank%"), kept.binds());
+    }
+
+    @Test
+    void testStatementWithinBudgetOrWithoutCostRuns() throws Exception {
+        SearchQueryMonitor monitor = new SearchQueryMonitor(null, 500, 1000, 10);
+
+        monitor.checkCost("rsql", explaining("Index Scan using idx  (cost=0.29..8.30 rows=1 width=64)"),
+                "select 1", new TreeMap<>());
+        monitor.checkCost("rsql", explaining("SELECT 1 /* H2 has no cost */"), "select 1", new TreeMap<>());
+
+        assertTrue(monitor.slowQueries().isEmpty());
+    }
+
+    @Test
+    void testOnlySlowStatementsAreKeptAndTheRingIsBounded() throws Exception {
+        SearchQueryMonitor monitor = new SearchQueryMonitor(null, 5, 0, 2);
+
+        monitor.executed("rsql", explaining("plan"), "fast", new TreeMap<>(), 1_000_000L);
+        for (int i = 0; i < 3; i++) {
+            monitor.executed("rsql", explaining("plan " + i), "slow " + i, new TreeMap<>(), 10_000_000L);
+        }
+
+        assertEquals(2, monitor.slowQueries().size());
+        assertEquals("slow 2", monitor.slowQueries().get(0).sql());
+        assertEquals("plan 2", monitor.slowQueries().get(0).plan());
+        assertEquals(10, monitor.slowQueries().get(0).elapsedMillis());
+    }
+
+    @Test
+    void testSearchScopeNestsAndEnds() {
+        SearchQueryMonitor monitor = new SearchQueryMonitor(null, 500, 0, 10);
+
+        String inner = monitor.monitor("outer", () -> monitor.monitor("inner", monitor::currentSearch));
+        String afterInner = monitor.monitor("outer", () -> {
+            monitor.monitor("inner", () -> null);
+            return monitor.currentSearch();
+        });
+
+        assertEquals("inner", inner);
+        assertEquals("outer", afterInner);
+        assertNull(monitor.currentSearch());
+    }
+}
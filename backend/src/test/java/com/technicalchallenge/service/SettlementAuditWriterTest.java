@@ -0,0 +1,135 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.AdditionalInfoAudit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SettlementAuditWriterTest {
+
+    private JdbcTemplate jdbc;
+    // trade ids per batchUpdate call
+    private final List<List<Long>> batches = new ArrayList<>();
+    private boolean databaseDown;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        when(jdbc.batchUpdate(eq(SettlementAuditWriter.INSERT_SQL), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+                    if (databaseDown) {
+                        throw new DataAccessResourceFailureException("connection refused");
+                    }
+                    Collection<AdditionalInfoAudit> rows = invocation.getArgument(1);
+                    batches.add(rows.stream().map(AdditionalInfoAudit::getTradeId).toList());
+                    return new int[0][];
+                });
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private SettlementAuditWriter writer(int batchSize) {
+        return new SettlementAuditWriter(jdbc, mock(PlatformTransactionManager.class), batchSize);
+    }
+
+    private static AdditionalInfoAudit audit(long tradeId) {
+        AdditionalInfoAudit audit = new AdditionalInfoAudit();
+        audit.setTradeId(tradeId);
+        audit.setFieldName("SETTLEMENT_INSTRUCTIONS");
+        audit.setNewValue("Pay via Euroclear");
+        audit.setChangedBy("simon");
+        return audit;
+    }
+
+    // Runs the synchronizations the way a transaction manager does on commit
+    // (beforeCommit first; when it throws, the transaction rolls back instead)
+    private static void complete(boolean committed) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        try {
+            if (committed) {
+                synchronizations.forEach(s -> s.beforeCommit(false));
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+            }
+            synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } catch (RuntimeException e) {
+            synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            throw e;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecordsAreWrittenInBatchesBeforeCommit() {
+        SettlementAuditWriter writer = writer(2);
+
+        TransactionSynchronizationManager.initSynchronization();
+        for (long tradeId = 1; tradeId <= 5; tradeId++) {
+            writer.record(audit(tradeId));
+        }
+        assertTrue(batches.isEmpty());
+        complete(true);
+
+        assertEquals(List.of(List.of(1L, 2L, 3L, 4L, 5L)), batches);
+        verify(jdbc).batchUpdate(eq(SettlementAuditWriter.INSERT_SQL), any(Collection.class), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void testRecordsOfARolledBackTransactionAreDropped() {
+        SettlementAuditWriter writer = writer(10);
+
+        TransactionSynchronizationManager.initSynchronization();
+        writer.record(audit(1));
+        complete(false);
+
+        TransactionSynchronizationManager.initSynchronization();
+        writer.record(audit(2));
+        complete(true);
+
+        assertEquals(List.of(List.of(2L)), batches);
+    }
+
+    @Test
+    void testFailedInsertFailsTheCommit() {
+        SettlementAuditWriter writer = writer(10);
+        databaseDown = true;
+
+        TransactionSynchronizationManager.initSynchronization();
+        writer.record(audit(1));
+        assertThrows(DataAccessResourceFailureException.class, () -> complete(true));
+
+        assertTrue(batches.isEmpty());
+        assertFalse(TransactionSynchronizationManager.hasResource(writer));
+    }
+
+    @Test
+    void testRecordOutsideATransactionIsWrittenAtOnce() {
+        SettlementAuditWriter writer = writer(10);
+
+        writer.record(audit(1));
+
+        assertEquals(List.of(List.of(1L)), batches);
+    }
+}
@@ -0,0 +1,64 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.repository.AdditionalInfoRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * SettlementTextIndexBenchmark
+ *
+ * Build time and query latency of SettlementTextIndex over synthetic
+ * settlement instructions ("Settle via Euroclear acct 48213 ref ..."): a
+ * custodian name most rows share, an account number few rows share, a
+ * reference that matches one row, and a two-character query that scans.
+ *
+ * Not part of the normal build (the class name does not end in Test). Run:
+ *
+ * mvn test -Dtest=SettlementTextIndexBenchmark [-Dbenchmark.instructions=1000000]
+ */
+class SettlementTextIndexBenchmark {
+
+    private static final int INSTRUCTIONS = Integer.getInteger("benchmark.instructions", 1_000_000);
+    private static final List<String> CUSTODIANS = List.of("Euroclear", "Clearstream", "DTC", "BNY Mellon",
+            "State Street", "JPMorgan Chase", "Citi Custody", "HSBC Securities Services");
+    private static final int ROUNDS = 200;
+
+    @Test
+    void measureQueries() {
+        SettlementTextIndex index = new SettlementTextIndex(mock(AdditionalInfoRepository.class));
+        Random random = new Random(42);
+        long buildStart = System.nanoTime();
+        for (int id = 1; id <= INSTRUCTIONS; id++) {
+            index.put(id, 1_000_000L + id, "Settle via " + CUSTODIANS.get(random.nextInt(CUSTODIANS.size()))
+                    + " acct " + (10_000 + random.nextInt(90_000)) + " ref SI" + Integer.toString(id, 36).toUpperCase());
+        }
+        System.out.printf("%nSettlementTextIndexBenchmark: %d instructions, %d trigrams, built in %.1f s%n",
+                index.size(), index.trigramCount(), (System.nanoTime() - buildStart) / 1e9);
+
+        System.out.printf("  %-32s %12s %10s%n", "query (page of 25)", "ms/query", "matches");
+        time(index, "custodian (\"euroclear\")", round -> "euroclear");
+        time(index, "account (\"acct 4821x\")", round -> "acct " + (48_210 + round % 10));
+        time(index, "reference (\"si\" + id)", round -> "si" + Integer.toString(1 + round * 4_999 % INSTRUCTIONS, 36));
+        time(index, "two characters (\"ct\")", round -> "ct");
+        System.out.println();
+    }
+
+    private static void time(SettlementTextIndex index, String name, java.util.function.IntFunction<String> query) {
+        for (int i = 0; i < 20; i++) {
+            index.search(query.apply(i), 0, 25);
+        }
+        long matches = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            matches += index.search(query.apply(i), 0, 25).getTotalElements();
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+        assertTrue(matches > 0, name);
+        System.out.printf("  %-32s %12.3f %10d%n", name, millis, matches / ROUNDS);
+    }
+}
@@ -0,0 +1,201 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.dto.SettlementTextRow;
+import com.technicalchallenge.repository.AdditionalInfoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SettlementTextIndexTest {
+
+    private final SettlementTextIndex index = new SettlementTextIndex(mock(AdditionalInfoRepository.class));
+
+    @Test
+    void testTrigramsAreDistinctAndSorted() {
+        long[] grams = SettlementTextIndex.trigrams("aaaa");
+        assertEquals(1, grams.length);
+        assertEquals(3, SettlementTextIndex.trigrams("abcab").length);
+        assertEquals(0, SettlementTextIndex.trigrams("ab").length);
+        long[] sorted = SettlementTextIndex.trigrams("zyxwv");
+        for (int i = 1; i < sorted.length; i++) {
+            assertTrue(sorted[i - 1] < sorted[i]);
+        }
+    }
+
+    @Test
+    void testPostingsStaySortedAndDistinct() {
+        SettlementTextIndex.Postings postings = new SettlementTextIndex.Postings();
+        for (long id : new long[] { 5, 1, 9, 5, 3, 7, 2, 8 }) {
+            postings.add(id);
+        }
+        assertEquals(7, postings.size());
+        for (int i = 1; i < postings.size(); i++) {
+            assertTrue(postings.get(i - 1) < postings.get(i));
+        }
+        postings.remove(5);
+        postings.remove(42);
+        assertFalse(postings.contains(5));
+        assertTrue(postings.contains(9));
+        assertEquals(6, postings.size());
+
+        // 1 2 3 7 8 9: first id >= the one sought, from the cursor on
+        assertEquals(0, postings.seek(1, 0));
+        assertEquals(3, postings.seek(4, 0));
+        assertEquals(3, postings.seek(7, 2));
+        assertEquals(5, postings.seek(9, 1));
+        assertEquals(6, postings.seek(10, 4));
+        assertEquals(6, postings.seek(1, 6));
+    }
+
+    @Test
+    void testSearchIsCaseInsensitiveSubstringMatch() {
+        index.put(1, 100, "Settle via Euroclear, acct 12345");
+        index.put(2, 200, "DTC account 99887");
+        index.put(3, 300, "Clearstream only");
+
+        assertEquals(List.of(100L), index.matchingTradeIds("EUROCLEAR"));
+        // "Clearstream" matches at a word start, "Euroclear" inside a word
+        assertEquals(List.of(300L, 100L), index.matchingTradeIds("clear"));
+        assertEquals(List.of(100L), index.matchingTradeIds("  acct 123 "));
+        // Every trigram present but not next to each other
+        assertEquals(List.of(), index.matchingTradeIds("acct 99887"));
+        assertEquals(List.of(), index.matchingTradeIds("swift"));
+        assertEquals(List.of(), index.matchingTradeIds("   "));
+    }
+
+    @Test
+    void testRowsWithTheSameTextShareIt() {
+        index.put(1, 100, "Standard DVP via Euroclear");
+        index.put(2, 200, "standard dvp via euroclear ");
+        index.put(3, 300, "Standard DVP via Euroclear");
+        index.put(4, 400, "Manual release");
+        assertEquals(4, index.size());
+        assertEquals(2, index.textCount());
+
+        assertEquals(List.of(300L, 200L, 100L), index.matchingTradeIds("euroclear"));
+
+        index.remove(3);
+        index.put(2, 200, "Manual release");
+        assertEquals(List.of(100L), index.matchingTradeIds("euroclear"));
+        index.remove(1);
+        assertEquals(1, index.textCount());
+        assertEquals(List.of(), index.matchingTradeIds("euroclear"));
+        assertEquals(index.trigramCount(), SettlementTextIndex.trigrams("manual release").length);
+    }
+
+    @Test
+    void testRankingPrefersWordStartThenPositionThenNewest() {
+        index.put(1, 100, "nuclear clearing");   // inside a word at 2, word start at 8
+        index.put(2, 200, "pay via clearstream"); // word start at 8
+        index.put(3, 300, "clear by noon");       // word start at 0
+        index.put(4, 400, "is unclear");          // inside a word only, at 5
+        index.put(5, 500, "pay via clearnet");    // word start at 8, newer than 2
+
+        // Each row is ranked by its first occurrence: trade 100 matches inside
+        // "nuclear" first
+        assertEquals(List.of(300L, 500L, 200L, 100L, 400L), index.matchingTradeIds("clear"));
+    }
+
+    @Test
+    void testTradeWithSeveralRowsIsListedOnceAtItsBestRank() {
+        index.put(1, 100, "unclear");
+        index.put(2, 200, "clearing house");
+        index.put(3, 100, "clear");
+
+        assertEquals(List.of(100L, 200L), index.matchingTradeIds("clear"));
+    }
+
+    @Test
+    void testPutReplacesAndBlankOrRemoveDrops() {
+        index.put(1, 100, "Euroclear");
+        index.put(1, 100, "DTC");
+        assertEquals(List.of(), index.matchingTradeIds("euroclear"));
+        assertEquals(List.of(100L), index.matchingTradeIds("dtc"));
+
+        index.put(1, 100, "  ");
+        assertEquals(0, index.size());
+        assertEquals(0, index.trigramCount());
+
+        index.put(2, 200, "Euroclear");
+        index.remove(2);
+        assertEquals(List.of(), index.matchingTradeIds("euro"));
+        assertEquals(0, index.trigramCount());
+    }
+
+    @Test
+    void testShortQueriesScanTheText() {
+        index.put(1, 100, "A/C 7");
+        index.put(2, 200, "acct 7");
+
+        assertEquals(List.of(100L), index.matchingTradeIds("/"));
+        assertEquals(List.of(100L, 200L), index.matchingTradeIds("7"));
+        assertEquals(List.of(200L, 100L), index.matchingTradeIds("a"));
+    }
+
+    @Test
+    void testPageTotalCountsTrades() {
+        for (long id = 1; id <= 7; id++) {
+            index.put(id, 100 + id % 5, "Euroclear " + id);
+        }
+
+        Page<Long> page = index.search("euroclear", 1, 2);
+        assertEquals(5, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+        assertEquals(2, page.getContent().size());
+        assertEquals(List.of(), index.search("euroclear", 9, 2).getContent());
+    }
+
+    @Test
+    void testRollbackRestoresTheRowsAsTheTransactionFoundThem() {
+        index.put(1, 100, "Euroclear");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.put(1, 100, "DTC");
+            index.put(1, 100, "Clearstream");
+            index.put(2, 200, "Euroclear too");
+            assertEquals(List.of(200L), index.matchingTradeIds("euroclear"));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(100L), index.matchingTradeIds("euroclear"));
+        assertEquals(List.of(), index.matchingTradeIds("clearstream"));
+        assertEquals(1, index.size());
+        assertFalse(TransactionSynchronizationManager.hasResource(index));
+    }
+
+    @Test
+    void testLoadReadsInBatchesAndKeepsRowsChangedMeanwhile() {
+        AdditionalInfoRepository repository = mock(AdditionalInfoRepository.class);
+        SettlementTextIndex loading = new SettlementTextIndex(repository);
+        when(repository.findSettlementTextAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            if (afterId == 0) {
+                // A write lands while the load is running
+                loading.put(2, 200, "DTC");
+                return List.of(new SettlementTextRow(1L, 100L, "Euroclear"),
+                        new SettlementTextRow(2L, 200L, "Euroclear stale"));
+            }
+            return List.of();
+        });
+
+        assertFalse(loading.isReady());
+        loading.load();
+
+        assertTrue(loading.isReady());
+        assertEquals(List.of(100L), loading.matchingTradeIds("euroclear"));
+        assertEquals(List.of(200L), loading.matchingTradeIds("dtc"));
+        verify(repository).findSettlementTextAfter(eq(0L), any(Pageable.class));
+    }
+}
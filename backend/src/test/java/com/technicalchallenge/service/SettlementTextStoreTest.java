@@ -0,0 +1,70 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.SettlementText;
+import com.technicalchallenge.repository.SettlementTextRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SettlementTextStoreTest {
+
+    private SettlementTextRepository repository;
+    private final Map<String, SettlementText> stored = new HashMap<>();
+    private SettlementTextStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(SettlementTextRepository.class);
+        when(repository.findById(anyString())).thenAnswer(i -> Optional.ofNullable(stored.get(i.getArgument(0))));
+        when(repository.saveAndFlush(any(SettlementText.class))).thenAnswer(i -> {
+            SettlementText text = i.getArgument(0);
+            stored.put(text.getHash(), text);
+            return text;
+        });
+        store = new SettlementTextStore(repository, new NonStandardSettlementDetector(List.of("manual", "offshore")),
+                mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void testHashIsHexSha256OfUtf8() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                SettlementTextStore.hash("abc"));
+        assertEquals(64, SettlementTextStore.hash("Zahlung über Euroclear").length());
+        assertNotEquals(SettlementTextStore.hash("Pay via DTC"), SettlementTextStore.hash("pay via DTC"));
+    }
+
+    @Test
+    void testTextIsStoredOnceWithItsKeyword() {
+        SettlementText first = store.intern("Offshore custodian, manual release");
+        SettlementText second = store.intern("Offshore custodian, manual release");
+
+        assertSame(first, second);
+        assertEquals("manual", first.getNonStandardKeyword());
+        assertEquals(SettlementTextStore.hash("Offshore custodian, manual release"), first.getHash());
+        verify(repository, times(1)).saveAndFlush(any(SettlementText.class));
+        assertNull(store.intern(null));
+    }
+
+    @Test
+    void testTextStoredConcurrentlyIsReadBack() {
+        String text = "DVP via Euroclear";
+        SettlementText theirs = new SettlementText(SettlementTextStore.hash(text), text, null, null);
+        // Not there when looked up, then their insert wins the primary key
+        when(repository.findById(theirs.getHash())).thenReturn(Optional.empty(), Optional.of(theirs));
+        when(repository.saveAndFlush(any(SettlementText.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        assertSame(theirs, store.intern(text));
+    }
+}
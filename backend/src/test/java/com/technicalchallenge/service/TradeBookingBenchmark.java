@@ -0,0 +1,173 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.dto.TradeDTO;
+import com.technicalchallenge.dto.TradeLegDTO;
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.repository.CashflowRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TradeBookingBenchmark
+ *
+ * Books a 30Y vanilla swap with monthly schedules on both legs (2 x 360
+ * cashflows) through TradeService.createTrade and reports JDBC round trips
+ * and latency per booking. Round trips are counted at the DataSource: every
+ * execute/executeQuery/executeUpdate/executeBatch call is one trip to the
+ * database, however many rows a batch carries.
+ *
+ * Not part of the normal build (the class name does not end in Test). Run:
+ *
+ * mvn test -Dtest=TradeBookingBenchmark
+ *
+ * and, for the row-at-a-time comparison, disable JDBC batching:
+ *
+ * mvn test -Dtest=TradeBookingBenchmark
+ * -DargLine="-Dspring.jpa.properties.hibernate.jdbc.batch_size=1"
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@WithMockUser(username = "alice", roles = { "TRADER" })
+class TradeBookingBenchmark {
+
+    private static final int WARMUP_BOOKINGS = 5;
+    private static final int MEASURED_BOOKINGS = 20;
+
+    private static final AtomicLong roundTrips = new AtomicLong();
+
+    @Autowired
+    private TradeService tradeService;
+
+    @Autowired
+    private CashflowRepository cashflowRepository;
+
+    @Test
+    void bookThirtyYearMonthlySwap() {
+        for (int i = 0; i < WARMUP_BOOKINGS; i++) {
+            tradeService.createTrade(swap());
+        }
+
+        long cashflowsBefore = cashflowRepository.count();
+        long tripsBefore = roundTrips.get();
+        long start = System.nanoTime();
+        Trade last = null;
+        for (int i = 0; i < MEASURED_BOOKINGS; i++) {
+            last = tradeService.createTrade(swap());
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long trips = roundTrips.get() - tripsBefore;
+        long cashflows = cashflowRepository.count() - cashflowsBefore;
+
+        assertNotNull(last);
+        assertEquals(MEASURED_BOOKINGS * 720L, cashflows);
+
+        System.out.printf("%nTradeBookingBenchmark: %d bookings, %d cashflows per booking%n",
+                MEASURED_BOOKINGS, cashflows / MEASURED_BOOKINGS);
+        System.out.printf("  JDBC round trips per booking: %.1f%n", (double) trips / MEASURED_BOOKINGS);
+        System.out.printf("  latency per booking:          %.2f ms%n%n",
+                elapsedNanos / 1_000_000.0 / MEASURED_BOOKINGS);
+    }
+
+    private static TradeDTO swap() {
+        LocalDate today = LocalDate.now();
+        TradeDTO dto = new TradeDTO();
+        dto.setBookName("RATES-BOOK-1");
+        dto.setCounterpartyName("MegaFund");
+        dto.setTraderUserName("simon");
+        dto.setInputterUserName("alice");
+        dto.setTradeType("Swap");
+        dto.setTradeSubType("IR Swap");
+        dto.setTradeStatus("NEW");
+        dto.setTradeDate(today);
+        dto.setTradeStartDate(today.plusDays(2));
+        dto.setTradeMaturityDate(today.plusDays(2).plusYears(30));
+        dto.setTradeExecutionDate(today);
+        dto.setTradeLegs(List.of(
+                leg("Fixed", "Pay", 4.75, null, dto.getTradeMaturityDate()),
+                leg("Floating", "Receive", 0.0, "LIBOR", dto.getTradeMaturityDate())));
+        return dto;
+    }
+
+    private static TradeLegDTO leg(String legType, String payRec, double rate, String index,
+            LocalDate maturityDate) {
+        TradeLegDTO leg = new TradeLegDTO();
+        leg.setTradeMaturityDate(maturityDate);
+        leg.setNotional(BigDecimal.valueOf(10_000_000));
+        leg.setCurrency("USD");
+        leg.setLegType(legType);
+        leg.setRate(rate);
+        leg.setIndexName(index);
+        leg.setHolidayCalendar("NY");
+        leg.setCalculationPeriodSchedule("Monthly");
+        leg.setPaymentBusinessDayConvention("Modified Following");
+        leg.setFixingBusinessDayConvention("Modified Following");
+        leg.setPayReceiveFlag(payRec);
+        return leg;
+    }
+
+    // Wraps the DataSource so every statement execution is counted
+    @TestConfiguration
+    static class RoundTripCounterConfig {
+
+        private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+                "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+        @Bean
+        static BeanPostProcessor roundTripCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return wrap(DataSource.class, dataSource);
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T wrap(Class<T> type, T target) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                    (proxy, method, args) -> {
+                        if (target instanceof Statement && EXECUTE_METHODS.contains(method.getName())) {
+                            roundTrips.incrementAndGet();
+                        }
+                        Object result = invoke(method, target, args);
+                        Class<?> returnType = method.getReturnType();
+                        if (result != null && (returnType == Connection.class
+                                || Statement.class.isAssignableFrom(returnType))) {
+                            return wrap((Class<Object>) returnType, result);
+                        }
+                        return result;
+                    });
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 
@@ -11,8 +12,10 @@ import org.junit.jupiter.api.Test;
 
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.technicalchallenge.model.UserPrivilege;
 import com.technicalchallenge.repository.AdditionalInfoRepository;
@@ -51,14 +54,23 @@ public class TradeDashboardServiceAuthTest {
     @Mock
     private AdditionalInfoRepository additionalInfoRepository;
 
+    @Mock
+    private SearchQueryMonitor searchQueryMonitor;
+
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
         // default: inject mocks into service
         dashboardService = new TradeDashboardService(tradeRepository, tradeMapper, additionalInfoRepository,
                 userPrivilegeService, privilegeValidationEngine);
+        // the monitor is field-injected; run the searches straight through it
+        ReflectionTestUtils.setField(dashboardService, "searchQueryMonitor", searchQueryMonitor);
+        when(searchQueryMonitor.monitor(anyString(), any()))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(1)).get());
         // clear security context before each test
         SecurityContextHolder.clearContext();
+        // searches read a keyset page of blotter rows; an empty one here
+        when(tradeRepository.findBlotterRowsAfter(any(), any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
     }
 
     @Test
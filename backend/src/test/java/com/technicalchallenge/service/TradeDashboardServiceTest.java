@@ -6,8 +6,8 @@ import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -22,16 +22,19 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.domain.Specification;
 // import org.springframework.security.access.AccessDeniedException;
 
 import com.technicalchallenge.dto.DailySummaryDTO;
+import com.technicalchallenge.dto.LegTotalsRow;
+import com.technicalchallenge.dto.TradeCountRow;
 import com.technicalchallenge.dto.SearchCriteriaDTO;
+import com.technicalchallenge.dto.TradeBlotterRow;
 import com.technicalchallenge.dto.TradeDTO;
 import com.technicalchallenge.dto.TradeLegDTO;
 import com.technicalchallenge.dto.TradeSummaryDTO;
 import com.technicalchallenge.mapper.TradeMapper;
-import com.technicalchallenge.model.Counterparty;
 import com.technicalchallenge.model.Trade;
 import com.technicalchallenge.model.TradeStatus;
 import com.technicalchallenge.repository.TradeRepository;
@@ -72,6 +75,14 @@ public class TradeDashboardServiceTest {
         org.mockito.Mockito.lenient()
                 .when(userPrivilegeService.findPrivilegesByUserLoginIdAndPrivilegeName(anyString(), anyString()))
                 .thenReturn(List.of(new com.technicalchallenge.model.UserPrivilege()));
+        // @InjectMocks only fills the constructor; the store and the monitor
+        // are field-injected
+        org.springframework.test.util.ReflectionTestUtils.setField(tradeDashboardService, "tradeSummaryStore",
+                tradeSummaryStore);
+        org.springframework.test.util.ReflectionTestUtils.setField(tradeDashboardService, "searchQueryMonitor",
+                searchQueryMonitor);
+        org.mockito.Mockito.lenient().when(searchQueryMonitor.monitor(anyString(), any()))
+                .thenAnswer(inv -> ((java.util.function.Supplier<?>) inv.getArgument(1)).get());
 
         // Ensure SecurityContext is cleared so the service's defensive
         // "view other trader" guard doesn't pick up a stale authentication
@@ -104,6 +115,14 @@ public class TradeDashboardServiceTest {
     @Mock
     private UserPrivilegeValidationEngine privilegeValidationEngine;
 
+    // ADDED: the all-time summary rows come from the maintained summary tables
+    @Mock
+    private TradeSummaryStore tradeSummaryStore;
+
+    // ADDED: searches run under the query monitor; stubbed to run them as-is
+    @Mock
+    private SearchQueryMonitor searchQueryMonitor;
+
     // InjectMocks automatically wires mocks into service constructor
     @InjectMocks
     private TradeDashboardService tradeDashboardService;
@@ -139,6 +158,13 @@ public class TradeDashboardServiceTest {
         trade.setTradeStatus(status);
     }
 
+    // Blotter projection row with just the fields the tests look at
+    private static TradeBlotterRow blotterRow(Long tradeId, String counterpartyName, String tradeStatus) {
+        return new TradeBlotterRow(tradeId, tradeId, 1, LocalDate.now(), null, null, null, null, null, null, null,
+                true, null, null, null, null, counterpartyName, null, null, null, null, null, null, null, null,
+                null, null, null, tradeStatus);
+    }
+
     // Helper methods for privilege stubbing
     private TradeValidationResult allow() {
         return new TradeValidationResult(); // valid = true by default
@@ -166,19 +192,16 @@ public class TradeDashboardServiceTest {
         SearchCriteriaDTO criteria = new SearchCriteriaDTO();
         criteria.setCounterparty("BigBank");
 
-        Trade trade = new Trade();
-        trade.setTradeId(1L);
-        Counterparty counterparty = new Counterparty();
-        counterparty.setName("BigBank");
-        trade.setCounterparty(counterparty);
+        // CHANGED: searches read a keyset page of blotter projection rows
+        // instead of entities
+        List<TradeBlotterRow> rows = List.of(blotterRow(1L, "BigBank", null));
         TradeDTO dto = new TradeDTO();
         dto.setCounterpartyName("BigBank");
 
-        // Fix type safety warning by specifying Specification.class
         // Fix type safety warning by using ArgumentMatchers.<Specification<Trade>>any()
-        when(tradeRepository.findAll(org.mockito.ArgumentMatchers.<Specification<Trade>>any()))
-                .thenReturn(Arrays.asList(trade));
-        when(tradeMapper.toDto(any(Trade.class))).thenReturn(dto);
+        when(tradeRepository.findBlotterRowsAfter(org.mockito.ArgumentMatchers.<Specification<Trade>>any(), isNull(),
+                anyInt())).thenReturn(new SliceImpl<>(rows));
+        when(tradeMapper.toBlotterDtos(eq(rows), anyList())).thenReturn(List.of(dto));
 
         List<TradeDTO> result = tradeDashboardService.searchTrades(criteria);
 
@@ -192,20 +215,14 @@ public class TradeDashboardServiceTest {
         SearchCriteriaDTO criteria = new SearchCriteriaDTO();
         criteria.setCounterparty("BigBank");
 
-        Trade trade = new Trade();
-        trade.setTradeId(2L);
-        Counterparty counterparty = new Counterparty();
-        counterparty.setName("BigBank");
-        trade.setCounterparty(counterparty);
         TradeDTO dto = new TradeDTO();
         dto.setCounterpartyName("BigBank");
 
-        Page<Trade> tradePage = new PageImpl<>(Arrays.asList(trade));
-        // Fix type safety warning by specifying Specification.class
+        Page<TradeBlotterRow> rowPage = new PageImpl<>(List.of(blotterRow(2L, "BigBank", null)));
         // Fix type safety warning by using ArgumentMatchers.<Specification<Trade>>any()
-        when(tradeRepository.findAll(org.mockito.ArgumentMatchers.<Specification<Trade>>any(), any(Pageable.class)))
-                .thenReturn(tradePage);
-        when(tradeMapper.toDto(any(Trade.class))).thenReturn(dto);
+        when(tradeRepository.findBlotterRows(org.mockito.ArgumentMatchers.<Specification<Trade>>any(), any(Pageable.class)))
+                .thenReturn(rowPage);
+        when(tradeMapper.toBlotterDtos(anyList(), anyList())).thenReturn(List.of(dto));
 
         List<TradeDTO> result = tradeDashboardService.filterTrades(criteria, 0, 10).getContent();
 
@@ -218,23 +235,15 @@ public class TradeDashboardServiceTest {
     void testRsqlSearch_ComplexQuery() {
         String rsqlQuery = "counterparty.name==BigBank;tradeStatus.tradeStatus==LIVE";
 
-        Trade trade = new Trade();
-        trade.setTradeId(4L);
-        Counterparty counterparty = new Counterparty();
-        counterparty.setName("BigBank");
-        trade.setCounterparty(counterparty);
-        TradeStatus status = new TradeStatus();
-        status.setTradeStatus("LIVE");
-        trade.setTradeStatus(status);
+        List<TradeBlotterRow> rows = List.of(blotterRow(4L, "BigBank", "LIVE"));
         TradeDTO dto = new TradeDTO();
         dto.setCounterpartyName("BigBank");
         dto.setTradeStatus("LIVE");
 
-        // Fix type safety warning by specifying Specification.class
         // Fix type safety warning by using ArgumentMatchers.<Specification<Trade>>any()
-        when(tradeRepository.findAll(org.mockito.ArgumentMatchers.<Specification<Trade>>any()))
-                .thenReturn(Arrays.asList(trade));
-        when(tradeMapper.toDto(any(Trade.class))).thenReturn(dto);
+        when(tradeRepository.findBlotterRowsAfter(org.mockito.ArgumentMatchers.<Specification<Trade>>any(), isNull(),
+                anyInt())).thenReturn(new SliceImpl<>(rows));
+        when(tradeMapper.toBlotterDtos(eq(rows), anyList())).thenReturn(List.of(dto));
 
         List<TradeDTO> result = tradeDashboardService.searchTradesRsql(rsqlQuery);
 
@@ -251,16 +260,14 @@ public class TradeDashboardServiceTest {
                 .when(privilegeValidationEngine.validateUserPrivilegeBusinessRules(any(TradeDTO.class), any()))
                 .thenReturn(allow());
 
-        Trade trade = new Trade();
-        trade.setTradeId(11L);
-        // Fix type safety warning by specifying Specification.class
+        List<TradeBlotterRow> rows = List.of(blotterRow(11L, null, null));
         // Fix type safety warning by using ArgumentMatchers.<Specification<Trade>>any()
-        when(tradeRepository.findAll(org.mockito.ArgumentMatchers.<Specification<Trade>>any()))
-                .thenReturn(Arrays.asList(trade));
+        when(tradeRepository.findBlotterRowsAfter(org.mockito.ArgumentMatchers.<Specification<Trade>>any(), isNull(),
+                anyInt())).thenReturn(new SliceImpl<>(rows));
 
         TradeDTO dto = new TradeDTO();
         dto.setTradeId(11L);
-        when(tradeMapper.toDto(any(Trade.class))).thenReturn(dto);
+        when(tradeMapper.toBlotterDtos(eq(rows), anyList())).thenReturn(List.of(dto));
 
         List<TradeDTO> result = tradeDashboardService.getTradesByTrader("alice");
 
@@ -296,16 +303,14 @@ public class TradeDashboardServiceTest {
                 .when(privilegeValidationEngine.validateUserPrivilegeBusinessRules(any(TradeDTO.class), any()))
                 .thenReturn(allow());
 
-        Trade trade = new Trade();
-        trade.setTradeId(22L);
-        // Fix type safety warning by specifying Specification.class
+        List<TradeBlotterRow> rows = List.of(blotterRow(22L, null, null));
         // Fix type safety warning by using ArgumentMatchers.<Specification<Trade>>any()
-        when(tradeRepository.findAll(org.mockito.ArgumentMatchers.<Specification<Trade>>any()))
-                .thenReturn(Arrays.asList(trade));
+        when(tradeRepository.findBlotterRowsAfter(org.mockito.ArgumentMatchers.<Specification<Trade>>any(), isNull(),
+                anyInt())).thenReturn(new SliceImpl<>(rows));
 
         TradeDTO dto = new TradeDTO();
         dto.setTradeId(22L);
-        when(tradeMapper.toDto(any(Trade.class))).thenReturn(dto);
+        when(tradeMapper.toBlotterDtos(eq(rows), anyList())).thenReturn(List.of(dto));
 
         List<TradeDTO> result = tradeDashboardService.getTradesByBook(7L);
 
@@ -320,12 +325,13 @@ public class TradeDashboardServiceTest {
                 .when(privilegeValidationEngine.validateUserPrivilegeBusinessRules(any(TradeDTO.class), any()))
                 .thenReturn(allow());
 
-        // Return a mapped DTO list for two trades with multiple currencies
-        // Fix type safety warning by specifying Specification.class
-        // Fix type safety warning by using ArgumentMatchers.<Specification<Trade>>any()
-        when(tradeRepository.findAll(org.mockito.ArgumentMatchers.<Specification<Trade>>any()))
-                .thenReturn(List.of(trade));
-        when(tradeMapper.toDto(any(Trade.class))).thenReturn(tradeDTO);
+        // REFACTORED: the all-time rows now come from TradeSummaryStore, so
+        // stub it with one trade's legs in two currencies
+        when(tradeSummaryStore.countTradesForTrader("trader1"))
+                .thenReturn(List.of(new TradeCountRow(7L, "NEW", "Swap", "BigBank", 1L)));
+        when(tradeSummaryStore.sumLegsForTrader("trader1")).thenReturn(List.of(
+                new LegTotalsRow(7L, "USD", new BigDecimal("1000000"), 50000.0),
+                new LegTotalsRow(7L, "EUR", new BigDecimal("500000"), 20000.0)));
 
         TradeSummaryDTO summary = tradeDashboardService.getTradeSummary("trader1");
 
@@ -333,6 +339,9 @@ public class TradeDashboardServiceTest {
         assertTrue(summary.getNotionalByCurrency().containsKey("USD"));
         assertTrue(summary.getNotionalByCurrency().containsKey("EUR"));
         assertEquals(new BigDecimal("1000000"), summary.getNotionalByCurrency().get("USD"));
+        assertEquals(Map.of("NEW", 1L), summary.getTradesByStatus());
+        assertEquals(new BigDecimal("70000.00"), summary.getRiskExposureSummary().get("delta"));
+        assertEquals(1, summary.getBookActivitySummaries().get(7L).getTradeCount());
     }
 
     @Test
@@ -342,18 +351,22 @@ public class TradeDashboardServiceTest {
                 .when(privilegeValidationEngine.validateUserPrivilegeBusinessRules(any(TradeDTO.class), any()))
                 .thenReturn(allow());
 
-        // Fix type safety warning by specifying Specification.class
-        // Fix type safety warning by using ArgumentMatchers.<Specification<Trade>>any()
-        when(tradeRepository.findAll(org.mockito.ArgumentMatchers.<Specification<Trade>>any()))
-                .thenReturn(List.of(trade));
-        when(tradeMapper.toDto(any(Trade.class))).thenReturn(tradeDTO);
+        // REFACTORED: stub the grouped rows for yesterday and today
+        LocalDate today = LocalDate.now();
+        when(tradeRepository.countTradesForTraderBetween("trader1", today.minusDays(1), today))
+                .thenReturn(List.of(new TradeCountRow(today, 7L, "NEW", "Swap", "BigBank", 2L),
+                        new TradeCountRow(today.minusDays(1), 7L, "NEW", "Swap", "BigBank", 1L)));
+        when(tradeRepository.sumLegsForTraderBetween("trader1", today.minusDays(1), today))
+                .thenReturn(List.of(new LegTotalsRow(today, 7L, "USD", new BigDecimal("1000000"), 50000.0)));
 
         DailySummaryDTO summary = tradeDashboardService.getDailySummary("trader1");
 
         assertNotNull(summary);
         assertNotNull(summary.getHistoricalComparisons());
         assertTrue(summary.getHistoricalComparisons().size() >= 1);
-        assertTrue(summary.getTodaysTradeCount() >= 0);
+        assertEquals(2, summary.getTodaysTradeCount());
+        assertEquals(1, summary.getHistoricalComparisons().get(0).getTradeCount());
+        assertEquals(new BigDecimal("1000000"), summary.getTodaysNotionalByCurrency().get("USD"));
     }
 
     @ParameterizedTest
@@ -363,19 +376,16 @@ public class TradeDashboardServiceTest {
         SearchCriteriaDTO criteria = new SearchCriteriaDTO();
         criteria.setCounterparty("BigBank");
 
-        Trade trade = new Trade();
-        trade.setTradeId(99L);
-        Page<Trade> tradePage = new PageImpl<>(List.of(trade));
+        Page<TradeBlotterRow> rowPage = new PageImpl<>(List.of(blotterRow(99L, null, null)));
 
-        // Fix type safety warning by specifying Specification.class
         // Fix type safety warning by using ArgumentMatchers.<Specification<Trade>>any()
-        when(tradeRepository.findAll(org.mockito.ArgumentMatchers.<Specification<Trade>>any(), any(Pageable.class)))
-                .thenReturn(tradePage);
-        when(tradeMapper.toDto(any(Trade.class))).thenReturn(new TradeDTO() {
+        when(tradeRepository.findBlotterRows(org.mockito.ArgumentMatchers.<Specification<Trade>>any(), any(Pageable.class)))
+                .thenReturn(rowPage);
+        when(tradeMapper.toBlotterDtos(anyList(), anyList())).thenReturn(List.of(new TradeDTO() {
             {
                 setTradeId(99L);
             }
-        });
+        }));
 
         Page<TradeDTO> page = tradeDashboardService.filterTrades(criteria, 0, size);
         assertEquals(1, page.getContent().size());
@@ -393,17 +403,15 @@ public class TradeDashboardServiceTest {
     @DisplayName("RSQL Search: Should handle multiple query variations correctly")
     @MethodSource("rsqlQueries")
     void testRsqlSearch_VariousQueries(String rsql) {
-        Trade trade = new Trade();
-        trade.setTradeId(123L);
-        // Fix type safety warning by specifying Specification.class
+        List<TradeBlotterRow> rows = List.of(blotterRow(123L, null, null));
         // Fix type safety warning by using ArgumentMatchers.<Specification<Trade>>any()
-        when(tradeRepository.findAll(org.mockito.ArgumentMatchers.<Specification<Trade>>any()))
-                .thenReturn(List.of(trade));
-        when(tradeMapper.toDto(any(Trade.class))).thenReturn(new TradeDTO() {
+        when(tradeRepository.findBlotterRowsAfter(org.mockito.ArgumentMatchers.<Specification<Trade>>any(), isNull(),
+                anyInt())).thenReturn(new SliceImpl<>(rows));
+        when(tradeMapper.toBlotterDtos(eq(rows), anyList())).thenReturn(List.of(new TradeDTO() {
             {
                 setTradeId(123L);
             }
-        });
+        }));
 
         List<TradeDTO> result = tradeDashboardService.searchTradesRsql(rsql);
         assertEquals(1, result.size());
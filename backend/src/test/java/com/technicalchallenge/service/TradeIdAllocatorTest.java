@@ -0,0 +1,132 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.IdAllocation;
+import com.technicalchallenge.repository.IdAllocationRepository;
+import com.technicalchallenge.repository.TradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TradeIdAllocatorTest {
+
+    @Mock
+    private IdAllocationRepository idAllocationRepository;
+    @Mock
+    private TradeRepository tradeRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    // Stands in for the id_allocation row
+    private final AtomicReference<IdAllocation> row = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        when(idAllocationRepository.findForUpdate(eq("trade_id")))
+                .thenAnswer(inv -> Optional.ofNullable(row.get()));
+        when(idAllocationRepository.saveAndFlush(any(IdAllocation.class))).thenAnswer(inv -> {
+            IdAllocation saved = inv.getArgument(0);
+            row.set(saved);
+            return saved;
+        });
+    }
+
+    @Test
+    void testFirstBlockStartsAfterExistingTrades() {
+        when(tradeRepository.findMaxTradeId()).thenReturn(Optional.of(10042L));
+        TradeIdAllocator allocator = new TradeIdAllocator(idAllocationRepository, tradeRepository,
+                transactionManager, 10);
+
+        assertEquals(10043L, allocator.nextTradeId());
+        assertEquals(10044L, allocator.nextTradeId());
+        assertEquals(10053L, row.get().getNextValue());
+    }
+
+    @Test
+    void testEmptyDatabaseStartsAtTenThousand() {
+        when(tradeRepository.findMaxTradeId()).thenReturn(Optional.empty());
+        TradeIdAllocator allocator = new TradeIdAllocator(idAllocationRepository, tradeRepository,
+                transactionManager, 10);
+
+        assertEquals(10000L, allocator.nextTradeId());
+    }
+
+    @Test
+    void testOneReservationPerBlock() {
+        row.set(new IdAllocation("trade_id", 20000L));
+        TradeIdAllocator allocator = new TradeIdAllocator(idAllocationRepository, tradeRepository,
+                transactionManager, 5);
+
+        for (long expected = 20000L; expected < 20012L; expected++) {
+            assertEquals(expected, allocator.nextTradeId());
+        }
+
+        // 12 ids from blocks of 5 -> three reservations, no table scans
+        verify(idAllocationRepository, times(3)).findForUpdate("trade_id");
+        verify(tradeRepository, never()).count();
+        verify(tradeRepository, never()).findMaxTradeId();
+        assertEquals(20015L, row.get().getNextValue());
+    }
+
+    @Test
+    void testTwoNodesNeverShareIds() {
+        // Two allocators over the same counter row behave like two backend nodes
+        row.set(new IdAllocation("trade_id", 10000L));
+        TradeIdAllocator nodeA = new TradeIdAllocator(idAllocationRepository, tradeRepository,
+                transactionManager, 3);
+        TradeIdAllocator nodeB = new TradeIdAllocator(idAllocationRepository, tradeRepository,
+                transactionManager, 3);
+
+        assertEquals(10000L, nodeA.nextTradeId());
+        assertEquals(10003L, nodeB.nextTradeId());
+        assertEquals(10001L, nodeA.nextTradeId());
+        assertEquals(10004L, nodeB.nextTradeId());
+    }
+
+    @Test
+    void testConcurrentBookingsGetUniqueIds() throws Exception {
+        row.set(new IdAllocation("trade_id", 10000L));
+        TradeIdAllocator allocator = new TradeIdAllocator(idAllocationRepository, tradeRepository,
+                transactionManager, 7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new java.util.ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        assertTrue(ids.add(allocator.nextTradeId()), "duplicate trade id");
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(2000, ids.size());
+    }
+}
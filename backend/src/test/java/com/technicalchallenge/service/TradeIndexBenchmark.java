@@ -0,0 +1,202 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.repository.TradeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TradeIndexBenchmark
+ *
+ * Latency of the hot trade queries at a million trades, without and then
+ * with the V1 index set (db/migration/h2/V1__trade_performance_indexes.sql):
+ * - current version by business id (findByTradeIdAndActiveTrue);
+ * - a trader's trades and leg totals over a week (the dashboard queries,
+ * matched on the lower-case login column);
+ * - a book's active trades and a trade date window;
+ * - a leg's cashflows in value date order.
+ *
+ * The trades are bulk loaded with INSERT ... SELECT. The foreign keys on the
+ * trade tables are dropped first: H2 indexes every foreign key column by
+ * itself, which PostgreSQL does not, and those indexes would otherwise stand
+ * in for the migrated ones in the "without" run.
+ *
+ * Not part of the normal build (the class name does not end in Test). Run:
+ *
+ * mvn test -Dtest=TradeIndexBenchmark [-Dbenchmark.trades=1000000]
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TradeIndexBenchmark {
+
+    private static final int TRADES = Integer.getInteger("benchmark.trades", 1_000_000);
+    private static final int TRADERS = 200;
+    private static final int BOOKS = 50;
+    private static final int DAYS = 730;
+    // One trade in ten has two legs, each leg four cashflows
+    private static final int LEGGED_EVERY = 10;
+    private static final long FIRST_ID = 50_000_000L;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2024, 1, 1);
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 20;
+
+    private static final List<String> V1_INDEXES = List.of("idx_trade_trade_id_active", "idx_trade_trader_active",
+            "idx_trade_trade_date", "idx_trade_book", "idx_trade_leg_trade", "idx_cashflow_leg_value_date",
+            "idx_user_privilege_privilege", "idx_application_user_login_id_lower");
+
+    @Autowired
+    private TradeRepository tradeRepository;
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    @Test
+    void compareWithAndWithoutIndexes() {
+        jdbc = new JdbcTemplate(dataSource);
+        long loadStart = System.nanoTime();
+        dropForeignKeys();
+        loadTrades();
+        System.out.printf("%nTradeIndexBenchmark: %d trades, %d legs, %d cashflows loaded in %.1f s%n", TRADES,
+                count("trade_leg"), count("cashflow"), (System.nanoTime() - loadStart) / 1e9);
+
+        V1_INDEXES.forEach(index -> jdbc.execute("DROP INDEX IF EXISTS " + index));
+        jdbc.execute("ANALYZE");
+        Map<String, double[]> without = measure();
+
+        long indexStart = System.nanoTime();
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/h2/V1__trade_performance_indexes.sql"))
+                .execute(dataSource);
+        jdbc.execute("ANALYZE");
+        System.out.printf("  V1 index set built in %.1f s%n", (System.nanoTime() - indexStart) / 1e9);
+        Map<String, double[]> with = measure();
+
+        System.out.printf("  %-40s %12s %12s %8s%n", "query (ms/query)", "without", "with V1", "rows");
+        for (String query : without.keySet()) {
+            assertEquals(without.get(query)[1], with.get(query)[1], query);
+            System.out.printf("  %-40s %12.3f %12.3f %8.0f%n", query, without.get(query)[0], with.get(query)[0],
+                    with.get(query)[1]);
+        }
+        System.out.println();
+    }
+
+    // query -> {ms per query, rows over all rounds}. Every round asks for a
+    // different trade, trader, week, book or leg: H2 hands back the previous
+    // result when a statement is re-run with the same binds on unchanged
+    // tables, which would hide the scans.
+    private Map<String, double[]> measure() {
+        int legs = (int) count("trade_leg");
+        Map<String, IntUnaryOperator> queries = new LinkedHashMap<>();
+        queries.put("trade by trade id (active)", round -> tradeRepository
+                .findByTradeIdAndActiveTrue(FIRST_ID + spread(round, TRADES)).isPresent() ? 1 : 0);
+        queries.put("trader trade counts, one week", round -> tradeRepository
+                .countTradesForTraderBetween(trader(round), week(round), week(round).plusDays(6)).size());
+        queries.put("trader leg totals, one week", round -> tradeRepository
+                .sumLegsForTraderBetween(trader(round), week(round), week(round).plusDays(6)).size());
+        queries.put("active trades in a book (count)", round -> (int) tradeRepository.count(
+                (Specification<Trade>) (root, query, cb) -> cb.and(
+                        cb.equal(root.get("book").get("id"), 900000L + round % BOOKS),
+                        cb.isTrue(root.get("active")))));
+        queries.put("trades in a one-week window (count)", round -> (int) tradeRepository.count(
+                (Specification<Trade>) (root, query, cb) -> cb.between(root.get("tradeDate"), week(round),
+                        week(round).plusDays(6))));
+        queries.put("cashflows of a leg by value date", round -> jdbc.queryForList(
+                "SELECT id, value_date, payment_value FROM cashflow WHERE leg_id = ? ORDER BY value_date",
+                FIRST_ID + spread(round, legs)).size());
+
+        Map<String, double[]> results = new LinkedHashMap<>();
+        queries.forEach((name, run) -> results.put(name, time(run)));
+        return results;
+    }
+
+    private static int spread(int round, int size) {
+        return (int) ((round * 7919L) % size);
+    }
+
+    private static String trader(int round) {
+        return "benchtrader" + spread(round, TRADERS);
+    }
+
+    private static LocalDate week(int round) {
+        return FIRST_DATE.plusDays(spread(round, DAYS - 6));
+    }
+
+    private static double[] time(IntUnaryOperator run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run.applyAsInt(MEASURED_ROUNDS + i);
+        }
+        int rows = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            rows += run.applyAsInt(i);
+        }
+        return new double[] { (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ROUNDS, rows };
+    }
+
+    private void dropForeignKeys() {
+        jdbc.queryForList("SELECT TABLE_NAME, CONSTRAINT_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS "
+                + "WHERE CONSTRAINT_TYPE = 'FOREIGN KEY' AND LOWER(TABLE_NAME) IN ('trade', 'trade_leg', 'cashflow')")
+                .forEach(fk -> jdbc.execute("ALTER TABLE " + fk.get("TABLE_NAME") + " DROP CONSTRAINT "
+                        + fk.get("CONSTRAINT_NAME")));
+    }
+
+    private void loadTrades() {
+        jdbc.update("INSERT INTO application_user (id, first_name, last_name, login_id, password, active, version) "
+                + "SELECT 900000 + X, 'Bench', 'Trader', 'BenchTrader' || X, '{noop}password', TRUE, 1 "
+                + "FROM SYSTEM_RANGE(0, " + (TRADERS - 1) + ")");
+        jdbc.update("INSERT INTO book (id, book_name, active, version) "
+                + "SELECT 900000 + X, 'BENCH-BOOK-' || X, TRUE, 1 FROM SYSTEM_RANGE(0, " + (BOOKS - 1) + ")");
+        String statuses = idArray("trade_status");
+        String types = idArray("trade_type");
+        String currencies = idArray("currency");
+
+        // X runs from 0; trade X is version 1 of trade id FIRST_ID + X, active
+        // unless X % 20 == 19
+        jdbc.update("INSERT INTO trade (id, trade_id, version, active, trade_date, book_id, trader_user_id, "
+                + "trade_status_id, trade_type_id) "
+                + "SELECT " + FIRST_ID + " + X, " + FIRST_ID + " + X, 1, MOD(X, 20) <> 19, "
+                + "DATE '" + FIRST_DATE + "' + MOD(X, " + DAYS + "), 900000 + MOD(X, " + BOOKS + "), "
+                + "900000 + MOD(X / 7, " + TRADERS + "), "
+                + statuses + "[MOD(X, CARDINALITY(" + statuses + ")) + 1], "
+                + types + "[MOD(X, CARDINALITY(" + types + ")) + 1] "
+                + "FROM SYSTEM_RANGE(0, " + (TRADES - 1) + ")");
+        // Legs FIRST_ID + 2X and FIRST_ID + 2X + 1 for every LEGGED_EVERY-th trade
+        jdbc.update("INSERT INTO trade_leg (leg_id, trade_id, notional, rate, currency_id) "
+                + "SELECT " + FIRST_ID + " + X, " + FIRST_ID + " + (X / 2) * " + LEGGED_EVERY + ", "
+                + "1000000 + MOD(X, 97) * 1000, 0.01 * MOD(X, 5), "
+                + currencies + "[MOD(X, CARDINALITY(" + currencies + ")) + 1] "
+                + "FROM SYSTEM_RANGE(0, " + (2 * (TRADES / LEGGED_EVERY) - 1) + ")");
+        // Four quarterly cashflows per leg, inserted latest first
+        jdbc.update("INSERT INTO cashflow (id, leg_id, payment_value, rate, value_date, active) "
+                + "SELECT " + FIRST_ID + " + X, " + FIRST_ID + " + X / 4, 2500, 0.01, "
+                + "DATEADD(MONTH, 3 * (3 - MOD(X, 4)), DATE '" + FIRST_DATE + "'), TRUE "
+                + "FROM SYSTEM_RANGE(0, " + (4 * 2 * (TRADES / LEGGED_EVERY) - 1) + ")");
+    }
+
+    private String idArray(String table) {
+        List<Long> ids = jdbc.queryForList("SELECT id FROM " + table + " ORDER BY id", Long.class);
+        assertFalse(ids.isEmpty(), table);
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(",", "ARRAY[", "]"));
+    }
+
+    private long count(String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
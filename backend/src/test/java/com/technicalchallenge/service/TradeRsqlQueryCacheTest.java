@@ -0,0 +1,103 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.repository.TradeJpqlFilter;
+
+import cz.jirutka.rsql.parser.RSQLParserException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeRsqlQueryCacheTest {
+
+    @Test
+    void testSameQueryReusesCompiledPlan() {
+        TradeRsqlQueryCache cache = new TradeRsqlQueryCache();
+
+        Specification<Trade> first = cache.compile("counterparty.name==BigBank;tradeStatus.tradeStatus=in=(NEW,LIVE)");
+        Specification<Trade> again = cache.compile(" counterparty.name == BigBank ; tradeStatus.tradeStatus =in= (NEW, LIVE) ");
+
+        assertSame(first, again);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedPlanIsEvicted() {
+        TradeRsqlQueryCache cache = new TradeRsqlQueryCache(TradeRsqlFields.reflective(), 2);
+
+        Specification<Trade> a = cache.compile("tradeId==1");
+        cache.compile("tradeId==2");
+        // Touch the first, so the second is the eldest
+        assertSame(a, cache.compile("tradeId==1"));
+        cache.compile("tradeId==3");
+
+        assertEquals(2, cache.size());
+        assertSame(a, cache.compile("tradeId==1"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testInvalidQueriesAreNotCached() {
+        TradeRsqlQueryCache cache = new TradeRsqlQueryCache();
+
+        assertThrows(RSQLParserException.class, () -> cache.compile("tradeId=="));
+        assertThrows(IllegalArgumentException.class, () -> cache.compile("nonexistentField==1"));
+        assertThrows(IllegalArgumentException.class, () -> cache.compile("tradeId=like=1*"));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testJpqlFilterReadsJoinedAliasesAndBindsValues() {
+        TradeRsqlQueryCache cache = new TradeRsqlQueryCache();
+
+        TradeJpqlFilter filter = cache.compileJpql(
+                "counterparty.name==BigBank;(tradeStatus.tradeStatus=in=(NEW,LIVE),tradeDate=ge=2025-01-02)");
+
+        assertEquals("(lower(cp.name) = :p0 and (ts.tradeStatus in :p1 or t.tradeDate >= :p2))", filter.where());
+        assertEquals(List.of("bigbank", List.of("NEW", "LIVE"), LocalDate.of(2025, 1, 2)), filter.parameters());
+        assertSame(filter, cache.compileJpql(
+                "counterparty.name == BigBank ; (tradeStatus.tradeStatus=in=(NEW,LIVE) , tradeDate=ge=2025-01-02)"));
+        assertThrows(IllegalArgumentException.class, () -> cache.compileJpql("tradeId==notANumber"));
+    }
+
+    @Test
+    void testNormalizeKeepsWhitespaceInsideQuotes() {
+        assertEquals("counterparty.name=='Big Bank';tradeId=gt=5",
+                TradeRsqlQueryCache.normalize(" counterparty.name == 'Big Bank' ; tradeId =gt= 5"));
+        assertEquals("counterparty.name==\"A \\\" B\"",
+                TradeRsqlQueryCache.normalize("counterparty.name == \"A \\\" B\""));
+    }
+
+    @Test
+    void testKeywordOperatorsKeepTheirSpaces() {
+        TradeRsqlQueryCache cache = new TradeRsqlQueryCache();
+
+        assertEquals("tradeId==5 and version==1", TradeRsqlQueryCache.normalize(" tradeId == 5  and version==1 "));
+        assertEquals("(tradeId==5 or tradeId==6) and version=ge=1",
+                TradeRsqlQueryCache.normalize("(tradeId==5 or tradeId==6)  and version =ge= 1"));
+
+        Specification<Trade> and = cache.compile("tradeId==5 and version==1");
+        assertSame(and, cache.compile("tradeId == 5  and  version == 1"));
+        assertNotSame(and, cache.compile("tradeId==5 or version==1"));
+        assertNotNull(cache.compile("(tradeId==5 or tradeId==6) and version==1"));
+        assertEquals("(t.tradeId = :p0 or t.version = :p1)",
+                cache.compileJpql("tradeId==5 or version==1").where());
+    }
+
+    @Test
+    void testReflectiveFieldsCoverNestedPathsButNotCollections() {
+        TradeRsqlFields fields = TradeRsqlFields.reflective();
+
+        assertEquals(Long.class, fields.resolve("tradeId").javaType());
+        assertEquals(String.class, fields.resolve("counterparty.name").javaType());
+        assertArrayEquals(new String[] { "tradeStatus", "tradeStatus" },
+                fields.resolve("tradeStatus.tradeStatus").segments());
+        assertThrows(IllegalArgumentException.class, () -> fields.resolve("tradeLegs"));
+        assertThrows(IllegalArgumentException.class, () -> fields.resolve("tradeId.value"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.model.Counterparty;
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.repository.ApplicationUserRepository;
+import com.technicalchallenge.repository.BookRepository;
+import com.technicalchallenge.repository.CounterpartyRepository;
+import com.technicalchallenge.repository.TradeRepository;
+import com.technicalchallenge.repository.TradeStatusRepository;
+import com.technicalchallenge.repository.TradeTypeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TradeRsqlSearchBenchmark
+ *
+ * Runs the same RSQL queries through both engines over a few thousand
+ * trades and reports latency and statements per query:
+ * - criteria: the cached Specification applied by the Criteria blotter query
+ * (TradeRsqlVisitor), which joins each referenced table again for the filter;
+ * - jpql: the cached TradeJpqlFilter run as one JPQL statement with the
+ * reference tables joined once (TradeRsqlJpqlCompiler).
+ * Both return blotter rows, so neither loads entities; the difference is the
+ * statement shape and the Criteria translation on every call.
+ *
+ * Not part of the normal build (the class name does not end in Test). Run:
+ *
+ * mvn test -Dtest=TradeRsqlSearchBenchmark
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@WithMockUser(username = "testTrader", roles = { "MIDDLE_OFFICE" })
+class TradeRsqlSearchBenchmark {
+
+    private static final int TRADES = 5_000;
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int MEASURED_ROUNDS = 200;
+    private static final int PAGE = 100;
+
+    private static final List<String> QUERIES = List.of(
+            "counterparty.name==BenchBank4;tradeStatus.tradeStatus==NEW",
+            "book.bookName=like=*BOOK*;tradeType.tradeType==Swap;tradeDate=ge=2025-01-15",
+            "counterparty.name=in=(BenchBank1,BenchBank2),traderUser.loginId==simon");
+
+    @Autowired
+    private TradeRepository tradeRepository;
+    @Autowired
+    private TradeRsqlQueryCache rsqlQueryCache;
+    @Autowired
+    private CounterpartyRepository counterpartyRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private ApplicationUserRepository userRepository;
+    @Autowired
+    private TradeStatusRepository tradeStatusRepository;
+    @Autowired
+    private TradeTypeRepository tradeTypeRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void compareEngines() {
+        bookTrades();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        System.out.printf("%nTradeRsqlSearchBenchmark: %d trades, page of %d, %d rounds per query%n",
+                TRADES, PAGE, MEASURED_ROUNDS);
+        for (String query : QUERIES) {
+            int criteriaRows = tradeRepository.findBlotterRowsAfter(rsqlQueryCache.compile(query), null, PAGE)
+                    .getNumberOfElements();
+            int jpqlRows = tradeRepository.findBlotterRowsMatching(rsqlQueryCache.compileJpql(query), null, PAGE)
+                    .getNumberOfElements();
+            assertEquals(criteriaRows, jpqlRows, query);
+
+            System.out.printf("  %s (%d rows)%n", query, jpqlRows);
+            report("criteria", statistics, () -> tradeRepository
+                    .findBlotterRowsAfter(rsqlQueryCache.compile(query), null, PAGE).getNumberOfElements());
+            report("jpql", statistics, () -> tradeRepository
+                    .findBlotterRowsMatching(rsqlQueryCache.compileJpql(query), null, PAGE).getNumberOfElements());
+        }
+        System.out.println();
+    }
+
+    private static void report(String engine, Statistics statistics, Supplier<Integer> run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run.get();
+        }
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            run.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        System.out.printf("    %-8s %.3f ms/query, %.1f statements/query%n", engine,
+                elapsedNanos / 1_000_000.0 / MEASURED_ROUNDS,
+                (double) statistics.getPrepareStatementCount() / MEASURED_ROUNDS);
+    }
+
+    private void bookTrades() {
+        List<Counterparty> counterparties = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Counterparty counterparty = new Counterparty();
+            counterparty.setName("BenchBank" + i);
+            counterparty.setActive(true);
+            counterparties.add(counterpartyRepository.save(counterparty));
+        }
+        var books = bookRepository.findAll();
+        var users = userRepository.findAll();
+        var statuses = List.of(tradeStatusRepository.findByTradeStatus("NEW").orElseThrow(),
+                tradeStatusRepository.findByTradeStatus("LIVE").orElseThrow());
+        var types = tradeTypeRepository.findAll();
+        List<Trade> trades = new ArrayList<>();
+        for (int i = 0; i < TRADES; i++) {
+            Trade trade = new Trade();
+            trade.setTradeId(950000L + i);
+            trade.setVersion(1);
+            trade.setActive(true);
+            trade.setTradeDate(LocalDate.of(2025, 1, 1).plusDays(i % 60));
+            trade.setCounterparty(counterparties.get(i % counterparties.size()));
+            trade.setBook(books.get(i % books.size()));
+            trade.setTraderUser(users.get(i % users.size()));
+            trade.setTradeStatus(statuses.get(i % 2));
+            trade.setTradeType(types.get(i % types.size()));
+            trades.add(trade);
+        }
+        tradeRepository.saveAll(trades);
+        tradeRepository.flush();
+    }
+}
@@ -9,16 +9,26 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import com.technicalchallenge.validation.EntityStatusValidationEngine;
+import com.technicalchallenge.validation.EntityStatusValidator;
+import com.technicalchallenge.validation.SettlementInstructionValidator;
+import com.technicalchallenge.validation.TradeValidationEngine;
+import com.technicalchallenge.validation.UserPrivilegeValidator;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 // FIX: Allow mixed tests to share a class-level setup without failing on unused stubs
 import org.mockito.junit.jupiter.MockitoSettings; // FIX: import for lenient strictness
 import org.mockito.quality.Strictness; // FIX: import for lenient strictness
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,41 +49,37 @@ class TradeServiceTest {
     @Mock
     private CashflowRepository cashflowRepository;
 
-    @Mock
-    private TradeStatusRepository tradeStatusRepository;
-
     @Mock
     private TradeMapper tradeMapper;
 
-    // FIX: These are present in TradeService; keeping them mocked avoids NPE if
-    // future tests touch them.
+    // CHANGED: reference data is resolved through ReferenceDataCache. Deep
+    // stubs give every table a mock that finds nothing unless a test stubs
+    // it, e.g. when(referenceDataCache.books().findByName(...)).
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private ReferenceDataCache referenceDataCache;
+
+    // Read by the entity status checks of testCreateTrade_ResolvesReferencesOnce
     @Mock
     private BookRepository bookRepository;
     @Mock
     private CounterpartyRepository counterpartyRepository;
     @Mock
     private ApplicationUserRepository applicationUserRepository;
+
     @Mock
-    private TradeTypeRepository tradeTypeRepository;
-    @Mock
-    private TradeSubTypeRepository tradeSubTypeRepository;
-    @Mock
-    private CurrencyRepository currencyRepository;
-    @Mock
-    private LegTypeRepository legTypeRepository;
-    @Mock
-    private IndexRepository indexRepository;
-    @Mock
-    private HolidayCalendarRepository holidayCalendarRepository;
+    private AdditionalInfoService additionalInfoService;
+    // Ownership and elevated-view checks; denies (false) unless stubbed
     @Mock
-    private ScheduleRepository scheduleRepository;
+    private UserPrivilegeValidator userPrivilegeValidator;
     @Mock
-    private BusinessDayConventionRepository businessDayConventionRepository;
+    private TradeIdAllocator tradeIdAllocator;
     @Mock
-    private PayRecRepository payRecRepository;
-
+    private TradeSummaryStore tradeSummaryStore;
     @Mock
-    private AdditionalInfoService additionalInfoService;
+    private HolidayCalendarRegistry holidayCalendarRegistry;
+    // The real engine, so the cashflow tests check real schedules
+    @Spy
+    private CashflowScheduleEngine cashflowScheduleEngine = new CashflowScheduleEngine();
 
     @InjectMocks
     private TradeService tradeService;
@@ -128,9 +134,10 @@ class TradeServiceTest {
         newStatus.setId(30L);
         newStatus.setTradeStatus("NEW");
 
-        when(bookRepository.findByBookName("TEST-BOOK-1")).thenReturn(Optional.of(book)); // FIX: ref data stub
-        when(counterpartyRepository.findByName("TestCounterparty")).thenReturn(Optional.of(cp)); // FIX: ref data stub
-        when(tradeStatusRepository.findByTradeStatus("NEW")).thenReturn(Optional.of(newStatus)); // FIX: ref data stub
+        // FIX: ref data stubs
+        when(referenceDataCache.books().findByName("TEST-BOOK-1")).thenReturn(Optional.of(book));
+        when(referenceDataCache.counterparties().findByName("TestCounterparty")).thenReturn(Optional.of(cp));
+        when(referenceDataCache.tradeStatuses().findByName("NEW")).thenReturn(Optional.of(newStatus));
 
         when(tradeRepository.save(any(Trade.class))).thenAnswer(inv -> inv.getArgument(0)); // FIX: return saved entity
 
@@ -152,6 +159,56 @@ class TradeServiceTest {
         verify(tradeRepository, atLeastOnce()).save(any(Trade.class)); // saved trade and amended legs/cashflows path
     }
 
+    // ADDED: validation reads the references the booking resolved, so each
+    // is looked up once, and the settlement instruction is written once
+    @Test
+    void testCreateTrade_ResolvesReferencesOnce() {
+        // Given an engine with the repository-backed entity status checks
+        ReflectionTestUtils.setField(tradeService, "tradeValidationEngine",
+                new TradeValidationEngine(new SettlementInstructionValidator(), new EntityStatusValidationEngine(
+                        new EntityStatusValidator(bookRepository, counterpartyRepository,
+                                applicationUserRepository))));
+        tradeDTO.setBookName("TEST-BOOK-1");
+        tradeDTO.setCounterpartyName("TestCounterparty");
+        tradeDTO.setTraderUserId(40L);
+        tradeDTO.setSettlementInstructions("  Settle via Euroclear acct 12345  ");
+        tradeDTO.getTradeLegs().get(0).setPayReceiveFlag("Pay");
+        tradeDTO.getTradeLegs().get(1).setPayReceiveFlag("Receive");
+        tradeDTO.getTradeLegs().forEach(leg -> leg.setTradeMaturityDate(tradeDTO.getTradeMaturityDate()));
+
+        Book book = new Book();
+        book.setBookName("TEST-BOOK-1");
+        book.setActive(true);
+        Counterparty cp = new Counterparty();
+        cp.setName("TestCounterparty");
+        cp.setActive(true);
+        ApplicationUser trader = new ApplicationUser();
+        trader.setId(40L);
+        trader.setActive(true);
+        TradeStatus newStatus = new TradeStatus();
+        newStatus.setTradeStatus("NEW");
+
+        when(referenceDataCache.books().findByName("TEST-BOOK-1")).thenReturn(Optional.of(book));
+        when(referenceDataCache.counterparties().findByName("TestCounterparty")).thenReturn(Optional.of(cp));
+        when(referenceDataCache.users().findById(40L)).thenReturn(Optional.of(trader));
+        when(referenceDataCache.tradeStatuses().findByName("NEW")).thenReturn(Optional.of(newStatus));
+        when(tradeRepository.save(any(Trade.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(tradeLegRepository.save(any(TradeLeg.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        Trade result = tradeService.createTrade(tradeDTO);
+
+        // Then
+        assertSame(book, result.getBook());
+        assertSame(trader, result.getTraderUser());
+        verify(referenceDataCache.books(), times(1)).findByName("TEST-BOOK-1");
+        verify(referenceDataCache.counterparties(), times(1)).findByName("TestCounterparty");
+        verify(referenceDataCache.users(), times(1)).findById(40L);
+        verifyNoInteractions(bookRepository, counterpartyRepository, applicationUserRepository);
+        verify(additionalInfoService, times(1)).saveValidatedSettlement(100001L, "Settle via Euroclear acct 12345",
+                false);
+    }
+
     @Test
     void testCreateTrade_InvalidDates_ShouldFail() {
         // Given - This test is intentionally failing for candidates to fix
@@ -225,7 +282,7 @@ class TradeServiceTest {
         // Stubs the status lookup so asking for "AMENDED" returns the amended object
         // (wrapped in Optional) every time. The // FIX: is just a note to future
         // readers.
-        when(tradeStatusRepository.findByTradeStatus("AMENDED")).thenReturn(Optional.of(amended));
+        when(referenceDataCache.tradeStatuses().findByName("AMENDED")).thenReturn(Optional.of(amended));
 
         // Begins a stub for saving TradeLeg entities using thenAnswer to customise the
         // return value.Return whatever is being saved (deactivate old trade + amended
@@ -269,6 +326,7 @@ class TradeServiceTest {
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void testCashflowGeneration_MonthlySchedule() {
         // creating a new object
         TradeLeg leg = new TradeLeg();
@@ -295,10 +353,31 @@ class TradeServiceTest {
         tradeService.generateCashflows(leg, startDate, maturityDate);
 
         // then
-        // Using Mockito to verify the expected number of cashflows. This tells Mockito
-        // to expect that method is called 12 times to generate cashflow
-        verify(cashflowRepository, times(12)).save(any(Cashflow.class));// Cashflow.class any instance of the Cashflow
-                                                                        // type
+        // Using Mockito to verify the expected number of cashflows. The 12 monthly
+        // cashflows are persisted in one saveAll() call (batched insert) rather
+        // than 12 individual save() calls
+        ArgumentCaptor<List<Cashflow>> captor = ArgumentCaptor.forClass(List.class);
+        verify(cashflowRepository, times(1)).saveAll(captor.capture());
+        verify(cashflowRepository, never()).save(any(Cashflow.class));
+        assertEquals(12, captor.getValue().size());
+    }
+
+    @Test
+    void testCashflowGeneration_UnsupportedConventionRejected() {
+        // The cashflow preview answers 400 for a convention it cannot apply;
+        // booking must reject it too instead of leaving payment dates unadjusted
+        TradeLeg leg = new TradeLeg();
+        leg.setNotional(BigDecimal.valueOf(1000000));
+        leg.setRate(0.5);
+        BusinessDayConvention convention = new BusinessDayConvention();
+        convention.setBdc("End of Month");
+        leg.setPaymentBusinessDayConvention(convention);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> tradeService.generateCashflows(leg, LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1)));
+
+        assertTrue(exception.getMessage().contains("Unsupported business day convention: End of Month"));
+        verify(cashflowRepository, never()).saveAll(anyList());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.dto.DailySummaryDTO;
+import com.technicalchallenge.dto.TradeDTO;
+import com.technicalchallenge.dto.TradeLegDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeSummaryAggregatorTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 13);
+    private static final LocalDate WEEK_START = TODAY.minusDays(6);
+
+    private static TradeDTO trade(long bookId, String status, LocalDate tradeDate, String currency, String notional,
+            Double rate) {
+        TradeLegDTO leg = new TradeLegDTO();
+        leg.setCurrency(currency);
+        leg.setNotional(new BigDecimal(notional));
+        leg.setRate(rate);
+        TradeDTO trade = new TradeDTO();
+        trade.setBookId(bookId);
+        trade.setTradeStatus(status);
+        trade.setTradeType("Swap");
+        trade.setCounterpartyName("BigBank");
+        trade.setTradeDate(tradeDate);
+        trade.setTradeLegs(List.of(leg));
+        return trade;
+    }
+
+    @Test
+    void testAllTimeWeeklyAndDailyInOnePass() {
+        List<TradeDTO> trades = List.of(
+                trade(1, "LIVE", TODAY, "USD", "1000000", 0.05),
+                trade(1, "NEW", TODAY.minusDays(2), "USD", "500000", null),
+                trade(2, "LIVE", TODAY.minusDays(30), "EUR", "2000000", 0.01));
+
+        TradeSummaryAggregator result = TradeSummaryAggregator.aggregate(trades, WEEK_START, 7);
+
+        assertEquals(Map.of("LIVE", 2L, "NEW", 1L), result.allTime().tradesByStatus());
+        assertEquals(new BigDecimal("1500000"), result.allTime().notionalByCurrency().get("USD"));
+        assertEquals(new BigDecimal("2000000"), result.allTime().notionalByCurrency().get("EUR"));
+        assertEquals(Map.of("Swap:BigBank", 3L), result.allTime().tradesByTypeAndCounterparty());
+        assertEquals(new BigDecimal("70000.00"), result.allTime().delta());
+
+        // The 30-day-old EUR trade is outside the week
+        assertEquals(2, result.window().getTradeCount());
+        assertEquals(Map.of("USD", new BigDecimal("1500000")), result.window().notionalByCurrency());
+        assertEquals(new BigDecimal("50000.00"), result.window().delta());
+
+        List<DailySummaryDTO.DailyComparisonSummary> days = result.dailyComparisons();
+        assertEquals(7, days.size());
+        assertEquals(1, days.get(6).getTradeCount());
+        assertEquals(1, days.get(4).getTradeCount());
+        assertEquals(0, days.get(0).getTradeCount());
+
+        Map<Long, DailySummaryDTO.BookActivitySummary> books = result.bookActivity();
+        assertEquals(2, books.get(1L).getTradeCount());
+        assertEquals(new BigDecimal("2000000"), books.get(2L).getNotionalByCurrency().get("EUR"));
+    }
+
+    @Test
+    void testParallelMergeMatchesSequential() {
+        List<TradeDTO> trades = new ArrayList<>();
+        for (int i = 0; i < TradeSummaryAggregator.PARALLEL_THRESHOLD * 2; i++) {
+            trades.add(trade(i % 7, i % 3 == 0 ? "LIVE" : "NEW", TODAY.minusDays(i % 10),
+                    i % 2 == 0 ? "USD" : "GBP", (i + 1) + ".25", i % 5 == 0 ? null : 0.0125));
+        }
+
+        TradeSummaryAggregator sequential = trades.stream()
+                .collect(TradeSummaryAggregator.collector(WEEK_START, 7));
+        TradeSummaryAggregator parallel = TradeSummaryAggregator.aggregate(trades, WEEK_START, 7);
+
+        assertEquals(sequential.allTime().tradesByStatus(), parallel.allTime().tradesByStatus());
+        assertEquals(sequential.allTime().notionalByCurrency(), parallel.allTime().notionalByCurrency());
+        assertEquals(sequential.allTime().delta(), parallel.allTime().delta());
+        assertEquals(sequential.window().notionalByCurrency(), parallel.window().notionalByCurrency());
+        assertEquals(sequential.bookActivity().get(3L).getNotionalByCurrency(),
+                parallel.bookActivity().get(3L).getNotionalByCurrency());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(sequential.dailyComparisons().get(i).getTradeCount(),
+                    parallel.dailyComparisons().get(i).getTradeCount());
+        }
+    }
+
+    @Test
+    void testCombineRejectsDifferentWindows() {
+        TradeSummaryAggregator week = new TradeSummaryAggregator(WEEK_START, 7);
+        TradeSummaryAggregator day = new TradeSummaryAggregator(TODAY, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> week.combine(day));
+    }
+}
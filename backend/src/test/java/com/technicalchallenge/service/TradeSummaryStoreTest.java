@@ -0,0 +1,270 @@
+package com.technicalchallenge.service;
+
+import com.technicalchallenge.dto.LegTotalsRow;
+import com.technicalchallenge.dto.TradeCountRow;
+import com.technicalchallenge.model.ApplicationUser;
+import com.technicalchallenge.model.Book;
+import com.technicalchallenge.model.Currency;
+import com.technicalchallenge.model.Trade;
+import com.technicalchallenge.model.TradeLeg;
+import com.technicalchallenge.model.TradeStatus;
+import com.technicalchallenge.model.TradeSummaryCount;
+import com.technicalchallenge.model.TradeSummaryLeg;
+import com.technicalchallenge.repository.TradeRepository;
+import com.technicalchallenge.repository.TradeSummaryCountRepository;
+import com.technicalchallenge.repository.TradeSummaryLegRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TradeSummaryStoreTest {
+
+    @Mock
+    private TradeSummaryCountRepository countRepository;
+    @Mock
+    private TradeSummaryLegRepository legRepository;
+    @Mock
+    private TradeRepository tradeRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    // Stand in for the two summary tables
+    private final Map<String, TradeSummaryCount> countRows = new ConcurrentHashMap<>();
+    private final Map<String, TradeSummaryLeg> legRows = new ConcurrentHashMap<>();
+
+    private TradeSummaryStore store;
+
+    @BeforeEach
+    void setUp() {
+        when(countRepository.findForUpdate(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(countRows.get(inv.<String>getArgument(0))));
+        when(countRepository.saveAndFlush(any(TradeSummaryCount.class))).thenAnswer(inv -> {
+            TradeSummaryCount row = inv.getArgument(0);
+            countRows.put(row.getSummaryKey(), row);
+            return row;
+        });
+        when(legRepository.findForUpdate(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(legRows.get(inv.<String>getArgument(0))));
+        when(legRepository.saveAndFlush(any(TradeSummaryLeg.class))).thenAnswer(inv -> {
+            TradeSummaryLeg row = inv.getArgument(0);
+            legRows.put(row.getSummaryKey(), row);
+            return row;
+        });
+        store = new TradeSummaryStore(countRepository, legRepository, tradeRepository, transactionManager);
+    }
+
+    private static Trade trade(String loginId, Long bookId, String status) {
+        ApplicationUser trader = new ApplicationUser();
+        trader.setLoginId(loginId);
+        Book book = new Book();
+        book.setId(bookId);
+        TradeStatus tradeStatus = new TradeStatus();
+        tradeStatus.setTradeStatus(status);
+        Trade trade = new Trade();
+        trade.setTraderUser(trader);
+        trade.setBook(book);
+        trade.setTradeStatus(tradeStatus);
+        trade.setTradeDate(LocalDate.of(2025, 6, 2));
+        return trade;
+    }
+
+    private static TradeLeg leg(String currency, String notional, Double rate) {
+        Currency ccy = new Currency();
+        ccy.setCurrency(currency);
+        TradeLeg leg = new TradeLeg();
+        leg.setCurrency(ccy);
+        leg.setNotional(new BigDecimal(notional));
+        leg.setRate(rate);
+        return leg;
+    }
+
+    private long count(String status) {
+        return countRows.values().stream().filter(r -> r.getTradeStatus().equals(status))
+                .mapToLong(TradeSummaryCount::getTradeCount).sum();
+    }
+
+    @Test
+    void testBookingAddsCountAndLegTotals() {
+        Trade trade = trade("Joey", 7L, "NEW");
+
+        store.addTrade(trade, List.of(leg("USD", "1000000.00", 0.05), leg("USD", "500000.00", null),
+                leg("EUR", "250000.00", 0.0123456789)));
+
+        assertEquals(1, countRows.size());
+        TradeSummaryCount count = countRows.values().iterator().next();
+        assertEquals("joey", count.getTraderLoginId());
+        assertEquals(7L, count.getBookId());
+        assertEquals(1L, count.getTradeCount());
+        assertEquals("", count.getCounterpartyName());
+
+        assertEquals(2, legRows.size());
+        TradeSummaryLeg usd = legRows.values().stream().filter(r -> r.getCurrency().equals("USD")).findFirst()
+                .orElseThrow();
+        assertEquals(new BigDecimal("1500000.00"), usd.getNotional());
+        assertEquals(0, new BigDecimal("50000").compareTo(usd.getDelta()));
+        TradeSummaryLeg eur = legRows.values().stream().filter(r -> r.getCurrency().equals("EUR")).findFirst()
+                .orElseThrow();
+        // Kept to 8 dp; the dashboard rounds the summed delta to cents
+        assertEquals(new BigDecimal("3086.41972500"), eur.getDelta());
+    }
+
+    @Test
+    void testStatusChangeMovesCount() {
+        Trade first = trade("joey", 7L, "NEW");
+        Trade second = trade("joey", 7L, "NEW");
+        store.addTrade(first, List.of());
+        store.addTrade(second, List.of());
+
+        first.getTradeStatus().setTradeStatus("CANCELLED");
+        store.changeStatus(first, "NEW");
+
+        assertEquals(1L, count("NEW"));
+        assertEquals(1L, count("CANCELLED"));
+        // Same status again is a no-op
+        store.changeStatus(first, "CANCELLED");
+        assertEquals(1L, count("CANCELLED"));
+    }
+
+    @Test
+    void testTradeWithoutTraderIsIgnored() {
+        Trade trade = trade("joey", null, "NEW");
+        trade.setTraderUser(null);
+
+        store.addTrade(trade, List.of(leg("USD", "1.00", 0.01)));
+
+        assertTrue(countRows.isEmpty());
+        assertTrue(legRows.isEmpty());
+    }
+
+    @Test
+    void testRowCreatedConcurrentlyIsLockedAndUpdated() {
+        // The other booking's insert wins: ours fails on the primary key but
+        // the row is there when we lock it again
+        when(countRepository.saveAndFlush(any(TradeSummaryCount.class))).thenAnswer(inv -> {
+            TradeSummaryCount row = inv.getArgument(0);
+            countRows.put(row.getSummaryKey(), new TradeSummaryCount(row.getSummaryKey(), row.getTraderLoginId(),
+                    row.getBookId(), row.getTradeDate(), row.getTradeStatus(), row.getTradeType(),
+                    row.getCounterpartyName(), 1L));
+            throw new DataIntegrityViolationException("duplicate key");
+        });
+
+        store.addTrade(trade("joey", 7L, "NEW"), List.of());
+
+        assertEquals(2L, count("NEW"));
+    }
+
+    @Test
+    void testRebuildRecomputesFromTradeTables() {
+        LocalDate date = LocalDate.of(2025, 6, 2);
+        when(tradeRepository.findTraderLoginIds()).thenReturn(List.of("joey"));
+        when(tradeRepository.countTradesForTraderByDate("joey")).thenReturn(List.of(
+                new TradeCountRow(date, 7L, "NEW", "Swap", "BigBank", 3L),
+                new TradeCountRow(date, null, null, null, null, 1L)));
+        when(tradeRepository.sumLegsForTraderByDate("joey")).thenReturn(List.of(
+                new LegTotalsRow(date, 7L, "USD", new BigDecimal("2000000.00"), 100000.0)));
+        List<TradeSummaryCount> savedCounts = new ArrayList<>();
+        List<TradeSummaryLeg> savedLegs = new ArrayList<>();
+        when(countRepository.saveAll(anyList())).thenAnswer(inv -> {
+            savedCounts.addAll(inv.getArgument(0));
+            return savedCounts;
+        });
+        when(legRepository.saveAll(anyList())).thenAnswer(inv -> {
+            savedLegs.addAll(inv.getArgument(0));
+            return savedLegs;
+        });
+
+        TradeSummaryStore.RebuildResult result = store.rebuild();
+
+        verify(countRepository).deleteAllRows();
+        verify(legRepository).deleteAllRows();
+        assertEquals(new TradeSummaryStore.RebuildResult(1, 2, 1), result);
+        assertEquals(3L, savedCounts.get(0).getTradeCount());
+        assertEquals(-1L, savedCounts.get(1).getBookId());
+        assertEquals("", savedCounts.get(1).getTradeStatus());
+        assertNotEquals(savedCounts.get(0).getSummaryKey(), savedCounts.get(1).getSummaryKey());
+        assertEquals(new BigDecimal("100000.00000000"), savedLegs.get(0).getDelta());
+    }
+
+    @Test
+    void testRebuildWaitsForBookingsInFlight() throws Exception {
+        // A booking that has applied its delta but not yet committed
+        TransactionSynchronizationManager.initSynchronization();
+        ExecutorService rebuilder = Executors.newSingleThreadExecutor();
+        try {
+            store.addTrade(trade("joey", 7L, "NEW"), List.of());
+            Future<TradeSummaryStore.RebuildResult> rebuild = rebuilder.submit(store::rebuild);
+
+            assertThrows(TimeoutException.class, () -> rebuild.get(200, TimeUnit.MILLISECONDS));
+            verify(countRepository, never()).deleteAllRows();
+
+            // The booking commits; its trade is now in the trade tables
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            TransactionSynchronizationManager.clearSynchronization();
+            rebuild.get(5, TimeUnit.SECONDS);
+            verify(countRepository).deleteAllRows();
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            rebuilder.shutdownNow();
+        }
+    }
+
+    @Test
+    void testBookingWaitsForRebuild() throws Exception {
+        CountDownLatch rebuildReading = new CountDownLatch(1);
+        CountDownLatch finishRebuild = new CountDownLatch(1);
+        when(tradeRepository.findTraderLoginIds()).thenAnswer(inv -> {
+            rebuildReading.countDown();
+            assertTrue(finishRebuild.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<TradeSummaryStore.RebuildResult> rebuild = threads.submit(store::rebuild);
+            assertTrue(rebuildReading.await(5, TimeUnit.SECONDS));
+            Future<?> booking = threads.submit(() -> store.addTrade(trade("joey", 7L, "NEW"), List.of()));
+
+            assertThrows(TimeoutException.class, () -> booking.get(200, TimeUnit.MILLISECONDS));
+            verify(countRepository, never()).findForUpdate(anyString());
+
+            finishRebuild.countDown();
+            rebuild.get(5, TimeUnit.SECONDS);
+            booking.get(5, TimeUnit.SECONDS);
+            assertEquals(1L, count("NEW"));
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.technicalchallenge.validation;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Optional;
@@ -18,6 +19,7 @@ import com.technicalchallenge.model.Counterparty;
 import com.technicalchallenge.repository.ApplicationUserRepository;
 import com.technicalchallenge.repository.BookRepository;
 import com.technicalchallenge.repository.CounterpartyRepository;
+import com.technicalchallenge.service.TradeResolutionContext;
 
 public class EntityStatusValidatorTest {
 
@@ -103,4 +105,47 @@ public class EntityStatusValidatorTest {
         assertTrue(result.isValid());
     }
 
+
+    @DisplayName("Resolved references are checked without querying the repositories")
+    @Test
+    void shouldCheckResolvedReferencesWithoutLookups() {
+        // GIVEN references the booking has resolved already, one inactive
+        book.setActive(true);
+        counterparty.setActive(false);
+        user.setActive(true);
+        trade.setBookName("FX-BOOK-1");
+        trade.setCounterpartyName("BigBank");
+        trade.setTraderUserName("simon");
+        TradeResolutionContext references = new TradeResolutionContext();
+        references.setBook(book);
+        references.setCounterparty(counterparty);
+        references.setTraderUser(user);
+
+        // WHEN validation runs against the context
+        validator.validate(trade, references, result);
+
+        // THEN only the inactive counterparty is reported, from the context alone
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().contains("Counterparty is not active"));
+        verifyNoInteractions(bookRepo, counterpartyRepo, userRepo);
+    }
+
+    @DisplayName("A reference the booking could not resolve is not found")
+    @Test
+    void shouldFailWhenResolvedReferenceMissing() {
+        // GIVEN a book name that resolved to nothing and no trader at all
+        trade.setBookName("NO-SUCH-BOOK");
+        trade.setCounterpartyId(20L);
+        counterparty.setActive(true);
+        TradeResolutionContext references = new TradeResolutionContext();
+        references.setCounterparty(counterparty);
+
+        // WHEN validation runs against the context
+        validator.validate(trade, references, result);
+
+        // THEN the book is not found and the trader reference is required
+        assertTrue(result.getErrors().contains("Book not found"));
+        assertTrue(result.getErrors().contains("Trader user reference is required"));
+        assertFalse(result.getErrors().stream().anyMatch(e -> e.startsWith("Counterparty")));
+    }
 }
@@ -0,0 +1,45 @@
+package com.technicalchallenge.validation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TradeValidationEngineTest {
+
+    private final SettlementInstructionValidator validator = spy(new SettlementInstructionValidator());
+    private final TradeValidationEngine engine = new TradeValidationEngine(validator, null);
+
+    @Test
+    @DisplayName("A settlement text is validated once and every call gets its own result")
+    void settlementVerdictIsReused() {
+        TradeValidationResult first = engine.validateSettlementInstructions("Short");
+        TradeValidationResult second = engine.validateSettlementInstructions("Short");
+
+        verify(validator, times(1)).validate(anyString(), any(TradeValidationResult.class));
+        assertNotSame(first, second);
+        assertFalse(second.isValid());
+        assertEquals(first.getErrors(), second.getErrors());
+
+        // Adding to one result does not leak into the next
+        second.setError("extra");
+        assertEquals(1, engine.validateSettlementInstructions("Short").getErrors().size());
+        assertTrue(engine.validateSettlementInstructions("Settle via Euroclear acct 12345").isValid());
+    }
+
+    @Test
+    @DisplayName("Only the most recently used settlement texts are kept")
+    void settlementVerdictsAreBounded() {
+        for (int i = 0; i <= TradeValidationEngine.SETTLEMENT_VERDICTS; i++) {
+            engine.validateSettlementInstructions("Settle via Euroclear acct " + i);
+        }
+        // Text 0 was the least recently used and has been dropped
+        engine.validateSettlementInstructions("Settle via Euroclear acct 0");
+
+        verify(validator, times(TradeValidationEngine.SETTLEMENT_VERDICTS + 2)).validate(anyString(),
+                any(TradeValidationResult.class));
+    }
+}
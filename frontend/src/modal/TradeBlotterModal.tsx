@@ -1,28 +1,32 @@
 import React from "react";
 import {observer} from "mobx-react-lite";
 import AGGridTable from "../components/AGGridTable";
-import {fetchTrades} from "../utils/api";
+import Button from "../components/Button";
+import {fetchTradesPage} from "../utils/api";
 import {getColDefFromResult, getRowDataFromData} from "../utils/agGridUtils";
-import { useQuery } from '@tanstack/react-query';
+import { useInfiniteQuery } from '@tanstack/react-query';
 import {Trade} from "../utils/tradeTypes";
 
 
 export const TradeBlotterModal: React.FC = observer(() => {
     const [trades, setTrades] = React.useState<Trade[]>([]);
 
-    const {data, isSuccess} = useQuery({
+    // CHANGED: the blotter loads one keyset page of GET /trades at a time
+    // (newest first) and follows X-Next-Cursor only when "Load more" is
+    // clicked, instead of pulling every page before rendering. The periodic
+    // refresh re-reads just the pages already shown.
+    const {data, isSuccess, hasNextPage, fetchNextPage, isFetchingNextPage} = useInfiniteQuery({
         queryKey: ['trades'],
-        queryFn: async () => {
-            const res = await fetchTrades();
-            return res.data;
-        },
+        queryFn: ({pageParam}) => fetchTradesPage(pageParam),
+        initialPageParam: undefined as string | undefined,
+        getNextPageParam: (lastPage) => lastPage.nextCursor,
         refetchInterval: 30000,
         refetchIntervalInBackground: true,
     });
 
     React.useEffect(() => {
         if (isSuccess && data) {
-            setTrades(data);
+            setTrades(data.pages.flatMap((page) => page.trades));
         }
     }, [isSuccess, data]);
 
@@ -37,6 +41,15 @@ export const TradeBlotterModal: React.FC = observer(() => {
                              }}
                              rowSelection={"single"}/>
             </div>
+            {hasNextPage && (
+                <div className={"flex justify-center mt-2"}>
+                    <Button size={"sm"}
+                            disabled={isFetchingNextPage}
+                            onClick={() => fetchNextPage()}>
+                        {isFetchingNextPage ? "Loading..." : "Load more"}
+                    </Button>
+                </div>
+            )}
         </div>
     )
-})
\ No newline at end of file
+})
@@ -1,5 +1,6 @@
 import axios from "axios";
 import { ApplicationUser } from "../utils/ApplicationUser";
+import { Trade } from "../utils/tradeTypes";
 
 // Create an axios instance for backend API calls.
 // Important: withCredentials is enabled so browser session cookies (or other
@@ -16,7 +17,19 @@ const api = axios.create({
   },
 });
 
-export const fetchTrades = () => api.get("/trades");
+// GET /trades is keyset paged (newest first, at most 500 trades a page); the
+// X-Next-Cursor response header carries the cursor of the next page and is
+// absent on the last one. Fetches one page: pass the nextCursor of the
+// previous page to get the one after it. The blotter asks for further pages
+// only when the user wants them, so it never loads the whole book at once.
+export const fetchTradesPage = async (cursor?: string) => {
+  const res = await api.get<Trade[]>("/trades", {
+    params: cursor ? { cursor } : undefined,
+  });
+  const nextCursor: string | undefined =
+    res.headers["x-next-cursor"] || undefined;
+  return { trades: res.data, nextCursor };
+};
 
 export const fetchAllUsers = async () => {
   console.log("Fetching all users from the API");